@@ -0,0 +1,44 @@
+package org.xiangan.fruitshopweb.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.xiangan.fruitshopweb.service.RevenueService;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 營收金額長度檢查基準測試
+ * <p>
+ * 建立與更新營收時，六個金額各檢查一次整數位數 ({@link RevenueService#checkAmountLength})；
+ * 以一般金額、十位整數的上限與小數位數多的金額比較成本。
+ * </p>
+ *
+ * @author kyle
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class AmountLengthBenchmark {
+
+	@Param({"12345.67", "9999999999.99", "-1234.5678901234"})
+	public String amount;
+
+	private BigDecimal value;
+
+	@Setup
+	public void setUp() {
+		value = new BigDecimal(amount);
+	}
+
+	/**
+	 * 檢查一個金額
+	 */
+	@Benchmark
+	public BigDecimal checkAmountLength() {
+		RevenueService.checkAmountLength("grossIncome", value);
+		return value;
+	}
+}
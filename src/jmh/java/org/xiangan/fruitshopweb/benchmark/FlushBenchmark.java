@@ -0,0 +1,191 @@
+package org.xiangan.fruitshopweb.benchmark;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.LoggerFactory;
+import org.xiangan.fruitshopweb.entity.Miscellaneous;
+import org.xiangan.fruitshopweb.entity.Person;
+import org.xiangan.fruitshopweb.entity.Product;
+import org.xiangan.fruitshopweb.entity.Purchase;
+import org.xiangan.fruitshopweb.entity.Revenue;
+import org.xiangan.fruitshopweb.entity.Wastage;
+import org.xiangan.fruitshopweb.enumType.LevelEnum;
+import org.xiangan.fruitshopweb.enumType.ProductTypeEnum;
+import org.xiangan.fruitshopweb.enumType.UnitTypeEnum;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 編輯後 flush 的成本
+ * <p>
+ * 模擬各服務 {@code update} 的寫入：在持久化上下文中已有 {@code managed} 筆實體時，
+ * 修改其中一筆並 flush。實體經建置時的位元組碼增強追蹤異動欄位，
+ * flush 只需詢問每筆實體是否有異動，不必與載入時的快照逐欄比對；
+ * 關聯延遲載入時，載入的產品、進貨、損耗也不會連帶把產品與貨主放入上下文。
+ * 資料庫為記憶體內的 H2，數字只反映 Hibernate 端的成本。
+ * </p>
+ * <p>
+ * 未增強的基準需以 {@code -Dhibernate.enhance.phase=none} 重新建置 (需 {@code clean})，
+ * 並以 {@code -p enhanced=false} 執行；{@code enhanced} 與實際建置不符時直接失敗，避免比較到同一份類別。
+ * </p>
+ *
+ * @author kyle
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class FlushBenchmark {
+
+	/**
+	 * 各資料表預先寫入的筆數
+	 */
+	private static final int ROWS = 1_000;
+
+	@Param({"product", "person", "purchase", "wastage", "revenue", "miscellaneous"})
+	public String entity;
+
+	/**
+	 * 實體是否經位元組碼增強，須與建置時的 {@code hibernate.enhance.phase} 一致
+	 */
+	@Param({"true"})
+	public boolean enhanced;
+
+	/**
+	 * 持久化上下文中的實體筆數
+	 */
+	@Param({"1", "1000"})
+	public int managed;
+
+	private SessionFactory sessionFactory;
+
+	private Session session;
+
+	private List<?> entities;
+
+	private int cursor;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		if (SelfDirtinessTracker.class.isAssignableFrom(Product.class) != enhanced) {
+			throw new IllegalStateException(String.format(
+				"實體%s經位元組碼增強，與 enhanced=%s 不符", enhanced ? "未" : "已", enhanced));
+		}
+
+		((LoggerContext) LoggerFactory.getILoggerFactory())
+			.getLogger(Logger.ROOT_LOGGER_NAME)
+			.setLevel(ch.qos.logback.classic.Level.WARN);
+
+		sessionFactory = new Configuration()
+			.setProperty(AvailableSettings.JAKARTA_JDBC_URL, "jdbc:h2:mem:flush;DB_CLOSE_DELAY=-1")
+			.setProperty(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+			.addAnnotatedClass(Person.class)
+			.addAnnotatedClass(Product.class)
+			.addAnnotatedClass(Purchase.class)
+			.addAnnotatedClass(Wastage.class)
+			.addAnnotatedClass(Revenue.class)
+			.addAnnotatedClass(Miscellaneous.class)
+			.buildSessionFactory();
+
+		sessionFactory.inTransaction(session -> {
+			for (int i = 0; i < ROWS; i++) {
+				Person person = new Person();
+				person.setNickName("貨主" + i);
+				person.setName("貨主" + i);
+				person.setLevel(LevelEnum.CONSIGNOR);
+				person.setPassword("");
+				person.setPhoneNumber("09" + i);
+				person.setCompany("祥安");
+				session.persist(person);
+
+				Product product = new Product("產品" + i, ProductTypeEnum.FRUIT, UnitTypeEnum.JIN, person);
+				product.setUnitPrice(BigDecimal.TEN);
+				product.setInventory(ROWS);
+				session.persist(product);
+
+				Purchase purchase = new Purchase();
+				purchase.setProduct(product);
+				purchase.setQuantity(1.0);
+				purchase.setReceivingDate(LocalDateTime.now());
+				session.persist(purchase);
+
+				Wastage wastage = new Wastage();
+				wastage.setProduct(product);
+				wastage.setQuantity(1.0);
+				session.persist(wastage);
+
+				session.persist(new Revenue());
+				session.persist(new Miscellaneous("雜物" + i, BigDecimal.TEN));
+			}
+		});
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		sessionFactory.close();
+	}
+
+	/**
+	 * 每輪在新的交易中載入 {@code managed} 筆實體
+	 */
+	@Setup(Level.Iteration)
+	public void load() {
+		session = sessionFactory.openSession();
+		session.beginTransaction();
+		final Class<?> type = switch (entity) {
+			case "product" -> Product.class;
+			case "person" -> Person.class;
+			case "purchase" -> Purchase.class;
+			case "wastage" -> Wastage.class;
+			case "revenue" -> Revenue.class;
+			default -> Miscellaneous.class;
+		};
+		entities = session
+			.createSelectionQuery("FROM " + type.getSimpleName(), type)
+			.setMaxResults(managed)
+			.getResultList();
+	}
+
+	@TearDown(Level.Iteration)
+	public void rollback() {
+		session.getTransaction().rollback();
+		session.close();
+	}
+
+	/**
+	 * 修改一筆實體後 flush
+	 */
+	@Benchmark
+	public void updateAndFlush() {
+		cursor = (cursor + 1) % entities.size();
+		switch (entities.get(cursor)) {
+			case Product product -> product.setInventory(product.getInventory() + 1);
+			case Person person -> person.setName(person.getName().length() > 8 ? "貨主" : person.getName() + "+");
+			case Purchase purchase -> purchase.setQuantity(purchase.getQuantity() + 1);
+			case Wastage wastage -> wastage.setQuantity(wastage.getQuantity() + 1);
+			case Revenue revenue -> revenue.setGrossIncome(revenue.getGrossIncome().add(BigDecimal.ONE));
+			case Miscellaneous miscellaneous -> miscellaneous.setAmount(miscellaneous.getAmount().add(BigDecimal.ONE));
+			default -> throw new IllegalStateException();
+		}
+		session.flush();
+	}
+
+	/**
+	 * 沒有異動時 flush (只有異動檢查的成本)
+	 */
+	@Benchmark
+	public void flushClean() {
+		session.flush();
+	}
+}
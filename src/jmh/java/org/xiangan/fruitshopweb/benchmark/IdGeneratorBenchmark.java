@@ -0,0 +1,76 @@
+package org.xiangan.fruitshopweb.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.xiangan.fruitshopweb.generator.IdGenerator;
+import org.xiangan.fruitshopweb.generator.PrimaryKeys;
+import org.xiangan.fruitshopweb.generator.RandomIdGenerator;
+import org.xiangan.fruitshopweb.generator.TimeOrderedIdGenerator;
+
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 主鍵產生器基準測試
+ * <p>
+ * 比較隨機 NanoId 與依時間遞增主鍵的產生速度，以及寫入有序索引的速度：
+ * 以預先放入十萬筆主鍵的 {@link TreeMap} 模擬叢集索引，隨機主鍵會散落在整棵樹，
+ * 遞增主鍵則一律寫在最右側。實際 InnoDB 的分頁次數需以資料庫壓測確認。
+ * 實體的 {@code @PrePersist} 經由 {@link PrimaryKeys} 取得主鍵，另量測這一層的成本。
+ * </p>
+ *
+ * @author kyle
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class IdGeneratorBenchmark {
+
+	/**
+	 * 索引預先放入的筆數
+	 */
+	private static final int EXISTING_ROWS = 100_000;
+
+	@Param({"random", "time"})
+	public String strategy;
+
+	private IdGenerator generator;
+
+	private TreeMap<String, Boolean> index;
+
+	@Setup(Level.Iteration)
+	public void setUp() {
+		generator = "random".equals(strategy) ? new RandomIdGenerator() : new TimeOrderedIdGenerator(0);
+		PrimaryKeys.use(generator);
+		index = new TreeMap<>();
+		for (int i = 0; i < EXISTING_ROWS; i++) {
+			index.put(generator.next(), Boolean.TRUE);
+		}
+	}
+
+	/**
+	 * 產生主鍵
+	 */
+	@Benchmark
+	public String generate() {
+		return generator.next();
+	}
+
+	/**
+	 * 實體 {@code @PrePersist} 產生主鍵的路徑
+	 */
+	@Benchmark
+	public String prePersist() {
+		return PrimaryKeys.next();
+	}
+
+	/**
+	 * 產生主鍵並寫入有序索引
+	 */
+	@Benchmark
+	public Boolean insert() {
+		return index.put(generator.next(), Boolean.TRUE);
+	}
+}
@@ -0,0 +1,126 @@
+package org.xiangan.fruitshopweb.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.xiangan.fruitshopweb.entity.Person;
+import org.xiangan.fruitshopweb.entity.Product;
+import org.xiangan.fruitshopweb.enumType.LevelEnum;
+import org.xiangan.fruitshopweb.enumType.ProductTypeEnum;
+import org.xiangan.fruitshopweb.enumType.UnitTypeEnum;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON 序列化基準測試
+ * <p>
+ * 量測三個自訂列舉序列器 (每個列舉輸出為含中文名稱的物件)，
+ * 以及產品清單 API 一頁 1,000 筆產品的回應。
+ * 序列化設定與 Spring Boot 相同 ({@link Jackson2ObjectMapperBuilder})，產品與貨主皆為未受管理的實體。
+ * </p>
+ *
+ * @author kyle
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+	/**
+	 * 一頁的產品筆數
+	 */
+	private static final int PAGE_SIZE = 1_000;
+
+	/**
+	 * 貨主人數
+	 */
+	private static final int CONSIGNORS = 20;
+
+	private ObjectWriter writer;
+
+	private ProductTypeEnum[] productTypes;
+
+	private UnitTypeEnum[] unitTypes;
+
+	private LevelEnum[] levels;
+
+	private Page<Product> page;
+
+	@Setup
+	public void setUp() {
+		writer = Jackson2ObjectMapperBuilder.json().build().writer();
+		productTypes = ProductTypeEnum.values();
+		unitTypes = UnitTypeEnum.values();
+		levels = LevelEnum.values();
+
+		final List<Person> consignors = new ArrayList<>();
+		for (int i = 0; i < CONSIGNORS; i++) {
+			Person person = new Person();
+			person.setId(String.format("person%04d", i));
+			person.setName("貨主" + i);
+			person.setNickName("貨主" + i);
+			person.setLevel(LevelEnum.CONSIGNOR);
+			person.setPhoneNumber("0900" + i);
+			person.setCompany("祥安");
+			person.setPassword("");
+			consignors.add(person);
+		}
+
+		final List<Product> products = new ArrayList<>(PAGE_SIZE);
+		for (int i = 0; i < PAGE_SIZE; i++) {
+			Product product = new Product(
+				"產品" + i,
+				productTypes[i % productTypes.length],
+				unitTypes[i % unitTypes.length],
+				consignors.get(i % CONSIGNORS)
+			);
+			product.setId(String.format("product%04d", i));
+			product.setUnitPrice(BigDecimal.valueOf(i, 1));
+			product.setInventory(i * 1.5);
+			products.add(product);
+		}
+		page = new PageImpl<>(products, PageRequest.of(0, PAGE_SIZE), PAGE_SIZE * 10L);
+	}
+
+	/**
+	 * 全部產品類型
+	 */
+	@Benchmark
+	public byte[] productTypeEnums() throws JsonProcessingException {
+		return writer.writeValueAsBytes(productTypes);
+	}
+
+	/**
+	 * 全部單位
+	 */
+	@Benchmark
+	public byte[] unitTypeEnums() throws JsonProcessingException {
+		return writer.writeValueAsBytes(unitTypes);
+	}
+
+	/**
+	 * 全部身分等級
+	 */
+	@Benchmark
+	public byte[] levelEnums() throws JsonProcessingException {
+		return writer.writeValueAsBytes(levels);
+	}
+
+	/**
+	 * 一頁 1,000 筆產品 (含貨主)
+	 */
+	@Benchmark
+	public byte[] productPage() throws JsonProcessingException {
+		return writer.writeValueAsBytes(page);
+	}
+}
@@ -0,0 +1,94 @@
+package org.xiangan.fruitshopweb.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.xiangan.fruitshopweb.service.JwtService;
+
+import java.security.Key;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT 驗證基準測試
+ * <p>
+ * 比較舊作法（每次解析都重新建立解析器，且同一請求解析三次）
+ * 與目前作法（共用解析器，同一請求只解析一次）。
+ * </p>
+ *
+ * @author kyle
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtServiceBenchmark {
+
+	/**
+	 * 與 application.properties 相同格式的測試密鑰
+	 */
+	private static final String SECRET = "p32T6HG8V2mv3+PzFbZ4LJktHqrsz8Ud0wHd2Z5Rskg=";
+
+	private JwtService jwtService;
+
+	private Key key;
+
+	private UserDetails userDetails;
+
+	private String token;
+
+	@Setup
+	public void setUp() {
+		jwtService = new JwtService(SECRET);
+		key = Keys.hmacShaKeyFor(Base64.getDecoder().decode(SECRET));
+		userDetails = User.withUsername("kyle@example.com")
+			.password("")
+			.authorities("BOSS")
+			.build();
+		token = jwtService.generateToken(userDetails);
+	}
+
+	/**
+	 * 舊作法：過濾器取出 subject、isTokenValid 再取 subject 與過期時間，各自重建解析器並驗簽
+	 */
+	@Benchmark
+	public boolean rebuildParserPerClaim() {
+		String userEmail = rebuildAndParse().getSubject();
+		String username = rebuildAndParse().getSubject();
+		return userEmail != null
+			&& username.equals(userDetails.getUsername())
+			&& !rebuildAndParse().getExpiration().before(new Date());
+	}
+
+	/**
+	 * 目前作法：共用解析器解析一次，驗證沿用同一份 Claims
+	 */
+	@Benchmark
+	public boolean sharedParserOnce() {
+		Claims claims = jwtService.extractAllClaims(token);
+		return jwtService.isTokenValid(claims, userDetails);
+	}
+
+	/**
+	 * 產生 Token（登入、註冊路徑）
+	 */
+	@Benchmark
+	public void generateToken(Blackhole blackhole) {
+		blackhole.consume(jwtService.generateToken(userDetails));
+	}
+
+	private Claims rebuildAndParse() {
+		return Jwts.parserBuilder()
+			.setSigningKey(key)
+			.build()
+			.parseClaimsJws(token)
+			.getBody();
+	}
+}
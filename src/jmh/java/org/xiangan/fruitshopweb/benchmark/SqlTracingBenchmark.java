@@ -0,0 +1,121 @@
+package org.xiangan.fruitshopweb.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.JsonEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import org.openjdk.jmh.annotations.*;
+import org.slf4j.MDC;
+import org.xiangan.fruitshopweb.filter.SqlTraceTurboFilter;
+import org.xiangan.fruitshopweb.filter.SqlTracingFilter;
+import org.xiangan.fruitshopweb.service.SqlTracingService;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SQL 追蹤基準測試
+ * <p>
+ * 模擬 prod 設定下一個請求的日誌成本：決定是否追蹤、設定 MDC，
+ * 並送出 {@value #STATEMENTS} 句 Hibernate SQL 紀錄至非同步 JSON 輸出 (寫入丟棄的串流)，
+ * 比較關閉、抽樣 ({@value #PERCENT}%) 與全部追蹤的每秒請求數。
+ * </p>
+ *
+ * @author kyle
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SqlTracingBenchmark {
+
+	/**
+	 * 每個請求的 SQL 句數
+	 */
+	private static final int STATEMENTS = 10;
+
+	/**
+	 * 抽樣百分比
+	 */
+	private static final double PERCENT = 5;
+
+	/**
+	 * 與 Hibernate 輸出格式相近的 SQL
+	 */
+	private static final String SQL =
+		"select p1_0.id,p1_0.person,p1_0.product_name,p1_0.stock,p1_0.type,p1_0.unit_price,"
+			+ "p1_0.unit_type,p1_0.version from product p1_0 where p1_0.id=? order by p1_0.product_name";
+
+	@Param({"OFF", "SAMPLED", "ALL"})
+	private SqlTracingService.Mode mode;
+
+	private SqlTracingService sqlTracingService;
+
+	private LoggerContext context;
+
+	private Logger sqlLogger;
+
+	@Setup
+	public void setUp() {
+		sqlTracingService = new SqlTracingService(mode, PERCENT, null);
+
+		context = new LoggerContext();
+		context.addTurboFilter(new SqlTraceTurboFilter());
+
+		JsonEncoder encoder = new JsonEncoder();
+		encoder.setContext(context);
+		encoder.start();
+
+		OutputStreamAppender<ILoggingEvent> output = new OutputStreamAppender<>();
+		output.setContext(context);
+		output.setEncoder(encoder);
+		output.setOutputStream(OutputStream.nullOutputStream());
+		output.start();
+
+		AsyncAppender async = new AsyncAppender();
+		async.setContext(context);
+		async.setQueueSize(8192);
+		async.setDiscardingThreshold(0);
+		async.setNeverBlock(true);
+		async.addAppender(output);
+		async.start();
+
+		Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+		root.setLevel(Level.INFO);
+		root.addAppender(async);
+
+		sqlLogger = context.getLogger("org.hibernate.SQL");
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.stop();
+	}
+
+	/**
+	 * 一個請求：SqlTracingFilter 的判斷與 MDC，加上 Hibernate 的 SQL 紀錄
+	 */
+	@Benchmark
+	public void request() {
+		MDC.put(SqlTracingFilter.REQUEST_ID_MDC_KEY, "0Ab3dE5gH7");
+		if (sqlTracingService.shouldTrace("0Ab3dE5gH7")) {
+			MDC.put(SqlTraceTurboFilter.MDC_KEY, "true");
+		}
+		try {
+			for (int i = 0; i < STATEMENTS; i++) {
+				// 與 Hibernate SqlStatementLogger 相同，先判斷等級再輸出
+				if (sqlLogger.isDebugEnabled()) {
+					sqlLogger.debug(SQL);
+				}
+			}
+		} finally {
+			MDC.remove(SqlTraceTurboFilter.MDC_KEY);
+			MDC.remove(SqlTracingFilter.REQUEST_ID_MDC_KEY);
+		}
+	}
+}
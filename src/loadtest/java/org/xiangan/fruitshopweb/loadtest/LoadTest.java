@@ -0,0 +1,285 @@
+package org.xiangan.fruitshopweb.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.xiangan.fruitshopweb.FruitShopWebApplication;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * REST API 壓力測試。
+ * <p>
+ * 以記憶體內的 H2 (MySQL 模式) 取代 MySQL 啟動整個應用程式 (prod profile，日誌降為 WARN，結構與索引由 Flyway 建立)，
+ * 寫入 {@link LoadTestData}，再以虛擬執行緒模擬多位使用者依權重混合呼叫產品、進貨、損耗、雜物與登入，
+ * 暖機後量測每個端點的吞吐量與 p50 / p99 延遲。
+ * </p>
+ * <p>
+ * 結果寫入 {@code --result} 的 JSON；指定 {@code --baseline} 時與基準結果比較，
+ * 有請求失敗或退步超過 {@code --tolerance} 時以非零結束，讓建置失敗。
+ * 數字反映應用程式與 Hibernate 的成本，資料庫的成本仍需以 MySQL 驗證。
+ * </p>
+ *
+ * @author kyle
+ */
+@Slf4j
+public final class LoadTest {
+
+	/**
+	 * 以記憶體內資料庫取代 MySQL 的設定 (命令列參數的優先順序高於 application.properties)
+	 */
+	private static final String[] EMBEDDED_DATABASE = {
+		"--spring.profiles.active=prod",
+		"--spring.datasource.url=jdbc:h2:mem:loadtest;MODE=MySQL;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+		"--spring.datasource.driver-class-name=org.h2.Driver",
+		"--spring.datasource.username=sa",
+		"--spring.datasource.password=",
+		"--spring.jpa.hibernate.ddl-auto=none",
+		"--spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+		"--server.port=0",
+		"--management.server.port=0",
+		"--logging.level.root=WARN",
+		"--logging.level.web=WARN",
+		"--logging.level.org.springframework.security=WARN",
+		"--logging.level.org.xiangan.fruitshopweb=WARN",
+		"--logging.sql-tracing.mode=OFF"
+	};
+
+	/**
+	 * 一頁筆數
+	 */
+	private static final int PAGE_SIZE = 20;
+
+	/**
+	 * 瀏覽的頁數範圍 (前幾頁)
+	 */
+	private static final int PAGES = 100;
+
+	private LoadTest() {
+	}
+
+	/**
+	 * 端點與權重
+	 *
+	 * @param name 名稱
+	 * @param weight 權重
+	 * @param request 產生請求
+	 */
+	private record Workload(String name, int weight, Function<SplittableRandom, HttpRequest> request) {
+	}
+
+	/**
+	 * 一個端點的延遲 (奈秒) 與失敗數
+	 */
+	private static final class Recorder {
+
+		/**
+		 * 成功請求的延遲
+		 */
+		private final ConcurrentHistogram latencies = new ConcurrentHistogram(3);
+
+		/**
+		 * 失敗數
+		 */
+		private final LongAdder errors = new LongAdder();
+
+		/**
+		 * @param duration 量測時間
+		 * @return 結果
+		 */
+		private LoadTestReport.Endpoint report(final Duration duration) {
+			return new LoadTestReport.Endpoint(
+				latencies.getTotalCount(),
+				errors.sum(),
+				latencies.getTotalCount() * 1_000.0 / duration.toMillis(),
+				latencies.getValueAtPercentile(50) / 1e6,
+				latencies.getValueAtPercentile(99) / 1e6,
+				latencies.getMaxValue() / 1e6
+			);
+		}
+	}
+
+	public static void main(final String[] args) throws Exception {
+		final LoadTestOptions options = LoadTestOptions.parse(args);
+		final LoadTestReport report;
+		// DevTools 會以新的執行緒重新啟動 main，壓力測試不需要
+		System.setProperty("spring.devtools.restart.enabled", "false");
+
+		try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FruitShopWebApplication.class)
+			.run(EMBEDDED_DATABASE)) {
+			LoadTestData.seed(context.getBean(DataSource.class), options);
+
+			final URI base = URI.create(String.format(
+				"http://localhost:%d",
+				((WebServerApplicationContext) context).getWebServer().getPort()
+			));
+			final HttpClient client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.executor(Executors.newVirtualThreadPerTaskExecutor())
+				.build();
+			final List<Workload> workloads = workloads(base, login(client, base));
+
+			log.warn("暖機 {}，{} 位使用者", options.warmup(), options.users());
+			drive(client, workloads, options.users(), options.warmup());
+			log.warn("量測 {}", options.duration());
+			final Map<String, Recorder> recorders = drive(client, workloads, options.users(), options.duration());
+
+			final Map<String, LoadTestReport.Endpoint> endpoints = new LinkedHashMap<>();
+			recorders.forEach((name, recorder) -> endpoints.put(name, recorder.report(options.duration())));
+			report = new LoadTestReport(endpoints);
+		}
+
+		System.out.print(report.table());
+		report.write(options.result());
+		System.out.printf("結果已寫入 %s%n", options.result());
+
+		if (options.hasBaseline()) {
+			final List<String> regressions = report.regressions(LoadTestReport.read(options.baseline()), options.tolerance());
+			if (!regressions.isEmpty()) {
+				System.out.printf("與基準 %s 比較退步超過 %.0f%%：%n", options.baseline(), options.tolerance() * 100);
+				regressions.forEach(regression -> System.out.printf("  %s%n", regression));
+				System.exit(1);
+			}
+			System.out.printf("與基準 %s 比較沒有退步%n", options.baseline());
+		}
+		System.exit(0);
+	}
+
+	/**
+	 * @param client HTTP
+	 * @param base 網址
+	 * @return JWT
+	 * @throws IOException 登入失敗
+	 * @throws InterruptedException 中斷
+	 */
+	private static String login(final HttpClient client, final URI base) throws IOException, InterruptedException {
+		final HttpResponse<String> response = client.send(loginRequest(base), HttpResponse.BodyHandlers.ofString());
+		if (response.statusCode() != 200) {
+			throw new IllegalStateException(String.format("登入失敗 (%d)：%s", response.statusCode(), response.body()));
+		}
+		return new ObjectMapper().readTree(response.body()).path("response").path("token").asText();
+	}
+
+	/**
+	 * @param base 網址
+	 * @return 登入請求
+	 */
+	private static HttpRequest loginRequest(final URI base) {
+		return HttpRequest.newBuilder(base.resolve(String.format(
+				"/auth/login?email=%s&password=%s",
+				URLEncoder.encode(LoadTestData.EMAIL, StandardCharsets.UTF_8),
+				URLEncoder.encode(LoadTestData.PASSWORD, StandardCharsets.UTF_8)
+			)))
+			.POST(HttpRequest.BodyPublishers.noBody())
+			.build();
+	}
+
+	/**
+	 * 收銀與後台畫面的混合：以讀取為主，登入 (BCrypt) 佔少數
+	 *
+	 * @param base 網址
+	 * @param token JWT
+	 * @return 端點與權重
+	 */
+	private static List<Workload> workloads(final URI base, final String token) {
+		final Function<String, HttpRequest> get = path -> HttpRequest.newBuilder(base.resolve(path))
+			.header("Authorization", "Bearer " + token)
+			.GET()
+			.build();
+		final Function<SplittableRandom, String> page =
+			random -> String.format("p=%d&s=%d", random.nextInt(1, PAGES + 1), PAGE_SIZE);
+
+		return List.of(
+			new Workload("product.list", 25, random -> get.apply("/product/list?isAll=true")),
+			new Workload("product.paged", 10, random -> get.apply("/product/paged?isAll=true&" + page.apply(random))),
+			new Workload("purchase", 20, random -> get.apply("/purchase?" + page.apply(random))),
+			new Workload("wastage", 15, random -> get.apply("/wastage?" + page.apply(random))),
+			new Workload("amountSpend", 15, random -> get.apply("/amountSpend?" + page.apply(random))),
+			new Workload("auth.login", 5, random -> loginRequest(base))
+		);
+	}
+
+	/**
+	 * 每位使用者在虛擬執行緒上依權重挑選端點，收到回應後立即送出下一個請求，直到時間結束
+	 *
+	 * @param client HTTP
+	 * @param workloads 端點與權重
+	 * @param users 使用者數
+	 * @param duration 時間
+	 * @return 端點名稱與延遲
+	 */
+	private static Map<String, Recorder> drive(
+		final HttpClient client,
+		final List<Workload> workloads,
+		final int users,
+		final Duration duration) {
+		final Map<String, Recorder> recorders = new LinkedHashMap<>();
+		workloads.forEach(workload -> recorders.put(workload.name(), new Recorder()));
+		final int totalWeight = workloads.stream().mapToInt(Workload::weight).sum();
+		final SplittableRandom seed = new SplittableRandom(7);
+		final long deadline = System.nanoTime() + duration.toNanos();
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			for (int user = 0; user < users; user++) {
+				final SplittableRandom random = seed.split();
+				executor.submit(() -> {
+					while (System.nanoTime() < deadline) {
+						final Workload workload = pick(workloads, random.nextInt(totalWeight));
+						final Recorder recorder = recorders.get(workload.name());
+						final long started = System.nanoTime();
+						try {
+							final HttpResponse<Void> response =
+								client.send(workload.request().apply(random), HttpResponse.BodyHandlers.discarding());
+							if (response.statusCode() / 100 == 2) {
+								recorder.latencies.recordValue(System.nanoTime() - started);
+							} else {
+								recorder.errors.increment();
+							}
+						} catch (IOException exception) {
+							recorder.errors.increment();
+						} catch (InterruptedException exception) {
+							Thread.currentThread().interrupt();
+							return;
+						}
+					}
+				});
+			}
+		}
+		return recorders;
+	}
+
+	/**
+	 * @param workloads 端點與權重
+	 * @param ticket 0 至權重總和之間的亂數
+	 * @return 端點
+	 */
+	private static Workload pick(final List<Workload> workloads, final int ticket) {
+		int remaining = ticket;
+		for (Workload workload : workloads) {
+			remaining -= workload.weight();
+			if (remaining < 0) {
+				return workload;
+			}
+		}
+		return workloads.get(workloads.size() - 1);
+	}
+}
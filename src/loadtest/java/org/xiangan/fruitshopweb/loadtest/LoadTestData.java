@@ -0,0 +1,183 @@
+package org.xiangan.fruitshopweb.loadtest;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.xiangan.fruitshopweb.enumType.LevelEnum;
+import org.xiangan.fruitshopweb.enumType.ProductTypeEnum;
+import org.xiangan.fruitshopweb.enumType.UnitTypeEnum;
+import org.xiangan.fruitshopweb.generator.PrimaryKeys;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * 壓力測試資料。
+ * <p>
+ * 以 JDBC 批次寫入 (不經 JPA，百萬筆也只需數十秒)：貨主、可登入的老闆帳號、產品，
+ * 以及分布在最近兩年的進貨、損耗與雜物。資料以固定亂數種子產生，每次執行內容相同。
+ * </p>
+ *
+ * @author kyle
+ */
+@Slf4j
+final class LoadTestData {
+
+	/**
+	 * 登入帳號
+	 */
+	static final String EMAIL = "loadtest@example.com";
+
+	/**
+	 * 登入密碼
+	 */
+	static final String PASSWORD = "loadtest";
+
+	/**
+	 * 貨主人數
+	 */
+	private static final int CONSIGNORS = 50;
+
+	/**
+	 * 每批寫入筆數
+	 */
+	private static final int BATCH_SIZE = 10_000;
+
+	/**
+	 * 資料分布的期間 (秒)
+	 */
+	private static final long PERIOD_SECONDS = 2L * 365 * 24 * 60 * 60;
+
+	private LoadTestData() {
+	}
+
+	/**
+	 * @param dataSource 資料來源
+	 * @param options 壓力測試參數
+	 */
+	static void seed(final DataSource dataSource, final LoadTestOptions options) {
+		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		final SplittableRandom random = new SplittableRandom(42);
+		final LocalDateTime now = LocalDateTime.now();
+		final long started = System.nanoTime();
+
+		final List<String> consignors = new ArrayList<>(CONSIGNORS);
+		for (int i = 0; i < CONSIGNORS; i++) {
+			consignors.add(PrimaryKeys.next());
+		}
+		insert(jdbcTemplate, "INSERT INTO person (id, nick_name, name, level, email, password, number, company) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+			CONSIGNORS + 1, (statement, index) -> {
+				final boolean boss = index == CONSIGNORS;
+				statement.setString(1, boss ? PrimaryKeys.next() : consignors.get(index));
+				statement.setString(2, boss ? "老闆" : "貨主" + index);
+				statement.setString(3, boss ? "老闆" : "貨主" + index);
+				statement.setString(4, (boss ? LevelEnum.BOSS : LevelEnum.CONSIGNOR).name());
+				statement.setString(5, boss ? EMAIL : null);
+				statement.setString(6, boss ? new BCryptPasswordEncoder().encode(PASSWORD) : "");
+				statement.setString(7, String.format("09%08d", index));
+				statement.setString(8, "祥安");
+			});
+
+		final ProductTypeEnum[] types = ProductTypeEnum.values();
+		final UnitTypeEnum[] unitTypes = UnitTypeEnum.values();
+		final List<String> products = new ArrayList<>(options.products());
+		for (int i = 0; i < options.products(); i++) {
+			products.add(PrimaryKeys.next());
+		}
+		insert(jdbcTemplate, "INSERT INTO product (id, product_name, unit_price, type, unit_type, person, stock, version) VALUES (?, ?, ?, ?, ?, ?, ?, 0)",
+			options.products(), (statement, index) -> {
+				final UnitTypeEnum unitType = unitTypes[random.nextInt(unitTypes.length)];
+				statement.setString(1, products.get(index));
+				statement.setString(2, "產品" + index);
+				statement.setBigDecimal(3, BigDecimal.valueOf(random.nextInt(100, 100_000), 2));
+				statement.setString(4, types[random.nextInt(types.length)].name());
+				statement.setString(5, unitType.name());
+				statement.setString(6, consignors.get(random.nextInt(CONSIGNORS)));
+				statement.setLong(7, unitType.toMicros(random.nextInt(0, 1_000)));
+			});
+
+		insert(jdbcTemplate, "INSERT INTO purchase (id, product, quantity, order_date, receiving_date) VALUES (?, ?, ?, ?, ?)",
+			options.purchases(), (statement, index) -> {
+				final LocalDateTime receivingDate = now.minusSeconds(random.nextLong(PERIOD_SECONDS));
+				statement.setString(1, PrimaryKeys.next());
+				statement.setString(2, products.get(random.nextInt(products.size())));
+				statement.setDouble(3, random.nextInt(1, 500));
+				statement.setTimestamp(4, Timestamp.valueOf(receivingDate.minusDays(1)));
+				statement.setTimestamp(5, Timestamp.valueOf(receivingDate));
+			});
+
+		insert(jdbcTemplate, "INSERT INTO wastage (id, product, quantity, date) VALUES (?, ?, ?, ?)",
+			options.wastages(), (statement, index) -> {
+				statement.setString(1, PrimaryKeys.next());
+				statement.setString(2, products.get(random.nextInt(products.size())));
+				statement.setDouble(3, random.nextInt(1, 50));
+				statement.setDate(4, Date.valueOf(now.minusSeconds(random.nextLong(PERIOD_SECONDS)).toLocalDate()));
+			});
+
+		insert(jdbcTemplate, "INSERT INTO miscellaneous (id, name, amount, date) VALUES (?, ?, ?, ?)",
+			options.miscellaneous(), (statement, index) -> {
+				statement.setString(1, PrimaryKeys.next());
+				statement.setString(2, "雜物" + random.nextInt(100));
+				statement.setBigDecimal(3, BigDecimal.valueOf(random.nextInt(100, 500_000), 2));
+				statement.setTimestamp(4, Timestamp.valueOf(now.minusSeconds(random.nextLong(PERIOD_SECONDS))));
+			});
+
+		log.warn(
+			"已寫入測試資料：產品 {}、進貨 {}、損耗 {}、雜物 {} 筆，耗時 {} 秒",
+			options.products(),
+			options.purchases(),
+			options.wastages(),
+			options.miscellaneous(),
+			(System.nanoTime() - started) / 1_000_000_000
+		);
+	}
+
+	/**
+	 * 分批寫入
+	 *
+	 * @param jdbcTemplate JDBC
+	 * @param sql 新增語法
+	 * @param rows 筆數
+	 * @param row 設定第幾筆的參數
+	 */
+	private static void insert(final JdbcTemplate jdbcTemplate, final String sql, final int rows, final Row row) {
+		for (int from = 0; from < rows; from += BATCH_SIZE) {
+			final int offset = from;
+			final int size = Math.min(BATCH_SIZE, rows - from);
+			jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
+				@Override
+				public void setValues(final PreparedStatement statement, final int index) throws SQLException {
+					row.set(statement, offset + index);
+				}
+
+				@Override
+				public int getBatchSize() {
+					return size;
+				}
+			});
+		}
+	}
+
+	/**
+	 * 設定一筆的參數
+	 */
+	@FunctionalInterface
+	private interface Row {
+
+		/**
+		 * @param statement 新增語法
+		 * @param index 第幾筆
+		 * @throws SQLException 設定參數失敗
+		 */
+		void set(PreparedStatement statement, int index) throws SQLException;
+	}
+}
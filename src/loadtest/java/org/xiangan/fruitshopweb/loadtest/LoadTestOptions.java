@@ -0,0 +1,88 @@
+package org.xiangan.fruitshopweb.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 壓力測試參數，以 {@code --名稱=值} 指定，未指定時使用預設值
+ *
+ * @param products 產品筆數
+ * @param purchases 進貨單筆數
+ * @param wastages 損耗筆數
+ * @param miscellaneous 雜物筆數
+ * @param users 同時發送請求的使用者數
+ * @param warmup 暖機時間 (不計入結果)
+ * @param duration 量測時間
+ * @param result 結果檔 (JSON)
+ * @param baseline 基準結果檔 (可為空)，與之比較是否退步
+ * @param tolerance 可容許的退步比例 (p99 增加或吞吐量減少)
+ * @author kyle
+ */
+public record LoadTestOptions(
+	int products,
+	int purchases,
+	int wastages,
+	int miscellaneous,
+	int users,
+	Duration warmup,
+	Duration duration,
+	Path result,
+	Path baseline,
+	double tolerance) {
+
+	/**
+	 * 可用的參數名稱
+	 */
+	private static final Set<String> NAMES = Set.of(
+		"products", "purchases", "wastages", "miscellaneous", "users",
+		"warmup", "duration", "result", "baseline", "tolerance"
+	);
+
+	/**
+	 * @param args 命令列參數
+	 * @return 壓力測試參數
+	 * @throws IllegalArgumentException 參數格式有誤或名稱不存在
+	 */
+	public static LoadTestOptions parse(final String... args) {
+		final Map<String, String> values = new HashMap<>();
+		for (String arg : args) {
+			final int separator = arg.indexOf('=');
+			if (!arg.startsWith("--") || separator < 0) {
+				throw new IllegalArgumentException(String.format("參數須為 --名稱=值：%s", arg));
+			}
+			final String name = arg.substring(2, separator);
+			if (!NAMES.contains(name)) {
+				throw new IllegalArgumentException(String.format("未知的參數：%s", name));
+			}
+			values.put(name, arg.substring(separator + 1));
+		}
+
+		final LoadTestOptions options = new LoadTestOptions(
+			Integer.parseInt(values.getOrDefault("products", "5000")),
+			Integer.parseInt(values.getOrDefault("purchases", "1000000")),
+			Integer.parseInt(values.getOrDefault("wastages", "1000000")),
+			Integer.parseInt(values.getOrDefault("miscellaneous", "100000")),
+			Integer.parseInt(values.getOrDefault("users", "32")),
+			Duration.parse(values.getOrDefault("warmup", "PT15S")),
+			Duration.parse(values.getOrDefault("duration", "PT60S")),
+			Path.of(values.getOrDefault("result", "target/loadtest-result.json")),
+			values.containsKey("baseline") ? Path.of(values.get("baseline")) : null,
+			Double.parseDouble(values.getOrDefault("tolerance", "0.2"))
+		);
+		if (options.products() < 1 || options.users() < 1) {
+			throw new IllegalArgumentException("產品筆數與使用者數須大於 0");
+		}
+		return options;
+	}
+
+	/**
+	 * @return 是否與基準結果比較
+	 */
+	public boolean hasBaseline() {
+		return Objects.nonNull(baseline);
+	}
+}
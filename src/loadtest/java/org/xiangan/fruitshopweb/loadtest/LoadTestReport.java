@@ -0,0 +1,115 @@
+package org.xiangan.fruitshopweb.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 壓力測試結果：每個端點的吞吐量與延遲百分位數，可存成 JSON 作為下次比較的基準
+ *
+ * @param endpoints 端點名稱與結果
+ * @author kyle
+ */
+public record LoadTestReport(Map<String, Endpoint> endpoints) {
+
+	/**
+	 * JSON 序列化
+	 */
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+	/**
+	 * 一個端點的結果
+	 *
+	 * @param requests 成功的請求數
+	 * @param errors 失敗 (非 2xx 或連線錯誤) 的請求數
+	 * @param throughput 每秒成功的請求數
+	 * @param p50 延遲中位數 (毫秒)
+	 * @param p99 第 99 百分位延遲 (毫秒)
+	 * @param max 最大延遲 (毫秒)
+	 */
+	public record Endpoint(long requests, long errors, double throughput, double p50, double p99, double max) {
+	}
+
+	/**
+	 * @param file 結果檔
+	 * @return 結果
+	 * @throws IOException 讀取失敗
+	 */
+	public static LoadTestReport read(final Path file) throws IOException {
+		return new LoadTestReport(OBJECT_MAPPER.readValue(file.toFile(), new TypeReference<LinkedHashMap<String, Endpoint>>() {
+		}));
+	}
+
+	/**
+	 * @param file 結果檔
+	 * @throws IOException 寫入失敗
+	 */
+	public void write(final Path file) throws IOException {
+		if (Objects.nonNull(file.getParent())) {
+			Files.createDirectories(file.getParent());
+		}
+		OBJECT_MAPPER.writeValue(file.toFile(), endpoints);
+	}
+
+	/**
+	 * @return 表格
+	 */
+	public String table() {
+		final StringBuilder table = new StringBuilder(String.format(
+			"%-16s %10s %8s %10s %10s %10s %10s%n",
+			"endpoint", "requests", "errors", "req/s", "p50(ms)", "p99(ms)", "max(ms)"
+		));
+		endpoints.forEach((name, endpoint) -> table.append(String.format(
+			"%-16s %10d %8d %10.1f %10.2f %10.2f %10.2f%n",
+			name,
+			endpoint.requests(),
+			endpoint.errors(),
+			endpoint.throughput(),
+			endpoint.p50(),
+			endpoint.p99(),
+			endpoint.max()
+		)));
+		return table.toString();
+	}
+
+	/**
+	 * 與基準結果比較：有失敗的請求、p99 增加或吞吐量減少超過容許比例時視為退步
+	 *
+	 * @param baseline 基準結果
+	 * @param tolerance 容許比例
+	 * @return 退步的說明；沒有退步時為空
+	 */
+	public List<String> regressions(final LoadTestReport baseline, final double tolerance) {
+		final List<String> regressions = new ArrayList<>();
+		endpoints.forEach((name, endpoint) -> {
+			if (endpoint.errors() > 0) {
+				regressions.add(String.format("%s：%d 個請求失敗", name, endpoint.errors()));
+			}
+		});
+		baseline.endpoints().forEach((name, expected) -> {
+			final Endpoint actual = endpoints.get(name);
+			if (Objects.isNull(actual)) {
+				regressions.add(String.format("%s：沒有結果", name));
+				return;
+			}
+			if (actual.p99() > expected.p99() * (1 + tolerance)) {
+				regressions.add(String.format("%s：p99 %.2f ms，基準 %.2f ms", name, actual.p99(), expected.p99()));
+			}
+			if (actual.throughput() < expected.throughput() * (1 - tolerance)) {
+				regressions.add(String.format(
+					"%s：吞吐量 %.1f req/s，基準 %.1f req/s", name, actual.throughput(), expected.throughput()
+				));
+			}
+		});
+		return regressions;
+	}
+}
@@ -3,8 +3,10 @@ package org.xiangan.fruitshopweb;
 import io.github.cdimascio.dotenv.Dotenv;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.retry.annotation.EnableRetry;
 
 @SpringBootApplication
+@EnableRetry
 public class FruitShopWebApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,60 @@
+package org.xiangan.fruitshopweb.configuration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 非同步執行設定。
+ * <p>
+ * 啟用服務層的 {@code @Async}，讓回傳 {@code CompletableFuture} 的方法真正於背景執行，
+ * 控制器可組合多個 Future 而不必逐一 {@code .get()} 阻塞 Tomcat 執行緒。
+ * </p>
+ *
+ * <h2>設定內容：</h2>
+ * <ul>
+ *   <li>以虛擬執行緒 (Virtual Thread) 執行 {@code @Async} 方法</li>
+ *   <li>透過 {@link AsyncContextTaskDecorator} 傳遞 Security 上下文與 MDC</li>
+ *   <li>呼叫端已在交易中時改為同執行緒執行，沿用同一個持久化上下文</li>
+ * </ul>
+ *
+ * @author kyle
+ */
+@Configuration
+@EnableAsync
+@Slf4j
+public class AsyncConfig implements AsyncConfigurer {
+
+	/**
+	 * 執行緒名稱前綴
+	 */
+	private static final String THREAD_NAME_PREFIX = "async-";
+
+	/**
+	 * {@code @Async} 使用的執行器
+	 *
+	 * @return 虛擬執行緒執行器
+	 */
+	@Override
+	public Executor getAsyncExecutor() {
+		TransactionAwareAsyncTaskExecutor executor = new TransactionAwareAsyncTaskExecutor(THREAD_NAME_PREFIX);
+		executor.setVirtualThreads(true);
+		executor.setTaskDecorator(new AsyncContextTaskDecorator());
+		return executor;
+	}
+
+	/**
+	 * 處理回傳 void 的 {@code @Async} 方法所拋出的例外（回傳 Future 者由呼叫端處理）
+	 *
+	 * @return 例外處理器
+	 */
+	@Override
+	public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+		return (throwable, method, params) ->
+			log.error("非同步方法「{}」執行失敗：{}", method.getName(), throwable.getMessage(), throwable);
+	}
+}
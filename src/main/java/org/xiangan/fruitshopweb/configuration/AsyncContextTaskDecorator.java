@@ -0,0 +1,62 @@
+package org.xiangan.fruitshopweb.configuration;
+
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 非同步任務上下文裝飾器。
+ * <p>
+ * 於提交任務時擷取呼叫端的 Security 上下文、請求屬性、MDC 與 {@link ReadYourWrites} 標記，
+ * 在執行任務的執行緒上還原，執行完畢後恢復該執行緒原本的狀態
+ * （任務可能直接在呼叫端執行緒上執行，因此不可單純清除）。
+ * </p>
+ *
+ * @author kyle
+ */
+public class AsyncContextTaskDecorator implements TaskDecorator {
+
+	@Override
+	public Runnable decorate(Runnable runnable) {
+		final SecurityContext securityContext = SecurityContextHolder.getContext();
+		final RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+		final Map<String, String> mdc = MDC.getCopyOfContextMap();
+		final AtomicBoolean written = ReadYourWrites.capture();
+
+		return () -> {
+			final SecurityContext previousSecurityContext = SecurityContextHolder.getContext();
+			final RequestAttributes previousRequestAttributes = RequestContextHolder.getRequestAttributes();
+			final Map<String, String> previousMdc = MDC.getCopyOfContextMap();
+			final AtomicBoolean previousWritten = ReadYourWrites.capture();
+			try {
+				SecurityContextHolder.setContext(securityContext);
+				RequestContextHolder.setRequestAttributes(requestAttributes);
+				setMdc(mdc);
+				ReadYourWrites.restore(written);
+				runnable.run();
+			} finally {
+				SecurityContextHolder.setContext(previousSecurityContext);
+				RequestContextHolder.setRequestAttributes(previousRequestAttributes);
+				setMdc(previousMdc);
+				ReadYourWrites.restore(previousWritten);
+			}
+		};
+	}
+
+	/**
+	 * @param contextMap MDC 內容，為 null 時清空
+	 */
+	private static void setMdc(Map<String, String> contextMap) {
+		if (contextMap == null) {
+			MDC.clear();
+		} else {
+			MDC.setContextMap(contextMap);
+		}
+	}
+}
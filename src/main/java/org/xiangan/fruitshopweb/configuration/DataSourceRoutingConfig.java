@@ -0,0 +1,125 @@
+package org.xiangan.fruitshopweb.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * 讀寫分離設定。
+ * <p>
+ * 設定 {@code spring.datasource.replica.url} 時啟用：主庫沿用 {@code spring.datasource.*}，
+ * 副本另建連線池，唯讀交易經 {@link ReadWriteRoutingDataSource} 連線副本。
+ * 未設定時不建立任何 Bean，由 Spring Boot 依原設定建立單一資料來源。
+ * </p>
+ *
+ * <h2>設定內容：</h2>
+ * <ul>
+ *   <li>{@code spring.datasource.replica.url/username/password}：副本連線 (帳號密碼未設定時沿用主庫)</li>
+ *   <li>{@code spring.datasource.replica.hikari.*}：副本連線池</li>
+ *   <li>{@code spring.datasource.replica.lag-query/lag-column}：副本延遲查詢與延遲秒數欄位</li>
+ *   <li>{@code spring.datasource.replica.max-lag}：可接受的延遲上限，超過時唯讀交易改連主庫</li>
+ *   <li>{@code spring.datasource.replica.lag-check-interval}：延遲檢查間隔</li>
+ * </ul>
+ *
+ * @author kyle
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.datasource.replica", name = "url")
+@Slf4j
+public class DataSourceRoutingConfig {
+
+	/**
+	 * @param properties 主庫設定
+	 * @return 主庫連線池
+	 */
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	HikariDataSource primaryDataSource(final DataSourceProperties properties) {
+		HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		// 連線池指標以名稱區分 (hikaricp.* 的 pool 標籤)
+		primary.setPoolName("primary");
+		return primary;
+	}
+
+	/**
+	 * 驅動程式設定 ({@code data-source-properties}，如 {@code characterEncoding}) 沿用主庫，
+	 * 可再以 {@code spring.datasource.replica.hikari.data-source-properties.*} 覆寫
+	 *
+	 * @param properties 主庫設定
+	 * @param primary 主庫連線池
+	 * @param url 副本網址
+	 * @param username 副本帳號
+	 * @param password 副本密碼
+	 * @return 副本連線池
+	 */
+	@Bean
+	@ConfigurationProperties("spring.datasource.replica.hikari")
+	HikariDataSource replicaDataSource(
+		final DataSourceProperties properties,
+		@Qualifier("primaryDataSource") final HikariDataSource primary,
+		@Value("${spring.datasource.replica.url}") final String url,
+		@Value("${spring.datasource.replica.username:}") final String username,
+		@Value("${spring.datasource.replica.password:}") final String password) {
+		HikariDataSource replica = DataSourceBuilder.create()
+			.type(HikariDataSource.class)
+			.driverClassName(properties.determineDriverClassName())
+			.url(url)
+			.username(username.isEmpty() ? properties.determineUsername() : username)
+			.password(username.isEmpty() ? properties.determinePassword() : password)
+			.build();
+		replica.setDataSourceProperties(primary.getDataSourceProperties());
+		replica.setReadOnly(true);
+		replica.setPoolName("replica");
+		return replica;
+	}
+
+	/**
+	 * @param replica 副本連線池
+	 * @param lagQuery 延遲查詢，空白時不檢查
+	 * @param lagColumn 延遲秒數的欄位
+	 * @param maxLag 可接受的延遲上限
+	 * @param interval 檢查間隔
+	 * @return 副本延遲監控
+	 */
+	@Bean
+	ReplicaLagMonitor replicaLagMonitor(
+		@Qualifier("replicaDataSource") final DataSource replica,
+		@Value("${spring.datasource.replica.lag-query:SHOW REPLICA STATUS}") final String lagQuery,
+		@Value("${spring.datasource.replica.lag-column:Seconds_Behind_Source}") final String lagColumn,
+		@Value("${spring.datasource.replica.max-lag:PT5S}") final Duration maxLag,
+		@Value("${spring.datasource.replica.lag-check-interval:PT1S}") final Duration interval) {
+		return new ReplicaLagMonitor(replica, lagQuery, lagColumn, maxLag, interval);
+	}
+
+	/**
+	 * 應用程式使用的資料來源 (JPA 與 JDBC 皆經由此處)
+	 *
+	 * @param primary 主庫連線池
+	 * @param replica 副本連線池
+	 * @param replicaLagMonitor 副本延遲監控
+	 * @return 延遲取得連線的讀寫分離資料來源
+	 */
+	@Bean
+	@Primary
+	DataSource dataSource(
+		@Qualifier("primaryDataSource") final DataSource primary,
+		@Qualifier("replicaDataSource") final DataSource replica,
+		final ReplicaLagMonitor replicaLagMonitor) {
+		log.info("已啟用讀寫分離，唯讀交易連線副本");
+		return new LazyConnectionDataSourceProxy(
+			new ReadWriteRoutingDataSource(primary, replica, replicaLagMonitor)
+		);
+	}
+}
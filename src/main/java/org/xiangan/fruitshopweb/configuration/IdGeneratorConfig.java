@@ -0,0 +1,41 @@
+package org.xiangan.fruitshopweb.configuration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.xiangan.fruitshopweb.generator.PrimaryKeys;
+import org.xiangan.fruitshopweb.generator.RandomIdGenerator;
+import org.xiangan.fruitshopweb.generator.TimeOrderedIdGenerator;
+
+/**
+ * 主鍵產生器設定。
+ * <p>
+ * 依 {@code id-generator.strategy} 選擇實體主鍵的產生方式：
+ * </p>
+ * <ul>
+ *   <li>{@code time}（預設）：依時間遞增，新資料寫入叢集索引尾端；多個實例需以 {@code id-generator.node} 區分節點</li>
+ *   <li>{@code random}：原本的隨機 NanoId</li>
+ * </ul>
+ *
+ * @author kyle
+ */
+@Configuration
+@Slf4j
+public class IdGeneratorConfig {
+
+	/**
+	 * @param strategy 產生方式
+	 * @param node 節點編號
+	 */
+	public IdGeneratorConfig(
+		@Value("${id-generator.strategy:time}") final String strategy,
+		@Value("${id-generator.node:0}") final int node) {
+		switch (strategy) {
+			case "time" -> PrimaryKeys.use(new TimeOrderedIdGenerator(node));
+			case "random" -> PrimaryKeys.use(new RandomIdGenerator());
+			default -> throw new IllegalArgumentException(
+				String.format("不支援的主鍵產生方式：%s❗", strategy));
+		}
+		log.info("主鍵產生方式：{}，節點編號：{}", strategy, node);
+	}
+}
@@ -0,0 +1,107 @@
+package org.xiangan.fruitshopweb.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/**
+ * 監控指標設定。
+ * <p>
+ * 指標由 Actuator 以 Prometheus 格式提供於管理連接埠 ({@code /actuator/prometheus})，
+ * 連線池 (HikariCP，含副本)、Hibernate 統計、HTTP 請求與快取由 Spring Boot 自動綁定，
+ * 此處補上服務層方法的計時。
+ * </p>
+ *
+ * <h2>設定內容：</h2>
+ * <ul>
+ *   <li>所有 {@code @Service} 的公開方法經 {@link ServiceMetricsInterceptor} 計時</li>
+ *   <li>計時位於 {@code @Async} 與交易之外，涵蓋排隊、交易與呼叫端等待 Future 的時間</li>
+ * </ul>
+ *
+ * @author kyle
+ */
+@Configuration(proxyBeanMethods = false)
+public class MetricsConfig {
+
+	/**
+	 * 後處理器須為 static，避免提早建立設定類別
+	 *
+	 * @param registryProvider 指標登錄
+	 * @return 服務層計時的後處理器
+	 */
+	@Bean
+	static BeanPostProcessor serviceMetricsPostProcessor(final ObjectProvider<MeterRegistry> registryProvider) {
+		return new ServiceMetricsPostProcessor(new DefaultPointcutAdvisor(
+			new ServiceMethodPointcut(),
+			new ServiceMetricsInterceptor(registryProvider)
+		));
+	}
+
+	/**
+	 * 為服務層 Bean 加上計時，已有代理 ({@code @Transactional}、{@code @Async} 等) 時放在最外層。
+	 * <p>
+	 * 刻意不實作 {@code Ordered}：未排序的後處理器最後執行，
+	 * 此時 {@code @Async} 的後處理器已把自己放到代理的最前面，計時才能再排到它之前。
+	 * </p>
+	 */
+	private static final class ServiceMetricsPostProcessor implements BeanPostProcessor {
+
+		/**
+		 * 計時
+		 */
+		private final Advisor advisor;
+
+		/**
+		 * @param advisor 計時
+		 */
+		private ServiceMetricsPostProcessor(final Advisor advisor) {
+			this.advisor = advisor;
+		}
+
+		@Override
+		public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+			final Class<?> targetClass = AopUtils.getTargetClass(bean);
+			if (!AnnotatedElementUtils.hasAnnotation(targetClass, Service.class)) {
+				return bean;
+			}
+			if (bean instanceof Advised advised && !advised.isFrozen()) {
+				advised.addAdvisor(0, advisor);
+				return bean;
+			}
+			final ProxyFactory proxyFactory = new ProxyFactory(bean);
+			proxyFactory.setProxyTargetClass(true);
+			proxyFactory.addAdvisor(advisor);
+			return proxyFactory.getProxy(ClassUtils.getDefaultClassLoader());
+		}
+	}
+
+	/**
+	 * 服務層類別宣告的公開方法 (不含指標綁定)
+	 */
+	private static final class ServiceMethodPointcut extends StaticMethodMatcherPointcut {
+
+		@Override
+		public boolean matches(final Method method, final Class<?> targetClass) {
+			return Modifier.isPublic(method.getModifiers())
+				&& !ReflectionUtils.isObjectMethod(method)
+				&& AnnotatedElementUtils.hasAnnotation(method.getDeclaringClass(), Service.class)
+				&& !(MeterBinder.class.isAssignableFrom(targetClass) && "bindTo".equals(method.getName()));
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package org.xiangan.fruitshopweb.configuration;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * 讀寫分離的資料來源。
+ * <p>
+ * 唯讀交易 ({@code @Transactional(readOnly = true)}) 連線副本，其餘連線主庫；
+ * 以下情況唯讀交易也連線主庫：
+ * </p>
+ * <ul>
+ *   <li>同一請求已開始過讀寫交易 ({@link ReadYourWrites})</li>
+ *   <li>副本延遲過大或無法連線 ({@link ReplicaLagMonitor})</li>
+ * </ul>
+ * <p>
+ * 交易開始時尚未設定唯讀旗標，須包在
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} 內，
+ * 於第一個 SQL 執行時才決定連線對象。在讀寫交易中呼叫的唯讀方法沿用外層交易，一律連線主庫。
+ * </p>
+ *
+ * @author kyle
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+	/**
+	 * 連線對象
+	 */
+	public enum Target {
+		PRIMARY,
+		REPLICA
+	}
+
+	/**
+	 * 副本延遲監控
+	 */
+	private final ReplicaLagMonitor replicaLagMonitor;
+
+	/**
+	 * @param primary 主庫
+	 * @param replica 副本
+	 * @param replicaLagMonitor 副本延遲監控
+	 */
+	public ReadWriteRoutingDataSource(
+		final DataSource primary,
+		final DataSource replica,
+		final ReplicaLagMonitor replicaLagMonitor) {
+		this.replicaLagMonitor = replicaLagMonitor;
+		setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+		setDefaultTargetDataSource(primary);
+		afterPropertiesSet();
+	}
+
+	@Override
+	protected Target determineCurrentLookupKey() {
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			if (TransactionSynchronizationManager.isActualTransactionActive()) {
+				ReadYourWrites.markWritten();
+			}
+			return Target.PRIMARY;
+		}
+		if (ReadYourWrites.written() || !replicaLagMonitor.isAvailable()) {
+			return Target.PRIMARY;
+		}
+		return Target.REPLICA;
+	}
+}
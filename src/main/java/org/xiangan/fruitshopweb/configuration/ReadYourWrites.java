@@ -0,0 +1,97 @@
+package org.xiangan.fruitshopweb.configuration;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * 讀取自己的寫入 (read-your-writes)。
+ * <p>
+ * 每個請求一個標記，請求中開始過讀寫交易後，之後的唯讀交易改連主庫，
+ * 避免讀到副本尚未同步的舊資料。標記由 {@link AsyncContextTaskDecorator}
+ * 傳遞至 {@code @Async} 方法，同一請求的所有執行緒共用。
+ * </p>
+ * <p>
+ * 結果會以新版本保存的讀取 (產品目錄快取、附 ETag 的清單) 以 {@link #primary(Supplier)} 固定連線主庫，
+ * 否則寫入後立即重新讀取時，副本尚未同步的舊資料會以新版本保存到下一次異動或快取過期。
+ * </p>
+ *
+ * @author kyle
+ */
+public final class ReadYourWrites {
+
+	/**
+	 * 目前請求的標記
+	 */
+	private static final ThreadLocal<AtomicBoolean> CURRENT = new ThreadLocal<>();
+
+	private ReadYourWrites() {
+	}
+
+	/**
+	 * 開始一個請求
+	 */
+	public static void open() {
+		CURRENT.set(new AtomicBoolean());
+	}
+
+	/**
+	 * 結束目前的請求
+	 */
+	public static void close() {
+		CURRENT.remove();
+	}
+
+	/**
+	 * 記錄目前的請求已寫入 (不在請求中時不做任何事)
+	 */
+	public static void markWritten() {
+		final AtomicBoolean written = CURRENT.get();
+		if (Objects.nonNull(written) && !written.get()) {
+			written.set(true);
+		}
+	}
+
+	/**
+	 * 期間發起的唯讀交易 (含傳遞至 {@code @Async} 方法的) 一律連線主庫，結束後還原原本的標記
+	 *
+	 * @param reading 讀取
+	 * @param <T> 讀取結果類型
+	 * @return 讀取結果
+	 */
+	public static <T> T primary(final Supplier<T> reading) {
+		final AtomicBoolean previous = CURRENT.get();
+		CURRENT.set(new AtomicBoolean(true));
+		try {
+			return reading.get();
+		} finally {
+			restore(previous);
+		}
+	}
+
+	/**
+	 * @return 目前的請求是否已寫入
+	 */
+	public static boolean written() {
+		final AtomicBoolean written = CURRENT.get();
+		return Objects.nonNull(written) && written.get();
+	}
+
+	/**
+	 * @return 目前執行緒的標記，供傳遞至其他執行緒
+	 */
+	static AtomicBoolean capture() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * @param written 要還原的標記，為 null 時清除
+	 */
+	static void restore(final AtomicBoolean written) {
+		if (Objects.isNull(written)) {
+			CURRENT.remove();
+		} else {
+			CURRENT.set(written);
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package org.xiangan.fruitshopweb.configuration;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 副本延遲監控。
+ * <p>
+ * 定期於副本執行延遲查詢 (預設 MySQL 的 {@code SHOW REPLICA STATUS}，
+ * 讀取 {@code Seconds_Behind_Source})，延遲超過上限、複寫停止 (值為空或查無資料)
+ * 或副本無法連線時視為不可用，唯讀交易暫時改連主庫，恢復後自動切回。
+ * 延遲查詢設為空白時不檢查，副本一律可用。
+ * </p>
+ *
+ * @author kyle
+ */
+@Slf4j
+public class ReplicaLagMonitor implements AutoCloseable, MeterBinder {
+
+	/**
+	 * 副本
+	 */
+	private final DataSource replica;
+
+	/**
+	 * 延遲查詢
+	 */
+	private final String lagQuery;
+
+	/**
+	 * 延遲秒數的欄位
+	 */
+	private final String lagColumn;
+
+	/**
+	 * 可接受的延遲上限
+	 */
+	private final Duration maxLag;
+
+	/**
+	 * 定期檢查的執行緒
+	 */
+	private final ScheduledExecutorService scheduler;
+
+	/**
+	 * 副本是否可用
+	 */
+	private volatile boolean available;
+
+	/**
+	 * @param replica 副本
+	 * @param lagQuery 延遲查詢，空白時不檢查
+	 * @param lagColumn 延遲秒數的欄位
+	 * @param maxLag 可接受的延遲上限
+	 * @param interval 檢查間隔
+	 */
+	public ReplicaLagMonitor(
+		final DataSource replica,
+		final String lagQuery,
+		final String lagColumn,
+		final Duration maxLag,
+		final Duration interval) {
+		this.replica = replica;
+		this.lagQuery = lagQuery;
+		this.lagColumn = lagColumn;
+		this.maxLag = maxLag;
+
+		available = true;
+		if (Objects.isNull(lagQuery) || lagQuery.isBlank()) {
+			scheduler = null;
+			return;
+		}
+		check();
+		scheduler = Executors.newSingleThreadScheduledExecutor(
+			Thread.ofVirtual().name("replica-lag-monitor").factory()
+		);
+		scheduler.scheduleWithFixedDelay(this::check, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @return 副本是否可用
+	 */
+	public boolean isAvailable() {
+		return available;
+	}
+
+	/**
+	 * 檢查副本延遲
+	 */
+	public void check() {
+		final boolean previous = available;
+		String reason = null;
+		try (Connection connection = replica.getConnection();
+			 Statement statement = connection.createStatement();
+			 ResultSet resultSet = statement.executeQuery(lagQuery)) {
+			if (!resultSet.next()) {
+				reason = "副本未設定複寫";
+			} else {
+				final Object lag = resultSet.getObject(lagColumn);
+				if (Objects.isNull(lag)) {
+					reason = "副本複寫已停止";
+				} else if (((Number) lag).longValue() > maxLag.toSeconds()) {
+					reason = String.format("副本延遲 %s 秒，超過上限 %s 秒", lag, maxLag.toSeconds());
+				}
+			}
+		} catch (SQLException | RuntimeException exception) {
+			reason = String.format("無法查詢副本延遲：%s", exception.getLocalizedMessage());
+		}
+
+		available = Objects.isNull(reason);
+		if (previous && !available) {
+			log.warn("{}，唯讀交易改連主庫", reason);
+		} else if (!previous && available) {
+			log.info("副本已同步，唯讀交易改回連線副本");
+		} else if (!available) {
+			log.debug("{}", reason);
+		}
+	}
+
+	/**
+	 * 副本是否可用 ({@code replica.available}，1 為可用)
+	 *
+	 * @param registry 指標登錄
+	 */
+	@Override
+	public void bindTo(final MeterRegistry registry) {
+		Gauge.builder("replica.available", this, monitor -> monitor.isAvailable() ? 1 : 0)
+			.description("副本是否可用 (不可用時唯讀交易改連主庫)")
+			.register(registry);
+	}
+
+	@Override
+	public void close() {
+		if (Objects.nonNull(scheduler)) {
+			scheduler.shutdownNow();
+		}
+	}
+}
@@ -1,8 +1,12 @@
 package org.xiangan.fruitshopweb.configuration;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
@@ -12,12 +16,14 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.xiangan.fruitshopweb.enumType.LevelEnum;
 import org.xiangan.fruitshopweb.filter.JwtAuthenticationFilter;
 import org.xiangan.fruitshopweb.repository.PersonRepository;
 
@@ -36,6 +42,9 @@ import org.xiangan.fruitshopweb.repository.PersonRepository;
  *   <li>限制 API 路由的存取權限</li>
  *   <li>允許跨來源請求（CORS）</li>
  *   <li>關閉 CSRF 以支援無狀態身份驗證</li>
+ *   <li>Actuator 端點 (健康檢查、Prometheus 指標) 不需驗證，僅開在管理連接埠</li>
+ *   <li>切換 SQL 追蹤會大幅降低吞吐量，僅限老闆</li>
+ *   <li>註冊、編輯與登入比對共用同一個 BCrypt 強度，強度調高後舊雜湊於登入時升級</li>
  * </ul>
  *
  * @author kyle
@@ -63,6 +72,10 @@ public class SecurityConfig {
 				// JWT 無需 session
 				.sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
 				.authorizeHttpRequests(auth -> auth
+						// 回傳 CompletableFuture 的 API 完成後會再派送一次 (ASYNC)，原請求已通過驗證
+						.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+						// 監控抓取指標 (management.server.port，不對外開放)
+						.requestMatchers(EndpointRequest.toAnyEndpoint()).permitAll()
 						// 訪客可使用以下 API
 						.requestMatchers(
 								"/swagger-ui/**",
@@ -72,6 +85,8 @@ public class SecurityConfig {
 								"/error",
 								"/auth/**"
 						).permitAll()
+						// 全部追蹤時吞吐量約降為九分之一，僅限老闆切換
+						.requestMatchers(HttpMethod.POST, "/logging/sql-tracing").hasAuthority(LevelEnum.BOSS.name())
 						.anyRequest().authenticated()  // 其他 API 需要身份驗證
 				)
 				.anonymous(Customizer.withDefaults())
@@ -93,12 +108,18 @@ public class SecurityConfig {
 
 	/**
 	 * 執行身份驗證的關鍵組件
+	 *
+	 * @param passwordEncoder 密碼雜湊
+	 * @param userDetailsPasswordService 登入成功後升級舊強度的雜湊
 	 */
 	@Bean
-	public AuthenticationProvider authenticationProvider() {
+	public AuthenticationProvider authenticationProvider(
+			PasswordEncoder passwordEncoder,
+			UserDetailsPasswordService userDetailsPasswordService) {
 		DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
 		authProvider.setUserDetailsService(userDetailsService());
-		authProvider.setPasswordEncoder((new BCryptPasswordEncoder(12)));
+		authProvider.setPasswordEncoder(passwordEncoder);
+		authProvider.setUserDetailsPasswordService(userDetailsPasswordService);
 		return authProvider;
 	}
 
@@ -112,10 +133,12 @@ public class SecurityConfig {
 
 	/**
 	 * 以便將用戶密碼進行安全的雜湊存儲
+	 *
+	 * @param strength BCrypt 強度 (log2 回合數)，每加 1 比對時間加倍
 	 */
 	@Bean
-	public PasswordEncoder passwordEncoder() {
-		return new BCryptPasswordEncoder();
+	public PasswordEncoder passwordEncoder(@Value("${security.password.bcrypt-strength:10}") int strength) {
+		return new BCryptPasswordEncoder(strength);
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,213 @@
+package org.xiangan.fruitshopweb.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.util.ClassUtils;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 服務層方法計時。
+ * <p>
+ * 每次呼叫記錄於 {@value #METHOD_TIMER} (標籤：類別、方法、例外)。
+ * 回傳 {@code CompletableFuture} 的方法 (多為 {@code @Async}) 計時至 Future 完成為止，
+ * 並改回傳計時的 Future：呼叫端在 {@code get()} / {@code join()} 上實際等待的時間記錄於 {@value #WAIT_TIMER}，
+ * 可看出控制器阻塞在哪個服務方法上。
+ * </p>
+ * <p>
+ * 須位於 {@code @Async} 之外，才能看到呼叫端拿到的 Future，見 {@link MetricsConfig}。
+ * </p>
+ *
+ * @author kyle
+ */
+public class ServiceMetricsInterceptor implements MethodInterceptor {
+
+	/**
+	 * 服務層方法的執行時間
+	 */
+	public static final String METHOD_TIMER = "service.method";
+
+	/**
+	 * 呼叫端等待服務層 Future 的時間
+	 */
+	public static final String WAIT_TIMER = "service.future.wait";
+
+	/**
+	 * 指標登錄 (延遲取得，後處理器建立時尚未建立)
+	 */
+	private final ObjectProvider<MeterRegistry> registryProvider;
+
+	/**
+	 * 已取得的指標登錄
+	 */
+	private volatile MeterRegistry registry;
+
+	/**
+	 * @param registryProvider 指標登錄
+	 */
+	public ServiceMetricsInterceptor(final ObjectProvider<MeterRegistry> registryProvider) {
+		this.registryProvider = registryProvider;
+	}
+
+	@Override
+	public Object invoke(final MethodInvocation invocation) throws Throwable {
+		final MeterRegistry registry = registry();
+		if (Objects.isNull(registry)) {
+			return invocation.proceed();
+		}
+
+		final String service = ClassUtils.getUserClass(Objects.requireNonNull(invocation.getThis())).getSimpleName();
+		final String method = invocation.getMethod().getName();
+		final Timer.Sample sample = Timer.start(registry);
+		final Object result;
+		try {
+			result = invocation.proceed();
+		} catch (Throwable throwable) {
+			sample.stop(timer(registry, METHOD_TIMER, service, method, throwable));
+			throw throwable;
+		}
+
+		if (!(result instanceof CompletableFuture<?> future)) {
+			sample.stop(timer(registry, METHOD_TIMER, service, method, null));
+			return result;
+		}
+		if (future.isDone()) {
+			sample.stop(timer(
+				registry,
+				METHOD_TIMER,
+				service,
+				method,
+				future.state() == Future.State.FAILED ? future.exceptionNow() : null
+			));
+			return result;
+		}
+
+		final TimedFuture<Object> timed = new TimedFuture<>(registry, timer(registry, WAIT_TIMER, service, method, null));
+		future.whenComplete((value, throwable) -> {
+			sample.stop(timer(registry, METHOD_TIMER, service, method, throwable));
+			if (Objects.isNull(throwable)) {
+				timed.complete(value);
+			} else {
+				timed.completeExceptionally(throwable);
+			}
+		});
+		return timed;
+	}
+
+	/**
+	 * @return 指標登錄；尚未建立時為空
+	 */
+	private MeterRegistry registry() {
+		MeterRegistry current = registry;
+		if (Objects.isNull(current)) {
+			current = registryProvider.getIfAvailable();
+			registry = current;
+		}
+		return current;
+	}
+
+	/**
+	 * @param registry 指標登錄
+	 * @param name 名稱
+	 * @param service 服務類別
+	 * @param method 方法
+	 * @param throwable 例外 (可為空)
+	 * @return 計時器
+	 */
+	private static Timer timer(
+		final MeterRegistry registry,
+		final String name,
+		final String service,
+		final String method,
+		final Throwable throwable) {
+		Throwable cause = throwable;
+		while (cause instanceof CompletionException || cause instanceof ExecutionException) {
+			if (Objects.isNull(cause.getCause())) {
+				break;
+			}
+			cause = cause.getCause();
+		}
+		return Timer.builder(name)
+			.tag("class", service)
+			.tag("method", method)
+			.tag("exception", Objects.isNull(cause) ? "none" : cause.getClass().getSimpleName())
+			.register(registry);
+	}
+
+	/**
+	 * 記錄呼叫端阻塞等待時間的 Future；已完成時直接回傳不記錄。
+	 * 衍生的 Future ({@code thenApply} 等) 為一般的 {@code CompletableFuture}。
+	 *
+	 * @param <T> 結果類型
+	 */
+	private static final class TimedFuture<T> extends CompletableFuture<T> {
+
+		/**
+		 * 指標登錄
+		 */
+		private final MeterRegistry registry;
+
+		/**
+		 * 等待時間
+		 */
+		private final Timer wait;
+
+		/**
+		 * @param registry 指標登錄
+		 * @param wait 等待時間
+		 */
+		private TimedFuture(final MeterRegistry registry, final Timer wait) {
+			this.registry = registry;
+			this.wait = wait;
+		}
+
+		@Override
+		public T get() throws InterruptedException, ExecutionException {
+			if (isDone()) {
+				return super.get();
+			}
+			final Timer.Sample sample = Timer.start(registry);
+			try {
+				return super.get();
+			} finally {
+				sample.stop(wait);
+			}
+		}
+
+		@Override
+		public T get(final long timeout, final TimeUnit unit)
+			throws InterruptedException, ExecutionException, TimeoutException {
+			if (isDone()) {
+				return super.get(timeout, unit);
+			}
+			final Timer.Sample sample = Timer.start(registry);
+			try {
+				return super.get(timeout, unit);
+			} finally {
+				sample.stop(wait);
+			}
+		}
+
+		@Override
+		public T join() {
+			if (isDone()) {
+				return super.join();
+			}
+			final Timer.Sample sample = Timer.start(registry);
+			try {
+				return super.join();
+			} finally {
+				sample.stop(wait);
+			}
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package org.xiangan.fruitshopweb.configuration;
+
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Serial;
+
+/**
+ * 感知交易的非同步執行器。
+ * <p>
+ * JPA 交易與持久化上下文綁定於執行緒，無法跨執行緒傳遞。
+ * 若呼叫端已在交易中（例如 {@code PurchaseService.create} 讀取產品後直接修改庫存），
+ * 任務改在呼叫端執行緒上執行，讀回的實體仍受同一交易管理；
+ * 其餘呼叫（例如控制器發出的查詢）則交由虛擬執行緒平行處理。
+ * </p>
+ *
+ * @author kyle
+ */
+public class TransactionAwareAsyncTaskExecutor extends SimpleAsyncTaskExecutor {
+
+	@Serial
+	private static final long serialVersionUID = 4820375326178893147L;
+
+	/**
+	 * @param threadNamePrefix 執行緒名稱前綴
+	 */
+	public TransactionAwareAsyncTaskExecutor(String threadNamePrefix) {
+		super(threadNamePrefix);
+	}
+
+	@Override
+	protected void doExecute(Runnable task) {
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			task.run();
+			return;
+		}
+		super.doExecute(task);
+	}
+}
@@ -0,0 +1,36 @@
+package org.xiangan.fruitshopweb.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Spring MVC 設定。
+ *
+ * <h2>設定內容：</h2>
+ * <ul>
+ *   <li>以虛擬執行緒執行 MVC 非同步處理 ({@code StreamingResponseBody} 等)，
+ *   匯出、批次回應等長時間串流不佔用 Tomcat 執行緒，也不受固定大小的執行緒池限制</li>
+ *   <li>透過 {@link AsyncContextTaskDecorator} 傳遞 Security 上下文與 MDC</li>
+ * </ul>
+ * 非同步請求的逾時沿用 {@code spring.mvc.async.request-timeout}。
+ *
+ * @author kyle
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+	/**
+	 * 執行緒名稱前綴
+	 */
+	private static final String THREAD_NAME_PREFIX = "mvc-async-";
+
+	@Override
+	public void configureAsyncSupport(final AsyncSupportConfigurer configurer) {
+		SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(THREAD_NAME_PREFIX);
+		executor.setVirtualThreads(true);
+		executor.setTaskDecorator(new AsyncContextTaskDecorator());
+		configurer.setTaskExecutor(executor);
+	}
+}
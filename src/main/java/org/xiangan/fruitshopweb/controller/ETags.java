@@ -0,0 +1,70 @@
+package org.xiangan.fruitshopweb.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.WebRequest;
+import org.xiangan.fruitshopweb.configuration.ReadYourWrites;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * 條件式 GET (ETag / If-None-Match)
+ *
+ * @author kyle
+ */
+final class ETags {
+
+	private ETags() {
+	}
+
+	/**
+	 * 由回應內容計算強 ETag
+	 *
+	 * @param name 名稱
+	 * @param content 回應內容
+	 * @return ETag (含雙引號)
+	 */
+	static String of(final String name, final byte[] content) {
+		return String.format("\"%s-%s\"", name, DigestUtils.md5DigestAsHex(content));
+	}
+
+	/**
+	 * 請求的 {@code If-None-Match} 與 ETag 相同時直接回應 304，不呼叫 {@code body}；
+	 * 否則回應 200 並附上 ETag。內容以主庫讀取，避免副本的舊資料附上新版本的 ETag
+	 *
+	 * @param request 請求
+	 * @param etag 目前版本的 ETag (需於讀取資料前取得)
+	 * @param body 讀取回應內容
+	 * @param <T> 回應內容類型
+	 * @return 回應
+	 */
+	static <T> CompletableFuture<ResponseEntity<T>> conditional(
+		final WebRequest request,
+		final String etag,
+		final Supplier<CompletableFuture<T>> body) {
+		if (request.checkNotModified(etag)) {
+			return CompletableFuture.completedFuture(
+				ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build()
+			);
+		}
+		return ReadYourWrites.primary(body).thenApply(content -> ResponseEntity.ok().eTag(etag).body(content));
+	}
+
+	/**
+	 * 內容不會變動 (例如列舉) 的條件式回應
+	 *
+	 * @param request 請求
+	 * @param etag ETag
+	 * @param body 回應內容
+	 * @param <T> 回應內容類型
+	 * @return 回應
+	 */
+	static <T> ResponseEntity<T> conditional(final WebRequest request, final String etag, final T body) {
+		if (request.checkNotModified(etag)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+		}
+		return ResponseEntity.ok().eTag(etag).body(body);
+	}
+}
@@ -0,0 +1,221 @@
+package org.xiangan.fruitshopweb.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * 匯出 (CSV / NDJSON) 回應
+ * <p>
+ * 回應內容在 MVC 非同步執行緒上邊讀邊寫，每筆寫入後即可丟棄，記憶體用量與筆數無關。
+ * 欄位與格式皆取自 JSON 序列化，兩種格式的內容與瀏覽 API 一致。
+ * </p>
+ *
+ * @author kyle
+ */
+final class Export {
+
+	/**
+	 * 格式參數的規則
+	 */
+	static final String FORMATS = "csv|ndjson";
+
+	/**
+	 * CSV 媒體類型
+	 */
+	private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
+	/**
+	 * 位元組順序標記，讓 Excel 以 UTF-8 開啟
+	 */
+	private static final char BOM = '\uFEFF';
+
+	/**
+	 * 試算表視為公式開頭的字元
+	 */
+	private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+	private Export() {
+	}
+
+	/**
+	 * @param format 格式 (csv 或 ndjson)
+	 * @param name 檔名 (不含日期區間與副檔名)
+	 * @param begin 起始日期 (可為空)
+	 * @param end 結束日期 (可為空)
+	 * @param objectMapper JSON 序列化
+	 * @param type 每筆的類型
+	 * @param source 逐筆讀取，交給傳入的 {@code Consumer}
+	 * @param <T> 每筆的類型
+	 * @return 串流回應
+	 */
+	static <T> ResponseEntity<StreamingResponseBody> of(
+		final String format,
+		final String name,
+		final LocalDate begin,
+		final LocalDate end,
+		final ObjectMapper objectMapper,
+		final Class<T> type,
+		final Consumer<Consumer<T>> source) {
+		final boolean csv = !"ndjson".equals(format);
+		final String filename = String.format(
+			"%s_%s_%s.%s",
+			name,
+			Objects.isNull(begin) ? "" : begin,
+			Objects.isNull(end) ? "" : end,
+			csv ? "csv" : "ndjson"
+		);
+
+		return ResponseEntity
+			.ok()
+			.contentType(csv ? TEXT_CSV : MediaType.APPLICATION_NDJSON)
+			.header(
+				HttpHeaders.CONTENT_DISPOSITION,
+				ContentDisposition.attachment().filename(filename).build().toString()
+			)
+			.body(csv ? csv(objectMapper, type, source) : ndjson(objectMapper, type, source));
+	}
+
+	/**
+	 * @param objectMapper JSON 序列化
+	 * @param type 每筆的類型
+	 * @param source 逐筆讀取
+	 * @param <T> 每筆的類型
+	 * @return 每行一筆 JSON
+	 */
+	private static <T> StreamingResponseBody ndjson(
+		final ObjectMapper objectMapper,
+		final Class<T> type,
+		final Consumer<Consumer<T>> source) {
+		final ObjectWriter writer = objectMapper.writerFor(type);
+		return output -> write(output, source, (row, stream) -> {
+			stream.write(writer.writeValueAsBytes(row));
+			stream.write('\n');
+		});
+	}
+
+	/**
+	 * @param objectMapper JSON 序列化
+	 * @param type 每筆的類型
+	 * @param source 逐筆讀取
+	 * @param <T> 每筆的類型
+	 * @return 首行為欄位名稱的 CSV (RFC 4180)
+	 */
+	private static <T> StreamingResponseBody csv(
+		final ObjectMapper objectMapper,
+		final Class<T> type,
+		final Consumer<Consumer<T>> source) {
+		final List<String> columns = objectMapper
+			.getSerializationConfig()
+			.introspect(objectMapper.constructType(type))
+			.findProperties()
+			.stream()
+			.map(BeanPropertyDefinition::getName)
+			.toList();
+
+		return output -> {
+			final Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+			writer.write(BOM);
+			writer.write(String.join(",", columns));
+			writer.write("\r\n");
+			write(writer, source, (row, csv) -> {
+				final JsonNode node = objectMapper.valueToTree(row);
+				for (int index = 0; index < columns.size(); index++) {
+					if (index > 0) {
+						csv.write(',');
+					}
+					final JsonNode value = node.get(columns.get(index));
+					if (Objects.isNull(value) || value.isNull()) {
+						continue;
+					}
+					if (value.isNumber()) {
+						// 數值不會被試算表當成公式，負數不加前綴
+						csv.write(value.isBigDecimal() ? value.decimalValue().toPlainString() : value.asText());
+					} else {
+						csv.write(escape(value.asText()));
+					}
+				}
+				csv.write("\r\n");
+			});
+			writer.flush();
+		};
+	}
+
+	/**
+	 * 以 {@code = + - @}、Tab 或 CR 開頭的文字前加單引號，避免試算表開啟時當成公式執行 (CSV injection)；
+	 * 含逗號、雙引號或換行的值以雙引號包住，內部的雙引號重複一次
+	 *
+	 * @param value 值
+	 * @return CSV 欄位
+	 */
+	static String escape(final String value) {
+		final String cell = !value.isEmpty() && FORMULA_PREFIXES.indexOf(value.charAt(0)) >= 0
+			? '\'' + value
+			: value;
+		if (cell.chars().noneMatch(c -> c == ',' || c == '"' || c == '\n' || c == '\r')) {
+			return cell;
+		}
+		return '"' + cell.replace("\"", "\"\"") + '"';
+	}
+
+	/**
+	 * 逐筆寫出；寫入失敗 (多為用戶端中斷下載) 時中止讀取並拋出原本的例外
+	 *
+	 * @param target 輸出
+	 * @param source 逐筆讀取
+	 * @param row 寫出一筆
+	 * @param <T> 每筆的類型
+	 * @param <O> 輸出類型
+	 * @throws IOException 寫入失敗
+	 */
+	private static <T, O> void write(
+		final O target,
+		final Consumer<Consumer<T>> source,
+		final RowWriter<T, O> row) throws IOException {
+		try {
+			source.accept(each -> {
+				try {
+					row.write(each, target);
+				} catch (IOException exception) {
+					throw new UncheckedIOException(exception);
+				}
+			});
+		} catch (UncheckedIOException exception) {
+			throw exception.getCause();
+		}
+	}
+
+	/**
+	 * 寫出一筆
+	 *
+	 * @param <T> 每筆的類型
+	 * @param <O> 輸出類型
+	 */
+	@FunctionalInterface
+	private interface RowWriter<T, O> {
+
+		/**
+		 * @param row 一筆
+		 * @param target 輸出
+		 * @throws IOException 寫入失敗
+		 */
+		void write(T row, O target) throws IOException;
+	}
+}
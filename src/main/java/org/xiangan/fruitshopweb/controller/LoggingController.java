@@ -0,0 +1,78 @@
+package org.xiangan.fruitshopweb.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.enums.ParameterIn;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+import org.xiangan.fruitshopweb.model.SqlTracingSettings;
+import org.xiangan.fruitshopweb.service.SqlTracingService;
+
+/**
+ * 日誌
+ *
+ * @author kyle
+ */
+@RequestMapping("/logging")
+@RequiredArgsConstructor
+@RestController
+@Slf4j
+@Tag(name = "日誌 api", description = "執行期間切換 SQL 追蹤，不需重新啟動")
+public class LoggingController {
+
+	/**
+	 * SQL 追蹤設定
+	 */
+	private final SqlTracingService sqlTracingService;
+
+	/**
+	 * 讀取 SQL 追蹤設定
+	 *
+	 * @return SQL 追蹤設定
+	 */
+	@Operation(
+		summary = "讀取 SQL 追蹤設定"
+		,responses = {
+		@ApiResponse(responseCode = "200", description = "Success", useReturnTypeSchema = true)
+		,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
+	})
+	@GetMapping("/sql-tracing")
+	SqlTracingSettings read() {
+		return sqlTracingService.load();
+	}
+
+	/**
+	 * 切換 SQL 追蹤設定
+	 * <p>僅限老闆 (見 SecurityConfig)，其他身分回應 403。</p>
+	 *
+	 * @param mode 追蹤模式
+	 * @param percent 抽樣百分比
+	 * @param requestId 一律追蹤的請求編號
+	 * @return SQL 追蹤設定
+	 */
+	@Operation(
+		summary = "切換 SQL 追蹤設定"
+		,description = "SAMPLED 依百分比抽樣請求；帶 requestId 時該請求編號 (X-Request-Id) 不論模式一律追蹤"
+		,parameters = {
+		@Parameter(name = "mode", description = "追蹤模式 (OFF、SAMPLED、ALL)", in = ParameterIn.QUERY, example = "SAMPLED")
+		,@Parameter(name = "percent", description = "抽樣百分比 (0 ~ 100)", in = ParameterIn.QUERY, example = "5")
+		,@Parameter(name = "requestId", description = "一律追蹤的請求編號", in = ParameterIn.QUERY)}
+		,responses = {
+		@ApiResponse(responseCode = "200", description = "Success", useReturnTypeSchema = true)
+		,@ApiResponse(responseCode = "400", description = "參數有誤", content = @Content)
+		,@ApiResponse(responseCode = "403", description = "僅限老闆", content = @Content)
+		,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
+	})
+	@PostMapping("/sql-tracing")
+	SqlTracingSettings update(
+		@RequestParam final SqlTracingService.Mode mode,
+		@RequestParam(defaultValue = "0") final double percent,
+		@RequestParam(required = false) final String requestId
+	) {
+		return sqlTracingService.update(mode, percent, requestId);
+	}
+}
@@ -1,5 +1,6 @@
 package org.xiangan.fruitshopweb.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
@@ -7,22 +8,25 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
-import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.xiangan.fruitshopweb.entity.Miscellaneous;
 import org.xiangan.fruitshopweb.exception.CustomException;
+import org.xiangan.fruitshopweb.model.CursorPage;
+import org.xiangan.fruitshopweb.model.MiscellaneousView;
 import org.xiangan.fruitshopweb.model.PaginationRequest;
 import org.xiangan.fruitshopweb.model.SummaryAmountDTO;
 import org.xiangan.fruitshopweb.service.MiscellaneousService;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
@@ -47,6 +51,11 @@ public class MiscellaneousController {
      */
     private final MiscellaneousService miscellaneousService;
 
+    /**
+     * JSON 轉換
+     */
+    private final ObjectMapper objectMapper;
+
     /**
      * 瀏覽
      *
@@ -66,26 +75,86 @@ public class MiscellaneousController {
         , @ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
     })
     @GetMapping
-    Page<Miscellaneous> browse(
+    CompletableFuture<Page<Miscellaneous>> browse(
         @Validated final PaginationRequest paginationRequest
         ,@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm")final LocalDateTime begin
         ,@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm")final LocalDateTime end) {
         final int p = paginationRequest.getP();
 
-        try {
-            return miscellaneousService
-                .load(
-                    p < 1 ? 0 : p - 1
-                    ,paginationRequest.getS()
-                    ,begin
-                    ,end
-                )
-                .get();
-        } catch (InterruptedException | ExecutionException exception) {
-            throw new CustomException(
-                String.format(
-                    "瀏覽雜物時拋出線程中斷異常：%s❗", exception.getLocalizedMessage()));
-        }
+        return miscellaneousService
+            .load(
+                p < 1 ? 0 : p - 1
+                ,paginationRequest.getS()
+                ,begin
+                ,end
+            );
+    }
+
+    /**
+     * 以游標瀏覽
+     *
+     * @param paginationRequest 分頁請求 (含游標)
+     * @param begin 起始時間
+     * @param end 結束時間
+     * @return 游標分頁的雜物清單
+     */
+    @Operation(
+        summary = "以游標瀏覽雜物清單"
+        ,description = "帶入 cursor 參數即改用游標分頁（第一頁帶空值），不計算總筆數，適合深分頁"
+        ,responses = {
+        @ApiResponse(responseCode = "200", description = "Success")
+        , @ApiResponse(responseCode = "400", description = "參數或游標有誤", content = @Content)
+        , @ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
+    })
+    @GetMapping(params = "cursor")
+    CompletableFuture<CursorPage<Miscellaneous>> scroll(
+        @Validated final PaginationRequest paginationRequest
+        ,@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm")final LocalDateTime begin
+        ,@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm")final LocalDateTime end) {
+        return miscellaneousService
+            .load(
+                CursorPage.position(paginationRequest.getCursor())
+                ,paginationRequest.getS()
+                ,begin
+                ,end
+            )
+            .thenApply(CursorPage::of);
+    }
+
+    /**
+     * 匯出
+     *
+     * @param begin 起始日期(含)
+     * @param end 結束日期(含)
+     * @param format 格式
+     * @return 雜物檔案
+     */
+    @Operation(
+        summary = "匯出雜物"
+        ,description = "依日期區間以 CSV (預設) 或 NDJSON 串流下載，不分頁"
+        ,parameters = {
+        @Parameter(name = "begin", description = "起始日期(含)，未填不限", in = ParameterIn.QUERY, example = "2025-01-01")
+        ,@Parameter(name = "end", description = "結束日期(含)，未填不限", in = ParameterIn.QUERY, example = "2025-03-31")
+        ,@Parameter(name = "format", description = "csv 或 ndjson", in = ParameterIn.QUERY, example = "csv")}
+        ,responses = {
+        @ApiResponse(responseCode = "200", description = "Success")
+        ,@ApiResponse(responseCode = "400", description = "參數有誤", content = @Content)
+        ,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
+    })
+    @GetMapping("/export")
+    ResponseEntity<StreamingResponseBody> export(
+        @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") final LocalDate begin
+        ,@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") final LocalDate end
+        ,@RequestParam(defaultValue = "csv") @Pattern(regexp = Export.FORMATS, message = "格式須為 csv 或 ndjson❗") final String format) {
+        return Export.of(
+            format,
+            "miscellaneous",
+            begin,
+            end,
+            objectMapper,
+            MiscellaneousView.class,
+            consumer -> miscellaneousService.export(begin, end, consumer)
+        );
     }
 
     /**
@@ -104,21 +173,10 @@ public class MiscellaneousController {
         ,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
     })
     @DeleteMapping("/{id:[A-Za-z0-9]{10}}")
-    Boolean delete(@PathVariable final String id) {
-        Miscellaneous miscellaneous;
-        try {
-            miscellaneous = miscellaneousService.load(id).get();
-        } catch (InterruptedException | ExecutionException exception) {
-            throw new CustomException(
-                String.format("讀取雜物「%s」時拋出線程中斷異常：%s❗", id, exception.getLocalizedMessage()));
-        }
-
-        try {
-            return miscellaneousService.delete(miscellaneous).get();
-        } catch (InterruptedException | ExecutionException exception) {
-            throw new CustomException(
-                String.format("刪除雜物「%s」時拋出線程中斷異常：%s❗️", id, exception.getLocalizedMessage()));
-        }
+    CompletableFuture<Boolean> delete(@PathVariable final String id) {
+        return miscellaneousService
+            .load(id)
+            .thenCompose(miscellaneousService::delete);
     }
 
     /**
@@ -137,20 +195,15 @@ public class MiscellaneousController {
         , @ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
     })
     @GetMapping("/{id:[A-Za-z0-9]{10}}")
-    public ResponseEntity<Miscellaneous> read(@PathVariable final String id) {
-        try {
-            Miscellaneous result = miscellaneousService.load(id).get();
-            if (result == null) {
-                return ResponseEntity.notFound().build();
-            }
-            return ResponseEntity.ok(result);
-        } catch (InterruptedException | ExecutionException exception) {
-            throw new ResponseStatusException(
-                HttpStatus.INTERNAL_SERVER_ERROR,
-                String.format("讀取雜物「%s」時發生錯誤：%s", id, exception.getLocalizedMessage()),
-                exception
-            );
-        }
+    public CompletableFuture<ResponseEntity<Miscellaneous>> read(@PathVariable final String id) {
+        return miscellaneousService
+            .load(id)
+            .thenApply(result -> {
+                if (result == null) {
+                    return ResponseEntity.<Miscellaneous>notFound().build();
+                }
+                return ResponseEntity.ok(result);
+            });
     }
 
     /**
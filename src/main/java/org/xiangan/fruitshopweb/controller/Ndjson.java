@@ -0,0 +1,51 @@
+package org.xiangan.fruitshopweb.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * NDJSON (每行一筆 JSON) 請求內容
+ *
+ * @author kyle
+ */
+final class Ndjson {
+
+	private Ndjson() {
+	}
+
+	/**
+	 * 逐行解析，略過空白行；格式錯誤的行以 null 佔位，讓明細序號與原始筆數一致
+	 *
+	 * @param body 請求內容
+	 * @param reader 明細的 JSON 讀取器
+	 * @param <T> 明細類型
+	 * @return 明細們
+	 * @throws IOException 讀取請求內容失敗
+	 */
+	static <T> List<T> read(final InputStream body, final ObjectReader reader) throws IOException {
+		final List<T> lines = new ArrayList<>();
+		try (BufferedReader bufferedReader =
+			     new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+			String line;
+			while ((line = bufferedReader.readLine()) != null) {
+				if (line.isBlank()) {
+					continue;
+				}
+				try {
+					lines.add(reader.readValue(line));
+				} catch (JsonProcessingException exception) {
+					lines.add(null);
+				}
+			}
+		}
+		return lines;
+	}
+}
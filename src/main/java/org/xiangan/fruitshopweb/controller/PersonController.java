@@ -12,16 +12,18 @@ import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.xiangan.fruitshopweb.entity.Person;
 import org.xiangan.fruitshopweb.enumType.LevelEnum;
-import org.xiangan.fruitshopweb.exception.CustomException;
 import org.xiangan.fruitshopweb.model.ApiResponseDTO;
+import org.xiangan.fruitshopweb.model.CursorPage;
 import org.xiangan.fruitshopweb.model.PaginationRequest;
 import org.xiangan.fruitshopweb.model.RegisterRequest;
 import org.xiangan.fruitshopweb.service.AuthenticationService;
+import org.xiangan.fruitshopweb.service.ChangeVersionService;
 import org.xiangan.fruitshopweb.service.PersonService;
 
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 人員
@@ -45,34 +47,71 @@ public class PersonController {
 	 */
 	private final AuthenticationService service;
 
+	/**
+	 * (服務層) 資料表異動版本
+	 */
+	private final ChangeVersionService changeVersionService;
+
 	/**
 	 * 瀏覽
 	 *
 	 * @param paginationRequest 分頁請求
-	 * @return 可分頁的人員
+	 * @param request 請求
+	 * @return 可分頁的人員；人員未異動時回應 304
 	 */
 	@Operation(
 		summary = "瀏覽所有的人員名單"
-		,description = "瀏覽可分頁的所有人員名單"
+		,description = "瀏覽可分頁的所有人員名單；回應附 ETag，帶 If-None-Match 且人員未異動時回應 304"
 		,responses = {
 			@ApiResponse(responseCode = "200", description = "Success")
+			,@ApiResponse(responseCode = "304", description = "人員未異動", content = @Content)
 			,@ApiResponse(responseCode = "400", description = "參數有誤", content = @Content)
 			,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
 	})
 	@GetMapping
-	Page<Person> browse(@Validated final PaginationRequest paginationRequest) {
-		final int p = paginationRequest.getP();
-		try {
-			return personService
-				       .load(
-					       p < 1 ? 0 : p - 1,
-					       paginationRequest.getS()
-				       )
-				       .get();
-		} catch (InterruptedException | ExecutionException exception) {
-			throw new CustomException(
-				String.format("瀏覽人員時拋出線程中斷異常：%s❗", exception.getLocalizedMessage()));
-		}
+	CompletableFuture<ResponseEntity<Page<Person>>> browse(
+		@Validated final PaginationRequest paginationRequest,
+		final WebRequest request) {
+		final int p = paginationRequest.getP() < 1 ? 0 : paginationRequest.getP() - 1;
+		final int s = paginationRequest.getS();
+		return ETags.conditional(
+			request,
+			changeVersionService.etag(ChangeVersionService.Table.PERSON, "paged", p, s),
+			() -> personService.load(p, s)
+		);
+	}
+
+	/**
+	 * 以游標瀏覽
+	 *
+	 * @param paginationRequest 分頁請求 (含游標)
+	 * @param request 請求
+	 * @return 游標分頁的人員；人員未異動時回應 304
+	 */
+	@Operation(
+		summary = "以游標瀏覽所有人員"
+		,description = "帶入 cursor 參數即改用游標分頁（第一頁帶空值），不計算總筆數，適合深分頁；回應附 ETag"
+		,responses = {
+		@ApiResponse(responseCode = "200", description = "Success")
+		,@ApiResponse(responseCode = "304", description = "人員未異動", content = @Content)
+		,@ApiResponse(responseCode = "400", description = "參數或游標有誤", content = @Content)
+		,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
+	})
+	@GetMapping(params = "cursor")
+	CompletableFuture<ResponseEntity<CursorPage<Person>>> scroll(
+		@Validated final PaginationRequest paginationRequest,
+		final WebRequest request) {
+		return ETags.conditional(
+			request,
+			changeVersionService.etag(
+				ChangeVersionService.Table.PERSON, "cursor", paginationRequest.getCursor(), paginationRequest.getS()),
+			() -> personService
+				      .load(
+					      CursorPage.position(paginationRequest.getCursor()),
+					      paginationRequest.getS()
+				      )
+				      .thenApply(CursorPage::of)
+		);
 	}
 
 	/**
@@ -92,13 +131,8 @@ public class PersonController {
 			,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
 	})
 	@GetMapping("/{id:[A-Za-z0-9]{10}}")
-	Person read(@PathVariable final String id) {
-		try {
-			return personService.load(id).get();
-		} catch (InterruptedException | ExecutionException exception) {
-			throw new CustomException(
-				String.format("讀取人員「%s」時拋出線程中斷異常：%s❗", id, exception.getLocalizedMessage()));
-		}
+	CompletableFuture<Person> read(@PathVariable final String id) {
+		return personService.load(id);
 	}
 
 	/**
@@ -177,20 +211,9 @@ public class PersonController {
 			,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
 	})
 	@DeleteMapping("/{id:[A-Za-z0-9]{10}}")
-	Boolean delete(@PathVariable final String id) {
-		Person person;
-		try {
-			person = personService.load(id).get();
-		} catch (InterruptedException | ExecutionException exception) {
-			throw new CustomException(
-				String.format("讀取人員「%s」時拋出線程中斷異常：%s❗", id, exception.getLocalizedMessage()));
-		}
-
-		try {
-			return personService.delete(person).get();
-		} catch (InterruptedException | ExecutionException exception) {
-			throw new CustomException(
-				String.format("刪除人員「%s」時拋出線程中斷異常：%s❗️", id, exception.getLocalizedMessage()));
-		}
+	CompletableFuture<Boolean> delete(@PathVariable final String id) {
+		return personService
+			.load(id)
+			.thenCompose(personService::delete);
 	}
 }
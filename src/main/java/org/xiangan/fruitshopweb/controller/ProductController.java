@@ -10,19 +10,24 @@ import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.xiangan.fruitshopweb.entity.Product;
 import org.xiangan.fruitshopweb.enumType.ProductTypeEnum;
 import org.xiangan.fruitshopweb.enumType.UnitTypeEnum;
-import org.xiangan.fruitshopweb.exception.CustomException;
+import org.xiangan.fruitshopweb.model.CacheStatistics;
+import org.xiangan.fruitshopweb.model.CursorPage;
 import org.xiangan.fruitshopweb.model.PaginationRequest;
+import org.xiangan.fruitshopweb.service.ChangeVersionService;
+import org.xiangan.fruitshopweb.service.ProductCatalogService;
 import org.xiangan.fruitshopweb.service.ProductService;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 產品
@@ -41,66 +46,124 @@ public class ProductController {
 	 */
 	private final ProductService productService;
 
+	/**
+	 * (服務層) 產品目錄快取
+	 */
+	private final ProductCatalogService productCatalogService;
+
+	/**
+	 * (服務層) 資料表異動版本
+	 */
+	private final ChangeVersionService changeVersionService;
+
 	/**
 	 * 瀏覽
 	 *
 	 * @param paginationRequest 分頁請求
 	 * @param isAll 是否找全部的產品,true:全部 | false:搜尋庫存大於 0 的
-	 * @return 可分頁的產品
+	 * @param request 請求
+	 * @return 可分頁的產品；產品未異動時回應 304
 	 */
 	@Operation(
 		summary = "瀏覽可分頁的所有產品名單"
+		,description = "回應附 ETag，帶 If-None-Match 且產品未異動時回應 304"
 		,parameters = {
 			@Parameter(name = "isAll",description = "是否找全部的產品,true:全部 | false:搜尋庫存大於 0 的")}
 		,responses = {
 		@ApiResponse(responseCode = "200", description = "Success")
+		,@ApiResponse(responseCode = "304", description = "產品未異動", content = @Content)
 		,@ApiResponse(responseCode = "400", description = "參數有誤", content = @Content)
 		,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
 	})
 	@GetMapping("/paged")
-	Page<Product> browse(
+	CompletableFuture<ResponseEntity<Page<Product>>> browse(
+		@Validated final PaginationRequest paginationRequest
+		,@RequestParam Boolean isAll
+		,final WebRequest request) {
+		final int p = paginationRequest.getP() < 1 ? 0 : paginationRequest.getP() - 1;
+		final int s = paginationRequest.getS();
+		final boolean all = !Objects.isNull(isAll);
+		return ETags.conditional(
+			request,
+			changeVersionService.etag(ChangeVersionService.Table.PRODUCT, "paged", p, s, all),
+			() -> productCatalogService.load(p, s, all)
+		);
+	}
+
+	/**
+	 * 以游標瀏覽
+	 *
+	 * @param paginationRequest 分頁請求 (含游標)
+	 * @param isAll 是否找全部的產品,true:全部 | false:搜尋庫存大於 0 的
+	 * @return 游標分頁的產品
+	 */
+	@Operation(
+		summary = "以游標瀏覽所有產品名單"
+		,description = "帶入 cursor 參數即改用游標分頁（第一頁帶空值），不計算總筆數，適合深分頁"
+		,parameters = {
+			@Parameter(name = "isAll",description = "是否找全部的產品,true:全部 | false:搜尋庫存大於 0 的")}
+		,responses = {
+		@ApiResponse(responseCode = "200", description = "Success")
+		,@ApiResponse(responseCode = "400", description = "參數或游標有誤", content = @Content)
+		,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
+	})
+	@GetMapping(value = "/paged", params = "cursor")
+	CompletableFuture<CursorPage<Product>> scroll(
 		@Validated final PaginationRequest paginationRequest
 		,@RequestParam Boolean isAll) {
-		final int p = paginationRequest.getP();
-		 isAll = !Objects.isNull(isAll);
-		try {
-			return productService
-				       .load(
-					       p < 1 ? 0 : p - 1,
-					       paginationRequest.getS(),
-						   isAll
-				       )
-				       .get();
-		} catch (InterruptedException | ExecutionException exception) {
-			throw new CustomException(
-				String.format("瀏覽產品時拋出線程中斷異常：%s❗", exception.getLocalizedMessage()));
-		}
+		isAll = !Objects.isNull(isAll);
+		return productService
+			       .load(
+				       CursorPage.position(paginationRequest.getCursor()),
+				       paginationRequest.getS(),
+				       isAll
+			       )
+			       .thenApply(CursorPage::of);
 	}
 
 	/**
 	 * 瀏覽
 	 *
 	 * @param isAll 是否找全部的產品,true:全部 | false:搜尋庫存大於 0 的
-	 * @return 全部的產品
+	 * @param request 請求
+	 * @return 全部的產品；產品未異動時回應 304
 	 */
 	@Operation(
 		summary = "瀏覽所有的產品名單(無分頁)"
+		,description = "回應附 ETag，帶 If-None-Match 且產品未異動時回應 304"
 		,parameters = {
 		@Parameter(name = "isAll",description = "是否找全部的產品,true:全部 | false:搜尋庫存大於 0 的")}
 		,responses = {
 		@ApiResponse(responseCode = "200", description = "Success")
+		,@ApiResponse(responseCode = "304", description = "產品未異動", content = @Content)
 		,@ApiResponse(responseCode = "400", description = "參數有誤", content = @Content)
 		,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
 	})
 	@GetMapping("/list")
-	List<Product> browse(@RequestParam Boolean isAll) {
-		 isAll = !Objects.isNull(isAll);
-		try {
-			return productService.load(isAll).get();
-		} catch (InterruptedException | ExecutionException exception) {
-			throw new CustomException(
-				String.format("瀏覽產品時拋出線程中斷異常：%s❗", exception.getLocalizedMessage()));
-		}
+	CompletableFuture<ResponseEntity<List<Product>>> browse(@RequestParam Boolean isAll, final WebRequest request) {
+		final boolean all = !Objects.isNull(isAll);
+		return ETags.conditional(
+			request,
+			changeVersionService.etag(ChangeVersionService.Table.PRODUCT, "list", all),
+			() -> productCatalogService.load(all)
+		);
+	}
+
+	/**
+	 * 快取統計
+	 *
+	 * @return 產品清單與單一產品的快取統計
+	 */
+	@Operation(
+		summary = "產品目錄快取統計"
+		,description = "產品清單與單一產品快取的命中、未命中與淘汰次數"
+		,responses = {
+		@ApiResponse(responseCode = "200", description = "Success", useReturnTypeSchema = true)
+		,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
+	})
+	@GetMapping("/cache")
+	List<CacheStatistics> statistics() {
+		return productCatalogService.statistics();
 	}
 	
 	/**
@@ -157,13 +220,8 @@ public class ProductController {
 		,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
 	})
 	@GetMapping("/{id:[A-Za-z0-9]{10}}")
-	Product read(@PathVariable final String id) {
-		try {
-			return productService.load(id).get();
-		} catch (InterruptedException | ExecutionException exception) {
-			throw new CustomException(
-				String.format("讀取產品「%s」時拋出線程中斷異常：%s❗", id, exception.getLocalizedMessage()));
-		}
+	CompletableFuture<Product> read(@PathVariable final String id) {
+		return productCatalogService.load(id);
 	}
 
 	/**
@@ -1,5 +1,6 @@
 package org.xiangan.fruitshopweb.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
@@ -12,15 +13,25 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.xiangan.fruitshopweb.entity.Purchase;
-import org.xiangan.fruitshopweb.exception.CustomException;
+import org.xiangan.fruitshopweb.model.BulkResult;
+import org.xiangan.fruitshopweb.model.CursorPage;
 import org.xiangan.fruitshopweb.model.PaginationRequest;
+import org.xiangan.fruitshopweb.model.PurchaseLine;
+import org.xiangan.fruitshopweb.model.PurchaseView;
 import org.xiangan.fruitshopweb.service.PurchaseService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.concurrent.ExecutionException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 進貨單
@@ -39,6 +50,11 @@ public class PurchaseController {
 	 */
 	private final PurchaseService purchaseService;
 
+	/**
+	 * JSON 轉換
+	 */
+	private final ObjectMapper objectMapper;
+
 	/**
 	 * 瀏覽
 	 *
@@ -53,20 +69,74 @@ public class PurchaseController {
 		,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
 	})
 	@GetMapping
-	Page<Purchase> browse(@Validated final PaginationRequest paginationRequest) {
+	CompletableFuture<Page<PurchaseView>> browse(@Validated final PaginationRequest paginationRequest) {
 		final int p = paginationRequest.getP();
 
-		try {
-			return purchaseService
-				       .load(
-					       p < 1 ? 0 : p - 1,
-					       paginationRequest.getS()
-				       )
-				       .get();
-		} catch (InterruptedException | ExecutionException exception) {
-			throw new CustomException(
-				String.format("瀏覽進貨單時拋出線程中斷異常：%s❗", exception.getLocalizedMessage()));
-		}
+		return purchaseService
+			       .load(
+				       p < 1 ? 0 : p - 1,
+				       paginationRequest.getS()
+			       );
+	}
+
+	/**
+	 * 以游標瀏覽
+	 *
+	 * @param paginationRequest 分頁請求 (含游標)
+	 * @return 游標分頁的進貨單
+	 */
+	@Operation(
+		summary = "以游標瀏覽所有進貨單"
+		,description = "帶入 cursor 參數即改用游標分頁（第一頁帶空值），不計算總筆數，適合深分頁"
+		,responses = {
+		@ApiResponse(responseCode = "200", description = "Success")
+		,@ApiResponse(responseCode = "400", description = "參數或游標有誤", content = @Content)
+		,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
+	})
+	@GetMapping(params = "cursor")
+	CompletableFuture<CursorPage<Purchase>> scroll(@Validated final PaginationRequest paginationRequest) {
+		return purchaseService
+			       .load(
+				       CursorPage.position(paginationRequest.getCursor()),
+				       paginationRequest.getS()
+			       )
+			       .thenApply(CursorPage::of);
+	}
+
+	/**
+	 * 匯出
+	 *
+	 * @param begin 起始日期(含)
+	 * @param end 結束日期(含)
+	 * @param format 格式
+	 * @return 進貨單檔案
+	 */
+	@Operation(
+		summary = "匯出進貨單"
+		,description = "依日期區間以 CSV (預設) 或 NDJSON 串流下載，不分頁"
+		,parameters = {
+		@Parameter(name = "begin", description = "起始日期(含)，未填不限", in = ParameterIn.QUERY, example = "2025-01-01")
+		,@Parameter(name = "end", description = "結束日期(含)，未填不限", in = ParameterIn.QUERY, example = "2025-03-31")
+		,@Parameter(name = "format", description = "csv 或 ndjson", in = ParameterIn.QUERY, example = "csv")}
+		,responses = {
+		@ApiResponse(responseCode = "200", description = "Success")
+		,@ApiResponse(responseCode = "400", description = "參數有誤", content = @Content)
+		,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
+	})
+	@GetMapping("/export")
+	ResponseEntity<StreamingResponseBody> export(
+		@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") final LocalDate begin
+		,@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") final LocalDate end
+		,@RequestParam(defaultValue = "csv") @Pattern(regexp = Export.FORMATS, message = "格式須為 csv 或 ndjson❗") final String format) {
+		return Export.of(
+			format,
+			"purchase",
+			begin,
+			end,
+			objectMapper,
+			PurchaseView.class,
+			consumer -> purchaseService.export(begin, end, consumer)
+		);
 	}
 
 	/**
@@ -98,6 +168,47 @@ public class PurchaseController {
 			return purchaseService.create(productId,quantity,receivingDate);
 	}
 	
+	/**
+	 * 批次建立
+	 *
+	 * @param lines 進貨明細
+	 * @return 各明細處理結果
+	 */
+	@Operation(
+		summary = "批次建立進貨單"
+		,description = "一次建立多筆進貨單並同步調整庫存，有誤的明細逐筆回報於 lines，不影響其他明細。"
+		,responses = {
+		@ApiResponse(responseCode = "200", description = "Success", useReturnTypeSchema = true)
+		,@ApiResponse(responseCode = "400", description = "參數有誤", content = @Content)
+		,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
+	})
+	@PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+	BulkResult create(@RequestBody final List<PurchaseLine> lines) {
+		return purchaseService.create(lines);
+	}
+
+	/**
+	 * 批次建立 (NDJSON，每行一筆進貨明細)
+	 *
+	 * @param body 請求內容
+	 * @return 各明細處理結果
+	 * @throws IOException 讀取請求內容失敗
+	 */
+	@Operation(
+		summary = "批次建立進貨單 (NDJSON)"
+		,description = "請求內容每行一筆進貨明細，明細序號不計空白行；格式錯誤的行逐筆回報。"
+		,responses = {
+		@ApiResponse(responseCode = "200", description = "Success", useReturnTypeSchema = true)
+		,@ApiResponse(responseCode = "400", description = "參數有誤", content = @Content)
+		,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
+	})
+	@PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+	BulkResult create(final InputStream body) throws IOException {
+		return purchaseService.create(
+			Ndjson.<PurchaseLine>read(body, objectMapper.readerFor(PurchaseLine.class))
+		);
+	}
+
 	/**
 	 * 刪除進貨單
 	 *
@@ -115,14 +226,8 @@ public class PurchaseController {
 		,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
 	})
 	@DeleteMapping("/{id:[A-Za-z0-9]{10}}")
-	Boolean delete(@PathVariable final String id) {
-		try {
-			return purchaseService.delete(id).get();
-		} catch (InterruptedException | ExecutionException exception) {
-			throw new CustomException(
-				String.format(
-						"刪除進貨單「%s」時拋出線程中斷異常：%s❗️", id, exception.getLocalizedMessage()));
-		}
+	CompletableFuture<Boolean> delete(@PathVariable final String id) {
+		return purchaseService.delete(id);
 	}
 	
 	/**
@@ -142,14 +247,8 @@ public class PurchaseController {
 		,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
 	})
 	@GetMapping("/{id:[A-Za-z0-9]{10}}")
-	Purchase read(@PathVariable final String id) {
-		try {
-			return purchaseService.load(id).get();
-		} catch (InterruptedException | ExecutionException exception) {
-			throw new CustomException(
-				String.format(
-						"讀取進貨單「%s」時拋出線程中斷異常：%s❗", id, exception.getLocalizedMessage()));
-		}
+	CompletableFuture<Purchase> read(@PathVariable final String id) {
+		return purchaseService.load(id);
 	}
 	
 	/**
@@ -9,15 +9,20 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import org.xiangan.fruitshopweb.entity.Revenue;
-import org.xiangan.fruitshopweb.exception.CustomException;
+import org.xiangan.fruitshopweb.model.CursorPage;
 import org.xiangan.fruitshopweb.model.PaginationRequest;
+import org.xiangan.fruitshopweb.model.RevenueSummary;
 import org.xiangan.fruitshopweb.service.RevenueService;
+import org.xiangan.fruitshopweb.service.RollupService;
 
 import java.math.BigDecimal;
-import java.util.concurrent.ExecutionException;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 營收狀況
@@ -36,6 +41,11 @@ public class RevenueController {
 	 */
 	private final RevenueService revenueService;
 
+	/**
+	 * (服務層) 每日營運彙總
+	 */
+	private final RollupService rollupService;
+
 	/**
 	 * 瀏覽
 	 *
@@ -50,21 +60,38 @@ public class RevenueController {
 			, @ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
 	})
 	@GetMapping
-	Page<Revenue> browse(@Validated final PaginationRequest paginationRequest) {
+	CompletableFuture<Page<Revenue>> browse(@Validated final PaginationRequest paginationRequest) {
 		final int p = paginationRequest.getP();
 
-		try {
-			return revenueService
-					.load(
-							p < 1 ? 0 : p - 1,
-							paginationRequest.getS()
-					)
-					.get();
-		} catch (InterruptedException | ExecutionException exception) {
-			throw new CustomException(
-					String.format(
-							"瀏覽營業狀況時拋出線程中斷異常：%s❗", exception.getLocalizedMessage()));
-		}
+		return revenueService
+				.load(
+						p < 1 ? 0 : p - 1,
+						paginationRequest.getS()
+				);
+	}
+
+	/**
+	 * 以游標瀏覽
+	 *
+	 * @param paginationRequest 分頁請求 (含游標)
+	 * @return 游標分頁的營收狀況
+	 */
+	@Operation(
+		summary = "以游標瀏覽所有營收狀況"
+		,description = "帶入 cursor 參數即改用游標分頁（第一頁帶空值），不計算總筆數，適合深分頁"
+		,responses = {
+		@ApiResponse(responseCode = "200", description = "Success")
+		,@ApiResponse(responseCode = "400", description = "參數或游標有誤", content = @Content)
+		,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
+	})
+	@GetMapping(params = "cursor")
+	CompletableFuture<CursorPage<Revenue>> scroll(@Validated final PaginationRequest paginationRequest) {
+		return revenueService
+			       .load(
+				       CursorPage.position(paginationRequest.getCursor()),
+				       paginationRequest.getS()
+			       )
+			       .thenApply(CursorPage::of);
 	}
 
 	/**
@@ -105,6 +132,58 @@ public class RevenueController {
 				personnelExpenses, miscellaneousExpense, wastage);
 	}
 
+	/**
+	 * 區間營收總計
+	 *
+	 * @param begin 起始日期
+	 * @param end 結束日期
+	 * @return 區間營收總計
+	 */
+	@Operation(
+			summary = "區間營收總計"
+			, description = "進貨、雜物、損耗成本取自每日營運彙總，總收入與人事成本取自區間內登記的營收狀況"
+			, parameters = {
+			@Parameter(name = "begin", description = "起始日期(含)", in = ParameterIn.QUERY, example = "2025-01-01")
+			, @Parameter(name = "end", description = "結束日期(含)，預設為今天", in = ParameterIn.QUERY, example = "2025-01-31")}
+			, responses = {
+			@ApiResponse(responseCode = "200", description = "Success", useReturnTypeSchema = true)
+			, @ApiResponse(responseCode = "400", description = "參數有誤", content = @Content)
+			, @ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
+	})
+	@GetMapping("/summary")
+	CompletableFuture<RevenueSummary> summarize(
+			@RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") final LocalDate begin,
+			@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") final LocalDate end
+	) {
+		return revenueService.summarize(begin, Optional.ofNullable(end).orElse(LocalDate.now()));
+	}
+
+	/**
+	 * 重新計算每日營運彙總
+	 *
+	 * @param begin 起始日期
+	 * @param end 結束日期
+	 * @return 寫入的天數
+	 */
+	@Operation(
+			summary = "重新計算每日營運彙總"
+			, description = "由進貨、損耗、雜物原始資料依月份平行重新計算；產品成本單價調整後或彙總有誤時使用"
+			, parameters = {
+			@Parameter(name = "begin", description = "起始日期(含)", in = ParameterIn.QUERY, example = "2025-01-01")
+			, @Parameter(name = "end", description = "結束日期(含)，預設為今天", in = ParameterIn.QUERY, example = "2025-12-31")}
+			, responses = {
+			@ApiResponse(responseCode = "200", description = "Success", useReturnTypeSchema = true)
+			, @ApiResponse(responseCode = "400", description = "參數有誤", content = @Content)
+			, @ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
+	})
+	@PostMapping("/rollup")
+	CompletableFuture<Integer> rebuild(
+			@RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd") final LocalDate begin,
+			@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") final LocalDate end
+	) {
+		return rollupService.rebuild(begin, Optional.ofNullable(end).orElse(LocalDate.now()));
+	}
+
 	/**
 	 * 刪除
 	 *
@@ -121,23 +200,10 @@ public class RevenueController {
 			, @ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
 	})
 	@DeleteMapping("/{id:[A-Za-z0-9]{10}}")
-	Boolean delete(@PathVariable final String id) {
-		Revenue revenue;
-		try {
-			revenue = revenueService.load(id).get();
-		} catch (InterruptedException | ExecutionException exception) {
-			throw new CustomException(
-					String.format(
-							"讀取營收狀況「%s」時拋出線程中斷異常：%s❗", id, exception.getLocalizedMessage()));
-		}
-
-		try {
-			return revenueService.delete(revenue).get();
-		} catch (InterruptedException | ExecutionException exception) {
-			throw new CustomException(
-					String.format(
-							"刪除營收狀況「%s」時拋出線程中斷異常：%s❗️", id, exception.getLocalizedMessage()));
-		}
+	CompletableFuture<Boolean> delete(@PathVariable final String id) {
+		return revenueService
+				.load(id)
+				.thenCompose(revenueService::delete);
 	}
 
 	/**
@@ -156,14 +222,8 @@ public class RevenueController {
 			, @ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
 	})
 	@GetMapping("/{id:[A-Za-z0-9]{10}}")
-	Revenue read(@PathVariable final String id) {
-		try {
-			return revenueService.load(id).get();
-		} catch (InterruptedException | ExecutionException exception) {
-			throw new CustomException(
-					String.format(
-							"讀取營收狀況「%s」時拋出線程中斷異常：%s❗", id, exception.getLocalizedMessage()));
-		}
+	CompletableFuture<Revenue> read(@PathVariable final String id) {
+		return revenueService.load(id);
 	}
 
 	/**
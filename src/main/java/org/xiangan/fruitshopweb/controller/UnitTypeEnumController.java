@@ -1,5 +1,7 @@
 package org.xiangan.fruitshopweb.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -11,6 +13,7 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 import org.xiangan.fruitshopweb.enumType.UnitTypeEnum;
 import org.xiangan.fruitshopweb.exception.CustomException;
 
@@ -24,19 +27,37 @@ import org.xiangan.fruitshopweb.exception.CustomException;
 @Tag(name = "單位類型 Enum api")
 public class UnitTypeEnumController {
 
+	/**
+	 * 所有單位類型的 ETag (由序列化內容計算，內容不變則不變)
+	 */
+	private final String etag;
+
+	/**
+	 * @param objectMapper JSON 轉換
+	 * @throws JsonProcessingException 序列化失敗
+	 */
+	public UnitTypeEnumController(final ObjectMapper objectMapper) throws JsonProcessingException {
+		etag = ETags.of("unitType", objectMapper.writeValueAsBytes(UnitTypeEnum.values()));
+	}
+
 	/**
 	 * 瀏覽所有單位類型
 	 *
-	 * @return 單位類型們
+	 * @param request 請求
+	 * @return 單位類型們；內容未變動時回應 304
 	 */
 	@Operation(
 			summary = "瀏覽所有單位類型"
+			, description = "回應附 ETag，帶 If-None-Match 且內容未變動時回應 304"
 			, responses = {
 			@ApiResponse(responseCode = "200", description = "Success")
+			, @ApiResponse(responseCode = "304", description = "內容未變動", content = @Content)
 			, @ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
 	})
 	@GetMapping
-	ResponseEntity<UnitTypeEnum[]> browse() {return new ResponseEntity<>(UnitTypeEnum.values(), HttpStatus.OK);}
+	ResponseEntity<UnitTypeEnum[]> browse(final WebRequest request) {
+		return ETags.conditional(request, etag, UnitTypeEnum.values());
+	}
 
 	/**
 	 * 讀取單位類型
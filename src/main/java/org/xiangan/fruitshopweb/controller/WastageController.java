@@ -1,5 +1,7 @@
 package org.xiangan.fruitshopweb.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
@@ -12,15 +14,28 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.xiangan.fruitshopweb.entity.Wastage;
 import org.xiangan.fruitshopweb.exception.CustomException;
+import org.xiangan.fruitshopweb.model.BulkResult;
+import org.xiangan.fruitshopweb.model.CursorPage;
+import org.xiangan.fruitshopweb.model.LineResult;
 import org.xiangan.fruitshopweb.model.PaginationRequest;
+import org.xiangan.fruitshopweb.model.WastageLine;
+import org.xiangan.fruitshopweb.model.WastageView;
 import org.xiangan.fruitshopweb.service.WastageService;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.concurrent.ExecutionException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 損耗單
@@ -39,6 +54,16 @@ public class WastageController {
 	 */
 	private final WastageService wastageService;
 
+	/**
+	 * JSON 轉換
+	 */
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * NDJSON 批次每段筆數
+	 */
+	private static final int CHUNK_SIZE = 500;
+
 	/**
 	 * 瀏覽
 	 *
@@ -53,20 +78,74 @@ public class WastageController {
 			,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
 	})
 	@GetMapping
-	Page<Wastage> browse(@Validated final PaginationRequest paginationRequest) {
+	CompletableFuture<Page<WastageView>> browse(@Validated final PaginationRequest paginationRequest) {
 		final int p = paginationRequest.getP();
 		
-		try {
-			return wastageService
-				       .load(
-					       p < 1 ? 0 : p - 1,
-					       paginationRequest.getS()
-				       )
-				       .get();
-		} catch (InterruptedException | ExecutionException exception) {
-			throw new CustomException(
-				String.format("瀏覽損耗單時拋出線程中斷異常：%s❗", exception.getLocalizedMessage()));
-		}
+		return wastageService
+			       .load(
+				       p < 1 ? 0 : p - 1,
+				       paginationRequest.getS()
+			       );
+	}
+
+	/**
+	 * 以游標瀏覽
+	 *
+	 * @param paginationRequest 分頁請求 (含游標)
+	 * @return 游標分頁的損耗單
+	 */
+	@Operation(
+		summary = "以游標瀏覽所有損耗單"
+		,description = "帶入 cursor 參數即改用游標分頁（第一頁帶空值），不計算總筆數，適合深分頁"
+		,responses = {
+		@ApiResponse(responseCode = "200", description = "Success")
+		,@ApiResponse(responseCode = "400", description = "參數或游標有誤", content = @Content)
+		,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
+	})
+	@GetMapping(params = "cursor")
+	CompletableFuture<CursorPage<Wastage>> scroll(@Validated final PaginationRequest paginationRequest) {
+		return wastageService
+			       .load(
+				       CursorPage.position(paginationRequest.getCursor()),
+				       paginationRequest.getS()
+			       )
+			       .thenApply(CursorPage::of);
+	}
+
+	/**
+	 * 匯出
+	 *
+	 * @param begin 起始日期(含)
+	 * @param end 結束日期(含)
+	 * @param format 格式
+	 * @return 損耗單檔案
+	 */
+	@Operation(
+		summary = "匯出損耗單"
+		,description = "依日期區間以 CSV (預設) 或 NDJSON 串流下載，不分頁"
+		,parameters = {
+		@Parameter(name = "begin", description = "起始日期(含)，未填不限", in = ParameterIn.QUERY, example = "2025-01-01")
+		,@Parameter(name = "end", description = "結束日期(含)，未填不限", in = ParameterIn.QUERY, example = "2025-03-31")
+		,@Parameter(name = "format", description = "csv 或 ndjson", in = ParameterIn.QUERY, example = "csv")}
+		,responses = {
+		@ApiResponse(responseCode = "200", description = "Success")
+		,@ApiResponse(responseCode = "400", description = "參數有誤", content = @Content)
+		,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
+	})
+	@GetMapping("/export")
+	ResponseEntity<StreamingResponseBody> export(
+		@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") final LocalDate begin
+		,@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") final LocalDate end
+		,@RequestParam(defaultValue = "csv") @Pattern(regexp = Export.FORMATS, message = "格式須為 csv 或 ndjson❗") final String format) {
+		return Export.of(
+			format,
+			"wastage",
+			begin,
+			end,
+			objectMapper,
+			WastageView.class,
+			consumer -> wastageService.export(begin, end, consumer)
+		);
 	}
 	
 	/**
@@ -100,6 +179,78 @@ public class WastageController {
 	) {
 		return wastageService.create(productId, quantity, date);
 	}
+
+	/**
+	 * 批次建立
+	 *
+	 * @param lines 損耗明細
+	 * @return 各明細處理結果
+	 */
+	@Operation(
+		summary = "批次建立損耗單"
+		,description = "依產品彙總損耗數量後一次檢查並扣減庫存，全部明細於同一交易中寫入；有誤的明細逐筆回報於 lines，不影響其他明細。"
+		,responses = {
+		@ApiResponse(responseCode = "200", description = "Success", useReturnTypeSchema = true)
+		,@ApiResponse(responseCode = "400", description = "參數有誤", content = @Content)
+		,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
+	})
+	@PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+	BulkResult create(@RequestBody final List<WastageLine> lines) {
+		return wastageService.create(lines);
+	}
+
+	/**
+	 * 批次建立 (NDJSON，每行一筆損耗明細)
+	 * <p>
+	 * 大批次以每 {@value #CHUNK_SIZE} 筆為一段，各段於各自的交易中處理，
+	 * 處理完一段即以 NDJSON 回寫該段的明細結果，不需等待整批完成。
+	 * </p>
+	 *
+	 * @param body 請求內容
+	 * @return 逐行回寫的各明細處理結果
+	 * @throws IOException 讀取請求內容失敗
+	 */
+	@Operation(
+		summary = "批次建立損耗單 (NDJSON)"
+		,description = "請求內容每行一筆損耗明細，明細序號不計空白行；"
+		+ "每 " + CHUNK_SIZE + " 筆為一段各自提交，結果以 NDJSON 每行一筆依序串流回傳。"
+		,responses = {
+		@ApiResponse(responseCode = "200", description = "Success", content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE))
+		,@ApiResponse(responseCode = "400", description = "參數有誤", content = @Content)
+		,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
+	})
+	@PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+	ResponseEntity<StreamingResponseBody> create(final InputStream body) throws IOException {
+		final List<WastageLine> lines = Ndjson.read(body, objectMapper.readerFor(WastageLine.class));
+		final ObjectWriter writer = objectMapper.writerFor(LineResult.class);
+
+		return ResponseEntity
+			.ok()
+			.contentType(MediaType.APPLICATION_NDJSON)
+			.body(output -> {
+				for (int offset = 0; offset < lines.size(); offset += CHUNK_SIZE) {
+					final List<WastageLine> chunk = lines.subList(offset, Math.min(offset + CHUNK_SIZE, lines.size()));
+					List<LineResult> results;
+					try {
+						results = wastageService.create(chunk, offset);
+					} catch (RuntimeException exception) {
+						log.error("批次損耗第 {} 筆起的分段處理失敗", offset + 1, exception);
+						final String error = exception instanceof CustomException
+							? exception.getMessage()
+							: "伺服器請求失敗❗";
+						results = new ArrayList<>(chunk.size());
+						for (int index = 0; index < chunk.size(); index++) {
+							results.add(LineResult.failure(offset + index + 1, error));
+						}
+					}
+					for (LineResult result : results) {
+						output.write(writer.writeValueAsBytes(result));
+						output.write('\n');
+					}
+					output.flush();
+				}
+			});
+	}
 	
 	/**
 	 * 刪除損耗單
@@ -118,13 +269,8 @@ public class WastageController {
 			,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
 	})
 	@DeleteMapping("/{id:[A-Za-z0-9]{10}}")
-	Boolean delete(@PathVariable final String id) {
-		try {
-			return wastageService.delete(id).get();
-		} catch (InterruptedException | ExecutionException exception) {
-			throw new CustomException(
-					String.format("刪除損耗單「%s」時拋出線程中斷異常：%s❗️", id, exception.getLocalizedMessage()));
-		}
+	CompletableFuture<Boolean> delete(@PathVariable final String id) {
+		return wastageService.delete(id);
 	}
 	
 	/**
@@ -144,13 +290,8 @@ public class WastageController {
 			,@ApiResponse(responseCode = "500", description = "伺服器請求失敗", content = @Content)
 	})
 	@GetMapping("/{id:[A-Za-z0-9]{10}}")
-	Wastage read(@PathVariable final String id) {
-		try {
-			return wastageService.load(id).get();
-		} catch (InterruptedException | ExecutionException exception) {
-			throw new CustomException(
-				String.format("讀取損耗單「%s」時拋出線程中斷異常：%s❗", id, exception.getLocalizedMessage()));
-		}
+	CompletableFuture<Wastage> read(@PathVariable final String id) {
+		return wastageService.load(id);
 	}
 	
 	/**
@@ -0,0 +1,77 @@
+package org.xiangan.fruitshopweb.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * 每日營運彙總
+ * <p>
+ * 由進貨、損耗、雜物異動即時累加的每日成本，營收區間查詢只需讀取區間內的天數筆數；
+ * 內容由 {@link org.xiangan.fruitshopweb.service.RollupService} 維護，請勿直接編輯。
+ * </p>
+ *
+ * @author kyle
+ */
+@Data
+@Entity
+@Table(name = "daily_rollup")
+public class DailyRollup {
+
+	/**
+	 * 日期
+	 */
+	@Column(
+		name = "record_date",
+		nullable = false,
+		updatable = false
+	)
+	@Id
+	@JsonFormat(pattern = "yyyy-MM-dd")
+	private LocalDate recordDate;
+
+	/**
+	 * 進貨成本 (進貨數量 × 成本單價)
+	 */
+	@Basic(optional = false)
+	@Column(
+		name = "purchases_expense",
+		nullable = false,
+		scale = 2
+	)
+	private BigDecimal purchasesExpense;
+
+	/**
+	 * 雜物成本
+	 */
+	@Basic(optional = false)
+	@Column(
+		name = "miscellaneous_expense",
+		nullable = false,
+		scale = 2
+	)
+	private BigDecimal miscellaneousExpense;
+
+	/**
+	 * 損耗 (損耗數量 × 成本單價)
+	 */
+	@Basic(optional = false)
+	@Column(
+		name = "wastage",
+		nullable = false,
+		scale = 2
+	)
+	private BigDecimal wastage;
+
+	/**
+	 * 默認建構子
+	 */
+	public DailyRollup() {
+		purchasesExpense = BigDecimal.ZERO;
+		miscellaneousExpense = BigDecimal.ZERO;
+		wastage = BigDecimal.ZERO;
+	}
+}
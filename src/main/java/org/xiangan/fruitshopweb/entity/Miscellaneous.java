@@ -1,15 +1,14 @@
 package org.xiangan.fruitshopweb.entity;
 
-import com.aventrix.jnanoid.jnanoid.NanoIdUtils;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.xiangan.fruitshopweb.generator.PrimaryKeys;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * 雜物
@@ -60,11 +59,7 @@ public class Miscellaneous {
     @PrePersist
     protected void genPrimaryKey() {
         if (id == null) {
-            id = NanoIdUtils.randomNanoId(
-                ThreadLocalRandom.current(),
-                "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789".toCharArray(),
-                10
-            );
+            id = PrimaryKeys.next();
         }
     }
 
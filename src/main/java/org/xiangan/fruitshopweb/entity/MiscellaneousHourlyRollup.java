@@ -0,0 +1,53 @@
+package org.xiangan.fruitshopweb.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 雜物每小時彙總
+ * <p>
+ * 與 {@link DailyRollup} 一同由雜物異動即時累加，區間加總時計算頭尾不足一天的整點；
+ * 內容由 {@link org.xiangan.fruitshopweb.service.RollupService} 維護，請勿直接編輯。
+ * </p>
+ *
+ * @author kyle
+ */
+@Data
+@Entity
+@Table(name = "miscellaneous_hourly_rollup")
+public class MiscellaneousHourlyRollup {
+
+	/**
+	 * 整點
+	 */
+	@Column(
+		name = "record_hour",
+		nullable = false,
+		updatable = false
+	)
+	@Id
+	@JsonFormat(pattern = "yyyy-MM-dd HH:mm")
+	private LocalDateTime recordHour;
+
+	/**
+	 * 花費金額
+	 */
+	@Basic(optional = false)
+	@Column(
+		name = "amount",
+		nullable = false,
+		scale = 2
+	)
+	private BigDecimal amount;
+
+	/**
+	 * 默認建構子
+	 */
+	public MiscellaneousHourlyRollup() {
+		amount = BigDecimal.ZERO;
+	}
+}
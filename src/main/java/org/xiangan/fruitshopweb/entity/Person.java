@@ -1,6 +1,5 @@
 package org.xiangan.fruitshopweb.entity;
 
-import com.aventrix.jnanoid.jnanoid.NanoIdUtils;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
@@ -13,11 +12,11 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.xiangan.fruitshopweb.enumType.LevelEnum;
 import org.xiangan.fruitshopweb.enumType.LevelEnumConverter;
+import org.xiangan.fruitshopweb.generator.PrimaryKeys;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
-import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * 貨主
@@ -33,6 +32,7 @@ import java.util.concurrent.ThreadLocalRandom;
 		name = "person",
 		uniqueConstraints = {
 				@UniqueConstraint(
+						name = Person.UNIQUE_NUMBER_COMPANY,
 						columnNames = {
 								"number",
 								"company"
@@ -42,6 +42,11 @@ import java.util.concurrent.ThreadLocalRandom;
 )
 public class Person implements UserDetails {
 
+	/**
+	 * 號碼、市場行號的唯一約束
+	 */
+	public static final String UNIQUE_NUMBER_COMPANY = "uq_number_company";
+
 	/**
 	 * 主鍵
 	 */
@@ -111,11 +116,7 @@ public class Person implements UserDetails {
 	@PrePersist
 	protected void genPrimaryKey() {
 		if (id == null) {
-			id = NanoIdUtils.randomNanoId(
-				ThreadLocalRandom.current(),
-				"ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789".toCharArray(),
-				10
-			);
+			id = PrimaryKeys.next();
 		}
 	}
 
@@ -1,6 +1,6 @@
 package org.xiangan.fruitshopweb.entity;
 
-import com.aventrix.jnanoid.jnanoid.NanoIdUtils;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
@@ -9,10 +9,10 @@ import org.xiangan.fruitshopweb.enumType.ProductTypeEnum;
 import org.xiangan.fruitshopweb.enumType.ProductTypeEnumConverter;
 import org.xiangan.fruitshopweb.enumType.UnitTypeEnum;
 import org.xiangan.fruitshopweb.enumType.UnitTypeEnumConverter;
+import org.xiangan.fruitshopweb.generator.PrimaryKeys;
 
 import java.math.BigDecimal;
 import java.util.Objects;
-import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * 產品
@@ -25,6 +25,7 @@ import java.util.concurrent.ThreadLocalRandom;
 	name = "product",
 	uniqueConstraints = {
 		@UniqueConstraint(
+			name = Product.UNIQUE_NAME_UNIT_PRICE,
 			columnNames = {
 				"product_name",
 				"unit_price"
@@ -34,6 +35,11 @@ import java.util.concurrent.ThreadLocalRandom;
 )
 public class Product {
 
+	/**
+	 * 產品名稱、成本單價的唯一約束
+	 */
+	public static final String UNIQUE_NAME_UNIT_PRICE = "uq_product_name_unit_price";
+
 	/**
 	 * 主鍵
 	 */
@@ -56,7 +62,7 @@ public class Product {
 	/**
 	 * 成本單價
 	 */
-	@Column(name = "unit_price", precision = 2)
+	@Column(name = "unit_price", precision = 10, scale = 2)
 	private BigDecimal unitPrice;
 	
 	/**
@@ -81,14 +87,14 @@ public class Product {
 	private UnitTypeEnum unitType;
 
 	/**
-	 * 貨主
+	 * 貨主 (延遲載入，產品讀取以 {@link org.xiangan.fruitshopweb.repository.ProductRepository} 的實體圖一併查詢)
 	 */
 	@JoinColumn(
 		name = "person",
 		nullable = false,
 		referencedColumnName = "id"
 	)
-	@ManyToOne(optional = false)
+	@ManyToOne(optional = false, fetch = FetchType.LAZY)
 	@JsonIgnoreProperties
 		({    "nickName"
 			, "level"
@@ -103,21 +109,26 @@ public class Product {
 	private Person person;
 	
 	/**
-	 * 庫存
+	 * 庫存，以基準單位的百萬分之一儲存 (例如重量為毫克)，增減皆為整數運算；
+	 * 對外以產品單位的數量呈現 ({@link #getInventory()})
 	 */
 	@Basic(optional = false)
-	@Column(name = "inventory", nullable = false)
-	@NotNull
-	private double inventory;
+	@Column(name = "stock", nullable = false)
+	@JsonIgnore
+	private long stock;
+
+	/**
+	 * 版本(樂觀鎖)
+	 * <p>庫存異動的條件式 UPDATE 會一併遞增，避免以舊庫存覆寫他人的異動。</p>
+	 */
+	@Column(name = "version", nullable = false)
+	@Version
+	private long version;
 
 	@PrePersist
 	protected void genPrimaryKey() {
 		if (id == null) {
-			id = NanoIdUtils.randomNanoId(
-				ThreadLocalRandom.current(),
-				"ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789".toCharArray(),
-				10
-			);
+			id = PrimaryKeys.next();
 		}
 	}
 
@@ -126,7 +137,7 @@ public class Product {
 	 */
 	public Product() {
 		unitPrice = BigDecimal.ZERO;
-		inventory = 0;
+		stock = 0;
 	}
 	
 	/**
@@ -143,6 +154,23 @@ public class Product {
 		this.person = person;
 	}
 	
+	/**
+	 * @return 以產品單位計的庫存
+	 */
+	public double getInventory() {
+		return Objects.isNull(unitType) ? 0 : unitType.fromMicros(stock);
+	}
+
+	/**
+	 * @param inventory 以產品單位計的庫存 (須先設定單位)
+	 */
+	public void setInventory(final double inventory) {
+		if (Objects.isNull(unitType)) {
+			throw new IllegalStateException("設定庫存前須先設定產品單位❗");
+		}
+		stock = unitType.toMicros(inventory);
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o)
@@ -150,11 +178,11 @@ public class Product {
 		if (o == null || getClass() != o.getClass())
 			return false;
 		Product product = (Product) o;
-		return person == product.person && Double.compare(inventory, product.inventory) == 0 && Objects.equals(id, product.id) && Objects.equals(productName, product.productName) && Objects.equals(unitPrice, product.unitPrice) && Objects.equals(type, product.type) && Objects.equals(unitType, product.unitType);
+		return person == product.person && stock == product.stock && Objects.equals(id, product.id) && Objects.equals(productName, product.productName) && Objects.equals(unitPrice, product.unitPrice) && Objects.equals(type, product.type) && Objects.equals(unitType, product.unitType);
 	}
 	
 	@Override
 	public int hashCode() {
-		return Objects.hash(id, productName, unitPrice, type, unitType, person, inventory);
+		return Objects.hash(id, productName, unitPrice, type, unitType, person, stock);
 	}
 }
@@ -1,6 +1,5 @@
 package org.xiangan.fruitshopweb.entity;
 
-import com.aventrix.jnanoid.jnanoid.NanoIdUtils;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
 import com.fasterxml.jackson.annotation.JsonIdentityReference;
@@ -8,10 +7,10 @@ import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
+import org.xiangan.fruitshopweb.generator.PrimaryKeys;
 
 import java.time.LocalDateTime;
 import java.util.Objects;
-import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * 進貨
@@ -35,14 +34,14 @@ public class Purchase {
 	private String id;
 
 	/**
-	 * 產品
+	 * 產品 (延遲載入，JSON 只輸出主鍵；單筆讀取以實體圖一併查詢)
 	 */
 	@JoinColumn(
 		name = "product",
 		nullable = false,
 		referencedColumnName = "id"
 	)
-	@ManyToOne(optional = false)
+	@ManyToOne(optional = false, fetch = FetchType.LAZY)
 	@JsonFormat(shape = JsonFormat.Shape.STRING)
 	@JsonIdentityInfo(
 		generator = ObjectIdGenerators.PropertyGenerator.class,
@@ -93,11 +92,7 @@ public class Purchase {
 	@PrePersist
 	protected void genPrimaryKey() {
 		if (id == null) {
-			id = NanoIdUtils.randomNanoId(
-				ThreadLocalRandom.current(),
-				"ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789".toCharArray(),
-				10
-			);
+			id = PrimaryKeys.next();
 		}
 	}
 
@@ -1,14 +1,13 @@
 package org.xiangan.fruitshopweb.entity;
 
-import com.aventrix.jnanoid.jnanoid.NanoIdUtils;
 import com.fasterxml.jackson.annotation.JsonFormat;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.xiangan.fruitshopweb.generator.PrimaryKeys;
 
 import java.math.BigDecimal;
 import java.sql.Date;
 import java.util.Objects;
-import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * 營運狀況
@@ -111,11 +110,7 @@ public class Revenue {
 	@PrePersist
 	protected void genPrimaryKey() {
 		if (id == null) {
-			id = NanoIdUtils.randomNanoId(
-				ThreadLocalRandom.current(),
-				"ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789".toCharArray(),
-				10
-			);
+			id = PrimaryKeys.next();
 		}
 	}
 
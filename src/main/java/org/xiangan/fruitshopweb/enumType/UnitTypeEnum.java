@@ -8,6 +8,8 @@ import lombok.Getter;
  * 此枚舉定義了各種單位類型，包括長度、重量、容量等。
  * 每個枚舉常量包含單位的中文名稱和相對於基準單位的倍數。
  * 長度以公尺為基準，重量以公斤為基準，容量以公升為基準。
+ * 庫存以基準單位的百萬分之一 (毫克、微米、微升…) 的整數儲存，
+ * 以 {@link #toMicros(double)}、{@link #fromMicros(long)} 與各單位的數量互換。
  *
  * @author kyle
  */
@@ -135,6 +137,11 @@ public enum UnitTypeEnum {
 	 */
 	BAG("袋", 1);
 
+	/**
+	 * 一基準單位等於多少定點整數
+	 */
+	public static final long MICROS_PER_BASE = 1_000_000L;
+
 	/**
 	 * 單位的中文名稱
 	 */
@@ -148,6 +155,11 @@ public enum UnitTypeEnum {
 	 */
 	private final double unit;
 
+	/**
+	 * 一單位等於多少基準單位的百萬分之一
+	 */
+	private final long micros;
+
 	/**
 	 * 構造函數
 	 *
@@ -157,5 +169,22 @@ public enum UnitTypeEnum {
 	UnitTypeEnum(String chinese, double unit) {
 		this.chinese = chinese;
 		this.unit = unit;
+		this.micros = Math.round(unit * MICROS_PER_BASE);
+	}
+
+	/**
+	 * @param quantity 以此單位計的數量
+	 * @return 基準單位的百萬分之一 (四捨五入)
+	 */
+	public long toMicros(final double quantity) {
+		return Math.round(quantity * micros);
+	}
+
+	/**
+	 * @param micros 基準單位的百萬分之一
+	 * @return 以此單位計的數量
+	 */
+	public double fromMicros(final long micros) {
+		return (double) micros / this.micros;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package org.xiangan.fruitshopweb.exception;
+
+import org.hibernate.exception.ConstraintViolationException;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * 資料庫約束違反的判斷
+ * <p>
+ * 重複資料改由唯一索引把關，寫入失敗時再依約束名稱轉為原本的業務例外，
+ * 省去寫入前的存在查詢，也不會有查詢與寫入之間的競態。
+ * MySQL 回報的約束名稱帶有資料表前綴 (例如 {@code product.uq_product_name_unit_price})，
+ * 因此以名稱結尾比對；取不到約束名稱時退而比對原始錯誤訊息。
+ * </p>
+ *
+ * @author kyle
+ */
+public final class ConstraintViolations {
+
+	private ConstraintViolations() {
+	}
+
+	/**
+	 * @param exception 寫入時拋出的例外
+	 * @param constraint 約束名稱
+	 * @return 是否為違反該約束所致
+	 */
+	public static boolean violates(final Throwable exception, final String constraint) {
+		final String expected = constraint.toLowerCase(Locale.ROOT);
+		for (Throwable cause = exception; Objects.nonNull(cause); cause = cause.getCause()) {
+			if (cause instanceof ConstraintViolationException violation) {
+				final String name = violation.getConstraintName();
+				if (Objects.nonNull(name)) {
+					return name.toLowerCase(Locale.ROOT).endsWith(expected);
+				}
+				final String message = violation.getSQLException().getMessage();
+				return Objects.nonNull(message) && message.toLowerCase(Locale.ROOT).contains(expected);
+			}
+			if (cause.getCause() == cause) {
+				break;
+			}
+		}
+		return false;
+	}
+}
@@ -2,7 +2,9 @@ package org.xiangan.fruitshopweb.exception;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -47,6 +49,30 @@ public class GlobalExceptionHandler {
             exception);
     }
 
+    /**
+     * 處理請求過多異常 (TooManyRequestsException)
+     * 常見於登入尖峰時密碼驗證排隊已滿，回應 429 並以 Retry-After 告知用戶端稍後重試
+     *
+     * @param exception TooManyRequestsException 異常對象
+     * @param request   異常請求物件
+     * @return          包含錯誤訊息的 ResponseEntity
+     */
+    @ExceptionHandler({TooManyRequestsException.class})
+    public ResponseEntity<ErrorResponse> handleTooManyRequestsException(
+            TooManyRequestsException exception, WebRequest request){
+        ResponseEntity<ErrorResponse> response = buildErrorResponse(
+                HttpStatus.TOO_MANY_REQUESTS
+                ,"請求過多，請稍後再試"
+                ,exception.getMessage()
+                ,request
+                ,exception
+        );
+        return ResponseEntity
+                .status(response.getStatusCode())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, exception.getRetryAfter().toSeconds())))
+                .body(response.getBody());
+    }
+
     /**
      * 處理資源未找到異常 (NoResourceFoundException)。
      * 通常發生於請求的資源不存在或路由錯誤。
@@ -87,6 +113,26 @@ public class GlobalExceptionHandler {
         );
     }
 
+    /**
+     * 處理並行衝突異常 (ConcurrencyFailureException)
+     * 常見於樂觀鎖版本不符或死結，服務層重試用盡後仍衝突時回應 409，用戶端可重新讀取後再送出
+     *
+     * @param exception ConcurrencyFailureException 異常對象
+     * @param request   異常請求物件
+     * @return          包含錯誤訊息的 ResponseEntity
+     */
+    @ExceptionHandler({ConcurrencyFailureException.class})
+    public ResponseEntity<ErrorResponse> handleConcurrencyFailureException(
+            ConcurrencyFailureException exception, WebRequest request){
+        return buildErrorResponse(
+                HttpStatus.CONFLICT
+                ,"資料已被其他請求修改，請重新讀取後再試"
+                ,exception.getMessage()
+                ,request
+                ,exception
+        );
+    }
+
     /**
      * 處理非法參數異常 (IllegalArgumentException)
      * 常見於參數格式錯誤或不符合預期的業務邏輯
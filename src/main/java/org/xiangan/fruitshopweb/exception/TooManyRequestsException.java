@@ -0,0 +1,31 @@
+package org.xiangan.fruitshopweb.exception;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * 表示伺服器暫時無法受理請求 (例如同時登入的人數超過上限)，應稍後重試。
+ *
+ * <p>由 {@link GlobalExceptionHandler} 回應 429 狀態碼並帶上 {@code Retry-After} 標頭。</p>
+ *
+ * @see RuntimeException
+ * @author kyle
+ */
+@Getter
+public class TooManyRequestsException extends RuntimeException {
+
+    /**
+     * 建議的重試間隔
+     */
+    private final Duration retryAfter;
+
+    /**
+     * @param message 錯誤訊息
+     * @param retryAfter 建議的重試間隔
+     */
+    public TooManyRequestsException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+}
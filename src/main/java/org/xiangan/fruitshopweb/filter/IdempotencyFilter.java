@@ -0,0 +1,261 @@
+package org.xiangan.fruitshopweb.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.xiangan.fruitshopweb.exception.ErrorResponse;
+import org.xiangan.fruitshopweb.service.IdempotencyService;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 冪等鍵過濾器
+ * <p>
+ * 建立資料的 POST 請求帶有 {@value #IDEMPOTENCY_KEY_HEADER} 標頭時，同一使用者以相同冪等鍵重送的請求
+ * 回放第一次的回應 (回應標頭 {@value #REPLAYED_HEADER})，不再寫入資料庫；
+ * 第一次請求尚未完成時等待其結果。冪等鍵相同但參數不同時回應 422。
+ * </p>
+ * <p>
+ * 排在 Spring Security 之後，未通過驗證的請求不會登記；請求指紋為方法、路徑與排序後的參數，
+ * 適用於以請求參數建立資料的同步 API ({@code idempotency.paths})。
+ * </p>
+ *
+ * @author kyle
+ */
+@Component
+@Order(SecurityProperties.DEFAULT_FILTER_ORDER + 1)
+@Slf4j
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+	/**
+	 * 冪等鍵標頭
+	 */
+	public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+	/**
+	 * 回放回應的標頭
+	 */
+	public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+	/**
+	 * 冪等鍵長度上限
+	 */
+	private static final int MAXIMUM_KEY_LENGTH = 255;
+
+	/**
+	 * (服務層) 冪等鍵
+	 */
+	private final IdempotencyService idempotencyService;
+
+	/**
+	 * 錯誤回應序列化
+	 */
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * 指標登錄
+	 */
+	private final MeterRegistry meterRegistry;
+
+	/**
+	 * 套用冪等鍵的路徑
+	 */
+	private final Set<String> paths;
+
+	/**
+	 * 重複請求等待第一次請求的上限
+	 */
+	private final Duration waitTimeout;
+
+	/**
+	 * @param idempotencyService (服務層) 冪等鍵
+	 * @param objectMapper 錯誤回應序列化
+	 * @param meterRegistry 指標登錄
+	 * @param paths 套用冪等鍵的路徑
+	 * @param waitTimeout 重複請求等待第一次請求的上限
+	 */
+	public IdempotencyFilter(
+		final IdempotencyService idempotencyService,
+		final ObjectMapper objectMapper,
+		final MeterRegistry meterRegistry,
+		@Value("${idempotency.paths:/purchase,/wastage,/amountSpend,/revenue}") final Set<String> paths,
+		@Value("${idempotency.wait-timeout:PT30S}") final Duration waitTimeout) {
+		this.idempotencyService = idempotencyService;
+		this.objectMapper = objectMapper;
+		this.meterRegistry = meterRegistry;
+		this.paths = paths;
+		this.waitTimeout = waitTimeout;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(@NonNull final HttpServletRequest request) {
+		return !HttpMethod.POST.matches(request.getMethod())
+			|| Objects.isNull(request.getHeader(IDEMPOTENCY_KEY_HEADER))
+			|| !paths.contains(request.getServletPath());
+	}
+
+	@Override
+	protected void doFilterInternal(
+		@NonNull HttpServletRequest request,
+		@NonNull HttpServletResponse response,
+		@NonNull FilterChain filterChain
+	) throws ServletException, IOException {
+		final String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+		if (idempotencyKey.isBlank() || idempotencyKey.length() > MAXIMUM_KEY_LENGTH) {
+			error(request, response, HttpStatus.BAD_REQUEST,
+				String.format("%s 須為 1 至 %d 個字元❗", IDEMPOTENCY_KEY_HEADER, MAXIMUM_KEY_LENGTH));
+			return;
+		}
+
+		// 冪等鍵只在同一使用者內有效
+		final String key = Objects.toString(request.getRemoteUser(), "") + "\n" + idempotencyKey;
+		final String fingerprint = fingerprint(request);
+		final IdempotencyService.Entry entry = idempotencyService.claim(key, fingerprint);
+		if (!entry.fingerprint().equals(fingerprint)) {
+			record("mismatch");
+			error(request, response, HttpStatus.UNPROCESSABLE_ENTITY,
+				String.format("%s「%s」已用於其他請求❗", IDEMPOTENCY_KEY_HEADER, idempotencyKey));
+			return;
+		}
+		if (!entry.first()) {
+			replay(request, response, entry, idempotencyKey);
+			return;
+		}
+
+		final ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+		try {
+			filterChain.doFilter(request, wrapper);
+		} catch (IOException | ServletException | RuntimeException exception) {
+			idempotencyService.fail(key, entry, exception);
+			throw exception;
+		}
+		if (request.isAsyncStarted()) {
+			// 非同步回應在過濾器返回後才完成，無法保存
+			idempotencyService.fail(key, entry, new IllegalStateException("非同步回應無法套用冪等鍵"));
+			wrapper.copyBodyToResponse();
+			return;
+		}
+
+		idempotencyService.complete(key, entry, new IdempotencyService.StoredResponse(
+			wrapper.getStatus(), wrapper.getContentType(), wrapper.getContentAsByteArray()
+		));
+		record("executed");
+		wrapper.copyBodyToResponse();
+	}
+
+	/**
+	 * 等待並回放第一次請求的回應
+	 *
+	 * @param request 請求
+	 * @param response 回應
+	 * @param entry 第一次請求的紀錄
+	 * @param idempotencyKey 冪等鍵
+	 */
+	private void replay(
+		final HttpServletRequest request,
+		final HttpServletResponse response,
+		final IdempotencyService.Entry entry,
+		final String idempotencyKey) throws IOException {
+		final IdempotencyService.StoredResponse stored;
+		try {
+			stored = entry.response().get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException | ExecutionException exception) {
+			record("conflict");
+			log.warn("{}「{}」的第一次請求未完成：{}", IDEMPOTENCY_KEY_HEADER, idempotencyKey, exception.toString());
+			response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+			error(request, response, HttpStatus.CONFLICT,
+				String.format("%s「%s」的請求處理中或處理失敗，請稍後重試❗", IDEMPOTENCY_KEY_HEADER, idempotencyKey));
+			return;
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(
+				String.format("等待冪等請求時拋出線程中斷異常：%s❗", exception.getLocalizedMessage()),
+				exception
+			);
+		}
+
+		record("replayed");
+		response.setStatus(stored.status());
+		if (Objects.nonNull(stored.contentType())) {
+			response.setContentType(stored.contentType());
+		}
+		response.setHeader(REPLAYED_HEADER, "true");
+		response.setContentLength(stored.body().length);
+		response.getOutputStream().write(stored.body());
+	}
+
+	/**
+	 * @param request 請求
+	 * @return 方法、路徑與排序後參數的 SHA-256
+	 */
+	private static String fingerprint(final HttpServletRequest request) {
+		final StringBuilder canonical = new StringBuilder()
+			.append(request.getMethod()).append(' ').append(request.getServletPath());
+		final Map<String, String[]> parameters = new TreeMap<>(request.getParameterMap());
+		parameters.forEach((name, values) ->
+			canonical.append('\n').append(name).append('=').append(Arrays.toString(values)));
+
+		try {
+			final byte[] digest = MessageDigest.getInstance("SHA-256")
+				.digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(digest);
+		} catch (NoSuchAlgorithmException exception) {
+			throw new IllegalStateException(exception);
+		}
+	}
+
+	/**
+	 * @param request 請求
+	 * @param response 回應
+	 * @param status 狀態碼
+	 * @param message 錯誤訊息
+	 */
+	private void error(
+		final HttpServletRequest request,
+		final HttpServletResponse response,
+		final HttpStatus status,
+		final String message) throws IOException {
+		response.setStatus(status.value());
+		response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+		objectMapper.writeValue(
+			response.getOutputStream(),
+			new ErrorResponse(status.value(), status.getReasonPhrase(), message, request.getRequestURI())
+		);
+	}
+
+	/**
+	 * @param outcome 結果
+	 */
+	private void record(final String outcome) {
+		meterRegistry.counter("idempotency.requests", "outcome", outcome).increment();
+	}
+}
@@ -1,5 +1,8 @@
 package org.xiangan.fruitshopweb.filter;
 
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -15,7 +18,7 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.xiangan.fruitshopweb.service.JwtService;
-import org.xiangan.fruitshopweb.service.PersonService;
+import org.xiangan.fruitshopweb.service.PrincipalCacheService;
 
 import java.io.IOException;
 
@@ -35,9 +38,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 	private  final JwtService jwtService;
 
 	/**
-	 * (服務層) 人員
+	 * (服務層) 已驗證使用者快取
 	 */
-	private final PersonService personService;
+	private final PrincipalCacheService principalCacheService;
+
+	/**
+	 * 指標登錄
+	 */
+	private final MeterRegistry meterRegistry;
 
 	@Override
 	protected void doFilterInternal(
@@ -47,6 +55,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 	) throws ServletException, IOException {
 		final String authHeader = request.getHeader("Authorization");
 		final String jwt;
+		final Claims claims;
 		final String userEmail;
 
 		/*
@@ -60,11 +69,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
 		// 取"Bearer "後面的Token
 		jwt = authHeader.substring(7);
+		// 驗證時間 (驗簽、讀取使用者與檢查效期)，依結果分開記錄
+		final Timer.Sample verification = Timer.start(meterRegistry);
 		try {
+			// 解析並驗簽一次，後續驗證沿用同一份 Claims
+			claims = jwtService.extractAllClaims(jwt);
 			//提取Token中的Email
-			userEmail = jwtService.extractUsername(jwt);
+			userEmail = claims.getSubject();
 		} catch (Exception e) {
 			log.error("Failed to extract username from token", e);
+			record(verification, "invalid");
 			response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
 			response.getWriter().write("Invalid JWT token");
 			response.getWriter().flush();
@@ -75,17 +89,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 		if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 			UserDetails userDetails;
 			try {
-				// 根據 userEmail 加載用戶詳細資料。
-				userDetails = personService.loadUserByUsername(userEmail);
+				// 根據 userEmail 加載用戶詳細資料，命中快取時不查詢資料庫。
+				userDetails = principalCacheService.load(userEmail);
 			} catch (UsernameNotFoundException e) {
 				log.error("User not found: " + userEmail, e);
+				record(verification, "user_not_found");
 				response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
 				response.getWriter().write("User not found");
 				response.getWriter().flush();
 				return;
 			}
 
-			if (jwtService.isTokenValid(jwt, userDetails)) {
+			if (jwtService.isTokenValid(claims, userDetails)) {
 
 				// 如果JWT令牌有效，則創建一個 UsernamePasswordAuthenticationToken
 				// 並將其設置到 Spring Security 的 Security 上下文中，以確保用戶已成功驗證。
@@ -96,14 +111,31 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 					new WebAuthenticationDetailsSource().buildDetails(request)
 				);
 				SecurityContextHolder.getContext().setAuthentication(authToken);
-				log.info("JWT Authenticated user: {}", userEmail);
+				log.debug("JWT Authenticated user: {}", userEmail);
+				record(verification, "authenticated");
 			} else {
+				record(verification, "rejected");
 				response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
 				response.getWriter().write("Invalid or expired JWT token");
 				response.getWriter().flush();
 				return;
 			}
+		} else {
+			record(verification, "skipped");
 		}
 		filterChain.doFilter(request, response);
 	}
+
+	/**
+	 * @param verification 驗證開始的計時
+	 * @param outcome 驗證結果
+	 */
+	private void record(final Timer.Sample verification, final String outcome) {
+		verification.stop(
+			Timer.builder("jwt.verification")
+				.description("JWT 驗證時間")
+				.tag("outcome", outcome)
+				.register(meterRegistry)
+		);
+	}
 }
\ No newline at end of file
@@ -0,0 +1,42 @@
+package org.xiangan.fruitshopweb.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.xiangan.fruitshopweb.configuration.ReadYourWrites;
+
+import java.io.IOException;
+
+/**
+ * 讀取自己的寫入過濾器
+ * <p>
+ * 每個請求建立一個 {@link ReadYourWrites} 標記，請求中寫入後的唯讀交易改連主庫；
+ * 未啟用讀寫分離時標記不會被讀取。
+ * </p>
+ *
+ * @author kyle
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+	@Override
+	protected void doFilterInternal(
+		@NonNull HttpServletRequest request,
+		@NonNull HttpServletResponse response,
+		@NonNull FilterChain filterChain
+	) throws ServletException, IOException {
+		ReadYourWrites.open();
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			ReadYourWrites.close();
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package org.xiangan.fruitshopweb.filter;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.MDC;
+import org.slf4j.Marker;
+
+/**
+ * SQL 追蹤的 Logback 過濾器
+ * <p>
+ * 目前請求被 {@link SqlTracingFilter} 選中追蹤時 (MDC 含 {@value #MDC_KEY})，
+ * 放行 {@code org.hibernate.SQL} 的 DEBUG 紀錄，不受該 logger 的等級限制；
+ * 其餘紀錄照常依等級判斷。於 {@code logback-spring.xml} 註冊。
+ * </p>
+ *
+ * @author kyle
+ */
+public class SqlTraceTurboFilter extends TurboFilter {
+
+	/**
+	 * 標記請求需追蹤 SQL 的 MDC 鍵
+	 */
+	public static final String MDC_KEY = "sqlTrace";
+
+	/**
+	 * Hibernate 輸出 SQL 的 logger
+	 */
+	private static final String SQL_LOGGER = "org.hibernate.SQL";
+
+	@Override
+	public FilterReply decide(
+		final Marker marker,
+		final Logger logger,
+		final Level level,
+		final String format,
+		final Object[] params,
+		final Throwable t) {
+		if (level.isGreaterOrEqual(Level.DEBUG)
+			&& SQL_LOGGER.equals(logger.getName())
+			&& MDC.get(MDC_KEY) != null) {
+			return FilterReply.ACCEPT;
+		}
+		return FilterReply.NEUTRAL;
+	}
+}
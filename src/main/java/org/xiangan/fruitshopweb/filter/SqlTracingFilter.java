@@ -0,0 +1,72 @@
+package org.xiangan.fruitshopweb.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.MDC;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.xiangan.fruitshopweb.generator.PrimaryKeys;
+import org.xiangan.fruitshopweb.service.SqlTracingService;
+
+import java.io.IOException;
+
+/**
+ * 請求編號與 SQL 追蹤過濾器
+ * <p>
+ * 沿用請求標頭 {@value #REQUEST_ID_HEADER} (未帶時產生一組) 作為請求編號，
+ * 放入 MDC 並於回應標頭帶回；依 {@link SqlTracingService} 決定是否追蹤此請求的 SQL。
+ * MDC 會由 {@code AsyncContextTaskDecorator} 傳遞至 {@code @Async} 方法。
+ * </p>
+ *
+ * @author kyle
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class SqlTracingFilter extends OncePerRequestFilter {
+
+	/**
+	 * 請求編號標頭
+	 */
+	public static final String REQUEST_ID_HEADER = "X-Request-Id";
+
+	/**
+	 * 請求編號的 MDC 鍵
+	 */
+	public static final String REQUEST_ID_MDC_KEY = "requestId";
+
+	/**
+	 * SQL 追蹤設定
+	 */
+	private final SqlTracingService sqlTracingService;
+
+	@Override
+	protected void doFilterInternal(
+		@NonNull HttpServletRequest request,
+		@NonNull HttpServletResponse response,
+		@NonNull FilterChain filterChain
+	) throws ServletException, IOException {
+		String requestId = request.getHeader(REQUEST_ID_HEADER);
+		if (requestId == null || requestId.isBlank() || requestId.length() > 64) {
+			requestId = PrimaryKeys.next();
+		}
+
+		MDC.put(REQUEST_ID_MDC_KEY, requestId);
+		if (sqlTracingService.shouldTrace(requestId)) {
+			MDC.put(SqlTraceTurboFilter.MDC_KEY, "true");
+		}
+		response.setHeader(REQUEST_ID_HEADER, requestId);
+		try {
+			filterChain.doFilter(request, response);
+		} finally {
+			MDC.remove(SqlTraceTurboFilter.MDC_KEY);
+			MDC.remove(REQUEST_ID_MDC_KEY);
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package org.xiangan.fruitshopweb.generator;
+
+/**
+ * 主鍵產生器
+ * <p>產生符合 {@code [A-Za-z0-9]{10}} 的十碼主鍵，控制器的路徑變數依此格式驗證。</p>
+ *
+ * @author kyle
+ */
+public interface IdGenerator {
+
+	/**
+	 * 主鍵長度
+	 */
+	int LENGTH = 10;
+
+	/**
+	 * @return 新的主鍵
+	 */
+	String next();
+}
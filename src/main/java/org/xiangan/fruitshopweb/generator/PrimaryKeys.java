@@ -0,0 +1,37 @@
+package org.xiangan.fruitshopweb.generator;
+
+import java.util.Objects;
+
+/**
+ * 實體主鍵
+ * <p>
+ * 實體的 {@code @PrePersist} 不受 Spring 管理，因此以靜態方式取得目前使用的產生器；
+ * 預設為依時間遞增的產生器，啟動時由 {@code IdGeneratorConfig} 依設定替換。
+ * </p>
+ *
+ * @author kyle
+ */
+public final class PrimaryKeys {
+
+	/**
+	 * 目前使用的產生器
+	 */
+	private static volatile IdGenerator generator = new TimeOrderedIdGenerator(0);
+
+	private PrimaryKeys() {
+	}
+
+	/**
+	 * @return 新的主鍵
+	 */
+	public static String next() {
+		return generator.next();
+	}
+
+	/**
+	 * @param idGenerator 主鍵產生器
+	 */
+	public static void use(final IdGenerator idGenerator) {
+		generator = Objects.requireNonNull(idGenerator);
+	}
+}
@@ -0,0 +1,25 @@
+package org.xiangan.fruitshopweb.generator;
+
+import com.aventrix.jnanoid.jnanoid.NanoIdUtils;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 隨機主鍵產生器 (NanoId)
+ * <p>原本各實體 {@code @PrePersist} 使用的作法；主鍵無序，大量寫入時叢集索引會頻繁分頁。</p>
+ *
+ * @author kyle
+ */
+public class RandomIdGenerator implements IdGenerator {
+
+	/**
+	 * 字元集
+	 */
+	private static final char[] ALPHABET =
+		"ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789".toCharArray();
+
+	@Override
+	public String next() {
+		return NanoIdUtils.randomNanoId(ThreadLocalRandom.current(), ALPHABET, LENGTH);
+	}
+}
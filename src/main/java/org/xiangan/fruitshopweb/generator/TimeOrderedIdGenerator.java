@@ -0,0 +1,100 @@
+package org.xiangan.fruitshopweb.generator;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 依時間遞增的主鍵產生器 (Snowflake 格式)
+ * <p>
+ * 59 位元的數值由高至低為：自 2024-01-01 起的毫秒數 (41 位元，可用至 2093 年)、
+ * 節點編號 (6 位元，0~63)、同毫秒內的序號 (12 位元，每毫秒 4096 個)，
+ * 再以 ASCII 順序的 62 進位字元 ({@code 0-9A-Za-z}) 編成固定十碼。
+ * 字串依二進位排序 (資料表主鍵需使用 {@code ascii_bin} 等區分大小寫的定序) 即為產生順序，
+ * 新資料一律寫入叢集索引尾端。
+ * </p>
+ * <p>
+ * 同一毫秒序號用盡時向下一毫秒借用，時鐘倒退時沿用已發出的最大值，
+ * 因此同一節點產生的主鍵嚴格遞增且不會阻塞；多個應用程式實例需設定不同節點編號。
+ * </p>
+ *
+ * @author kyle
+ */
+public class TimeOrderedIdGenerator implements IdGenerator {
+
+	/**
+	 * 起始時間 (2024-01-01T00:00:00Z)
+	 */
+	static final long EPOCH = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+	/**
+	 * 節點編號位元數
+	 */
+	static final int NODE_BITS = 6;
+
+	/**
+	 * 序號位元數
+	 */
+	static final int SEQUENCE_BITS = 12;
+
+	/**
+	 * 節點編號上限
+	 */
+	public static final int MAX_NODE = (1 << NODE_BITS) - 1;
+
+	/**
+	 * 字元集 (依 ASCII 順序)
+	 */
+	private static final char[] ALPHABET =
+		"0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz".toCharArray();
+
+	/**
+	 * 節點編號 (已位移)
+	 */
+	private final long node;
+
+	/**
+	 * 最後發出的「毫秒數 + 序號」
+	 */
+	private final AtomicLong state = new AtomicLong();
+
+	/**
+	 * @param node 節點編號 (0~63)
+	 */
+	public TimeOrderedIdGenerator(final int node) {
+		if (node < 0 || node > MAX_NODE) {
+			throw new IllegalArgumentException(
+				String.format("節點編號必須介於 0~%d❗", MAX_NODE));
+		}
+		this.node = (long) node << SEQUENCE_BITS;
+	}
+
+	@Override
+	public String next() {
+		final long now = (currentTimeMillis() - EPOCH) << SEQUENCE_BITS;
+		final long next = state.updateAndGet(last -> Math.max(last + 1, now));
+
+		final long timestamp = next >>> SEQUENCE_BITS;
+		final long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+		return encode((timestamp << (NODE_BITS + SEQUENCE_BITS)) | node | sequence);
+	}
+
+	/**
+	 * @return 目前時間 (毫秒)
+	 */
+	protected long currentTimeMillis() {
+		return System.currentTimeMillis();
+	}
+
+	/**
+	 * @param value 數值
+	 * @return 固定十碼的 62 進位字串
+	 */
+	private static String encode(long value) {
+		final char[] chars = new char[LENGTH];
+		for (int i = LENGTH - 1; i >= 0; i--) {
+			chars[i] = ALPHABET[(int) (value % ALPHABET.length)];
+			value /= ALPHABET.length;
+		}
+		return new String(chars);
+	}
+}
@@ -0,0 +1,168 @@
+package org.xiangan.fruitshopweb.listener;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+import org.xiangan.fruitshopweb.entity.*;
+import org.xiangan.fruitshopweb.service.RollupService;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.Objects;
+
+/**
+ * 每日營運彙總的實體事件
+ * <p>
+ * 進貨、損耗、雜物新增、編輯、刪除後 (flush 時) 換算成當日 (雜物另含整點) 成本的增減交給 {@link RollupService}；
+ * 編輯時以舊值扣回原日期、以新值加到新日期。
+ * 進貨與損耗的成本為數量 × 產品成本單價，四捨五入至小數兩位，須與
+ * {@link org.xiangan.fruitshopweb.repository.DailyRollupRepository#insertBetween} 一致；
+ * 數量欄位為 {@code DECIMAL(10, 2)}，實體上的 {@code Double} 先依寫入時的方式進位至小數兩位再計算。
+ * </p>
+ *
+ * @author kyle
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class RollupEventListener
+	implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+	/**
+	 * 進貨、損耗數量欄位 ({@code DECIMAL(10, 2)}) 的小數位數
+	 */
+	private static final int QUANTITY_SCALE = 2;
+
+	/**
+	 * 實體管理器工廠
+	 */
+	private final EntityManagerFactory entityManagerFactory;
+
+	/**
+	 * (服務層) 每日營運彙總
+	 */
+	private final RollupService rollupService;
+
+	/**
+	 * 註冊至 Hibernate 事件
+	 */
+	@PostConstruct
+	void register() {
+		EventListenerRegistry registry = entityManagerFactory
+			.unwrap(SessionFactoryImplementor.class)
+			.getServiceRegistry()
+			.requireService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_INSERT, this);
+		registry.appendListeners(EventType.POST_UPDATE, this);
+		registry.appendListeners(EventType.POST_DELETE, this);
+	}
+
+	@Override
+	public void onPostInsert(final PostInsertEvent event) {
+		record(event.getPersister(), event.getState(), BigDecimal.ONE);
+	}
+
+	@Override
+	public void onPostUpdate(final PostUpdateEvent event) {
+		if (!tracked(event.getPersister())) {
+			return;
+		}
+		if (Objects.isNull(event.getOldState())) {
+			log.warn("「{}」編輯前的狀態不明，營運彙總未更新，請重新計算", event.getId());
+		} else {
+			record(event.getPersister(), event.getOldState(), BigDecimal.ONE.negate());
+		}
+		record(event.getPersister(), event.getState(), BigDecimal.ONE);
+	}
+
+	@Override
+	public void onPostDelete(final PostDeleteEvent event) {
+		record(event.getPersister(), event.getDeletedState(), BigDecimal.ONE.negate());
+	}
+
+	@Override
+	public boolean requiresPostCommitHandling(final EntityPersister persister) {
+		return false;
+	}
+
+	/**
+	 * @param persister 實體
+	 * @return 是否為計入營運彙總的實體
+	 */
+	private static boolean tracked(final EntityPersister persister) {
+		final Class<?> type = persister.getMappedClass();
+		return type == Purchase.class || type == Wastage.class || type == Miscellaneous.class;
+	}
+
+	/**
+	 * @param persister 實體
+	 * @param state 實體欄位值
+	 * @param sign 1 為加上、-1 為扣回
+	 */
+	private void record(final EntityPersister persister, final Object[] state, final BigDecimal sign) {
+		final Class<?> type = persister.getMappedClass();
+		if (type == Purchase.class) {
+			final LocalDateTime receivingDate = (LocalDateTime) value(persister, state, Purchase_.RECEIVING_DATE);
+			rollupService.record(
+				receivingDate.toLocalDate(),
+				cost(persister, state, Purchase_.PRODUCT, Purchase_.QUANTITY).multiply(sign),
+				BigDecimal.ZERO,
+				BigDecimal.ZERO);
+		} else if (type == Wastage.class) {
+			final Date date = (Date) value(persister, state, Wastage_.DATE);
+			rollupService.record(
+				new java.sql.Date(date.getTime()).toLocalDate(),
+				BigDecimal.ZERO,
+				BigDecimal.ZERO,
+				cost(persister, state, Wastage_.PRODUCT, Wastage_.QUANTITY).multiply(sign));
+		} else if (type == Miscellaneous.class) {
+			final LocalDateTime recordDate = (LocalDateTime) value(persister, state, Miscellaneous_.RECORD_DATE);
+			final BigDecimal amount = (BigDecimal) value(persister, state, Miscellaneous_.AMOUNT);
+			if (Objects.isNull(recordDate) || Objects.isNull(amount)) {
+				return;
+			}
+			rollupService.recordMiscellaneous(recordDate, amount.multiply(sign));
+		}
+	}
+
+	/**
+	 * @param persister 實體
+	 * @param state 實體欄位值
+	 * @param product 產品欄位
+	 * @param quantity 數量欄位
+	 * @return 數量 × 產品成本單價
+	 */
+	private static BigDecimal cost(
+		final EntityPersister persister,
+		final Object[] state,
+		final String product,
+		final String quantity) {
+		final BigDecimal unitPrice = ((Product) value(persister, state, product)).getUnitPrice();
+		final Double amount = (Double) value(persister, state, quantity);
+		if (Objects.isNull(unitPrice) || Objects.isNull(amount)) {
+			return BigDecimal.ZERO;
+		}
+		return BigDecimal.valueOf(amount)
+			.setScale(QUANTITY_SCALE, RoundingMode.HALF_UP)
+			.multiply(unitPrice)
+			.setScale(2, RoundingMode.HALF_UP);
+	}
+
+	/**
+	 * @param persister 實體
+	 * @param state 實體欄位值
+	 * @param property 欄位名稱
+	 * @return 欄位值
+	 */
+	private static Object value(final EntityPersister persister, final Object[] state, final String property) {
+		return state[persister.getPropertyIndex(property)];
+	}
+}
@@ -0,0 +1,43 @@
+package org.xiangan.fruitshopweb.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * (回應模型)批次處理結果
+ *
+ * @author kyle
+ */
+@Getter
+@Schema(description = "批次處理結果")
+public class BulkResult {
+
+	/**
+	 * 成功筆數
+	 */
+	@Schema(description = "成功筆數")
+	private final long accepted;
+
+	/**
+	 * 失敗筆數
+	 */
+	@Schema(description = "失敗筆數")
+	private final long rejected;
+
+	/**
+	 * 各明細處理結果 (依明細序號排序)
+	 */
+	@Schema(description = "各明細處理結果 (依明細序號排序)")
+	private final List<LineResult> lines;
+
+	/**
+	 * @param lines 各明細處理結果
+	 */
+	public BulkResult(final List<LineResult> lines) {
+		this.lines = lines;
+		this.accepted = lines.stream().filter(LineResult::isSuccess).count();
+		this.rejected = lines.size() - accepted;
+	}
+}
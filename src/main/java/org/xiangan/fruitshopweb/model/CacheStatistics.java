@@ -0,0 +1,65 @@
+package org.xiangan.fruitshopweb.model;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+
+/**
+ * (回應模型)快取統計
+ *
+ * @author kyle
+ */
+@Getter
+@Schema(description = "快取統計")
+public class CacheStatistics {
+
+	/**
+	 * 快取名稱
+	 */
+	@Schema(description = "快取名稱")
+	private final String name;
+
+	/**
+	 * 目前筆數 (估計值)
+	 */
+	@Schema(description = "目前筆數 (估計值)")
+	private final long size;
+
+	/**
+	 * 命中次數
+	 */
+	@Schema(description = "命中次數")
+	private final long hitCount;
+
+	/**
+	 * 未命中次數
+	 */
+	@Schema(description = "未命中次數")
+	private final long missCount;
+
+	/**
+	 * 命中率
+	 */
+	@Schema(description = "命中率")
+	private final double hitRate;
+
+	/**
+	 * 因筆數或存活時間淘汰的次數 (不含主動移除)
+	 */
+	@Schema(description = "因筆數或存活時間淘汰的次數 (不含主動移除)")
+	private final long evictionCount;
+
+	/**
+	 * @param name 快取名稱
+	 * @param size 目前筆數
+	 * @param stats Caffeine 統計
+	 */
+	public CacheStatistics(final String name, final long size, final CacheStats stats) {
+		this.name = name;
+		this.size = size;
+		this.hitCount = stats.hitCount();
+		this.missCount = stats.missCount();
+		this.hitRate = stats.hitRate();
+		this.evictionCount = stats.evictionCount();
+	}
+}
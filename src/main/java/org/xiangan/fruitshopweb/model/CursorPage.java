@@ -0,0 +1,133 @@
+package org.xiangan.fruitshopweb.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * (回應模型)游標分頁
+ * <p>
+ * 依排序鍵往後查詢 (keyset/seek)，不使用 OFFSET 也不查詢總筆數，
+ * 適合資料量大的歷史單據；下一頁以 {@link #next} 游標作為請求參數 {@code cursor} 帶回。
+ * 游標內容為上一頁最後一筆的排序鍵，對前端而言不透明。
+ * </p>
+ *
+ * @param <T> 內容類型
+ * @author kyle
+ */
+@AllArgsConstructor
+@Getter
+@Schema(description = "游標分頁")
+public class CursorPage<T> {
+
+	/**
+	 * 本頁內容
+	 */
+	@Schema(description = "本頁內容")
+	private List<T> content;
+
+	/**
+	 * 下一頁游標，已無下一頁時為 null
+	 */
+	@Schema(description = "下一頁游標，已無下一頁時為 null")
+	private String next;
+
+	/**
+	 * @param window 查詢結果
+	 * @param <T>    內容類型
+	 * @return 游標分頁
+	 */
+	public static <T> CursorPage<T> of(final Window<T> window) {
+		final String next = window.hasNext() && !window.isEmpty()
+			? encode((KeysetScrollPosition) window.positionAt(window.size() - 1))
+			: null;
+		return new CursorPage<>(window.getContent(), next);
+	}
+
+	/**
+	 * @param cursor 游標，空白時為第一頁
+	 * @return 查詢位置
+	 * @throws IllegalArgumentException 游標格式錯誤
+	 */
+	public static ScrollPosition position(final String cursor) {
+		if (Objects.isNull(cursor) || cursor.isBlank()) {
+			return ScrollPosition.keyset();
+		}
+
+		final Map<String, Object> keys = new LinkedHashMap<>();
+		try (DataInputStream input = new DataInputStream(
+			new ByteArrayInputStream(Base64.getUrlDecoder().decode(cursor)))) {
+			final int size = input.readUnsignedByte();
+			for (int i = 0; i < size; i++) {
+				final String name = input.readUTF();
+				final char type = input.readChar();
+				keys.put(name, switch (type) {
+					case 'S' -> input.readUTF();
+					case 'B' -> new BigDecimal(input.readUTF());
+					case 'T' -> LocalDateTime.parse(input.readUTF());
+					case 'D' -> new Date(input.readLong());
+					case 'N' -> input.readDouble();
+					default -> throw new IllegalArgumentException("游標格式錯誤❗");
+				});
+			}
+		} catch (IOException | IllegalArgumentException exception) {
+			throw new IllegalArgumentException("游標格式錯誤❗", exception);
+		}
+		return ScrollPosition.forward(keys);
+	}
+
+	/**
+	 * @param position 最後一筆的排序鍵
+	 * @return 游標
+	 */
+	private static String encode(final KeysetScrollPosition position) {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream output = new DataOutputStream(bytes)) {
+			output.writeByte(position.getKeys().size());
+			for (Map.Entry<String, Object> key : position.getKeys().entrySet()) {
+				output.writeUTF(key.getKey());
+				switch (key.getValue()) {
+					case String value -> {
+						output.writeChar('S');
+						output.writeUTF(value);
+					}
+					case BigDecimal value -> {
+						output.writeChar('B');
+						output.writeUTF(value.toPlainString());
+					}
+					case LocalDateTime value -> {
+						output.writeChar('T');
+						output.writeUTF(value.toString());
+					}
+					case Date value -> {
+						output.writeChar('D');
+						output.writeLong(value.getTime());
+					}
+					case Number value -> {
+						output.writeChar('N');
+						output.writeDouble(value.doubleValue());
+					}
+					default -> throw new IllegalStateException(
+						String.format("排序鍵「%s」的類型不支援游標分頁❗", key.getKey()));
+				}
+			}
+		} catch (IOException exception) {
+			throw new UncheckedIOException(exception);
+		}
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+	}
+}
@@ -0,0 +1,61 @@
+package org.xiangan.fruitshopweb.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * (回應模型)批次明細處理結果
+ *
+ * @author kyle
+ */
+@AllArgsConstructor
+@Getter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "批次明細處理結果")
+public class LineResult {
+
+	/**
+	 * 明細序號 (從 1 開始)
+	 */
+	@Schema(description = "明細序號 (從 1 開始)")
+	private int line;
+
+	/**
+	 * 建立的單據主鍵，失敗時為 null
+	 */
+	@Schema(description = "建立的單據主鍵，失敗時為 null")
+	private String id;
+
+	/**
+	 * 錯誤訊息，成功時為 null
+	 */
+	@Schema(description = "錯誤訊息，成功時為 null")
+	private String error;
+
+	/**
+	 * @param line 明細序號
+	 * @param id 單據主鍵
+	 * @return 成功結果
+	 */
+	public static LineResult success(final int line, final String id) {
+		return new LineResult(line, id, null);
+	}
+
+	/**
+	 * @param line 明細序號
+	 * @param error 錯誤訊息
+	 * @return 失敗結果
+	 */
+	public static LineResult failure(final int line, final String error) {
+		return new LineResult(line, null, error);
+	}
+
+	/**
+	 * @return 是否成功
+	 */
+	public boolean isSuccess() {
+		return error == null;
+	}
+}
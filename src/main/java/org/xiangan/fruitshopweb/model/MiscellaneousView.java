@@ -0,0 +1,46 @@
+package org.xiangan.fruitshopweb.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * (回應模型)雜物匯出
+ * <p>JSON 與 {@link org.xiangan.fruitshopweb.entity.Miscellaneous} 相同。</p>
+ *
+ * @author kyle
+ */
+@AllArgsConstructor
+@Getter
+@Schema(description = "雜物")
+public class MiscellaneousView {
+
+	/**
+	 * 主鍵
+	 */
+	@Schema(description = "主鍵")
+	private String id;
+
+	/**
+	 * 名稱
+	 */
+	@Schema(description = "名稱")
+	private String name;
+
+	/**
+	 * 花費金額
+	 */
+	@Schema(description = "花費金額")
+	private BigDecimal amount;
+
+	/**
+	 * 紀錄時間
+	 */
+	@JsonFormat(pattern = "yyyy-MM-dd HH:mm", timezone = "Asia/Taipei")
+	@Schema(description = "紀錄時間")
+	private LocalDateTime recordDate;
+}
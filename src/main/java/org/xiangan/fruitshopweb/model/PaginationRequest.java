@@ -28,4 +28,10 @@ public class PaginationRequest {
 	@Schema(description = "每頁筆數", example = "10", requiredMode = Schema.RequiredMode.REQUIRED)
 	@Min(value = 1, message = "每頁筆數必須大於 0")
 	private int s = 10;
+
+	/**
+	 * 游標 (帶入此參數即改用游標分頁，第一頁帶空值)
+	 */
+	@Schema(description = "游標，帶入即改用游標分頁 (第一頁帶空值，之後帶回應的 next)", example = "")
+	private String cursor;
 }
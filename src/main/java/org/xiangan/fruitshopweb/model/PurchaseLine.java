@@ -0,0 +1,38 @@
+package org.xiangan.fruitshopweb.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * (請求模型)批次進貨明細
+ *
+ * @author kyle
+ */
+@Data
+@NoArgsConstructor
+@Schema(description = "批次進貨明細")
+public class PurchaseLine {
+
+	/**
+	 * 產品主鍵
+	 */
+	@Schema(description = "產品主鍵", example = "0Ab3dE5gH7")
+	private String productId;
+
+	/**
+	 * 進貨數量
+	 */
+	@Schema(description = "進貨數量", example = "25")
+	private Double quantity;
+
+	/**
+	 * 進貨日期
+	 */
+	@JsonFormat(pattern = "yyyy-MM-dd HH:mm", timezone = "Asia/Taipei")
+	@Schema(description = "進貨日期", example = "2025-04-01 06:30")
+	private LocalDateTime receivingDate;
+}
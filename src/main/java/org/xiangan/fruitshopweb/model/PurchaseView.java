@@ -0,0 +1,55 @@
+package org.xiangan.fruitshopweb.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * (回應模型)進貨單列表
+ * <p>
+ * 只查詢列表輸出的欄位，產品僅取外鍵，不載入產品與貨主實體；
+ * JSON 與 {@link org.xiangan.fruitshopweb.entity.Purchase} 相同。
+ * </p>
+ *
+ * @author kyle
+ */
+@AllArgsConstructor
+@Getter
+@Schema(description = "進貨單")
+public class PurchaseView {
+
+	/**
+	 * 主鍵
+	 */
+	@Schema(description = "主鍵")
+	private String id;
+
+	/**
+	 * 產品主鍵
+	 */
+	@Schema(description = "產品主鍵")
+	private String product;
+
+	/**
+	 * 數量
+	 */
+	@Schema(description = "數量")
+	private Double quantity;
+
+	/**
+	 * 開單日期
+	 */
+	@JsonFormat(pattern = "yyyy-MM-dd HH:mm", timezone = "Asia/Taipei")
+	@Schema(description = "開單日期")
+	private LocalDateTime orderDate;
+
+	/**
+	 * 進貨日期
+	 */
+	@JsonFormat(pattern = "yyyy-MM-dd HH:mm", timezone = "Asia/Taipei")
+	@Schema(description = "進貨日期")
+	private LocalDateTime receivingDate;
+}
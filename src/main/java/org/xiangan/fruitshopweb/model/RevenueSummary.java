@@ -0,0 +1,114 @@
+package org.xiangan.fruitshopweb.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+import org.xiangan.fruitshopweb.entity.DailyRollup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * (回應模型)區間營收總計
+ * <p>
+ * 進貨、雜物、損耗成本取自每日營運彙總；總收入與人事成本仍取自手動登記的營收狀況；
+ * 淨收入為總收入扣除所有成本。
+ * </p>
+ *
+ * @author kyle
+ */
+@Getter
+@Schema(description = "區間營收總計")
+public class RevenueSummary {
+
+	/**
+	 * 起始日期
+	 */
+	@JsonFormat(pattern = "yyyy-MM-dd")
+	@Schema(description = "起始日期")
+	private final LocalDate begin;
+
+	/**
+	 * 結束日期
+	 */
+	@JsonFormat(pattern = "yyyy-MM-dd")
+	@Schema(description = "結束日期")
+	private final LocalDate end;
+
+	/**
+	 * 總收入
+	 */
+	@Schema(description = "總收入")
+	private final BigDecimal grossIncome;
+
+	/**
+	 * 淨收入
+	 */
+	@Schema(description = "淨收入")
+	private final BigDecimal netIncome;
+
+	/**
+	 * 進貨成本
+	 */
+	@Schema(description = "進貨成本")
+	private final BigDecimal purchasesExpense;
+
+	/**
+	 * 人事成本
+	 */
+	@Schema(description = "人事成本")
+	private final BigDecimal personnelExpenses;
+
+	/**
+	 * 雜物成本
+	 */
+	@Schema(description = "雜物成本")
+	private final BigDecimal miscellaneousExpense;
+
+	/**
+	 * 損耗
+	 */
+	@Schema(description = "損耗")
+	private final BigDecimal wastage;
+
+	/**
+	 * 每日營運彙總 (無異動的日期不列出)
+	 */
+	@Schema(description = "每日營運彙總 (無異動的日期不列出)")
+	private final List<DailyRollup> days;
+
+	/**
+	 * @param begin 起始日期
+	 * @param end 結束日期
+	 * @param grossIncome 總收入
+	 * @param personnelExpenses 人事成本
+	 * @param days 每日營運彙總
+	 */
+	public RevenueSummary(
+		final LocalDate begin,
+		final LocalDate end,
+		final BigDecimal grossIncome,
+		final BigDecimal personnelExpenses,
+		final List<DailyRollup> days) {
+		this.begin = begin;
+		this.end = end;
+		this.grossIncome = grossIncome;
+		this.personnelExpenses = personnelExpenses;
+		this.days = days;
+		this.purchasesExpense = days.stream()
+			.map(DailyRollup::getPurchasesExpense)
+			.reduce(BigDecimal.ZERO, BigDecimal::add);
+		this.miscellaneousExpense = days.stream()
+			.map(DailyRollup::getMiscellaneousExpense)
+			.reduce(BigDecimal.ZERO, BigDecimal::add);
+		this.wastage = days.stream()
+			.map(DailyRollup::getWastage)
+			.reduce(BigDecimal.ZERO, BigDecimal::add);
+		this.netIncome = grossIncome
+			.subtract(purchasesExpense)
+			.subtract(personnelExpenses)
+			.subtract(miscellaneousExpense)
+			.subtract(wastage);
+	}
+}
@@ -0,0 +1,35 @@
+package org.xiangan.fruitshopweb.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.xiangan.fruitshopweb.service.SqlTracingService;
+
+/**
+ * (回應模型)SQL 追蹤設定
+ *
+ * @author kyle
+ */
+@AllArgsConstructor
+@Getter
+@Schema(description = "SQL 追蹤設定")
+public class SqlTracingSettings {
+
+	/**
+	 * 追蹤模式
+	 */
+	@Schema(description = "追蹤模式 (OFF 關閉、SAMPLED 抽樣、ALL 全部)")
+	private SqlTracingService.Mode mode;
+
+	/**
+	 * 抽樣百分比
+	 */
+	@Schema(description = "抽樣百分比 (0 ~ 100)")
+	private double percent;
+
+	/**
+	 * 一律追蹤的請求編號
+	 */
+	@Schema(description = "一律追蹤的請求編號 (X-Request-Id)")
+	private String requestId;
+}
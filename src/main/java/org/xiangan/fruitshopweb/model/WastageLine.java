@@ -0,0 +1,38 @@
+package org.xiangan.fruitshopweb.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * (請求模型)批次損耗明細
+ *
+ * @author kyle
+ */
+@Data
+@NoArgsConstructor
+@Schema(description = "批次損耗明細")
+public class WastageLine {
+
+	/**
+	 * 產品主鍵
+	 */
+	@Schema(description = "產品主鍵", example = "0Ab3dE5gH7")
+	private String productId;
+
+	/**
+	 * 損耗數量
+	 */
+	@Schema(description = "損耗數量", example = "3")
+	private Double quantity;
+
+	/**
+	 * 損耗日期
+	 */
+	@JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd", timezone = "Asia/Taipei")
+	@Schema(description = "損耗日期", example = "2025-04-01")
+	private Date date;
+}
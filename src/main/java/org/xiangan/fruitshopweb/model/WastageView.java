@@ -0,0 +1,48 @@
+package org.xiangan.fruitshopweb.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Date;
+
+/**
+ * (回應模型)損耗單列表
+ * <p>
+ * 只查詢列表輸出的欄位，產品僅取外鍵，不載入產品與貨主實體；
+ * JSON 與 {@link org.xiangan.fruitshopweb.entity.Wastage} 相同。
+ * </p>
+ *
+ * @author kyle
+ */
+@AllArgsConstructor
+@Getter
+@Schema(description = "損耗單")
+public class WastageView {
+
+	/**
+	 * 主鍵
+	 */
+	@Schema(description = "主鍵")
+	private String id;
+
+	/**
+	 * 產品主鍵
+	 */
+	@Schema(description = "產品主鍵")
+	private String product;
+
+	/**
+	 * 數量
+	 */
+	@Schema(description = "數量")
+	private Double quantity;
+
+	/**
+	 * 日期
+	 */
+	@JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd", timezone = "Asia/Taipei")
+	@Schema(description = "日期")
+	private Date date;
+}
@@ -0,0 +1,100 @@
+package org.xiangan.fruitshopweb.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.xiangan.fruitshopweb.entity.DailyRollup;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * (數據存取對象)每日營運彙總
+ *
+ * @author kyle
+ */
+@Repository
+public interface DailyRollupRepository extends JpaRepository<DailyRollup, LocalDate> {
+
+	/**
+	 * 累加某日的成本，當日尚無彙總時新增
+	 *
+	 * @param recordDate 日期
+	 * @param purchasesExpense 進貨成本增減量
+	 * @param miscellaneousExpense 雜物成本增減量
+	 * @param wastage 損耗增減量
+	 * @return 異動筆數
+	 */
+	@Modifying
+	@Query(value = "INSERT INTO daily_rollup (record_date, purchases_expense, miscellaneous_expense, wastage) " +
+		"VALUES (:recordDate, :purchasesExpense, :miscellaneousExpense, :wastage) " +
+		"ON DUPLICATE KEY UPDATE " +
+		"purchases_expense = purchases_expense + VALUES(purchases_expense), " +
+		"miscellaneous_expense = miscellaneous_expense + VALUES(miscellaneous_expense), " +
+		"wastage = wastage + VALUES(wastage)",
+		nativeQuery = true)
+	int add(
+		@Param("recordDate") LocalDate recordDate,
+		@Param("purchasesExpense") BigDecimal purchasesExpense,
+		@Param("miscellaneousExpense") BigDecimal miscellaneousExpense,
+		@Param("wastage") BigDecimal wastage);
+
+	/**
+	 * @param begin 起始日期(含)
+	 * @param end 結束日期(含)
+	 * @return 刪除筆數
+	 */
+	@Modifying
+	@Query(value = "DELETE FROM daily_rollup WHERE record_date BETWEEN :begin AND :end", nativeQuery = true)
+	int deleteBetween(@Param("begin") LocalDate begin, @Param("end") LocalDate end);
+
+	/**
+	 * 由進貨、損耗、雜物原始資料重新計算區間內每日的成本；金額計算方式須與
+	 * {@link org.xiangan.fruitshopweb.listener.RollupEventListener} 一致
+	 * (數量與單價皆為 DECIMAL，以定點數相乘後進位)
+	 *
+	 * @param begin 起始日期(含)
+	 * @param end 結束日期(含)
+	 * @return 寫入的天數
+	 */
+	@Modifying
+	@Query(value = "INSERT INTO daily_rollup (record_date, purchases_expense, miscellaneous_expense, wastage) " +
+		"SELECT movement.record_date, SUM(movement.purchases_expense), " +
+		"SUM(movement.miscellaneous_expense), SUM(movement.wastage) " +
+		"FROM (" +
+		"SELECT DATE(pu.receiving_date) AS record_date, ROUND(pu.quantity * pr.unit_price, 2) AS purchases_expense, " +
+		"0 AS miscellaneous_expense, 0 AS wastage " +
+		"FROM purchase pu JOIN product pr ON pr.id = pu.product " +
+		"WHERE pu.receiving_date >= :begin AND pu.receiving_date < CAST(:end AS DATE) + INTERVAL '1' DAY " +
+		"UNION ALL " +
+		"SELECT DATE(mi.date), 0, mi.amount, 0 " +
+		"FROM miscellaneous mi " +
+		"WHERE mi.date >= :begin AND mi.date < CAST(:end AS DATE) + INTERVAL '1' DAY " +
+		"UNION ALL " +
+		"SELECT wa.date, 0, 0, ROUND(wa.quantity * pr.unit_price, 2) " +
+		"FROM wastage wa JOIN product pr ON pr.id = wa.product " +
+		"WHERE wa.date BETWEEN :begin AND :end" +
+		") movement " +
+		"GROUP BY movement.record_date",
+		nativeQuery = true)
+	int insertBetween(@Param("begin") LocalDate begin, @Param("end") LocalDate end);
+
+	/**
+	 * @param begin 起始日期(含)
+	 * @param end 結束日期(含)
+	 * @return 區間內的雜物成本
+	 */
+	@Query("SELECT COALESCE(SUM(d.miscellaneousExpense), 0) FROM DailyRollup d " +
+		"WHERE d.recordDate BETWEEN :begin AND :end")
+	BigDecimal sumMiscellaneousExpense(@Param("begin") LocalDate begin, @Param("end") LocalDate end);
+
+	/**
+	 * @param begin 起始日期(含)
+	 * @param end 結束日期(含)
+	 * @return 區間內每日彙總
+	 */
+	List<DailyRollup> findAllByRecordDateBetweenOrderByRecordDate(LocalDate begin, LocalDate end);
+}
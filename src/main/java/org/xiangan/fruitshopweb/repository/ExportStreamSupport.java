@@ -0,0 +1,71 @@
+package org.xiangan.fruitshopweb.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.stream.Stream;
+
+/**
+ * 匯出查詢的逐筆讀取
+ * <p>
+ * MySQL 驅動程式預設一次讀入全部結果；取回筆數設為 {@link Integer#MIN_VALUE} 時改為逐列串流，
+ * 只影響匯出查詢，其他查詢仍在用戶端組合參數。串流讀取完畢前同一連線不可再執行其他查詢，
+ * 匯出只輸出查詢結果，不延遲載入關聯。其他資料庫 (例如測試用的 H2) 不接受負數，以 {@value #FETCH_SIZE} 筆為一批。
+ * </p>
+ *
+ * @author kyle
+ */
+abstract class ExportStreamSupport {
+
+	/**
+	 * 非 MySQL 時每次自資料庫取回的筆數
+	 */
+	static final int FETCH_SIZE = 500;
+
+	/**
+	 * 實體管理器
+	 */
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * @param jpql 查詢語法
+	 * @param type 結果類型
+	 * @param <T> 結果類型
+	 * @return 查詢
+	 */
+	protected <T> TypedQuery<T> query(final String jpql, final Class<T> type) {
+		return entityManager.createQuery(jpql, type);
+	}
+
+	/**
+	 * 唯讀逐筆讀取，須在交易中使用並於讀取完畢後關閉
+	 *
+	 * @param query 查詢
+	 * @param <T> 結果類型
+	 * @return 查詢結果
+	 */
+	protected <T> Stream<T> stream(final TypedQuery<T> query) {
+		return query
+			.setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize())
+			.setHint(HibernateHints.HINT_READ_ONLY, true)
+			.getResultStream();
+	}
+
+	/**
+	 * @return 依資料庫決定的取回筆數
+	 */
+	private int fetchSize() {
+		return entityManager
+			.getEntityManagerFactory()
+			.unwrap(SessionFactoryImplementor.class)
+			.getJdbcServices()
+			.getDialect() instanceof MySQLDialect
+			? Integer.MIN_VALUE
+			: FETCH_SIZE;
+	}
+}
@@ -0,0 +1,23 @@
+package org.xiangan.fruitshopweb.repository;
+
+import org.xiangan.fruitshopweb.model.MiscellaneousView;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * (數據存取對象)雜物匯出
+ *
+ * @author kyle
+ */
+public interface MiscellaneousExportRepository {
+
+	/**
+	 * 匯出：依紀錄時間、主鍵排序逐筆讀取，須在交易中使用並於讀取完畢後關閉
+	 *
+	 * @param begin 起始(含)，為空時不限
+	 * @param end 結束(不含)，為空時不限
+	 * @return 雜物
+	 */
+	Stream<MiscellaneousView> streamViews(LocalDateTime begin, LocalDateTime end);
+}
@@ -0,0 +1,26 @@
+package org.xiangan.fruitshopweb.repository;
+
+import org.xiangan.fruitshopweb.model.MiscellaneousView;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * (數據存取對象)雜物匯出，見 {@link ExportStreamSupport}
+ *
+ * @author kyle
+ */
+class MiscellaneousExportRepositoryImpl extends ExportStreamSupport implements MiscellaneousExportRepository {
+
+	@Override
+	public Stream<MiscellaneousView> streamViews(final LocalDateTime begin, final LocalDateTime end) {
+		return stream(
+			query("SELECT new org.xiangan.fruitshopweb.model.MiscellaneousView(m.id, m.name, m.amount, m.recordDate) "
+				+ "FROM Miscellaneous m "
+				+ "WHERE (:begin IS NULL OR m.recordDate >= :begin) AND (:end IS NULL OR m.recordDate < :end) "
+				+ "ORDER BY m.recordDate, m.id", MiscellaneousView.class)
+				.setParameter("begin", begin)
+				.setParameter("end", end)
+		);
+	}
+}
@@ -0,0 +1,69 @@
+package org.xiangan.fruitshopweb.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.xiangan.fruitshopweb.entity.MiscellaneousHourlyRollup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * (數據存取對象)雜物每小時彙總
+ *
+ * @author kyle
+ */
+@Repository
+public interface MiscellaneousHourlyRollupRepository extends JpaRepository<MiscellaneousHourlyRollup, LocalDateTime> {
+
+	/**
+	 * 累加某小時的花費，該小時尚無彙總時新增
+	 *
+	 * @param recordHour 整點
+	 * @param amount 花費增減量
+	 * @return 異動筆數
+	 */
+	@Modifying
+	@Query(value = "INSERT INTO miscellaneous_hourly_rollup (record_hour, amount) " +
+		"VALUES (:recordHour, :amount) " +
+		"ON DUPLICATE KEY UPDATE amount = amount + VALUES(amount)",
+		nativeQuery = true)
+	int add(@Param("recordHour") LocalDateTime recordHour, @Param("amount") BigDecimal amount);
+
+	/**
+	 * @param begin 起始整點(含)
+	 * @param end 結束整點(不含)
+	 * @return 區間內的花費
+	 */
+	@Query("SELECT COALESCE(SUM(h.amount), 0) FROM MiscellaneousHourlyRollup h " +
+		"WHERE h.recordHour >= :begin AND h.recordHour < :end")
+	BigDecimal sumAmount(@Param("begin") LocalDateTime begin, @Param("end") LocalDateTime end);
+
+	/**
+	 * @param begin 起始時間(含)
+	 * @param end 結束時間(不含)
+	 * @return 刪除筆數
+	 */
+	@Modifying
+	@Query(value = "DELETE FROM miscellaneous_hourly_rollup WHERE record_hour >= :begin AND record_hour < :end",
+		nativeQuery = true)
+	int deleteBetween(@Param("begin") LocalDateTime begin, @Param("end") LocalDateTime end);
+
+	/**
+	 * 由雜物原始資料重新計算區間內每小時的花費
+	 *
+	 * @param begin 起始時間(含)
+	 * @param end 結束時間(不含)
+	 * @return 寫入的小時數
+	 */
+	@Modifying
+	@Query(value = "INSERT INTO miscellaneous_hourly_rollup (record_hour, amount) " +
+		"SELECT TIMESTAMPADD(HOUR, HOUR(mi.date), CAST(mi.date AS DATE)), SUM(mi.amount) " +
+		"FROM miscellaneous mi " +
+		"WHERE mi.date >= :begin AND mi.date < :end " +
+		"GROUP BY TIMESTAMPADD(HOUR, HOUR(mi.date), CAST(mi.date AS DATE))",
+		nativeQuery = true)
+	int insertBetween(@Param("begin") LocalDateTime begin, @Param("end") LocalDateTime end);
+}
@@ -18,8 +18,18 @@ import java.util.Date;
  */
 @Repository
 public interface MiscellaneousRepository
-    extends JpaRepository<Miscellaneous, Long>, JpaSpecificationExecutor<Miscellaneous> {
+    extends JpaRepository<Miscellaneous, Long>, JpaSpecificationExecutor<Miscellaneous>, MiscellaneousExportRepository {
+
 	@Query("SELECT COALESCE(SUM(m.amount), 0) FROM Miscellaneous m " +
 		"WHERE m.recordDate BETWEEN :begin AND :end")
 	BigDecimal sumAmountBetweenDates(@Param("begin") LocalDateTime begin, @Param("end") LocalDateTime end);
+
+	/**
+	 * @param begin 起始時間(含)
+	 * @param end 結束時間(不含)
+	 * @return 區間內的花費
+	 */
+	@Query("SELECT COALESCE(SUM(m.amount), 0) FROM Miscellaneous m " +
+		"WHERE m.recordDate >= :begin AND m.recordDate < :end")
+	BigDecimal sumAmountInRange(@Param("begin") LocalDateTime begin, @Param("end") LocalDateTime end);
 }
@@ -2,6 +2,9 @@ package org.xiangan.fruitshopweb.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.xiangan.fruitshopweb.entity.Person;
 
@@ -15,4 +18,15 @@ import java.util.Optional;
 @Repository
 public interface PersonRepository extends JpaRepository<Person, Long>, JpaSpecificationExecutor<Person> {
 	Optional<Person> findByEmail(String email);
+
+	/**
+	 * 更新密碼雜湊 (登入時升級雜湊強度)
+	 *
+	 * @param email 信箱
+	 * @param password 新的密碼雜湊
+	 * @return 受影響筆數
+	 */
+	@Modifying
+	@Query("UPDATE Person p SET p.password = :password WHERE p.email = :email")
+	int updatePassword(@Param("email") String email, @Param("password") String password);
 }
@@ -1,15 +1,67 @@
 package org.xiangan.fruitshopweb.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.xiangan.fruitshopweb.entity.Product;
+import org.xiangan.fruitshopweb.entity.Product_;
+
+import java.util.List;
+import java.util.Optional;
 
 /**
  * (數據存取對象)產品
+ * <p>
+ * 貨主為延遲載入；產品會整筆輸出 JSON (含貨主) 並放入目錄快取，
+ * 依條件讀取時以實體圖在同一查詢中取回貨主，避免逐筆補查或於交易外延遲載入。
+ * </p>
  *
  * @author kyle
  */
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
+
+	/**
+	 * 以單一條件式 UPDATE 增減庫存，結果為負數時不更新
+	 *
+	 * @param id    產品主鍵
+	 * @param delta 庫存增減量 (基準單位的百萬分之一)
+	 * @return 受影響筆數(0 表示產品不存在或庫存不足)
+	 */
+	@Modifying(flushAutomatically = true)
+	@Query("UPDATE Product p SET p.stock = p.stock + :delta, p.version = p.version + 1 " +
+		"WHERE p.id = :id AND p.stock + :delta >= 0")
+	int addInventory(@Param("id") String id, @Param("delta") long delta);
+
+	/**
+	 * @param spec 條件
+	 * @return 產品 (含貨主)
+	 */
+	@EntityGraph(attributePaths = Product_.PERSON)
+	@Override
+	Optional<Product> findOne(Specification<Product> spec);
+
+	/**
+	 * @param spec 條件
+	 * @return 產品們 (含貨主)
+	 */
+	@EntityGraph(attributePaths = Product_.PERSON)
+	@Override
+	List<Product> findAll(Specification<Product> spec);
+
+	/**
+	 * @param spec 條件
+	 * @param pageable 分頁
+	 * @return 可分頁的產品 (含貨主)
+	 */
+	@EntityGraph(attributePaths = Product_.PERSON)
+	@Override
+	Page<Product> findAll(Specification<Product> spec, Pageable pageable);
 }
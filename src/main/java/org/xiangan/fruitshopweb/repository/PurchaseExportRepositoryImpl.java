@@ -0,0 +1,26 @@
+package org.xiangan.fruitshopweb.repository;
+
+import org.xiangan.fruitshopweb.model.PurchaseView;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * (數據存取對象)進貨單匯出，見 {@link ExportStreamSupport}
+ *
+ * @author kyle
+ */
+class PurchaseExportRepositoryImpl extends ExportStreamSupport implements PurchaseExportRepository {
+
+	@Override
+	public Stream<PurchaseView> streamViews(final LocalDateTime begin, final LocalDateTime end) {
+		return stream(
+			query("SELECT new org.xiangan.fruitshopweb.model.PurchaseView(p.id, p.product.id, p.quantity, p.orderDate, p.receivingDate) "
+				+ "FROM Purchase p "
+				+ "WHERE (:begin IS NULL OR p.receivingDate >= :begin) AND (:end IS NULL OR p.receivingDate < :end) "
+				+ "ORDER BY p.receivingDate, p.id", PurchaseView.class)
+				.setParameter("begin", begin)
+				.setParameter("end", end)
+		);
+	}
+}
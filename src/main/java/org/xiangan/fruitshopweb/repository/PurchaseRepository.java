@@ -1,9 +1,20 @@
 package org.xiangan.fruitshopweb.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.xiangan.fruitshopweb.entity.Purchase;
+import org.xiangan.fruitshopweb.entity.Purchase_;
+import org.xiangan.fruitshopweb.model.PurchaseView;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
 
 /**
  * (數據存取對象)進貨單
@@ -11,5 +22,29 @@ import org.xiangan.fruitshopweb.entity.Purchase;
  * @author kyle
  */
 @Repository
-public interface PurchaseRepository extends JpaRepository<Purchase, Long>, JpaSpecificationExecutor<Purchase> {
+public interface PurchaseRepository extends JpaRepository<Purchase, Long>, JpaSpecificationExecutor<Purchase>, PurchaseExportRepository {
+
+	/**
+	 * 列表只查詢輸出的欄位，產品取外鍵欄位，不載入產品與貨主
+	 *
+	 * @param pageable 分頁
+	 * @return 可分頁的進貨單
+	 */
+	@Query(
+		value = "SELECT new org.xiangan.fruitshopweb.model.PurchaseView(p.id, p.product.id, p.quantity, p.orderDate, p.receivingDate) "
+			+ "FROM Purchase p "
+			+ "ORDER BY p.receivingDate DESC, p.orderDate DESC, p.product.id",
+		countQuery = "SELECT COUNT(p) FROM Purchase p"
+	)
+	Page<PurchaseView> findAllViews(Pageable pageable);
+
+	/**
+	 * 單筆讀取用於編輯、刪除，一併取回產品 (庫存與每日營運彙總需要產品資料)
+	 *
+	 * @param spec 條件
+	 * @return 進貨單
+	 */
+	@EntityGraph(attributePaths = Purchase_.PRODUCT)
+	@Override
+	Optional<Purchase> findOne(Specification<Purchase> spec);
 }
@@ -2,9 +2,14 @@ package org.xiangan.fruitshopweb.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.xiangan.fruitshopweb.entity.Revenue;
 
+import java.math.BigDecimal;
+import java.sql.Date;
+
 /**
  * (數據存取對象)營業狀況
  *
@@ -12,4 +17,11 @@ import org.xiangan.fruitshopweb.entity.Revenue;
  */
 @Repository
 public interface RevenueRepository extends JpaRepository<Revenue, Long>, JpaSpecificationExecutor<Revenue> {
+	@Query("SELECT COALESCE(SUM(r.grossIncome), 0) FROM Revenue r " +
+		"WHERE r.recordDate BETWEEN :begin AND :end")
+	BigDecimal sumGrossIncomeBetweenDates(@Param("begin") Date begin, @Param("end") Date end);
+
+	@Query("SELECT COALESCE(SUM(r.personnelExpenses), 0) FROM Revenue r " +
+		"WHERE r.recordDate BETWEEN :begin AND :end")
+	BigDecimal sumPersonnelExpensesBetweenDates(@Param("begin") Date begin, @Param("end") Date end);
 }
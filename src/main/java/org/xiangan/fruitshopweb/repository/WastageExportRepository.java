@@ -0,0 +1,23 @@
+package org.xiangan.fruitshopweb.repository;
+
+import org.xiangan.fruitshopweb.model.WastageView;
+
+import java.util.Date;
+import java.util.stream.Stream;
+
+/**
+ * (數據存取對象)損耗單匯出
+ *
+ * @author kyle
+ */
+public interface WastageExportRepository {
+
+	/**
+	 * 匯出：依損耗日期、主鍵排序逐筆讀取，須在交易中使用並於讀取完畢後關閉
+	 *
+	 * @param begin 起始(含)，為空時不限
+	 * @param end 結束(不含)，為空時不限
+	 * @return 損耗單
+	 */
+	Stream<WastageView> streamViews(Date begin, Date end);
+}
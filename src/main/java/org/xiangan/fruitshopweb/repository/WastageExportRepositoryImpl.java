@@ -0,0 +1,26 @@
+package org.xiangan.fruitshopweb.repository;
+
+import org.xiangan.fruitshopweb.model.WastageView;
+
+import java.util.Date;
+import java.util.stream.Stream;
+
+/**
+ * (數據存取對象)損耗單匯出，見 {@link ExportStreamSupport}
+ *
+ * @author kyle
+ */
+class WastageExportRepositoryImpl extends ExportStreamSupport implements WastageExportRepository {
+
+	@Override
+	public Stream<WastageView> streamViews(final Date begin, final Date end) {
+		return stream(
+			query("SELECT new org.xiangan.fruitshopweb.model.WastageView(w.id, w.product.id, w.quantity, w.date) "
+				+ "FROM Wastage w "
+				+ "WHERE (:begin IS NULL OR w.date >= :begin) AND (:end IS NULL OR w.date < :end) "
+				+ "ORDER BY w.date, w.id", WastageView.class)
+				.setParameter("begin", begin)
+				.setParameter("end", end)
+		);
+	}
+}
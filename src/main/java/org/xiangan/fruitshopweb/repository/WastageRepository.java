@@ -1,9 +1,19 @@
 package org.xiangan.fruitshopweb.repository;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.xiangan.fruitshopweb.entity.Wastage;
+import org.xiangan.fruitshopweb.entity.Wastage_;
+import org.xiangan.fruitshopweb.model.WastageView;
+
+import java.util.Optional;
 
 /**
  * (數據存取對象)損耗單
@@ -11,5 +21,29 @@ import org.xiangan.fruitshopweb.entity.Wastage;
  * @author kyle
  */
 @Repository
-public interface WastageRepository extends JpaRepository<Wastage, Long>, JpaSpecificationExecutor<Wastage> {
+public interface WastageRepository extends JpaRepository<Wastage, Long>, JpaSpecificationExecutor<Wastage>, WastageExportRepository {
+
+	/**
+	 * 列表只查詢輸出的欄位，產品取外鍵欄位，不載入產品與貨主
+	 *
+	 * @param pageable 分頁
+	 * @return 可分頁的損耗單
+	 */
+	@Query(
+		value = "SELECT new org.xiangan.fruitshopweb.model.WastageView(w.id, w.product.id, w.quantity, w.date) "
+			+ "FROM Wastage w "
+			+ "ORDER BY w.date DESC, w.product.id, w.quantity DESC",
+		countQuery = "SELECT COUNT(w) FROM Wastage w"
+	)
+	Page<WastageView> findAllViews(Pageable pageable);
+
+	/**
+	 * 單筆讀取用於編輯、刪除，一併取回產品 (庫存與每日營運彙總需要產品資料)
+	 *
+	 * @param spec 條件
+	 * @return 損耗單
+	 */
+	@EntityGraph(attributePaths = Wastage_.PRODUCT)
+	@Override
+	Optional<Wastage> findOne(Specification<Wastage> spec);
 }
@@ -7,7 +7,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.xiangan.fruitshopweb.entity.Person;
@@ -44,9 +43,9 @@ public class AuthenticationService {
 	private final PersonService personService;
 
 	/**
-	 * 密碼加密與驗證
+	 * (服務層) 密碼驗證
 	 */
-	private final PasswordEncoder passwordEncoder;
+	private final CredentialService credentialService;
 
 	/**
 	 * JWT 生成與驗證
@@ -88,7 +87,7 @@ public class AuthenticationService {
 			.name(request.name())
 			.level(request.level())
 			.email(email)
-			.password(passwordEncoder.encode(request.password()))
+			.password(credentialService.encode(request.password()))
 			.phoneNumber(phoneNumber)
 			.company(company)
 			.build();
@@ -118,8 +117,10 @@ public class AuthenticationService {
 		Person user = personRepository.findByEmail(email)
 			.orElseThrow(() -> new CustomException("帳號或密碼錯誤"));
 		try {
-			// 驗證帳號密碼
-			authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(email, password));
+			// 驗證帳號密碼 (BCrypt 比對在專用執行緒池，尖峰時排隊或回應 429)
+			credentialService.check(
+				() -> authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(email, password))
+			);
 
 			// 產生 JWT Token
 			String jwtToken = jwtService.generateToken(user);
@@ -0,0 +1,115 @@
+package org.xiangan.fruitshopweb.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * (服務層) 資料表異動版本
+ * <p>
+ * 每個資料表一個異動計數，服務層寫入後於交易提交後遞增；清單 API 以計數組成強 ETag，
+ * 請求帶 {@code If-None-Match} 且與目前版本相同時直接回應 304，不查詢資料庫也不序列化 JSON。
+ * </p>
+ * <p>
+ * 計數只存在於本程序，ETag 含啟動時間，重新啟動後舊 ETag 一律視為過期；
+ * 多個實例之間不共用計數，部署多個實例時請以黏著工作階段 (sticky session) 導向同一實例。
+ * </p>
+ *
+ * @author kyle
+ */
+@Service
+@Slf4j
+public class ChangeVersionService {
+
+	/**
+	 * 資料表
+	 */
+	public enum Table {
+		/**
+		 * 產品 (含貨主、庫存)
+		 */
+		PRODUCT,
+		/**
+		 * 人員
+		 */
+		PERSON
+	}
+
+	/**
+	 * 啟動時間，區分重新啟動前後的版本
+	 */
+	private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+	/**
+	 * 資料表與異動計數
+	 */
+	private final Map<Table, AtomicLong> versions = new EnumMap<>(Table.class);
+
+	public ChangeVersionService() {
+		for (Table table : Table.values()) {
+			versions.put(table, new AtomicLong());
+		}
+	}
+
+	/**
+	 * @param table 資料表
+	 * @return 目前異動計數
+	 */
+	public long version(final Table table) {
+		return versions.get(table).get();
+	}
+
+	/**
+	 * 組成強 ETag
+	 *
+	 * @param table 資料表
+	 * @param variant 影響回應內容的參數 (頁數、篩選條件等)
+	 * @return ETag (含雙引號)
+	 */
+	public String etag(final Table table, final Object... variant) {
+		return String.format(
+			"\"%s-%s-%d-%s\"",
+			table.name().toLowerCase(),
+			epoch,
+			version(table),
+			DigestUtils.md5DigestAsHex(Arrays.deepToString(variant).getBytes(StandardCharsets.UTF_8))
+		);
+	}
+
+	/**
+	 * 遞增異動計數；若在交易中則待交易提交後才遞增，避免並行請求以新版本標記提交前的舊資料
+	 *
+	 * @param tables 資料表
+	 */
+	public void bump(final Table... tables) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					increment(tables);
+				}
+			});
+		} else {
+			increment(tables);
+		}
+	}
+
+	/**
+	 * @param tables 資料表
+	 */
+	private void increment(final Table... tables) {
+		Arrays.stream(tables)
+			.filter(Objects::nonNull)
+			.distinct()
+			.forEach(table -> log.debug("{} 異動版本：{}", table, versions.get(table).incrementAndGet()));
+	}
+}
@@ -0,0 +1,182 @@
+package org.xiangan.fruitshopweb.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.xiangan.fruitshopweb.entity.Person;
+import org.xiangan.fruitshopweb.exception.TooManyRequestsException;
+import org.xiangan.fruitshopweb.repository.PersonRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * (服務層) 密碼驗證
+ * <p>
+ * BCrypt 每次比對都要耗費數十毫秒的 CPU；請求跑在虛擬執行緒上不受執行緒數限制，
+ * 登入尖峰時大量比對會吃滿 CPU，拖慢產品、進貨等其他 API。
+ * 此服務以專用且有上限的執行緒池與佇列執行密碼比對，佇列已滿或等待逾時即回應 429，
+ * 其餘請求仍有 CPU 可用。
+ * </p>
+ * <p>
+ * 同時是 {@link org.springframework.security.authentication.dao.DaoAuthenticationProvider}
+ * 的密碼更新服務：登入成功且既有雜湊的強度低於設定值時，以新強度重新雜湊並寫回資料庫，
+ * 調整 {@code security.password.bcrypt-strength} 後舊帳號會在下次登入時逐步升級。
+ * </p>
+ *
+ * @author kyle
+ */
+@Service
+@Slf4j
+public class CredentialService implements UserDetailsPasswordService, MeterBinder {
+
+	/**
+	 * (數據存取層)人員
+	 */
+	private final PersonRepository personRepository;
+
+	/**
+	 * 密碼雜湊 (與登入比對共用同一個強度設定)
+	 */
+	private final PasswordEncoder passwordEncoder;
+
+	/**
+	 * 密碼比對專用執行緒池
+	 */
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * 排隊加上比對的等待上限
+	 */
+	private final Duration timeout;
+
+	/**
+	 * @param personRepository (數據存取層)人員
+	 * @param passwordEncoder 密碼雜湊
+	 * @param threads 執行緒數，0 表示 CPU 核心數的一半 (至少 1)
+	 * @param queue 排隊上限
+	 * @param timeout 排隊加上比對的等待上限
+	 */
+	public CredentialService(
+		final PersonRepository personRepository,
+		final PasswordEncoder passwordEncoder,
+		@Value("${security.credential-check.threads:0}") final int threads,
+		@Value("${security.credential-check.queue:32}") final int queue,
+		@Value("${security.credential-check.timeout:PT5S}") final Duration timeout) {
+		this.personRepository = personRepository;
+		this.passwordEncoder = passwordEncoder;
+		this.timeout = timeout;
+
+		final int size = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+		this.executor = new ThreadPoolExecutor(
+			size,
+			size,
+			0L,
+			TimeUnit.MILLISECONDS,
+			new ArrayBlockingQueue<>(queue),
+			new CustomizableThreadFactory("credential-"),
+			new ThreadPoolExecutor.AbortPolicy()
+		);
+	}
+
+	/**
+	 * 於密碼比對執行緒池執行 (例如 {@code AuthenticationManager#authenticate})
+	 *
+	 * @param check 密碼比對
+	 * @param <T> 結果型別
+	 * @return 結果
+	 * @throws TooManyRequestsException 佇列已滿或等待逾時
+	 */
+	public <T> T check(final Callable<T> check) {
+		final Future<T> future;
+		try {
+			future = executor.submit(check);
+		} catch (RejectedExecutionException exception) {
+			log.warn("密碼驗證佇列已滿 (執行中 {}，排隊 {})", executor.getActiveCount(), executor.getQueue().size());
+			throw new TooManyRequestsException("登入人數過多，請稍後再試", timeout);
+		}
+
+		try {
+			return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (TimeoutException exception) {
+			future.cancel(true);
+			log.warn("密碼驗證等待逾時 ({})", timeout);
+			throw new TooManyRequestsException("登入人數過多，請稍後再試", timeout);
+		} catch (InterruptedException exception) {
+			future.cancel(true);
+			Thread.currentThread().interrupt();
+			throw new RuntimeException(
+				String.format("密碼驗證時拋出線程中斷異常：%s❗", exception.getLocalizedMessage()),
+				exception
+			);
+		} catch (ExecutionException exception) {
+			// 帳號密碼錯誤等驗證異常原樣拋出，交由呼叫端處理
+			if (exception.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw new RuntimeException(exception.getCause());
+		}
+	}
+
+	/**
+	 * @param rawPassword 明碼
+	 * @return 以設定強度產生的雜湊
+	 */
+	public String encode(final String rawPassword) {
+		return passwordEncoder.encode(rawPassword);
+	}
+
+	/**
+	 * 登入成功且雜湊需要升級時由 DaoAuthenticationProvider 呼叫 (在密碼比對執行緒上)
+	 *
+	 * @param user 使用者
+	 * @param newPassword 以目前強度產生的新雜湊
+	 * @return 使用新雜湊的使用者
+	 */
+	@Override
+	@Transactional
+	public UserDetails updatePassword(final UserDetails user, final String newPassword) {
+		personRepository.updatePassword(user.getUsername(), newPassword);
+		log.info("已升級「{}」的密碼雜湊", user.getUsername());
+
+		if (user instanceof Person person) {
+			person.setPassword(newPassword);
+		}
+		return user;
+	}
+
+	/**
+	 * 執行中、排隊與完成數 ({@code executor.*} 指標，name=credential)
+	 *
+	 * @param registry 指標登錄
+	 */
+	@Override
+	public void bindTo(final MeterRegistry registry) {
+		new ExecutorServiceMetrics(executor, "credential", List.of()).bindTo(registry);
+	}
+
+	/**
+	 * 停止接受新的比對
+	 */
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdown();
+	}
+}
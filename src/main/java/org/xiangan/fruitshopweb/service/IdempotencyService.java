@@ -0,0 +1,144 @@
+package org.xiangan.fruitshopweb.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * (服務層) 冪等鍵
+ * <p>
+ * 市場的網路不穩，POS 端逾時後會重送建立請求，每次重送都會多一筆資料並再次異動庫存。
+ * 用戶端以 {@code Idempotency-Key} 標頭標記同一筆操作，此服務以冪等鍵保存請求指紋與第一次的回應：
+ * 重送時直接回放回應；第一次請求尚未完成時，重複的請求等待其結果而不再寫入資料庫。
+ * </p>
+ * <p>
+ * 依筆數上限與存活時間淘汰；只保留成功 (2xx) 的回應，失敗的請求移除後可以相同冪等鍵重試。
+ * 保存於應用程式記憶體，多台主機時需將同一用戶端導向同一台。
+ * </p>
+ *
+ * @author kyle
+ */
+@Service
+@Slf4j
+public class IdempotencyService implements MeterBinder {
+
+	/**
+	 * 冪等鍵與請求紀錄
+	 */
+	private final Cache<String, Entry> entries;
+
+	/**
+	 * 回應
+	 *
+	 * @param status 狀態碼
+	 * @param contentType 內容類型
+	 * @param body 內容
+	 */
+	public record StoredResponse(int status, String contentType, byte[] body) {
+
+		/**
+		 * @return 是否為成功的回應
+		 */
+		public boolean successful() {
+			return status >= 200 && status < 300;
+		}
+	}
+
+	/**
+	 * 一個冪等鍵的請求紀錄
+	 *
+	 * @param fingerprint 請求指紋
+	 * @param response 第一次請求的回應，處理中時尚未完成
+	 * @param first 是否由本次請求建立 (須由本次請求執行並回報結果)
+	 */
+	public record Entry(String fingerprint, CompletableFuture<StoredResponse> response, boolean first) {
+	}
+
+	/**
+	 * @param ttl 回應保存時間
+	 * @param maximumSize 保存筆數上限
+	 */
+	public IdempotencyService(
+		@Value("${idempotency.ttl:PT24H}") final Duration ttl,
+		@Value("${idempotency.maximum-size:10000}") final long maximumSize) {
+		this.entries = Caffeine.newBuilder()
+			.expireAfterWrite(ttl)
+			.maximumSize(maximumSize)
+			.recordStats()
+			.build();
+	}
+
+	/**
+	 * 登記冪等鍵；尚未登記時由本次請求執行，否則取得既有的紀錄
+	 *
+	 * @param key 冪等鍵
+	 * @param fingerprint 請求指紋
+	 * @return 請求紀錄
+	 */
+	public Entry claim(final String key, final String fingerprint) {
+		final Entry entry = new Entry(fingerprint, new CompletableFuture<>(), true);
+		final Entry existing = entries.asMap().putIfAbsent(key, entry);
+		if (existing == null) {
+			return entry;
+		}
+		return new Entry(existing.fingerprint(), existing.response(), false);
+	}
+
+	/**
+	 * 回報第一次請求的回應，等待中的重複請求一併取得；非成功的回應不保存
+	 *
+	 * @param key 冪等鍵
+	 * @param entry 本次請求登記的紀錄
+	 * @param response 回應
+	 */
+	public void complete(final String key, final Entry entry, final StoredResponse response) {
+		if (!response.successful()) {
+			remove(key, entry);
+		}
+		entry.response().complete(response);
+	}
+
+	/**
+	 * 第一次請求拋出異常，移除紀錄讓用戶端可以重試
+	 *
+	 * @param key 冪等鍵
+	 * @param entry 本次請求登記的紀錄
+	 * @param cause 異常
+	 */
+	public void fail(final String key, final Entry entry, final Throwable cause) {
+		remove(key, entry);
+		entry.response().completeExceptionally(cause);
+	}
+
+	/**
+	 * 保存筆數、命中率與淘汰數 ({@code cache.*} 指標)
+	 *
+	 * @param registry 指標登錄
+	 */
+	@Override
+	public void bindTo(final MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, entries, "idempotency");
+	}
+
+	/**
+	 * 只移除本次請求登記的紀錄，不影響之後以相同冪等鍵登記的紀錄
+	 *
+	 * @param key 冪等鍵
+	 * @param entry 本次請求登記的紀錄
+	 */
+	private void remove(final String key, final Entry entry) {
+		entries.asMap().computeIfPresent(
+			key,
+			(ignored, current) -> current.response() == entry.response() ? null : current
+		);
+		log.debug("移除冪等鍵「{}」", key);
+	}
+}
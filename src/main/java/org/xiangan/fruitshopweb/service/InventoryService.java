@@ -0,0 +1,122 @@
+package org.xiangan.fruitshopweb.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.xiangan.fruitshopweb.entity.Product;
+import org.xiangan.fruitshopweb.entity.Product_;
+import org.xiangan.fruitshopweb.exception.CustomException;
+import org.xiangan.fruitshopweb.repository.ProductRepository;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 庫存異動
+ * <p>
+ * 以條件式 UPDATE（{@code stock = stock + ?}）在資料庫端原子地增減庫存，
+ * 取代讀出庫存、於 Java 加減後再寫回的作法，避免同時進貨、損耗時的更新遺失。
+ * 異動一律在呼叫端的交易中執行，且應於寫入進貨單/損耗單之前呼叫，
+ * 讓產品列鎖只持有到交易結束前的最後一小段。
+ * </p>
+ * <p>
+ * 增減量為基準單位的百萬分之一 ({@link org.xiangan.fruitshopweb.enumType.UnitTypeEnum#toMicros(double)})，
+ * 呼叫端以產品單位換算後傳入，合併與累加皆為整數運算。
+ * 異動後請勿再以產品實體修改庫存；需要最新庫存時請重新讀取。
+ * </p>
+ *
+ * @author kyle
+ */
+@RequiredArgsConstructor
+@Service
+@Slf4j
+public class InventoryService {
+
+	/**
+	 * (數據存取對象)產品
+	 */
+	private final ProductRepository productRepository;
+
+	/**
+	 * (服務層) 產品目錄快取
+	 */
+	private final ProductCatalogService productCatalogService;
+
+	/**
+	 * 增減單一產品庫存
+	 *
+	 * @param productId 產品主鍵
+	 * @param delta     庫存增減量(基準單位的百萬分之一，負數為扣減)
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void add(final String productId, final long delta) {
+		if (delta == 0) {
+			return;
+		}
+
+		if (productRepository.addInventory(productId, delta) == 0) {
+			Product product = productRepository
+				.findOne(
+					(root, criteriaQuery, criteriaBuilder) ->
+						criteriaBuilder.equal(root.get(Product_.id), productId)
+				)
+				.orElseThrow(
+					() -> new CustomException(
+						String.format("無主鍵為「%s」的產品❗️", productId))
+				);
+			throw new CustomException(
+				String.format(
+					"產品「%s」庫存不足，目前庫存數量為: %s %s，異動數量為: %s❗",
+					product.getProductName(),
+					product.getInventory(),
+					product.getUnitType().getChinese(),
+					product.getUnitType().fromMicros(delta))
+			);
+		}
+		productCatalogService.evict(productId);
+		log.debug("產品「{}」庫存異動：{}", productId, delta);
+	}
+
+	/**
+	 * 增減多個產品庫存
+	 * <p>依產品主鍵排序後逐一異動，並行交易以相同順序取得列鎖，避免互相死結。</p>
+	 *
+	 * @param deltas 產品主鍵與庫存增減量(基準單位的百萬分之一)
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public void add(final Map<String, Long> deltas) {
+		new TreeMap<>(deltas).forEach(this::add);
+	}
+
+	/**
+	 * 增減多個產品庫存，庫存不足的產品略過而不拋出異常
+	 * <p>
+	 * 條件式 UPDATE 未更新任何列 (呼叫端檢查後被並行的扣減搶先) 時不異動該產品，
+	 * 交易不會被標記為僅能回滾，呼叫端可逐筆回報並繼續寫入其他產品的明細。
+	 * 依產品主鍵排序後逐一異動，理由同 {@link #add(Map)}。
+	 * </p>
+	 *
+	 * @param deltas 產品主鍵與庫存增減量(基準單位的百萬分之一)
+	 * @return 庫存不足而未異動的產品主鍵
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public Set<String> tryAdd(final Map<String, Long> deltas) {
+		final Set<String> rejected = new HashSet<>();
+		new TreeMap<>(deltas).forEach((productId, delta) -> {
+			if (delta == 0) {
+				return;
+			}
+			if (productRepository.addInventory(productId, delta) == 0) {
+				rejected.add(productId);
+				return;
+			}
+			productCatalogService.evict(productId);
+			log.debug("產品「{}」庫存異動：{}", productId, delta);
+		});
+		return rejected;
+	}
+}
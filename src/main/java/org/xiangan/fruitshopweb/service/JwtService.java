@@ -1,6 +1,7 @@
 package org.xiangan.fruitshopweb.service;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -31,6 +32,7 @@ import java.util.function.Function;
  *
  * <h3>安全性說明：</h3>
  * 採用 HMAC-SHA256 (`HS256`) 進行簽名，並使用 Base64 編碼的密鑰 (`jwt.secret`) 來初始化 HMAC 簽名密鑰。
+ * 解析器於建構時建立一次並重複使用（不可變且執行緒安全），解析時一併驗簽與檢查是否過期。
  *
  * @author kyle
  */
@@ -44,14 +46,20 @@ public class JwtService {
 	/** 密鑰 */
 	private final Key SECRET_KEY;
 
+	/** 驗簽用的 JWT 解析器 */
+	private final JwtParser parser;
+
 	/**
-	 * 透過 `@Value` 讀取 Base64 密鑰，並在建構子中初始化 `SECRET_KEY`。
+	 * 透過 `@Value` 讀取 Base64 密鑰，並在建構子中初始化 `SECRET_KEY` 與解析器。
 	 *
 	 * @param base64Key Base64 編碼的 JWT 簽名密鑰
 	 */
 	public JwtService(@Value("${jwt.secret}") String base64Key) {
 		byte[] decodedKey = Base64.getDecoder().decode(base64Key);
 		this.SECRET_KEY = Keys.hmacShaKeyFor(decodedKey);
+		this.parser = Jwts.parserBuilder()
+			.setSigningKey(SECRET_KEY)
+			.build();
 	}
 
 	/**
@@ -114,31 +122,41 @@ public class JwtService {
 	 * @return Token 是否有效
 	 */
 	public boolean isTokenValid(String token, UserDetails userDetails) {
-		final String username = extractUsername(token);
-		return username.equals(userDetails.getUsername()) && !isTokenExpired(token);
+		return isTokenValid(extractAllClaims(token), userDetails);
+	}
+
+	/**
+	 * 以已解析的 Claims 驗證 Token 是否有效，避免同一請求重複解析與驗簽
+	 *
+	 * @param claims 已驗簽的 Claims
+	 * @param userDetails 使用者詳細資訊
+	 * @return Token 是否有效
+	 */
+	public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+		final String username = claims.getSubject();
+		return username.equals(userDetails.getUsername()) && !isTokenExpired(claims);
 	}
 
 	/**
 	 * 驗證 Token 是否過期
 	 *
-	 * @param token JWT Token
+	 * @param claims 已驗簽的 Claims
 	 * @return Token 是否過期
 	 */
-	private boolean isTokenExpired(String token) {
-		final Date expirationDate = extractClaim(token, Claims::getExpiration);
+	private boolean isTokenExpired(Claims claims) {
+		final Date expirationDate = claims.getExpiration();
 		return expirationDate.before(new Date());
 	}
 
 	/**
-	 * 解析 JWT 令牌，提取所有 Claims
+	 * 解析 JWT 令牌並驗簽，提取所有 Claims（已過期的 Token 會拋出 {@code ExpiredJwtException}）
+	 * <p>同一請求請解析一次，再將 Claims 傳給 {@link #isTokenValid(Claims, UserDetails)}。</p>
 	 *
 	 * @param token JWT Token
 	 * @return Token 內的所有 Claims
 	 */
-	private Claims extractAllClaims(String token) {
-		return Jwts.parserBuilder()
-			.setSigningKey(SECRET_KEY)
-			.build()
+	public Claims extractAllClaims(String token) {
+		return parser
 			.parseClaimsJws(token)
 			.getBody();
 	}
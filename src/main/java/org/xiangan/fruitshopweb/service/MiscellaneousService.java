@@ -3,21 +3,34 @@ package org.xiangan.fruitshopweb.service;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.xiangan.fruitshopweb.entity.Miscellaneous;
 import org.xiangan.fruitshopweb.entity.Miscellaneous_;
 import org.xiangan.fruitshopweb.exception.CustomException;
+import org.xiangan.fruitshopweb.model.MiscellaneousView;
+import org.xiangan.fruitshopweb.repository.DailyRollupRepository;
+import org.xiangan.fruitshopweb.repository.MiscellaneousHourlyRollupRepository;
 import org.xiangan.fruitshopweb.repository.MiscellaneousRepository;
 
 import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * (服務層) 雜物
@@ -34,6 +47,23 @@ public class MiscellaneousService {
 	 */
     private final MiscellaneousRepository miscellaneousRepo;
 
+	/**
+	 * (數據存取對象)每日營運彙總
+	 */
+	private final DailyRollupRepository dailyRollupRepository;
+
+	/**
+	 * (數據存取對象)雜物每小時彙總
+	 */
+	private final MiscellaneousHourlyRollupRepository miscellaneousHourlyRollupRepository;
+
+	/**
+	 * (服務層) 雜物，經由代理呼叫以套用 @Async 與 @Transactional
+	 */
+	@Autowired
+	@Lazy
+	private MiscellaneousService self;
+
 	/**
 	 * @param entity 營業狀況
 	 * @return 是否成功刪除
@@ -73,6 +103,22 @@ public class MiscellaneousService {
         );
     }
 
+	/**
+	 * 匯出：依紀錄時間逐筆讀取交給 {@code consumer}，不累積在記憶體
+	 *
+	 * @param begin 起始日期(含)，為空時不限
+	 * @param end 結束日期(含)，為空時不限
+	 * @param consumer 逐筆處理
+	 */
+	@Transactional(readOnly = true)
+	public void export(final LocalDate begin, final LocalDate end, final Consumer<MiscellaneousView> consumer) {
+		try (Stream<MiscellaneousView> miscellanea = miscellaneousRepo.streamViews(
+			Objects.isNull(begin) ? null : begin.atStartOfDay(),
+			Objects.isNull(end) ? null : end.plusDays(1).atStartOfDay())) {
+			miscellanea.forEach(consumer);
+		}
+	}
+
 	/**
 	 * 自訂區段查詢的雜物清單
 	 *
@@ -93,39 +139,76 @@ public class MiscellaneousService {
             miscellaneousRepo
                 .findAll(
                     (root, criteriaQuery, criteriaBuilder) -> {
-                        Collection<Predicate> predicates = new ArrayList<>();
-
-                        if (Objects.nonNull(begin) && Objects.nonNull(end)){
-                            predicates.add(
-                                criteriaBuilder.between(
-									root.get(Miscellaneous_.recordDate),begin,end)
-                            );
-                        }else {
-							if (Objects.nonNull(begin)){
-								criteriaBuilder.greaterThanOrEqualTo(
-									root.get(Miscellaneous_.recordDate),begin
-								);
-							}
-	                        if (Objects.nonNull(end)){
-		                        criteriaBuilder.greaterThanOrEqualTo(
-			                        root.get(Miscellaneous_.recordDate),end
-		                        );
-	                        }
-                        }
                         criteriaQuery.orderBy(
                             criteriaBuilder.desc(root.get(Miscellaneous_.recordDate)),
                             criteriaBuilder.asc(root.get(Miscellaneous_.amount)),
                             criteriaBuilder.desc(root.get(Miscellaneous_.name))
                         );
-	                    return criteriaBuilder.and(
-		                    predicates.toArray(new Predicate[0])
-	                    );
+                        return recordDateBetween(begin, end).toPredicate(root, criteriaQuery, criteriaBuilder);
                     },
                     PageRequest.of(p, s)
                 )
         );
     }
 
+	/**
+	 * 游標分頁，依紀錄時間、主鍵往後查詢，不查詢總筆數
+	 *
+	 * @param position 查詢位置
+	 * @param s 一頁幾筆
+	 * @param begin 起始時間
+	 * @param end 結束時間
+	 * @return 自訂區段查詢的雜物清單
+	 */
+    @Async
+    @Transactional(readOnly = true)
+    public CompletableFuture<Window<Miscellaneous>> load(
+        final ScrollPosition position
+        ,final int s
+        ,final LocalDateTime begin
+        ,final LocalDateTime end) {
+        return CompletableFuture.completedFuture(
+            miscellaneousRepo
+                .findBy(
+                    recordDateBetween(begin, end),
+                    query -> query
+                        .sortBy(Sort.by(
+                            Sort.Order.desc(Miscellaneous_.RECORD_DATE),
+                            Sort.Order.asc(Miscellaneous_.ID)
+                        ))
+                        .limit(s)
+                        .scroll(position)
+                )
+        );
+    }
+
+	/**
+	 * @param begin 起始時間 (可為空)
+	 * @param end 結束時間 (可為空)
+	 * @return 紀錄時間介於區間的條件
+	 */
+    private static Specification<Miscellaneous> recordDateBetween(
+        final LocalDateTime begin
+        ,final LocalDateTime end) {
+        return (root, criteriaQuery, criteriaBuilder) -> {
+            Collection<Predicate> predicates = new ArrayList<>();
+
+            if (Objects.nonNull(begin)){
+                predicates.add(
+                    criteriaBuilder.greaterThanOrEqualTo(root.get(Miscellaneous_.recordDate),begin)
+                );
+            }
+            if (Objects.nonNull(end)){
+                predicates.add(
+                    criteriaBuilder.lessThanOrEqualTo(root.get(Miscellaneous_.recordDate),end)
+                );
+            }
+            return criteriaBuilder.and(
+                predicates.toArray(new Predicate[0])
+            );
+        };
+    }
+
     /**
      * 查詢日期內的雜物清單
      * 小於某日的
@@ -198,14 +281,48 @@ public class MiscellaneousService {
 
 	/**
 	 * 總計區間內的雜物金額
-	 * @param begin 起始時間
-	 * @param end   結束時間
+	 * <p>
+	 * 整天讀取每日彙總、頭尾不足一天的整點讀取每小時彙總，只有頭尾不足一小時的部分讀取原始資料，
+	 * 讀取筆數與區間內的天數有關而與雜物筆數無關。彙總隨雜物異動在同一交易中累加，於同一唯讀交易中讀取。
+	 * </p>
+	 *
+	 * @param begin 起始時間(含)
+	 * @param end   結束時間(含)
 	 * @return      雜物總金額
 	 */
 	@Async
+	@Transactional(readOnly = true)
 	public CompletableFuture<BigDecimal> sumAmountBetweenRecordDate(final LocalDateTime begin,final LocalDateTime end) {
-		return CompletableFuture.supplyAsync(
-			() -> miscellaneousRepo.sumAmountBetweenDates(begin, end));
+		// 起始時間之後的第一個整點、結束時間所在的整點
+		final LocalDateTime firstHour = begin.truncatedTo(ChronoUnit.HOURS).equals(begin)
+			? begin
+			: begin.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+		final LocalDateTime lastHour = end.truncatedTo(ChronoUnit.HOURS);
+		if (!firstHour.isBefore(lastHour)) {
+			return CompletableFuture.completedFuture(miscellaneousRepo.sumAmountBetweenDates(begin, end));
+		}
+
+		// 頭尾不足一小時：原始資料
+		BigDecimal amount = miscellaneousRepo.sumAmountInRange(begin, firstHour)
+			.add(miscellaneousRepo.sumAmountBetweenDates(lastHour, end));
+
+		// 整點之間的第一個、最後一個午夜
+		final LocalDateTime firstDay = firstHour.truncatedTo(ChronoUnit.DAYS).equals(firstHour)
+			? firstHour
+			: firstHour.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+		final LocalDateTime lastDay = lastHour.truncatedTo(ChronoUnit.DAYS);
+		if (!firstDay.isBefore(lastDay)) {
+			return CompletableFuture.completedFuture(
+				amount.add(miscellaneousHourlyRollupRepository.sumAmount(firstHour, lastHour)));
+		}
+
+		// 頭尾不足一天：每小時彙總；整天：每日彙總
+		amount = amount
+			.add(miscellaneousHourlyRollupRepository.sumAmount(firstHour, firstDay))
+			.add(miscellaneousHourlyRollupRepository.sumAmount(lastDay, lastHour))
+			.add(dailyRollupRepository.sumMiscellaneousExpense(
+				firstDay.toLocalDate(), lastDay.toLocalDate().minusDays(1)));
+		return CompletableFuture.completedFuture(amount);
 	}
 
 	/**
@@ -223,7 +340,7 @@ public class MiscellaneousService {
 		, final BigDecimal amount) {
 		Miscellaneous miscellaneous;
 		try {
-			miscellaneous = this.load(id).get();
+			miscellaneous = self.load(id).get();
 		} catch (InterruptedException | ExecutionException exception) {
 			throw new CustomException(String.format("讀取雜物「%s」時拋出線程中斷異常：%s❗", id,
 				exception.getLocalizedMessage()));
@@ -237,7 +354,7 @@ public class MiscellaneousService {
 		}
 
 		try {
-			return this.save(miscellaneous).get();
+			return self.save(miscellaneous).get();
 		} catch (InterruptedException | ExecutionException exception) {
 			throw new CustomException(
 				String.format("編輯雜物清單時拋出線程中斷異常：%s❗", exception.getLocalizedMessage())
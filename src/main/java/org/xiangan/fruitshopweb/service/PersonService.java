@@ -1 +1 @@
-package org.xiangan.fruitshopweb.service;import lombok.RequiredArgsConstructor;import lombok.extern.slf4j.Slf4j;import org.springframework.dao.DuplicateKeyException;import org.springframework.data.domain.Page;import org.springframework.data.domain.PageRequest;import org.springframework.scheduling.annotation.Async;import org.springframework.security.core.userdetails.UserDetails;import org.springframework.security.core.userdetails.UserDetailsService;import org.springframework.security.core.userdetails.UsernameNotFoundException;import org.springframework.stereotype.Service;import org.springframework.transaction.annotation.Transactional;import org.xiangan.fruitshopweb.entity.Person;import org.xiangan.fruitshopweb.entity.Person_;import org.xiangan.fruitshopweb.enumType.LevelEnum;import org.xiangan.fruitshopweb.exception.CustomException;import org.xiangan.fruitshopweb.repository.PersonRepository;import java.util.Objects;import java.util.Optional;import java.util.concurrent.CompletableFuture;import java.util.concurrent.ExecutionException;/** * (服務層) 人員 * * @author kyle */@RequiredArgsConstructor@Service@Slf4jpublic class PersonService implements UserDetailsService {	/**	 * (數據存取層)人員	 */	private final PersonRepository personRepository;	/**	 * @param entity 人員	 * @return 是否刪除成功	 */	@Async	@Transactional	public CompletableFuture<Boolean> delete(final Person entity) {		try {			personRepository.delete(entity);		} catch (Exception exception) {			throw new RuntimeException(				String.format(					"刪除人員「%s%s」時拋出異常：%s❗️",					entity.getNickName(),					entity.getName(),					exception.getLocalizedMessage()				),				exception			);		}		return CompletableFuture.completedFuture(true);	}	/**	 * @param phoneNumber 連絡電話	 * @param company 公司行號/統編	 * @return 是否有符合連絡電話、公司行號/統編的人員	 */	@Async	@Transactional(readOnly = true)	public CompletableFuture<Boolean> exist(		final String phoneNumber,		final String company	) {		return CompletableFuture.completedFuture(			personRepository				.exists(					(root, criteriaQuery, criteriaBuilder) ->						criteriaBuilder.and(							criteriaBuilder.equal(root.get(Person_.phoneNumber), phoneNumber),							criteriaBuilder.equal(root.get(Person_.company), company)						)				)		);	}	/**	 * @param email 信箱	 * @param phoneNumber 連絡電話	 * @param company 公司行號/統編	 * @return 是否有符合 信箱、連絡電話、公司行號/統編的人員	 */	@Async	@Transactional(readOnly = true)	public CompletableFuture<Boolean> existEmail(		final String email,		final String phoneNumber,		final String company	) {		return CompletableFuture.completedFuture(			personRepository				.exists(					(root, criteriaQuery, criteriaBuilder) ->						criteriaBuilder.and(							criteriaBuilder.equal(root.get(Person_.email), email),							criteriaBuilder.equal(root.get(Person_.phoneNumber), phoneNumber),							criteriaBuilder.equal(root.get(Person_.company), company)						)				)		);	}	/**	 * @param id 主鍵	 * @return 身分是否為一般員工的人員	 */	@Async	@Transactional(readOnly = true)	public CompletableFuture<Boolean> exist(final String id) {		return CompletableFuture.completedFuture(			personRepository				.exists(					(root, criteriaQuery, criteriaBuilder) ->						criteriaBuilder.and(							criteriaBuilder.equal(root.get(Person_.level), LevelEnum.EMPLOYEE),							criteriaBuilder.equal(root.get(Person_.id),id)						)				)		);	}	/**	 * @param id 主鍵	 * @param phoneNumber 連絡電話	 * @param company 公司行號/統編	 * @return 是否有符合連絡主鍵、電話、公司行號/統編的人員	 */	@Async	@Transactional(readOnly = true)	public CompletableFuture<Boolean> exist(		final String id,		final String phoneNumber,		final String company	) {		return CompletableFuture.completedFuture(			personRepository				.exists(					(root, criteriaQuery, criteriaBuilder) ->						criteriaBuilder.and(							criteriaBuilder.not(								criteriaBuilder.equal(root.get(Person_.id), id)							),							criteriaBuilder.equal(root.get(Person_.phoneNumber), phoneNumber),							criteriaBuilder.equal(root.get(Person_.company), company)						)				)		);	}	/**	 * @param id 主鍵	 * @return 人員	 */	@Async	@Transactional(readOnly = true)	public CompletableFuture<Person> load(final String id) {		return CompletableFuture.completedFuture(				personRepository						.findOne(								(root, criteriaQuery, criteriaBuilder) ->										criteriaBuilder.equal(root.get(Person_.id), id)						).orElseThrow(								() -> new CustomException(									String.format("無主鍵為「%s」的人員❗️", id))						));	}	/**	 * @param p 頁數	 * @param s 一頁幾筆	 * @return 可分頁的人員們	 */	@Async	@Transactional(readOnly = true)	public CompletableFuture<Page<Person>> load(final int p, final int s) {		return CompletableFuture.completedFuture(			personRepository				.findAll(					(root, criteriaQuery, criteriaBuilder) -> {						criteriaQuery.orderBy(							criteriaBuilder.asc(root.get(Person_.NICK_NAME)),							criteriaBuilder.asc(root.get(Person_.NAME)),							criteriaBuilder.asc(root.get(Person_.id))						);						return criteriaBuilder.conjunction();					},					PageRequest.of(p, s)				)		);	}	/**	 * @param entity 人員	 * @return 持久化人員	 */	@Async	@Transactional	public CompletableFuture<Person> save(final Person entity) {		final String id = entity.getId();		final String company = entity.getCompany();		final String phoneNumber = entity.getPhoneNumber();		try {			if (Objects.isNull(id)) {				if (exist(phoneNumber, company).get()) {					throw new DuplicateKeyException(						String.format(							"已有重複的人員電話：%s❗️",							phoneNumber						)					);				}			} else {				if (exist(id,phoneNumber,company).get()) {					throw new DuplicateKeyException(						String.format(							"已有重複的人員電話：%s❗️",							phoneNumber						)					);				}			}		} catch (InterruptedException | ExecutionException exception) {			throw new RuntimeException(				String.format(					"讀取是否有重複的人員時發生線程中斷異常：%s❗️",					exception.getLocalizedMessage()				),				exception			);		}		try {			return CompletableFuture.completedFuture(				personRepository.saveAndFlush(entity)			);		} catch (Exception exception) {			throw new RuntimeException(				String.format(					"持久化人員時拋出線程中斷異常：%s❗️",					exception.getLocalizedMessage()				),				exception			);		}	}    /**     * 編輯     *     * @param id          人員主鍵     * @param nickName    暱稱/稱呼     * @param name        名字     * @param level       身分等級     * @param email       信箱     * @param password    密碼     * @param phoneNumber 連絡電話     * @param company 公司行號/統編     * @return 人員     */	@Transactional	public Person update(			final String id			, final String nickName			, final String name			, final LevelEnum level			, final String email			, final String password			, final String phoneNumber			, final String company) {		Person person;		try {			person = this.load(id).get();		} catch (InterruptedException | ExecutionException exception) {			throw new CustomException(					String.format("讀取人員「%s」時拋出線程中斷異常：%s❗", id, exception.getLocalizedMessage()));		}		if (Optional.ofNullable(nickName).isPresent()) {			person.setNickName(nickName.trim());		}		if (Optional.ofNullable(name).filter(s -> !s.isBlank()).isPresent()) {			person.setName(name.trim());		}		if (Optional.ofNullable(level).isPresent()) {			person.setLevel(level);		}		if (Optional.ofNullable(email).filter(s -> !s.isBlank()).isPresent()) {			person.setEmail(email.trim());		}		if (Optional.ofNullable(password).filter(s -> !s.isBlank()).isPresent()) {			person.setPassword(password.trim());		}		if (Optional.ofNullable(phoneNumber).filter(s -> !s.isBlank()).isPresent()) {			person.setPhoneNumber(phoneNumber.trim());		}		if (Optional.ofNullable(company).filter(s -> !s.isBlank()).isPresent()) {			person.setCompany(company.trim());		}		try {			return this.save(person).get();		} catch (Exception exception) {			throw new CustomException(					String.format("編輯人員「%s」時拋出線程中斷異常：%s❗", id, exception.getLocalizedMessage()));		}	}	@Override	public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {		return personRepository.findByEmail(email)			.orElseThrow(				() -> new UsernameNotFoundException(String.format("user with email %s not found", email))			);	}}
\ No newline at end of file
+package org.xiangan.fruitshopweb.service;import lombok.RequiredArgsConstructor;import lombok.extern.slf4j.Slf4j;import org.springframework.beans.factory.annotation.Autowired;import org.springframework.context.annotation.Lazy;import org.springframework.dao.DataIntegrityViolationException;import org.springframework.dao.DuplicateKeyException;import org.springframework.data.domain.Page;import org.springframework.data.domain.PageRequest;import org.springframework.data.domain.ScrollPosition;import org.springframework.data.domain.Sort;import org.springframework.data.domain.Window;import org.springframework.scheduling.annotation.Async;import org.springframework.security.core.userdetails.UserDetails;import org.springframework.security.core.userdetails.UserDetailsService;import org.springframework.security.core.userdetails.UsernameNotFoundException;import org.springframework.stereotype.Service;import org.springframework.transaction.annotation.Transactional;import org.xiangan.fruitshopweb.entity.Person;import org.xiangan.fruitshopweb.entity.Person_;import org.xiangan.fruitshopweb.enumType.LevelEnum;import org.xiangan.fruitshopweb.exception.ConstraintViolations;import org.xiangan.fruitshopweb.exception.CustomException;import org.xiangan.fruitshopweb.repository.PersonRepository;import java.util.Optional;import java.util.concurrent.CompletableFuture;import java.util.concurrent.ExecutionException;/** * (服務層) 人員 * * @author kyle */@RequiredArgsConstructor@Service@Slf4jpublic class PersonService implements UserDetailsService {	/**	 * (數據存取層)人員	 */	private final PersonRepository personRepository;	/**	 * (服務層) 已驗證使用者快取	 */	private final PrincipalCacheService principalCacheService;	/**	 * (服務層) 產品目錄快取	 */	private final ProductCatalogService productCatalogService;	/**	 * (服務層) 資料表異動版本	 */	private final ChangeVersionService changeVersionService;	/**	 * (服務層) 密碼驗證	 */	private final CredentialService credentialService;	/**	 * (服務層) 人員，經由代理呼叫以套用 @Async 與 @Transactional	 */	@Autowired	@Lazy	private PersonService self;	/**	 * @param entity 人員	 * @return 是否刪除成功	 */	@Async	@Transactional	public CompletableFuture<Boolean> delete(final Person entity) {		try {			personRepository.delete(entity);		} catch (Exception exception) {			throw new RuntimeException(				String.format(					"刪除人員「%s%s」時拋出異常：%s❗️",					entity.getNickName(),					entity.getName(),					exception.getLocalizedMessage()				),				exception			);		}		principalCacheService.evict(entity.getEmail());		// 產品內含貨主資料 (刪除時資料庫將貨主設為空值)		productCatalogService.evictAll();		changeVersionService.bump(ChangeVersionService.Table.PERSON);		return CompletableFuture.completedFuture(true);	}	/**	 * @param email 信箱	 * @param phoneNumber 連絡電話	 * @param company 公司行號/統編	 * @return 是否有符合 信箱、連絡電話、公司行號/統編的人員	 */	@Async	@Transactional(readOnly = true)	public CompletableFuture<Boolean> existEmail(		final String email,		final String phoneNumber,		final String company	) {		return CompletableFuture.completedFuture(			personRepository				.exists(					(root, criteriaQuery, criteriaBuilder) ->						criteriaBuilder.and(							criteriaBuilder.equal(root.get(Person_.email), email),							criteriaBuilder.equal(root.get(Person_.phoneNumber), phoneNumber),							criteriaBuilder.equal(root.get(Person_.company), company)						)				)		);	}	/**	 * @param id 主鍵	 * @return 身分是否為一般員工的人員	 */	@Async	@Transactional(readOnly = true)	public CompletableFuture<Boolean> exist(final String id) {		return CompletableFuture.completedFuture(			personRepository				.exists(					(root, criteriaQuery, criteriaBuilder) ->						criteriaBuilder.and(							criteriaBuilder.equal(root.get(Person_.level), LevelEnum.EMPLOYEE),							criteriaBuilder.equal(root.get(Person_.id),id)						)				)		);	}	/**	 * @param id 主鍵	 * @return 人員	 */	@Async	@Transactional(readOnly = true)	public CompletableFuture<Person> load(final String id) {		return CompletableFuture.completedFuture(				personRepository						.findOne(								(root, criteriaQuery, criteriaBuilder) ->										criteriaBuilder.equal(root.get(Person_.id), id)						).orElseThrow(								() -> new CustomException(									String.format("無主鍵為「%s」的人員❗️", id))						));	}	/**	 * @param p 頁數	 * @param s 一頁幾筆	 * @return 可分頁的人員們	 */	@Async	@Transactional(readOnly = true)	public CompletableFuture<Page<Person>> load(final int p, final int s) {		return CompletableFuture.completedFuture(			personRepository				.findAll(					(root, criteriaQuery, criteriaBuilder) -> {						criteriaQuery.orderBy(							criteriaBuilder.asc(root.get(Person_.NICK_NAME)),							criteriaBuilder.asc(root.get(Person_.NAME)),							criteriaBuilder.asc(root.get(Person_.id))						);						return criteriaBuilder.conjunction();					},					PageRequest.of(p, s)				)		);	}	/**	 * 游標分頁，依名字、主鍵（暱稱可為空值，不適合作為游標）往後查詢，不查詢總筆數	 *	 * @param position 查詢位置	 * @param s 一頁幾筆	 * @return 人員們	 */	@Async	@Transactional(readOnly = true)	public CompletableFuture<Window<Person>> load(final ScrollPosition position, final int s) {		return CompletableFuture.completedFuture(			personRepository				.findBy(					(root, criteriaQuery, criteriaBuilder) -> criteriaBuilder.conjunction(),					query -> query						.sortBy(Sort.by(							Sort.Order.asc(Person_.NAME),							Sort.Order.asc(Person_.ID)						))						.limit(s)						.scroll(position)				)		);	}	/**	 * 重複的連絡電話、公司行號由唯一約束把關，不另外查詢	 *	 * @param entity 人員	 * @return 持久化人員	 */	@Async	@Transactional	public CompletableFuture<Person> save(final Person entity) {		final Person person;		try {			person = personRepository.saveAndFlush(entity);		} catch (DataIntegrityViolationException exception) {			if (ConstraintViolations.violates(exception, Person.UNIQUE_NUMBER_COMPANY)) {				throw new DuplicateKeyException(					String.format(						"已有重複的人員電話：%s❗️",						entity.getPhoneNumber()					),					exception				);			}			throw new RuntimeException(				String.format(					"持久化人員時拋出線程中斷異常：%s❗️",					exception.getLocalizedMessage()				),				exception			);		} catch (Exception exception) {			throw new RuntimeException(				String.format(					"持久化人員時拋出線程中斷異常：%s❗️",					exception.getLocalizedMessage()				),				exception			);		}		changeVersionService.bump(ChangeVersionService.Table.PERSON);		return CompletableFuture.completedFuture(person);	}    /**     * 編輯     *     * @param id          人員主鍵     * @param nickName    暱稱/稱呼     * @param name        名字     * @param level       身分等級     * @param email       信箱     * @param password    密碼     * @param phoneNumber 連絡電話     * @param company 公司行號/統編     * @return 人員     */	@Transactional	public Person update(			final String id			, final String nickName			, final String name			, final LevelEnum level			, final String email			, final String password			, final String phoneNumber			, final String company) {		Person person;		try {			person = self.load(id).get();		} catch (InterruptedException | ExecutionException exception) {			throw new CustomException(					String.format("讀取人員「%s」時拋出線程中斷異常：%s❗", id, exception.getLocalizedMessage()));		}		// 信箱、權限或密碼可能變更，提交後移除舊快取		principalCacheService.evict(person.getEmail(), email);		// 產品內含貨主資料		productCatalogService.evictAll();		if (Optional.ofNullable(nickName).isPresent()) {			person.setNickName(nickName.trim());		}		if (Optional.ofNullable(name).filter(s -> !s.isBlank()).isPresent()) {			person.setName(name.trim());		}		if (Optional.ofNullable(level).isPresent()) {			person.setLevel(level);		}		if (Optional.ofNullable(email).filter(s -> !s.isBlank()).isPresent()) {			person.setEmail(email.trim());		}		if (Optional.ofNullable(password).filter(s -> !s.isBlank()).isPresent()) {			person.setPassword(credentialService.encode(password.trim()));		}		if (Optional.ofNullable(phoneNumber).filter(s -> !s.isBlank()).isPresent()) {			person.setPhoneNumber(phoneNumber.trim());		}		if (Optional.ofNullable(company).filter(s -> !s.isBlank()).isPresent()) {			person.setCompany(company.trim());		}		try {			return self.save(person).get();		} catch (Exception exception) {			throw new CustomException(					String.format("編輯人員「%s」時拋出線程中斷異常：%s❗", id, exception.getLocalizedMessage()));		}	}	@Override	public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {		return personRepository.findByEmail(email)			.orElseThrow(				() -> new UsernameNotFoundException(String.format("user with email %s not found", email))			);	}}
\ No newline at end of file
@@ -0,0 +1,132 @@
+package org.xiangan.fruitshopweb.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.xiangan.fruitshopweb.entity.Person;
+import org.xiangan.fruitshopweb.repository.PersonRepository;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * (服務層) 已驗證使用者快取
+ * <p>
+ * JWT 驗證過濾器每個請求都需要使用者的權限資訊，原本每次都以 Email 查詢資料庫。
+ * 此快取以 Email (Token 的 subject) 為鍵，保存不含密碼的唯讀使用者快照，
+ * 依筆數上限與存活時間淘汰；人員被編輯或刪除時於交易提交後移除對應項目。
+ * </p>
+ *
+ * @author kyle
+ */
+@Service
+@Slf4j
+public class PrincipalCacheService implements MeterBinder {
+
+	/**
+	 * (數據存取層)人員
+	 */
+	private final PersonRepository personRepository;
+
+	/**
+	 * Email 與使用者快照
+	 */
+	private final Cache<String, UserDetails> principals;
+
+	/**
+	 * @param personRepository (數據存取層)人員
+	 * @param ttl 快取存活時間
+	 * @param maximumSize 快取筆數上限
+	 */
+	public PrincipalCacheService(
+		final PersonRepository personRepository,
+		@Value("${jwt.principal-cache.ttl:PT5M}") final Duration ttl,
+		@Value("${jwt.principal-cache.maximum-size:10000}") final long maximumSize) {
+		this.personRepository = personRepository;
+		this.principals = Caffeine.newBuilder()
+			.expireAfterWrite(ttl)
+			.maximumSize(maximumSize)
+			.recordStats()
+			.build();
+	}
+
+	/**
+	 * 讀取使用者，未命中快取時查詢資料庫
+	 *
+	 * @param email 信箱
+	 * @return 使用者快照
+	 * @throws UsernameNotFoundException 查無此信箱的人員
+	 */
+	public UserDetails load(final String email) throws UsernameNotFoundException {
+		return principals.get(email, this::fetch);
+	}
+
+	/**
+	 * 移除快取；若在交易中則待交易提交後才移除，避免並行請求在提交前讀回舊資料
+	 *
+	 * @param emails 信箱
+	 */
+	public void evict(final String... emails) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					invalidate(emails);
+				}
+			});
+		} else {
+			invalidate(emails);
+		}
+	}
+
+	/**
+	 * 快取命中率、淘汰數與筆數 ({@code cache.*} 指標)
+	 *
+	 * @param registry 指標登錄
+	 */
+	@Override
+	public void bindTo(final MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, principals, "principals");
+	}
+
+	/**
+	 * @param emails 信箱
+	 */
+	private void invalidate(final String... emails) {
+		Arrays.stream(emails)
+			.filter(Objects::nonNull)
+			.forEach(principals::invalidate);
+	}
+
+	/**
+	 * @param email 信箱
+	 * @return 不含密碼的使用者快照
+	 */
+	private UserDetails fetch(final String email) {
+		Person person = personRepository.findByEmail(email)
+			.orElseThrow(
+				() -> new UsernameNotFoundException(String.format("user with email %s not found", email))
+			);
+		log.debug("快取已驗證使用者：{}", email);
+
+		return User.withUsername(person.getUsername())
+			.password("")
+			.authorities(person.getAuthorities())
+			.accountExpired(!person.isAccountNonExpired())
+			.accountLocked(!person.isAccountNonLocked())
+			.credentialsExpired(!person.isCredentialsNonExpired())
+			.disabled(!person.isEnabled())
+			.build();
+	}
+}
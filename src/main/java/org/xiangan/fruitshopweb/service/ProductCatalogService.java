@@ -0,0 +1,197 @@
+package org.xiangan.fruitshopweb.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.xiangan.fruitshopweb.configuration.ReadYourWrites;
+import org.xiangan.fruitshopweb.entity.Product;
+import org.xiangan.fruitshopweb.model.CacheStatistics;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * (服務層) 產品目錄快取
+ * <p>
+ * 收銀畫面會頻繁重新整理產品清單，此快取保存排序後的產品清單 (分頁由清單切割) 與單一產品，
+ * 依筆數上限與存活時間淘汰；同一鍵同時未命中時只查詢一次資料庫。
+ * 產品編輯、刪除與庫存異動於交易提交後移除對應產品與所有清單，並遞增產品的異動版本 (ETag)。
+ * 未命中時一律以主庫讀取：提交後的重新載入若讀到落後的副本，舊資料會以新版本快取至存活時間結束。
+ * </p>
+ * <p>
+ * 快取內的產品僅供回應讀取，請勿修改；需要修改產品時請經由 {@link ProductService} 重新讀取。
+ * </p>
+ *
+ * @author kyle
+ */
+@Service
+@Slf4j
+public class ProductCatalogService implements MeterBinder {
+
+	/**
+	 * (服務層) 產品
+	 */
+	private final ProductService productService;
+
+	/**
+	 * (服務層) 資料表異動版本
+	 */
+	private final ChangeVersionService changeVersionService;
+
+	/**
+	 * 是否找全部的產品與排序後的產品清單
+	 */
+	private final AsyncCache<Boolean, List<Product>> lists;
+
+	/**
+	 * 產品主鍵與產品
+	 */
+	private final AsyncCache<String, Product> products;
+
+	/**
+	 * @param productService (服務層) 產品
+	 * @param changeVersionService (服務層) 資料表異動版本
+	 * @param ttl 快取存活時間
+	 * @param maximumSize 單一產品快取筆數上限
+	 */
+	public ProductCatalogService(
+		@Lazy final ProductService productService,
+		final ChangeVersionService changeVersionService,
+		@Value("${product.catalog-cache.ttl:PT1M}") final Duration ttl,
+		@Value("${product.catalog-cache.maximum-size:10000}") final long maximumSize) {
+		this.productService = productService;
+		this.changeVersionService = changeVersionService;
+		this.lists = Caffeine.newBuilder()
+			.expireAfterWrite(ttl)
+			.maximumSize(2)
+			.recordStats()
+			.buildAsync();
+		this.products = Caffeine.newBuilder()
+			.expireAfterWrite(ttl)
+			.maximumSize(maximumSize)
+			.recordStats()
+			.buildAsync();
+	}
+
+	/**
+	 * @param isAll 是否找全部的產品
+	 * @return 產品們 (唯讀)
+	 */
+	public CompletableFuture<List<Product>> load(final boolean isAll) {
+		return lists.get(isAll, (key, executor) ->
+			ReadYourWrites.primary(() -> productService.load(key)).thenApply(List::copyOf));
+	}
+
+	/**
+	 * 由快取的產品清單切割分頁，排序與 {@link ProductService#load(int, int, Boolean)} 相同
+	 *
+	 * @param p 頁數
+	 * @param s 一頁幾筆
+	 * @param isAll 是否找全部的產品
+	 * @return 可分頁的產品
+	 */
+	public CompletableFuture<Page<Product>> load(final int p, final int s, final boolean isAll) {
+		return load(isAll).thenApply(list -> {
+			final PageRequest pageRequest = PageRequest.of(p, s);
+			final int from = (int) Math.min(pageRequest.getOffset(), list.size());
+			final int to = Math.min(from + s, list.size());
+			return new PageImpl<>(list.subList(from, to), pageRequest, list.size());
+		});
+	}
+
+	/**
+	 * @param id 主鍵
+	 * @return 產品；查無此產品時不快取
+	 */
+	public CompletableFuture<Product> load(final String id) {
+		return products.get(id, (key, executor) -> ReadYourWrites.primary(() -> productService.load(key)));
+	}
+
+	/**
+	 * 移除產品與所有產品清單；若在交易中則待交易提交後才移除，避免並行請求在提交前讀回舊資料
+	 *
+	 * @param ids 產品主鍵
+	 */
+	public void evict(final String... ids) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					invalidate(ids);
+				}
+			});
+		} else {
+			invalidate(ids);
+		}
+	}
+
+	/**
+	 * 移除全部快取 (例如貨主資料變更)；若在交易中則待交易提交後才移除
+	 */
+	public void evictAll() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					invalidateAll();
+				}
+			});
+		} else {
+			invalidateAll();
+		}
+	}
+
+	/**
+	 * @return 產品清單與單一產品的快取統計
+	 */
+	public List<CacheStatistics> statistics() {
+		return List.of(
+			new CacheStatistics("productLists", lists.synchronous().estimatedSize(), lists.synchronous().stats()),
+			new CacheStatistics("products", products.synchronous().estimatedSize(), products.synchronous().stats())
+		);
+	}
+
+	/**
+	 * 快取命中率、淘汰數與筆數 ({@code cache.*} 指標)
+	 *
+	 * @param registry 指標登錄
+	 */
+	@Override
+	public void bindTo(final MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, lists.synchronous(), "productLists");
+		CaffeineCacheMetrics.monitor(registry, products.synchronous(), "products");
+	}
+
+	/**
+	 * @param ids 產品主鍵
+	 */
+	private void invalidate(final String... ids) {
+		Arrays.stream(ids)
+			.filter(Objects::nonNull)
+			.forEach(products.synchronous()::invalidate);
+		lists.synchronous().invalidateAll();
+		changeVersionService.bump(ChangeVersionService.Table.PRODUCT);
+		log.debug("移除產品快取：{}", Arrays.toString(ids));
+	}
+
+	private void invalidateAll() {
+		products.synchronous().invalidateAll();
+		lists.synchronous().invalidateAll();
+		changeVersionService.bump(ChangeVersionService.Table.PRODUCT);
+		log.debug("移除全部產品快取");
+	}
+}
@@ -3,8 +3,16 @@ package org.xiangan.fruitshopweb.service;
 import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -13,11 +21,13 @@ import org.xiangan.fruitshopweb.entity.Product;
 import org.xiangan.fruitshopweb.entity.Product_;
 import org.xiangan.fruitshopweb.enumType.ProductTypeEnum;
 import org.xiangan.fruitshopweb.enumType.UnitTypeEnum;
+import org.xiangan.fruitshopweb.exception.ConstraintViolations;
 import org.xiangan.fruitshopweb.exception.CustomException;
 import org.xiangan.fruitshopweb.repository.ProductRepository;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
@@ -43,8 +53,21 @@ public class ProductService {
 	 */
 	private final PersonService personService;
 
+	/**
+	 * (服務層) 產品目錄快取
+	 */
+	private final ProductCatalogService productCatalogService;
+
+	/**
+	 * (服務層) 產品，經由代理呼叫以套用 @Async 與 @Transactional
+	 */
+	@Autowired
+	@Lazy
+	private ProductService self;
+
 	/**
 	 * 建立
+	 * <p>不在交易中執行，貨主的讀取與身分檢查才會在各自的執行緒並行 (見 {@link #owner(String)})。</p>
 	 *
 	 * @param productName 產品名稱
 	 * @param unitPrice 產品單價
@@ -54,7 +77,6 @@ public class ProductService {
 	 * @param inventory 庫存
 	 * @return 產品
 	 */
-	@Transactional
 	public Product create(
 		final String productName,
 		final BigDecimal unitPrice,
@@ -78,24 +100,14 @@ public class ProductService {
 			product.setUnitType(unitType);
 		}
 		if (Objects.nonNull(personId) && !personId.isBlank()) {
-			try {
-				Person person = personService.load(personId).get();
-				if (personService.exist(personId).get()){
-					throw new CustomException("一般職員無權限建立或編輯產品");
-				}else {
-					product.setPerson(person);
-				}
-			} catch (InterruptedException | ExecutionException exception) {
-				throw new CustomException(
-					String.format("讀取人員「%s」時拋出線程中斷異常：%s❗", personId, exception.getLocalizedMessage()));
-			}
+			product.setPerson(owner(personId));
 		}
 		if (Objects.nonNull(inventory)) {
 			product.setInventory(inventory);
 		}
 
 		try {
-			return this.save(product).get();
+			return self.save(product).get();
 		} catch (Exception exception) {
 			throw new CustomException(
 				String.format("編輯產品「%s」時拋出線程中斷異常：%s❗", product.getProductName(), exception.getLocalizedMessage()));
@@ -110,62 +122,10 @@ public class ProductService {
 	@Transactional
 	public CompletableFuture<Boolean> delete(final Product entity) {
 		productRepository.delete(entity);
+		productCatalogService.evict(entity.getId());
 		return CompletableFuture.completedFuture(true);
 	}
 	
-	/**
-	 * @param productName 產品名稱
-	 * @param unitPrice   成本單價
-	 * @return 是否符合產品名稱、成本單價的產品
-	 */
-	@Async
-	@Transactional(readOnly = true)
-	public CompletableFuture<Boolean> exist(
-		final String productName,
-		final BigDecimal unitPrice
-	) {
-		return CompletableFuture.completedFuture(
-			productRepository
-				.exists(
-					(root, criteriaQuery, criteriaBuilder) ->
-						criteriaBuilder.and(
-							criteriaBuilder.equal(root.get(Product_.productName), productName),
-							criteriaBuilder.equal(root.get(Product_.unitPrice), unitPrice)
-						)
-				)
-		);
-		
-	}
-	
-	/**
-	 * @param id          主鍵
-	 * @param productName 產品名稱
-	 * @param unitPrice   成本單價
-	 * @return 是否符合主鍵、產品名稱、成本單價的產品
-	 */
-	@Async
-	@Transactional(readOnly = true)
-	public CompletableFuture<Boolean> exist(
-		final String id,
-		final String productName,
-		final BigDecimal unitPrice
-	) {
-		return CompletableFuture.completedFuture(
-			productRepository
-				.exists(
-					(root, criteriaQuery, criteriaBuilder) ->
-						criteriaBuilder.and(
-							criteriaBuilder.not(
-								criteriaBuilder.equal(root.get(Product_.id), id)
-							),
-							criteriaBuilder.equal(root.get(Product_.productName), productName),
-							criteriaBuilder.equal(root.get(Product_.unitPrice), unitPrice)
-						)
-				)
-		);
-		
-	}
-	
 	/**
 	 * @param p 頁數
 	 * @param s 一 頁幾筆
@@ -181,12 +141,12 @@ public class ProductService {
 					(root, criteriaQuery, criteriaBuilder) -> {
 					List<Predicate> predicates = new ArrayList<>();
 						if (isAll){
-							predicates.add(criteriaBuilder.greaterThan(root.get(Product_.INVENTORY),0));
+							predicates.add(criteriaBuilder.greaterThan(root.get(Product_.STOCK), 0L));
 						}
 						criteriaQuery.orderBy(
 							criteriaBuilder.asc(root.get(Product_.productName)),
 							criteriaBuilder.asc(root.get(Product_.unitPrice)),
-							criteriaBuilder.asc(root.get(Product_.inventory))
+							criteriaBuilder.asc(root.get(Product_.stock))
 						);
 						return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
 					},
@@ -195,6 +155,36 @@ public class ProductService {
 		);
 	}
 
+	/**
+	 * 游標分頁，依產品名稱、成本單價、主鍵往後查詢，不查詢總筆數
+	 *
+	 * @param position 查詢位置
+	 * @param s 一頁幾筆
+	 * @param isAll 是否找全部的產品
+	 * @return 產品
+	 */
+	@Async
+	@Transactional(readOnly = true)
+	public CompletableFuture<Window<Product>> load(final ScrollPosition position, final int s, Boolean isAll) {
+		return CompletableFuture.completedFuture(
+			productRepository
+				.findBy(
+					(root, criteriaQuery, criteriaBuilder) -> isAll
+						? criteriaBuilder.greaterThan(root.get(Product_.STOCK), 0L)
+						: criteriaBuilder.conjunction(),
+					query -> query
+						.sortBy(Sort.by(
+							Sort.Order.asc(Product_.PRODUCT_NAME),
+							Sort.Order.asc(Product_.UNIT_PRICE),
+							Sort.Order.asc(Product_.ID)
+						))
+						.project(Product_.PERSON)
+						.limit(s)
+						.scroll(position)
+				)
+		);
+	}
+
 	/**
 	 * @param isAll 是否找全部的產品
 	 * @return 產品們
@@ -208,12 +198,12 @@ public class ProductService {
 					(root, criteriaQuery, criteriaBuilder) -> {
 						List<Predicate> predicates = new ArrayList<>();
 						if (isAll){
-							predicates.add(criteriaBuilder.greaterThan(root.get(Product_.INVENTORY),0));
+							predicates.add(criteriaBuilder.greaterThan(root.get(Product_.STOCK), 0L));
 						}
 						criteriaQuery.orderBy(
 							criteriaBuilder.asc(root.get(Product_.productName)),
 							criteriaBuilder.asc(root.get(Product_.unitPrice)),
-							criteriaBuilder.asc(root.get(Product_.inventory))
+							criteriaBuilder.asc(root.get(Product_.stock))
 						);
 						return criteriaBuilder.and(predicates.toArray(new Predicate[0]));
 					}
@@ -242,46 +232,63 @@ public class ProductService {
 	}
 	
 	/**
+	 * 以單一 IN 查詢讀取多個產品 (查無的主鍵不會出現在結果中)
+	 *
+	 * @param ids 主鍵們
+	 * @return 產品們
+	 */
+	@Async
+	@Transactional(readOnly = true)
+	public CompletableFuture<List<Product>> load(final Collection<String> ids) {
+		if (ids.isEmpty()) {
+			return CompletableFuture.completedFuture(List.of());
+		}
+		return CompletableFuture.completedFuture(
+			productRepository
+				.findAll(
+					(root, criteriaQuery, criteriaBuilder) ->
+						root.get(Product_.id).in(ids)
+				)
+		);
+	}
+
+	/**
+	 * 重複的產品名稱、成本單價由唯一約束把關，不另外查詢；違反其他約束時訊息帶出資料庫的原因
+	 *
 	 * @param entity 產品
 	 * @return 持久化產品
 	 */
 	@Async
 	@Transactional
 	public CompletableFuture<Product> save(final Product entity) {
-		final String id = entity.getId();
-		final String productName = entity.getProductName();
-		final BigDecimal unitPrice = entity.getUnitPrice();
-		
+		final Product product;
 		try {
-			if (Objects.nonNull(id)) {
-				if (exist(id, productName, unitPrice).get()) {
-					throw new CustomException(
-						String.format("已有重複的產品名稱：%s❗️", productName)
-					);
-				}
-			} else {
-				if (exist(productName, unitPrice).get()) {
-					throw new CustomException(
-						String.format("已有重複的產品名稱：%s❗️", productName));
-				}
+			product = productRepository.saveAndFlush(entity);
+		} catch (DataIntegrityViolationException exception) {
+			if (ConstraintViolations.violates(exception, Product.UNIQUE_NAME_UNIT_PRICE)) {
+				throw new CustomException(
+					String.format("已有重複的產品名稱：%s❗️", entity.getProductName()));
 			}
-		} catch (InterruptedException | ExecutionException exception) {
+			// 外鍵、非空值等其他約束
 			throw new CustomException(
-				String.format("讀取是否有重複的產品時發生線程中斷異常：%s❗️", exception.getLocalizedMessage()));
-		}
-		
-		try {
-			return CompletableFuture.completedFuture(
-				productRepository.saveAndFlush(entity)
-			);
+				String.format("持久化產品時違反資料完整性約束：%s❗️", exception.getMostSpecificCause().getLocalizedMessage()));
+		} catch (ConcurrencyFailureException exception) {
+			throw exception;
 		} catch (Exception exception) {
 			throw new CustomException(
-				String.format("持久化產品時拋出線程中斷異常：%s❗️", exception.getLocalizedMessage()));
+				String.format("持久化產品時拋出異常：%s❗️", exception.getLocalizedMessage()));
 		}
+		productCatalogService.evict(product.getId());
+		return CompletableFuture.completedFuture(product);
 	}
 
 	/**
 	 * 編輯
+	 * <p>先於交易外讀取貨主 (見 {@link #owner(String)})，再於交易中讀取並修改產品。</p>
+	 * <p>
+	 * 產品以 {@code @Version} 樂觀鎖保護，讀取後被並行的庫存異動搶先時整個交易重試，
+	 * 重試用盡仍衝突時由全域例外處理程序回應 409。
+	 * </p>
 	 *
 	 * @param id 產品主鍵
 	 * @param productName 產品名稱
@@ -292,7 +299,7 @@ public class ProductService {
 	 * @param inventory 庫存
 	 * @return 產品
 	 */
-	@Transactional
+	@Retryable(retryFor = ConcurrencyFailureException.class)
 	public Product update(
 		final String id,
 		final String productName,
@@ -301,10 +308,37 @@ public class ProductService {
 		final UnitTypeEnum unitType,
 		final String personId,
 		final Double inventory) {
+		final Person person = Objects.nonNull(personId) && !personId.isBlank()
+			? owner(personId)
+			: null;
+		return self.update(id, productName, unitPrice, type, unitType, person, inventory);
+	}
+
+	/**
+	 * 編輯
+	 *
+	 * @param id 產品主鍵
+	 * @param productName 產品名稱
+	 * @param unitPrice 產品單價
+	 * @param type 產品類型(列舉)
+	 * @param unitType 單位(列舉)
+	 * @param person 貨主，不變更時為 null
+	 * @param inventory 庫存
+	 * @return 產品
+	 */
+	@Transactional
+	public Product update(
+		final String id,
+		final String productName,
+		final BigDecimal unitPrice,
+		final ProductTypeEnum type,
+		final UnitTypeEnum unitType,
+		final Person person,
+		final Double inventory) {
 
 		Product product;
 		try {
-			product = this.load(id).get();
+			product = self.load(id).get();
 		} catch (InterruptedException | ExecutionException exception) {
 			throw new CustomException(
 				String.format("讀取產品「%s」時拋出線程中斷異常：%s❗", id, exception.getLocalizedMessage()));
@@ -320,31 +354,50 @@ public class ProductService {
 			product.setType(type);
 		}
 		if (Objects.nonNull(unitType)) {
+			// 更換單位時庫存數量不變 (與更換前相同的數字改以新單位計)
+			final double current = product.getInventory();
 			product.setUnitType(unitType);
+			product.setInventory(current);
 		}
-		if (Objects.nonNull(personId) && !personId.isBlank()) {
-			try {
-				Person person = personService.load(personId).get();
-				if (personService.exist(personId).get()){
-					throw new CustomException("一般職員無權限建立或編輯產品");
-				}else {
-					product.setPerson(person);
-				}
-			} catch (InterruptedException | ExecutionException exception) {
-				throw new CustomException(
-					String.format("讀取人員「%s」時拋出線程中斷異常：%s❗", personId, exception.getLocalizedMessage()));
-			}
+		if (Objects.nonNull(person)) {
+			product.setPerson(person);
 		}
 		if (Objects.nonNull(inventory)) {
 			product.setInventory(inventory);
 		}
 
 		try {
-			return this.save(product).get();
-		} catch (Exception exception) {
+			return self.save(product).get();
+		} catch (InterruptedException | ExecutionException exception) {
+			if (exception.getCause() instanceof ConcurrencyFailureException conflict) {
+				throw conflict;
+			}
 			throw new CustomException(
 				String.format("編輯產品「%s」時拋出線程中斷異常：%s❗", product.getProductName(), exception.getLocalizedMessage()));
 		}
 	}
 
+	/**
+	 * 讀取貨主並檢查身分
+	 * <p>
+	 * 讀取人員與檢查身分互不相依，兩個查詢都送出後才等待結果。
+	 * 呼叫端不可在交易中：交易中的非同步方法在呼叫端的執行緒依序執行 (見 TransactionAwareAsyncTaskExecutor)。
+	 * </p>
+	 *
+	 * @param personId 人員主鍵
+	 * @return 貨主
+	 */
+	private Person owner(final String personId) {
+		final CompletableFuture<Person> person = personService.load(personId);
+		final CompletableFuture<Boolean> employee = personService.exist(personId);
+		try {
+			if (employee.get()) {
+				throw new CustomException("一般職員無權限建立或編輯產品");
+			}
+			return person.get();
+		} catch (InterruptedException | ExecutionException exception) {
+			throw new CustomException(
+				String.format("讀取人員「%s」時拋出線程中斷異常：%s❗", personId, exception.getLocalizedMessage()));
+		}
+	}
 }
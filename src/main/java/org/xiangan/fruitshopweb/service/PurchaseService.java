@@ -2,8 +2,15 @@ package org.xiangan.fruitshopweb.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -11,13 +18,21 @@ import org.xiangan.fruitshopweb.entity.Product;
 import org.xiangan.fruitshopweb.entity.Purchase;
 import org.xiangan.fruitshopweb.entity.Purchase_;
 import org.xiangan.fruitshopweb.exception.CustomException;
+import org.xiangan.fruitshopweb.model.BulkResult;
+import org.xiangan.fruitshopweb.model.LineResult;
+import org.xiangan.fruitshopweb.model.PurchaseLine;
+import org.xiangan.fruitshopweb.model.PurchaseView;
 import org.xiangan.fruitshopweb.repository.PurchaseRepository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.NoSuchElementException;
-import java.util.Objects;
+import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * 進貨單
@@ -39,6 +54,18 @@ public class PurchaseService {
 	 */
 	private final ProductService productService;
 
+	/**
+	 * (服務層) 庫存異動
+	 */
+	private final InventoryService inventoryService;
+
+	/**
+	 * (服務層) 進貨單，經由代理呼叫以套用 @Async 與 @Transactional
+	 */
+	@Autowired
+	@Lazy
+	private PurchaseService self;
+
 	/**
 	 * 建立
 	 * @param productId 產品主鍵
@@ -46,6 +73,7 @@ public class PurchaseService {
 	 * @param receivingDate 進貨日期
 	 * @return 進貨單
 	 */
+	@Retryable(retryFor = ConcurrencyFailureException.class)
 	@Transactional
 	public Purchase create(
 			final String productId
@@ -64,72 +92,180 @@ public class PurchaseService {
 
 		purchase.setQuantity(quantity);
 
-		// 庫存數量+進貨數量
-		double inventory = product.getInventory();
-		product.setInventory(inventory+quantity);
-
 		purchase.setReceivingDate(receivingDate);
 
+		// 庫存數量+進貨數量
+		inventoryService.add(productId, product.getUnitType().toMicros(quantity));
+
 		try {
-			return this.save(purchase).get();
+			return self.save(purchase).get();
 		} catch (InterruptedException | ExecutionException exception) {
 			throw new CustomException(
 					String.format("建立進貨單時拋出線程中斷異常：%s❗", exception.getLocalizedMessage()));
 		}
 	}
 
+	/**
+	 * 批次建立
+	 * <p>
+	 * 以單一 IN 查詢讀取所有引用的產品，依產品彙總進貨數量後各更新一次庫存，
+	 * 進貨單於同一交易中以 JDBC 批次寫入；有誤的明細逐筆回報，不影響其他明細。
+	 * </p>
+	 *
+	 * @param lines 進貨明細 (null 表示該筆格式錯誤)
+	 * @return 各明細處理結果
+	 */
+	@Retryable(retryFor = ConcurrencyFailureException.class)
+	@Transactional
+	public BulkResult create(final List<PurchaseLine> lines) {
+		final Set<String> productIds = lines.stream()
+			.filter(Objects::nonNull)
+			.map(PurchaseLine::getProductId)
+			.filter(Objects::nonNull)
+			.collect(Collectors.toSet());
+
+		final Map<String, Product> products;
+		try {
+			products = productService.load(productIds).get()
+				.stream()
+				.collect(Collectors.toMap(Product::getId, Function.identity()));
+		} catch (InterruptedException | ExecutionException exception) {
+			throw new CustomException(
+				String.format("讀取產品時拋出線程中斷異常：%s❗", exception.getLocalizedMessage()));
+		}
+
+		final LineResult[] results = new LineResult[lines.size()];
+		final Map<Integer, Purchase> purchases = new LinkedHashMap<>();
+		final Map<String, Long> deltas = new HashMap<>();
+		for (int index = 0; index < lines.size(); index++) {
+			final PurchaseLine line = lines.get(index);
+			final String error = validate(line, products);
+			if (Objects.nonNull(error)) {
+				results[index] = LineResult.failure(index + 1, error);
+				continue;
+			}
+
+			final Product product = products.get(line.getProductId());
+			Purchase purchase = new Purchase();
+			purchase.setProduct(product);
+			purchase.setQuantity(line.getQuantity());
+			purchase.setReceivingDate(line.getReceivingDate());
+			purchases.put(index, purchase);
+
+			// 同一產品的進貨數量合併為一次庫存異動
+			deltas.merge(line.getProductId(), product.getUnitType().toMicros(line.getQuantity()), Long::sum);
+		}
+
+		inventoryService.add(deltas);
+		purchaseRepository.saveAll(purchases.values());
+
+		purchases.forEach((index, purchase) ->
+			results[index] = LineResult.success(index + 1, purchase.getId()));
+		return new BulkResult(Arrays.asList(results));
+	}
+
+	/**
+	 * @param line 進貨明細
+	 * @param products 產品主鍵與產品
+	 * @return 錯誤訊息，無誤時為 null
+	 */
+	private static String validate(final PurchaseLine line, final Map<String, Product> products) {
+		if (Objects.isNull(line)) {
+			return "明細格式錯誤❗";
+		}
+		if (Objects.isNull(line.getProductId()) || line.getProductId().isBlank()) {
+			return "產品不可為空❗";
+		}
+		if (!products.containsKey(line.getProductId())) {
+			return String.format("無主鍵為「%s」的產品❗️", line.getProductId());
+		}
+		if (Objects.isNull(line.getQuantity()) || line.getQuantity() <= 0) {
+			return "進貨數量必須大於 0❗";
+		}
+		if (Objects.isNull(line.getReceivingDate())) {
+			return "進貨日期不可為空❗";
+		}
+		return null;
+	}
+
 	/**
 	 * @param id 主鍵
 	 * @return 是否成功刪除
 	 */
 	@Async
+	@Retryable(retryFor = ConcurrencyFailureException.class)
 	@Transactional
 	public CompletableFuture<Boolean> delete(final String id) {
 		Purchase purchase;
 		try {
-			purchase = this.load(id).get();
+			purchase = self.load(id).get();
 		} catch (InterruptedException | ExecutionException exception) {
 			throw new CustomException(
 				String.format("讀取進貨單「%s」時拋出線程中斷異常：%s❗", id, exception.getLocalizedMessage()));
 		}
 
-		String productID = purchase.getProduct().getId();
-		Product product;
-		try {
-			product = productService.load(productID).get();
-		} catch (InterruptedException | ExecutionException exception) {
-			throw new CustomException(
-				String.format("讀取產品「%s」時拋出線程中斷異常：%s❗", productID, exception.getLocalizedMessage()));
-		}
-
-		Double quantity = purchase.getQuantity();
-		double inventory = product.getInventory();
-		product.setInventory(inventory-quantity);
+		// 庫存數量-進貨數量
+		inventoryService.add(
+			purchase.getProduct().getId(),
+			-purchase.getProduct().getUnitType().toMicros(purchase.getQuantity()));
 
 		purchaseRepository.delete(purchase);
 		return CompletableFuture.completedFuture(true);
 	}
 	
 	/**
+	 * 以單一查詢讀取列表欄位 (另有一次總筆數查詢)，不載入產品與貨主
+	 *
 	 * @param p 頁數
 	 * @param s 一頁幾筆
 	 * @return 可分頁的進貨單
 	 */
 	@Async
 	@Transactional(readOnly = true)
-	public CompletableFuture<Page<Purchase>> load(final int p, final int s) {
+	public CompletableFuture<Page<PurchaseView>> load(final int p, final int s) {
+		return CompletableFuture.completedFuture(
+			purchaseRepository.findAllViews(PageRequest.of(p, s))
+		);
+	}
+
+	/**
+	 * 匯出：依進貨日期逐筆讀取交給 {@code consumer}，不累積在記憶體
+	 *
+	 * @param begin 起始日期(含)，為空時不限
+	 * @param end 結束日期(含)，為空時不限
+	 * @param consumer 逐筆處理
+	 */
+	@Transactional(readOnly = true)
+	public void export(final LocalDate begin, final LocalDate end, final Consumer<PurchaseView> consumer) {
+		try (Stream<PurchaseView> purchases = purchaseRepository.streamViews(
+			Objects.isNull(begin) ? null : begin.atStartOfDay(),
+			Objects.isNull(end) ? null : end.plusDays(1).atStartOfDay())) {
+			purchases.forEach(consumer);
+		}
+	}
+
+	/**
+	 * 游標分頁，依進貨日期、開單日期、主鍵往後查詢，不查詢總筆數
+	 *
+	 * @param position 查詢位置
+	 * @param s 一頁幾筆
+	 * @return 進貨單
+	 */
+	@Async
+	@Transactional(readOnly = true)
+	public CompletableFuture<Window<Purchase>> load(final ScrollPosition position, final int s) {
 		return CompletableFuture.completedFuture(
 			purchaseRepository
-				.findAll(
-					(root, criteriaQuery, criteriaBuilder) -> {
-						criteriaQuery.orderBy(
-							criteriaBuilder.desc(root.get(Purchase_.receivingDate)),
-							criteriaBuilder.desc(root.get(Purchase_.orderDate)),
-							criteriaBuilder.asc(root.get(Purchase_.product))
-						);
-						return criteriaBuilder.conjunction();
-					},
-					PageRequest.of(p, s)
+				.findBy(
+					(root, criteriaQuery, criteriaBuilder) -> criteriaBuilder.conjunction(),
+					query -> query
+						.sortBy(Sort.by(
+							Sort.Order.desc(Purchase_.RECEIVING_DATE),
+							Sort.Order.desc(Purchase_.ORDER_DATE),
+							Sort.Order.asc(Purchase_.ID)
+						))
+						.limit(s)
+						.scroll(position)
 				)
 		);
 	}
@@ -184,6 +320,7 @@ public class PurchaseService {
 	 * @param receivingDate 進貨日期
 	 * @return 進貨單
 	 */
+	@Retryable(retryFor = ConcurrencyFailureException.class)
 	@Transactional
 	public Purchase update(
 		final String id
@@ -192,13 +329,16 @@ public class PurchaseService {
 		,final LocalDateTime receivingDate){
 		Purchase purchase;
 		try {
-			purchase = this.load(id).get();
+			purchase = self.load(id).get();
 		} catch (InterruptedException | ExecutionException exception) {
 			throw new CustomException(
 				String.format("讀取進貨單「%s」時拋出線程中斷異常：%s❗", id, exception.getLocalizedMessage()));
 		}
 
-		Product product = null;
+		final Product beforeProduct = purchase.getProduct();
+		final double beforeQuantity = purchase.getQuantity();
+
+		Product product = purchase.getProduct();
 		if (Objects.nonNull(productId)) {
 			try {
 				product = productService.load(productId).get();
@@ -206,30 +346,28 @@ public class PurchaseService {
 				throw new CustomException(
 					String.format("讀取產品「%s」時拋出線程中斷異常：%s❗", id, exception.getLocalizedMessage()));
 			}
-
-			purchase.setProduct(product);
 		}
+		final double afterQuantity = Objects.nonNull(quantity) ? quantity : beforeQuantity;
 
 		/*
-		進貨單(前):apple* 10 ->beforeQuantity  ，產品: 20 ->beforeInventory
-		進貨單(後):apple* 15 ->quantity        ，產品: 25 ->beforeInventory + fixedQuantity
+		進貨單(前):apple* 10 ->beforeQuantity  ，產品: 20
+		進貨單(後):apple* 15 ->afterQuantity   ，產品: 25 (apple +5)
+		更換產品時:banana* 15                  ，apple -10、banana +15
 		 */
-		if (Objects.nonNull(quantity)) {
-			Double beforeQuantity = purchase.getQuantity();
-			double fixedQuantity = quantity - beforeQuantity;
-			double beforeInventory = product.getInventory();
-
+		Map<String, Long> deltas = new HashMap<>();
+		deltas.merge(beforeProduct.getId(), -beforeProduct.getUnitType().toMicros(beforeQuantity), Long::sum);
+		deltas.merge(product.getId(), product.getUnitType().toMicros(afterQuantity), Long::sum);
+		inventoryService.add(deltas);
 
-			purchase.setQuantity(quantity);
-			product.setInventory(beforeInventory+fixedQuantity);
-		}
+		purchase.setProduct(product);
+		purchase.setQuantity(afterQuantity);
 
 		if (Objects.nonNull(receivingDate)) {
 			purchase.setReceivingDate(receivingDate);
 		}
 
 		try {
-			return this.save(purchase).get();
+			return self.save(purchase).get();
 		} catch (InterruptedException | ExecutionException exception) {
 			throw new CustomException(
 				String.format(
@@ -2,18 +2,27 @@ package org.xiangan.fruitshopweb.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.xiangan.fruitshopweb.entity.Revenue;
 import org.xiangan.fruitshopweb.entity.Revenue_;
 import org.xiangan.fruitshopweb.exception.CustomException;
+import org.xiangan.fruitshopweb.model.RevenueSummary;
+import org.xiangan.fruitshopweb.repository.DailyRollupRepository;
 import org.xiangan.fruitshopweb.repository.RevenueRepository;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.sql.Date;
+import java.time.LocalDate;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
@@ -33,6 +42,18 @@ public class RevenueService {
 	 */
 	private final RevenueRepository revenueRepository;
 
+	/**
+	 * (數據存取對象)每日營運彙總
+	 */
+	private final DailyRollupRepository dailyRollupRepository;
+
+	/**
+	 * (服務層) 營收狀況，經由代理呼叫以套用 @Async 與 @Transactional
+	 */
+	@Autowired
+	@Lazy
+	private RevenueService self;
+
 	/**
 	 * @param entity 營收狀況
 	 * @return 是否成功刪除
@@ -85,7 +106,7 @@ public class RevenueService {
 		revenue.setWastage(wastage);
 
 		try {
-			return this.save(revenue).get();
+			return self.save(revenue).get();
 		} catch (InterruptedException | ExecutionException exception) {
 			throw new CustomException(
 					String.format(
@@ -94,11 +115,11 @@ public class RevenueService {
 	}
 
 	/**
-	 * 檢查金額長度
+	 * 檢查金額長度 (公開供基準測試量測)
 	 * @param fieldName 欄位名稱
 	 * @param amount 金額
 	 */
-	private void checkAmountLength(String fieldName, BigDecimal amount) {
+	public static void checkAmountLength(String fieldName, BigDecimal amount) {
 		String integerPart = amount.setScale(0, RoundingMode.DOWN).toPlainString();
 		if (integerPart.length() > 10) {
 			throw new CustomException(
@@ -131,6 +152,31 @@ public class RevenueService {
 		);
 	}
 
+	/**
+	 * 游標分頁，依紀錄日期、主鍵往後查詢，不查詢總筆數
+	 *
+	 * @param position 查詢位置
+	 * @param s 一頁幾筆
+	 * @return 營業狀況
+	 */
+	@Async
+	@Transactional(readOnly = true)
+	public CompletableFuture<Window<Revenue>> load(final ScrollPosition position, final int s) {
+		return CompletableFuture.completedFuture(
+			revenueRepository
+				.findBy(
+					(root, criteriaQuery, criteriaBuilder) -> criteriaBuilder.conjunction(),
+					query -> query
+						.sortBy(Sort.by(
+							Sort.Order.desc(Revenue_.RECORD_DATE),
+							Sort.Order.asc(Revenue_.ID)
+						))
+						.limit(s)
+						.scroll(position)
+				)
+		);
+	}
+
 	/**
 	 * @param id 主鍵
 	 * @return 營收狀況
@@ -151,6 +197,32 @@ public class RevenueService {
 		);
 	}
 
+	/**
+	 * 區間營收總計
+	 * <p>成本讀取每日營運彙總，只需讀取區間內的天數筆數，不需掃描進貨、損耗、雜物原始資料。</p>
+	 *
+	 * @param begin 起始日期(含)
+	 * @param end 結束日期(含)
+	 * @return 區間營收總計
+	 */
+	@Async
+	@Transactional(readOnly = true)
+	public CompletableFuture<RevenueSummary> summarize(final LocalDate begin, final LocalDate end) {
+		if (begin.isAfter(end)) {
+			throw new CustomException(String.format("起始日期 %s 不可晚於結束日期 %s❗", begin, end));
+		}
+
+		return CompletableFuture.completedFuture(
+			new RevenueSummary(
+				begin,
+				end,
+				revenueRepository.sumGrossIncomeBetweenDates(Date.valueOf(begin), Date.valueOf(end)),
+				revenueRepository.sumPersonnelExpensesBetweenDates(Date.valueOf(begin), Date.valueOf(end)),
+				dailyRollupRepository.findAllByRecordDateBetweenOrderByRecordDate(begin, end)
+			)
+		);
+	}
+
 	/**
 	 * @param entity 營收狀況
 	 * @return 持久化營業狀況
@@ -192,7 +264,7 @@ public class RevenueService {
 			, final BigDecimal wastage) {
 		Revenue revenue;
 		try {
-			revenue = this.load(id).get();
+			revenue = self.load(id).get();
 		} catch (InterruptedException | ExecutionException exception) {
 			throw new CustomException(
 					String.format(
@@ -235,7 +307,7 @@ public class RevenueService {
 		}
 
 		try {
-			return this.save(revenue).get();
+			return self.save(revenue).get();
 		} catch (InterruptedException | ExecutionException exception) {
 			throw new CustomException(
 					String.format(
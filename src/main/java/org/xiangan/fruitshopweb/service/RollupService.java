@@ -0,0 +1,282 @@
+package org.xiangan.fruitshopweb.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.xiangan.fruitshopweb.entity.DailyRollup;
+import org.xiangan.fruitshopweb.exception.CustomException;
+import org.xiangan.fruitshopweb.repository.DailyRollupRepository;
+import org.xiangan.fruitshopweb.repository.MiscellaneousHourlyRollupRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 每日營運彙總
+ * <p>
+ * 進貨、損耗、雜物寫入時由 {@link org.xiangan.fruitshopweb.listener.RollupEventListener}
+ * 回報各日的成本增減，於同一交易提交前依日期排序一次累加至 {@code daily_rollup}，
+ * 讓異動與彙總同時生效或同時回滾。寫入登記在 Hibernate 的交易完成前處理 (在提交時的 flush 之後)，
+ * 未 flush 的 {@code saveAll}、{@code delete} 於提交時才觸發的事件也會計入。雜物另外累加至每小時彙總 ({@code miscellaneous_hourly_rollup})，
+ * 供任意時間區間的雜物加總使用。
+ * </p>
+ * <p>
+ * 金額以寫入當下的產品成本單價計算；產品單價調整或產品刪除 (資料庫串聯刪除進貨/損耗) 不會回溯，
+ * 需要時以 {@link #rebuild(LocalDate, LocalDate)} 重新計算。
+ * </p>
+ *
+ * @author kyle
+ */
+@Service
+@Slf4j
+public class RollupService {
+
+	/**
+	 * (數據存取對象)每日營運彙總
+	 */
+	private final DailyRollupRepository dailyRollupRepository;
+
+	/**
+	 * (數據存取對象)雜物每小時彙總
+	 */
+	private final MiscellaneousHourlyRollupRepository miscellaneousHourlyRollupRepository;
+
+	/**
+	 * 重新計算時同時處理的月份數
+	 */
+	private final int parallelism;
+
+	/**
+	 * 實體管理器
+	 */
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	/**
+	 * (服務層) 每日營運彙總，經由代理呼叫以套用 @Async 與 @Transactional
+	 */
+	@Autowired
+	@Lazy
+	private RollupService self;
+
+	/**
+	 * @param dailyRollupRepository (數據存取對象)每日營運彙總
+	 * @param miscellaneousHourlyRollupRepository (數據存取對象)雜物每小時彙總
+	 * @param parallelism 重新計算時同時處理的月份數
+	 */
+	public RollupService(
+		final DailyRollupRepository dailyRollupRepository,
+		final MiscellaneousHourlyRollupRepository miscellaneousHourlyRollupRepository,
+		@Value("${rollup.backfill.parallelism:4}") final int parallelism) {
+		this.dailyRollupRepository = dailyRollupRepository;
+		this.miscellaneousHourlyRollupRepository = miscellaneousHourlyRollupRepository;
+		this.parallelism = Math.max(1, parallelism);
+	}
+
+	/**
+	 * 記錄某日的成本增減，於目前交易提交前寫入
+	 *
+	 * @param recordDate 日期
+	 * @param purchasesExpense 進貨成本增減量
+	 * @param miscellaneousExpense 雜物成本增減量
+	 * @param wastage 損耗增減量
+	 */
+	public void record(
+		final LocalDate recordDate,
+		final BigDecimal purchasesExpense,
+		final BigDecimal miscellaneousExpense,
+		final BigDecimal wastage) {
+		final Pending pending = pending(recordDate);
+		if (pending == null) {
+			return;
+		}
+
+		pending.days.merge(
+			recordDate,
+			new BigDecimal[]{purchasesExpense, miscellaneousExpense, wastage},
+			(left, right) -> new BigDecimal[]{
+				left[0].add(right[0]),
+				left[1].add(right[1]),
+				left[2].add(right[2])
+			}
+		);
+	}
+
+	/**
+	 * 記錄雜物花費的增減 (每日與每小時彙總)，於目前交易提交前寫入
+	 *
+	 * @param recordDate 紀錄時間
+	 * @param amount 花費增減量
+	 */
+	public void recordMiscellaneous(final LocalDateTime recordDate, final BigDecimal amount) {
+		final Pending pending = pending(recordDate.toLocalDate());
+		if (pending == null) {
+			return;
+		}
+
+		record(recordDate.toLocalDate(), BigDecimal.ZERO, amount, BigDecimal.ZERO);
+		pending.hours.merge(recordDate.truncatedTo(ChronoUnit.HOURS), amount, BigDecimal::add);
+	}
+
+	/**
+	 * @param recordDate 日期 (記錄日誌用)
+	 * @return 目前交易累積的增減；不在交易中時為空
+	 */
+	private Pending pending(final LocalDate recordDate) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			log.warn("「{}」的營運彙總異動不在交易中，已略過，請重新計算該日彙總", recordDate);
+			return null;
+		}
+
+		Pending pending = (Pending) TransactionSynchronizationManager.getResource(this);
+		if (pending == null) {
+			pending = new Pending();
+			TransactionSynchronizationManager.bindResource(this, pending);
+			TransactionSynchronizationManager.registerSynchronization(new Release());
+			entityManager.unwrap(SessionImplementor.class).getActionQueue().registerProcess(new Flush());
+		}
+		return pending;
+	}
+
+	/**
+	 * 重新計算區間內的每日彙總
+	 * <p>依月份切分，最多 {@code rollup.backfill.parallelism} 個月份同時計算，每個月份各自一個交易。</p>
+	 *
+	 * @param begin 起始日期(含)
+	 * @param end 結束日期(含)
+	 * @return 寫入的天數
+	 */
+	public CompletableFuture<Integer> rebuild(final LocalDate begin, final LocalDate end) {
+		if (begin.isAfter(end)) {
+			throw new CustomException(String.format("起始日期 %s 不可晚於結束日期 %s❗", begin, end));
+		}
+
+		final List<CompletableFuture<Integer>> lanes = new ArrayList<>(parallelism);
+		for (int lane = 0; lane < parallelism; lane++) {
+			lanes.add(CompletableFuture.completedFuture(0));
+		}
+
+		int index = 0;
+		for (YearMonth month = YearMonth.from(begin); !month.atDay(1).isAfter(end); month = month.plusMonths(1)) {
+			final LocalDate from = month.atDay(1).isBefore(begin) ? begin : month.atDay(1);
+			final LocalDate to = month.atEndOfMonth().isAfter(end) ? end : month.atEndOfMonth();
+			final int lane = index++ % parallelism;
+			lanes.set(
+				lane,
+				lanes.get(lane).thenCompose(
+					days -> self.rebuildPartition(from, to).thenApply(partition -> days + partition))
+			);
+		}
+
+		return CompletableFuture
+			.allOf(lanes.toArray(CompletableFuture[]::new))
+			.thenApply(ignored -> lanes.stream().mapToInt(CompletableFuture::join).sum());
+	}
+
+	/**
+	 * 重新計算一段區間 (不超過一個月) 的每日彙總
+	 * <p>
+	 * 刪除與重新寫入在同一交易中完成；重新計算期間同區間的異動會等待列鎖，
+	 * 提交後再累加於重新計算的結果上，不會遺失或重複計算。
+	 * </p>
+	 *
+	 * @param begin 起始日期(含)
+	 * @param end 結束日期(含)
+	 * @return 寫入的天數
+	 */
+	@Async
+	@Transactional
+	public CompletableFuture<Integer> rebuildPartition(final LocalDate begin, final LocalDate end) {
+		dailyRollupRepository.deleteBetween(begin, end);
+		final int days = dailyRollupRepository.insertBetween(begin, end);
+		miscellaneousHourlyRollupRepository.deleteBetween(begin.atStartOfDay(), end.plusDays(1).atStartOfDay());
+		miscellaneousHourlyRollupRepository.insertBetween(begin.atStartOfDay(), end.plusDays(1).atStartOfDay());
+		log.debug("重新計算營運彙總 {} ~ {}：{} 天", begin, end, days);
+		return CompletableFuture.completedFuture(days);
+	}
+
+	/**
+	 * @param begin 起始日期(含)
+	 * @param end 結束日期(含)
+	 * @return 區間內每日彙總
+	 */
+	@Async
+	@Transactional(readOnly = true)
+	public CompletableFuture<List<DailyRollup>> load(final LocalDate begin, final LocalDate end) {
+		return CompletableFuture.completedFuture(
+			dailyRollupRepository.findAllByRecordDateBetweenOrderByRecordDate(begin, end)
+		);
+	}
+
+	/**
+	 * 一個交易累積的彙總增減
+	 */
+	private static class Pending {
+
+		/**
+		 * 日期與進貨、雜物、損耗成本增減
+		 */
+		private final Map<LocalDate, BigDecimal[]> days = new TreeMap<>();
+
+		/**
+		 * 整點與雜物花費增減
+		 */
+		private final Map<LocalDateTime, BigDecimal> hours = new TreeMap<>();
+	}
+
+	/**
+	 * 交易提交前 (提交時的 flush 之後) 寫入累積的彙總增減
+	 */
+	private class Flush implements BeforeTransactionCompletionProcess {
+
+		@Override
+		public void doBeforeTransactionCompletion(final SessionImplementor session) {
+			Pending pending = (Pending) TransactionSynchronizationManager.getResource(RollupService.this);
+			if (pending == null) {
+				return;
+			}
+			// 依日期、整點排序寫入，並行交易以相同順序取得列鎖
+			pending.days.forEach((recordDate, delta) -> {
+				if (delta[0].signum() != 0 || delta[1].signum() != 0 || delta[2].signum() != 0) {
+					dailyRollupRepository.add(recordDate, delta[0], delta[1], delta[2]);
+				}
+			});
+			pending.hours.forEach((recordHour, amount) -> {
+				if (amount.signum() != 0) {
+					miscellaneousHourlyRollupRepository.add(recordHour, amount);
+				}
+			});
+			pending.days.clear();
+			pending.hours.clear();
+		}
+	}
+
+	/**
+	 * 交易結束 (提交或回滾) 後釋放累積的增減
+	 */
+	private class Release implements TransactionSynchronization {
+
+		@Override
+		public void afterCompletion(final int status) {
+			TransactionSynchronizationManager.unbindResourceIfPossible(RollupService.this);
+		}
+	}
+}
@@ -0,0 +1,113 @@
+package org.xiangan.fruitshopweb.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.xiangan.fruitshopweb.exception.CustomException;
+import org.xiangan.fruitshopweb.model.SqlTracingSettings;
+
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * SQL 追蹤設定
+ * <p>
+ * 決定每個請求是否輸出 SQL：關閉、依百分比抽樣、全部追蹤，
+ * 另可指定單一請求編號 ({@code X-Request-Id}) 一律追蹤。設定可於執行期間切換，不需重新啟動。
+ * </p>
+ *
+ * @author kyle
+ */
+@Service
+@Slf4j
+public class SqlTracingService {
+
+	/**
+	 * 追蹤模式
+	 */
+	public enum Mode {
+		/**
+		 * 關閉 (仍會追蹤指定的請求編號)
+		 */
+		OFF,
+		/**
+		 * 依百分比抽樣
+		 */
+		SAMPLED,
+		/**
+		 * 全部追蹤
+		 */
+		ALL
+	}
+
+	/**
+	 * 目前設定，整份替換以確保讀取一致
+	 */
+	private volatile SqlTracingSettings settings;
+
+	/**
+	 * @param mode 追蹤模式
+	 * @param percent 抽樣百分比
+	 * @param requestId 一律追蹤的請求編號
+	 */
+	public SqlTracingService(
+		@Value("${logging.sql-tracing.mode:OFF}") final Mode mode,
+		@Value("${logging.sql-tracing.percent:1}") final double percent,
+		@Value("${logging.sql-tracing.request-id:}") final String requestId) {
+		settings = settings(mode, percent, requestId);
+	}
+
+	/**
+	 * @param requestId 請求編號
+	 * @return 此請求是否追蹤 SQL
+	 */
+	public boolean shouldTrace(final String requestId) {
+		final SqlTracingSettings current = settings;
+		if (Objects.nonNull(current.getRequestId()) && current.getRequestId().equals(requestId)) {
+			return true;
+		}
+		return switch (current.getMode()) {
+			case OFF -> false;
+			case ALL -> true;
+			case SAMPLED -> ThreadLocalRandom.current().nextDouble(100) < current.getPercent();
+		};
+	}
+
+	/**
+	 * @return 目前設定
+	 */
+	public SqlTracingSettings load() {
+		return settings;
+	}
+
+	/**
+	 * 切換設定
+	 *
+	 * @param mode 追蹤模式
+	 * @param percent 抽樣百分比
+	 * @param requestId 一律追蹤的請求編號，空白表示不指定
+	 * @return 新設定
+	 */
+	public SqlTracingSettings update(final Mode mode, final double percent, final String requestId) {
+		settings = settings(mode, percent, requestId);
+		log.info("SQL 追蹤設定已切換：模式 {}，抽樣 {}%，指定請求 {}", mode, percent, settings.getRequestId());
+		return settings;
+	}
+
+	/**
+	 * @param mode 追蹤模式
+	 * @param percent 抽樣百分比
+	 * @param requestId 一律追蹤的請求編號
+	 * @return 設定
+	 */
+	private static SqlTracingSettings settings(final Mode mode, final double percent, final String requestId) {
+		if (percent < 0 || percent > 100) {
+			throw new CustomException(String.format("抽樣百分比須介於 0 ~ 100 (目前為 %s)❗", percent));
+		}
+		return new SqlTracingSettings(
+			Objects.requireNonNullElse(mode, Mode.OFF),
+			percent,
+			Objects.isNull(requestId) || requestId.isBlank() ? null : requestId.trim()
+		);
+	}
+}
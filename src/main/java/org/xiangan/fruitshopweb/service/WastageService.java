@@ -2,8 +2,15 @@ package org.xiangan.fruitshopweb.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.data.domain.Page;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -11,12 +18,20 @@ import org.xiangan.fruitshopweb.entity.Product;
 import org.xiangan.fruitshopweb.entity.Wastage;
 import org.xiangan.fruitshopweb.entity.Wastage_;
 import org.xiangan.fruitshopweb.exception.CustomException;
+import org.xiangan.fruitshopweb.model.BulkResult;
+import org.xiangan.fruitshopweb.model.LineResult;
+import org.xiangan.fruitshopweb.model.WastageLine;
+import org.xiangan.fruitshopweb.model.WastageView;
 import org.xiangan.fruitshopweb.repository.WastageRepository;
 
-import java.util.Date;
-import java.util.Objects;
+import java.time.LocalDate;
+import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * 損耗單
@@ -38,6 +53,18 @@ public class WastageService {
 	 */
 	private final ProductService productService;
 
+	/**
+	 * (服務層) 庫存異動
+	 */
+	private final InventoryService inventoryService;
+
+	/**
+	 * (服務層) 損耗單，經由代理呼叫以套用 @Async 與 @Transactional
+	 */
+	@Autowired
+	@Lazy
+	private WastageService self;
+
 	/**
 	 * 建立
 	 *
@@ -46,6 +73,7 @@ public class WastageService {
 	 * @param date 損耗日期
 	 * @return 損耗單
 	 */
+	@Retryable(retryFor = ConcurrencyFailureException.class)
 	@Transactional
 	public Wastage create(
 			final String productId
@@ -65,13 +93,14 @@ public class WastageService {
 		wastage.setProduct(product);
 
 		wastage.setQuantity(quantity);
-		double inventory = product.getInventory() - quantity;
-		product.setInventory(inventory);
 
 		wastage.setDate(date);
 
+		// 庫存數量-損耗數量，庫存不足時拋出異常
+		inventoryService.add(productId, -product.getUnitType().toMicros(quantity));
+
 		try {
-			return this.save(wastage).get();
+			return self.save(wastage).get();
 		} catch (InterruptedException | ExecutionException exception) {
 			throw new CustomException(
 					String.format(
@@ -79,6 +108,146 @@ public class WastageService {
 		}
 	}
 
+	/**
+	 * 批次建立
+	 * <p>
+	 * 以單一 IN 查詢讀取所有引用的產品，依產品彙總損耗數量並一次檢查扣減後庫存不得為負數，
+	 * 每個產品只更新一次庫存，損耗單於同一交易中以 JDBC 批次寫入；
+	 * 有誤的明細逐筆回報，庫存不足時該產品的所有明細皆不寫入；
+	 * 檢查後才被並行扣減至不足的產品同樣逐筆回報，不影響其他產品的明細。
+	 * </p>
+	 *
+	 * @param lines 損耗明細 (null 表示該筆格式錯誤)
+	 * @param offset 第一筆明細之前已處理的筆數 (分段處理時用於明細序號)
+	 * @return 各明細處理結果
+	 */
+	@Retryable(retryFor = ConcurrencyFailureException.class)
+	@Transactional
+	public List<LineResult> create(final List<WastageLine> lines, final int offset) {
+		final Set<String> productIds = lines.stream()
+			.filter(Objects::nonNull)
+			.map(WastageLine::getProductId)
+			.filter(Objects::nonNull)
+			.collect(Collectors.toSet());
+
+		final Map<String, Product> products;
+		try {
+			products = productService.load(productIds).get()
+				.stream()
+				.collect(Collectors.toMap(Product::getId, Function.identity()));
+		} catch (InterruptedException | ExecutionException exception) {
+			throw new CustomException(
+					String.format(
+							"讀取產品時拋出線程中斷異常：%s❗", exception.getLocalizedMessage()));
+		}
+
+		final String[] errors = new String[lines.size()];
+		final Map<String, Long> quantities = new HashMap<>();
+		for (int index = 0; index < lines.size(); index++) {
+			final WastageLine line = lines.get(index);
+			errors[index] = validate(line, products);
+			if (Objects.isNull(errors[index])) {
+				quantities.merge(
+						line.getProductId(),
+						products.get(line.getProductId()).getUnitType().toMicros(line.getQuantity()),
+						Long::sum);
+			}
+		}
+
+		// 依產品一次檢查扣減後的庫存，不足者整個產品的明細都不寫入
+		final Map<String, Long> deltas = new HashMap<>();
+		quantities.forEach((productId, quantity) -> {
+			final Product product = products.get(productId);
+			if (product.getStock() < quantity) {
+				final String error = String.format(
+						"產品「%s」庫存不足，目前庫存數量為: %s %s，損耗數量合計為: %s❗",
+						product.getProductName(),
+						product.getInventory(),
+						product.getUnitType().getChinese(),
+						product.getUnitType().fromMicros(quantity));
+				for (int index = 0; index < lines.size(); index++) {
+					if (Objects.isNull(errors[index]) && productId.equals(lines.get(index).getProductId())) {
+						errors[index] = error;
+					}
+				}
+			} else {
+				deltas.put(productId, -quantity);
+			}
+		});
+
+		// 條件式 UPDATE 仍會擋下檢查後才發生的並行扣減，被擋下的產品不寫入並逐筆回報
+		final Set<String> rejected = inventoryService.tryAdd(deltas);
+		for (int index = 0; index < lines.size(); index++) {
+			if (Objects.isNull(errors[index]) && rejected.contains(lines.get(index).getProductId())) {
+				final Product product = products.get(lines.get(index).getProductId());
+				errors[index] = String.format(
+						"產品「%s」庫存不足 (已被其他異動扣減)，損耗數量合計為: %s %s❗",
+						product.getProductName(),
+						product.getUnitType().fromMicros(quantities.get(product.getId())),
+						product.getUnitType().getChinese());
+			}
+		}
+
+		final Map<Integer, Wastage> wastages = new LinkedHashMap<>();
+		for (int index = 0; index < lines.size(); index++) {
+			if (Objects.isNull(errors[index])) {
+				final WastageLine line = lines.get(index);
+				Wastage wastage = new Wastage();
+				wastage.setProduct(products.get(line.getProductId()));
+				wastage.setQuantity(line.getQuantity());
+				wastage.setDate(line.getDate());
+				wastages.put(index, wastage);
+			}
+		}
+
+		wastageRepository.saveAll(wastages.values());
+
+		final List<LineResult> results = new ArrayList<>(lines.size());
+		for (int index = 0; index < lines.size(); index++) {
+			results.add(
+					Objects.isNull(errors[index])
+							? LineResult.success(offset + index + 1, wastages.get(index).getId())
+							: LineResult.failure(offset + index + 1, errors[index]));
+		}
+		return results;
+	}
+
+	/**
+	 * 批次建立
+	 * <p>不另開交易：{@link #create(List, int)} 重試時須以新的交易重新執行，而非沿用已標記回滾的外層交易。</p>
+	 *
+	 * @param lines 損耗明細 (null 表示該筆格式錯誤)
+	 * @return 各明細處理結果
+	 * @see #create(List, int)
+	 */
+	public BulkResult create(final List<WastageLine> lines) {
+		return new BulkResult(self.create(lines, 0));
+	}
+
+	/**
+	 * @param line 損耗明細
+	 * @param products 產品主鍵與產品
+	 * @return 錯誤訊息，無誤時為 null
+	 */
+	private static String validate(final WastageLine line, final Map<String, Product> products) {
+		if (Objects.isNull(line)) {
+			return "明細格式錯誤❗";
+		}
+		if (Objects.isNull(line.getProductId()) || line.getProductId().isBlank()) {
+			return "產品不可為空❗";
+		}
+		if (!products.containsKey(line.getProductId())) {
+			return String.format("無主鍵為「%s」的產品❗️", line.getProductId());
+		}
+		if (Objects.isNull(line.getQuantity()) || line.getQuantity() <= 0) {
+			return "損耗數量必須大於 0❗";
+		}
+		if (Objects.isNull(line.getDate())) {
+			return "損耗日期不可為空❗";
+		}
+		return null;
+	}
+
 	/**
 	 * 刪除
 	 *
@@ -86,31 +255,22 @@ public class WastageService {
 	 * @return 是否成功刪除
 	 */
 	@Async
+	@Retryable(retryFor = ConcurrencyFailureException.class)
 	@Transactional
 	public CompletableFuture<Boolean> delete(final String id) {
 		Wastage wastage;
 		try {
-			wastage = this.load(id).get();
+			wastage = self.load(id).get();
 		} catch (InterruptedException | ExecutionException exception) {
 			throw new CustomException(
 					String.format(
 							"讀取損耗表「%s」時拋出線程中斷異常：%s❗", id, exception.getLocalizedMessage()));
 		}
 
-		String productID = wastage.getProduct().getId();
-		Product product;
-		try {
-			product = productService.load(productID).get();
-		} catch (InterruptedException | ExecutionException exception) {
-			throw new CustomException(
-					String.format(
-							"讀取產品「%s」時拋出線程中斷異常：%s❗", productID, exception.getLocalizedMessage()));
-		}
-
-		Double quantity = wastage.getQuantity();
-		double inventory = product.getInventory();
-
-		product.setInventory(inventory+quantity);
+		// 庫存數量+損耗數量
+		inventoryService.add(
+				wastage.getProduct().getId(),
+				wastage.getProduct().getUnitType().toMicros(wastage.getQuantity()));
 
 		wastageRepository.delete(wastage);
 
@@ -118,25 +278,57 @@ public class WastageService {
 	}
 
 	/**
+	 * 以單一查詢讀取列表欄位 (另有一次總筆數查詢)，不載入產品與貨主
+	 *
 	 * @param p 頁數
 	 * @param s 一頁幾筆
 	 * @return 可分頁的損耗單
 	 */
 	@Async
 	@Transactional(readOnly = true)
-	public CompletableFuture<Page<Wastage>> load(final int p, final int s) {
+	public CompletableFuture<Page<WastageView>> load(final int p, final int s) {
+		return CompletableFuture.completedFuture(
+			wastageRepository.findAllViews(PageRequest.of(p, s))
+		);
+	}
+
+	/**
+	 * 匯出：依損耗日期逐筆讀取交給 {@code consumer}，不累積在記憶體
+	 *
+	 * @param begin 起始日期(含)，為空時不限
+	 * @param end 結束日期(含)，為空時不限
+	 * @param consumer 逐筆處理
+	 */
+	@Transactional(readOnly = true)
+	public void export(final LocalDate begin, final LocalDate end, final Consumer<WastageView> consumer) {
+		try (Stream<WastageView> wastages = wastageRepository.streamViews(
+			Objects.isNull(begin) ? null : java.sql.Date.valueOf(begin),
+			Objects.isNull(end) ? null : java.sql.Date.valueOf(end.plusDays(1)))) {
+			wastages.forEach(consumer);
+		}
+	}
+
+	/**
+	 * 游標分頁，依損耗日期、主鍵往後查詢，不查詢總筆數
+	 *
+	 * @param position 查詢位置
+	 * @param s 一頁幾筆
+	 * @return 損耗單
+	 */
+	@Async
+	@Transactional(readOnly = true)
+	public CompletableFuture<Window<Wastage>> load(final ScrollPosition position, final int s) {
 		return CompletableFuture.completedFuture(
 			wastageRepository
-				.findAll(
-					(root, criteriaQuery, criteriaBuilder) -> {
-						criteriaQuery.orderBy(
-							criteriaBuilder.desc(root.get(Wastage_.date)),
-							criteriaBuilder.asc(root.get(Wastage_.product)),
-							criteriaBuilder.desc(root.get(Wastage_.quantity))
-						);
-						return criteriaBuilder.conjunction();
-					},
-					PageRequest.of(p, s)
+				.findBy(
+					(root, criteriaQuery, criteriaBuilder) -> criteriaBuilder.conjunction(),
+					query -> query
+						.sortBy(Sort.by(
+							Sort.Order.desc(Wastage_.DATE),
+							Sort.Order.asc(Wastage_.ID)
+						))
+						.limit(s)
+						.scroll(position)
 				)
 		);
 	}
@@ -188,6 +380,7 @@ public class WastageService {
 	 * @param date 損耗日期
 	 * @return 損耗表
 	 */
+	@Retryable(retryFor = ConcurrencyFailureException.class)
 	@Transactional
 	public Wastage update(
 			final String id
@@ -196,14 +389,17 @@ public class WastageService {
 			,final Date date){
 		Wastage wastage;
 		try {
-			wastage = this.load(id).get();
+			wastage = self.load(id).get();
 		} catch (InterruptedException | ExecutionException exception) {
 			throw new CustomException(
 					String.format(
 							"讀取損耗表「%s」時拋出線程中斷異常：%s❗", id, exception.getLocalizedMessage()));
 		}
 
-		Product product = null;
+		final Product beforeProduct = wastage.getProduct();
+		final double beforeQuantity = wastage.getQuantity();
+
+		Product product = wastage.getProduct();
 		if (Objects.nonNull(productId)) {
 			try {
 				product = productService.load(productId).get();
@@ -212,39 +408,28 @@ public class WastageService {
 						String.format(
 								"讀取產品「%s」時拋出線程中斷異常：%s❗", id, exception.getLocalizedMessage()));
 			}
-
-			wastage.setProduct(product);
 		}
+		final double afterQuantity = Objects.nonNull(quantity) ? quantity : beforeQuantity;
 
 		/*
-		損耗表(前):apple* 10 ->beforeQuantity  ，產品: 20 ->beforeInventory
-		損耗表(後):apple* 15 ->quantity        ，產品: 15 ->beforeInventory - fixedQuantity
+		損耗表(前):apple* 10 ->beforeQuantity  ，產品: 20
+		損耗表(後):apple* 15 ->afterQuantity   ，產品: 15 (apple -5，庫存不足時拋出異常)
+		更換產品時:banana* 15                  ，apple +10、banana -15
 		 */
-		if (Objects.nonNull(quantity)) {
-			Double beforeQuantity = wastage.getQuantity();
-			double fixedQuantity = quantity - beforeQuantity;
-			double beforeInventory = product.getInventory();
-			double afterInventory = beforeInventory - fixedQuantity;
-
-			wastage.setQuantity(quantity);
-			if (afterInventory < 0){
-				throw new CustomException(
-						String.format(
-								"產品「%s」 損耗數量異常，目前庫存數量為: %d %s"
-								, product.getProductName()
-								, quantity.intValue()
-								, product.getUnitType().getChinese())
-				);
-			}
-			product.setInventory(afterInventory);
-		}
+		Map<String, Long> deltas = new HashMap<>();
+		deltas.merge(beforeProduct.getId(), beforeProduct.getUnitType().toMicros(beforeQuantity), Long::sum);
+		deltas.merge(product.getId(), -product.getUnitType().toMicros(afterQuantity), Long::sum);
+		inventoryService.add(deltas);
+
+		wastage.setProduct(product);
+		wastage.setQuantity(afterQuantity);
 
 		if (Objects.nonNull(date)) {
 			wastage.setDate(date);
 		}
 
 		try {
-			return this.save(wastage).get();
+			return self.save(wastage).get();
 		} catch (InterruptedException | ExecutionException exception) {
 			throw new CustomException(
 					String.format(
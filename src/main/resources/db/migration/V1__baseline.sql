@@ -1,7 +1,5 @@
-create database fruitShop;
-use fruitShop;
 -- revenue table
-CREATE TABLE IF NOT EXISTS fruitshop.revenue
+CREATE TABLE IF NOT EXISTS revenue
 (
     id                    VARCHAR(36)    NOT NULL PRIMARY KEY COMMENT '主鍵(UUID)',
     record_date           DATE           NOT NULL COMMENT '記錄日期',
@@ -15,7 +13,7 @@ CREATE TABLE IF NOT EXISTS fruitshop.revenue
 ) COMMENT ='營運狀況';
 
 -- person table
-CREATE TABLE IF NOT EXISTS fruitshop.person
+CREATE TABLE IF NOT EXISTS person
 (
     id        VARCHAR(36)  NOT NULL PRIMARY KEY COMMENT '主鍵(UUID)',
     nick_name VARCHAR(100) NOT NULL COMMENT '暱稱/稱呼',
@@ -30,7 +28,7 @@ CREATE TABLE IF NOT EXISTS fruitshop.person
 
 
 -- product table
-CREATE TABLE IF NOT EXISTS fruitshop.product
+CREATE TABLE IF NOT EXISTS product
 (
     id           VARCHAR(36)    NOT NULL PRIMARY KEY COMMENT '主鍵(UUID)',
     product_name VARCHAR(100)   NOT NULL COMMENT '品名',
@@ -41,12 +39,12 @@ CREATE TABLE IF NOT EXISTS fruitshop.product
     inventory    DECIMAL(10, 2) NOT NULL DEFAULT 0 COMMENT '庫存',
     UNIQUE KEY uq_product_name_unit_price (product_name, unit_price),
     CONSTRAINT fk_product_person FOREIGN KEY (person)
-        REFERENCES fruitshop.person (id)
+        REFERENCES person (id)
         ON UPDATE CASCADE ON DELETE SET NULL
 ) COMMENT ='產品';
 
 -- purchase table
-CREATE TABLE IF NOT EXISTS fruitshop.purchase
+CREATE TABLE IF NOT EXISTS purchase
 (
     id             VARCHAR(36)    NOT NULL PRIMARY KEY COMMENT '主鍵(UUID)',
     product        CHAR(36)       NOT NULL COMMENT '產品',
@@ -55,19 +53,19 @@ CREATE TABLE IF NOT EXISTS fruitshop.purchase
                                   NOT NULL COMMENT '開單日期',
     receiving_date DATETIME       NOT NULL COMMENT '進貨日期',
     CONSTRAINT fk_purchase_product FOREIGN KEY (product)
-        REFERENCES fruitshop.product (id)
+        REFERENCES product (id)
         ON UPDATE CASCADE ON DELETE CASCADE
 ) COMMENT ='進貨表';
 
 -- wastage table
-CREATE TABLE IF NOT EXISTS fruitshop.wastage
+CREATE TABLE IF NOT EXISTS wastage
 (
     id       VARCHAR(36)    NOT NULL PRIMARY KEY COMMENT '主鍵(UUID)',
     product  CHAR(36)       NOT NULL COMMENT '產品',
     quantity DECIMAL(10, 2) NOT NULL DEFAULT 0 COMMENT '數量',
     date     DATE           NOT NULL DEFAULT (CURRENT_DATE) COMMENT '日期',
     CONSTRAINT fk_wastage_product FOREIGN KEY (product)
-        REFERENCES fruitshop.product (id)
+        REFERENCES product (id)
         ON UPDATE CASCADE ON DELETE CASCADE
 ) COMMENT ='損耗表';
 
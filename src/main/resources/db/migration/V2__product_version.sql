@@ -0,0 +1,2 @@
+-- 產品樂觀鎖：庫存改以條件式 UPDATE 扣減，並以版本欄位偵測並行編輯
+ALTER TABLE product ADD COLUMN version BIGINT NOT NULL DEFAULT 0 COMMENT '版本(樂觀鎖)';
@@ -0,0 +1,24 @@
+-- 每日營運彙總 (由 RollupService 隨進貨、損耗、雜物異動累加，可以 POST /revenue/rollup 重新計算)
+CREATE TABLE IF NOT EXISTS daily_rollup
+(
+    record_date           DATE           NOT NULL PRIMARY KEY COMMENT '日期',
+    purchases_expense     DECIMAL(12, 2) NOT NULL DEFAULT 0 COMMENT '進貨成本',
+    miscellaneous_expense DECIMAL(12, 2) NOT NULL DEFAULT 0 COMMENT '雜物成本',
+    wastage               DECIMAL(12, 2) NOT NULL DEFAULT 0 COMMENT '損耗'
+) COMMENT ='每日營運彙總';
+
+-- 既有資料，金額計算方式與 DailyRollupRepository#insertBetween 相同
+INSERT INTO daily_rollup (record_date, purchases_expense, miscellaneous_expense, wastage)
+SELECT movement.record_date, SUM(movement.purchases_expense), SUM(movement.miscellaneous_expense), SUM(movement.wastage)
+FROM (SELECT DATE(pu.receiving_date) AS record_date, ROUND(pu.quantity * pr.unit_price, 2) AS purchases_expense,
+             0 AS miscellaneous_expense, 0 AS wastage
+      FROM purchase pu
+               JOIN product pr ON pr.id = pu.product
+      UNION ALL
+      SELECT DATE(mi.date), 0, mi.amount, 0
+      FROM miscellaneous mi
+      UNION ALL
+      SELECT wa.date, 0, 0, ROUND(wa.quantity * pr.unit_price, 2)
+      FROM wastage wa
+               JOIN product pr ON pr.id = wa.product) movement
+GROUP BY movement.record_date;
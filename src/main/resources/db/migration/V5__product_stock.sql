@@ -0,0 +1,11 @@
+-- 庫存由產品單位的小數改為基準單位 (公斤、公尺、公升、個) 百萬分之一的整數 (見 UnitTypeEnum)
+ALTER TABLE product ADD COLUMN stock BIGINT NOT NULL DEFAULT 0 COMMENT '庫存(基準單位的百萬分之一，見 UnitTypeEnum)' AFTER person;
+
+UPDATE product
+SET stock = ROUND(inventory * CASE unit_type
+    WHEN 'JIN' THEN 600000 WHEN 'LIANG' THEN 37500 WHEN 'GRAM' THEN 1000 WHEN 'POUND' THEN 453592
+    WHEN 'KILOMETER' THEN 1000000000 WHEN 'CENTIMETER' THEN 10000 WHEN 'MILLIMETER' THEN 1000
+    WHEN 'FOOT' THEN 304800 WHEN 'INCH' THEN 25400 WHEN 'MILLILITRE' THEN 1000 WHEN 'GALLON' THEN 3785410
+    WHEN 'PAIR' THEN 2000000 WHEN 'DOZEN' THEN 12000000 ELSE 1000000 END);
+
+ALTER TABLE product DROP COLUMN inventory;
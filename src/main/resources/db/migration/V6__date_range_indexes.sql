@@ -0,0 +1,14 @@
+-- 日期區間查詢與金額彙總的索引
+-- InnoDB 次要索引隱含主鍵，索引內含查詢用到的全部欄位時只讀索引、不回表 (EXPLAIN 的 Extra 為 Using index)
+
+-- 雜物：區間加總 (MiscellaneousRepository#sumAmountBetweenDates)、每日彙總重算 (DailyRollupRepository#insertBetween)
+CREATE INDEX idx_miscellaneous_date_amount ON miscellaneous (date, amount);
+
+-- 進貨：每日彙總重算 (產品再以主鍵取單價)、匯出 (PurchaseRepository#streamViews)、列表依進貨日期排序
+CREATE INDEX idx_purchase_receiving_date ON purchase (receiving_date, order_date, product, quantity);
+
+-- 損耗：每日彙總重算、匯出 (WastageRepository#streamViews)、列表依日期排序
+CREATE INDEX idx_wastage_date ON wastage (date, product, quantity);
+
+-- 營運狀況：總收入與人事成本的區間加總 (RevenueRepository)
+CREATE INDEX idx_revenue_record_date ON revenue (record_date, gross_income, personnel_expenses);
@@ -0,0 +1,13 @@
+-- 雜物每小時彙總 (由 RollupService 隨雜物異動累加，重新計算營運彙總時一併重算)
+-- 區間加總以每日彙總 (daily_rollup) 計算整天、以此表計算頭尾不足一天的整點，頭尾不足一小時的部分才讀取原始資料
+CREATE TABLE IF NOT EXISTS miscellaneous_hourly_rollup
+(
+    record_hour DATETIME       NOT NULL PRIMARY KEY COMMENT '整點',
+    amount      DECIMAL(12, 2) NOT NULL DEFAULT 0 COMMENT '花費金額'
+) COMMENT ='雜物每小時彙總';
+
+-- 既有資料
+INSERT INTO miscellaneous_hourly_rollup (record_hour, amount)
+SELECT TIMESTAMPADD(HOUR, HOUR(date), CAST(date AS DATE)), SUM(amount)
+FROM miscellaneous
+GROUP BY TIMESTAMPADD(HOUR, HOUR(date), CAST(date AS DATE));
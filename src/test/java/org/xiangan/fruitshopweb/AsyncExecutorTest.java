@@ -0,0 +1,102 @@
+package org.xiangan.fruitshopweb;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.xiangan.fruitshopweb.configuration.AsyncContextTaskDecorator;
+import org.xiangan.fruitshopweb.configuration.TransactionAwareAsyncTaskExecutor;
+import org.xiangan.fruitshopweb.entity.Person;
+import org.xiangan.fruitshopweb.entity.Product;
+import org.xiangan.fruitshopweb.enumType.ProductTypeEnum;
+import org.xiangan.fruitshopweb.enumType.UnitTypeEnum;
+import org.xiangan.fruitshopweb.repository.ProductRepository;
+import org.xiangan.fruitshopweb.service.PersonService;
+import org.xiangan.fruitshopweb.service.ProductCatalogService;
+import org.xiangan.fruitshopweb.service.ProductService;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AsyncExecutorTest {
+
+	private final TransactionAwareAsyncTaskExecutor executor = newExecutor();
+
+	private static TransactionAwareAsyncTaskExecutor newExecutor() {
+		TransactionAwareAsyncTaskExecutor executor = new TransactionAwareAsyncTaskExecutor("test-");
+		executor.setVirtualThreads(true);
+		executor.setTaskDecorator(new AsyncContextTaskDecorator());
+		return executor;
+	}
+
+	@AfterEach
+	void tearDown() {
+		TransactionSynchronizationManager.setActualTransactionActive(false);
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void runsOnVirtualThreadOutsideTransaction() throws Exception {
+		Thread caller = Thread.currentThread();
+		Thread worker = executor.submitCompletable(Thread::currentThread).get();
+
+		assertNotSame(caller, worker);
+		assertTrue(worker.isVirtual());
+	}
+
+	@Test
+	void runsOnCallerThreadInsideTransaction() throws Exception {
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+
+		Thread caller = Thread.currentThread();
+		CompletableFuture<Thread> worker = executor.submitCompletable(Thread::currentThread);
+
+		assertTrue(worker.isDone());
+		assertSame(caller, worker.get());
+	}
+
+	@Test
+	void propagatesSecurityContext() throws Exception {
+		SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("kyle", null));
+
+		String name = executor
+			.submitCompletable(() -> SecurityContextHolder.getContext().getAuthentication().getName())
+			.get();
+
+		assertEquals("kyle", name);
+	}
+
+	@Test
+	void issuesOwnerLookupsBeforeWaitingForEither() throws Exception {
+		PersonService personService = mock(PersonService.class);
+		ProductRepository productRepository = mock(ProductRepository.class);
+		ProductService productService =
+			new ProductService(productRepository, personService, mock(ProductCatalogService.class));
+		ReflectionTestUtils.setField(productService, "self", productService);
+
+		CompletableFuture<Person> person = new CompletableFuture<>();
+		CompletableFuture<Boolean> employee = new CompletableFuture<>();
+		when(personService.load("person0001")).thenReturn(person);
+		when(personService.exist("person0001")).thenReturn(employee);
+		when(productRepository.saveAndFlush(any(Product.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+		CompletableFuture<Product> created = CompletableFuture.supplyAsync(() -> productService.create(
+			"蘋果", BigDecimal.TEN, ProductTypeEnum.FRUIT, UnitTypeEnum.JIN, "person0001", 1.0));
+
+		// 讀取人員尚未完成時，身分檢查已經送出
+		verify(personService, timeout(5_000)).exist("person0001");
+		assertFalse(created.isDone());
+
+		Person owner = new Person();
+		employee.complete(false);
+		person.complete(owner);
+		assertSame(owner, created.get(5, TimeUnit.SECONDS).getPerson());
+	}
+}
@@ -0,0 +1,208 @@
+package org.xiangan.fruitshopweb;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.xiangan.fruitshopweb.entity.Person;
+import org.xiangan.fruitshopweb.entity.Product;
+import org.xiangan.fruitshopweb.enumType.LevelEnum;
+import org.xiangan.fruitshopweb.enumType.ProductTypeEnum;
+import org.xiangan.fruitshopweb.enumType.UnitTypeEnum;
+import org.xiangan.fruitshopweb.model.BulkResult;
+import org.xiangan.fruitshopweb.model.LineResult;
+import org.xiangan.fruitshopweb.model.PurchaseLine;
+import org.xiangan.fruitshopweb.model.WastageLine;
+import org.xiangan.fruitshopweb.service.InventoryService;
+import org.xiangan.fruitshopweb.service.PersonService;
+import org.xiangan.fruitshopweb.service.ProductCatalogService;
+import org.xiangan.fruitshopweb.service.ProductService;
+import org.xiangan.fruitshopweb.service.PurchaseService;
+import org.xiangan.fruitshopweb.service.WastageService;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 批次建立進貨、損耗的 SQL 數量：產品以一次查詢讀取、每個產品一次庫存異動，明細每 50 筆一個 JDBC 批次
+ */
+@DataJpaTest(properties = {
+	"spring.flyway.enabled=false",
+	"spring.jpa.hibernate.ddl-auto=create-drop",
+	"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Import({
+	PurchaseService.class, WastageService.class, ProductService.class, InventoryService.class,
+	BulkBatchingTest.Jdbc.class
+})
+class BulkBatchingTest {
+
+	/**
+	 * 記錄送到 JDBC 的 SQL：單筆執行記一次，批次以 executeBatch 記一次
+	 */
+	@TestConfiguration
+	static class Jdbc {
+
+		static final List<String> EXECUTIONS = Collections.synchronizedList(new ArrayList<>());
+
+		@Bean
+		static BeanPostProcessor recordingDataSource() {
+			return new BeanPostProcessor() {
+				@Override
+				public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+					return bean instanceof DataSource dataSource
+						? proxy(DataSource.class, dataSource, null)
+						: bean;
+				}
+			};
+		}
+
+		/**
+		 * @param type 介面
+		 * @param target 實際物件
+		 * @param sql 敘述的 SQL，連線與資料來源為 null
+		 * @return 記錄執行的代理
+		 */
+		private static <T> T proxy(final Class<T> type, final T target, final String sql) {
+			return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+				final Object result;
+				try {
+					result = method.invoke(target, args);
+				} catch (InvocationTargetException exception) {
+					throw exception.getCause();
+				}
+				if (result instanceof Connection connection) {
+					return proxy(Connection.class, connection, null);
+				}
+				if (result instanceof PreparedStatement statement && method.getName().equals("prepareStatement")) {
+					return proxy(PreparedStatement.class, statement, (String) args[0]);
+				}
+				if (sql != null && method.getName().startsWith("execute")) {
+					EXECUTIONS.add(method.getName().equals("executeBatch") ? "batch: " + sql : sql);
+				}
+				return result;
+			}));
+		}
+	}
+
+	private static final int PRODUCTS = 3;
+
+	private static final int LINES = 120;
+
+	private static final int BATCH_SIZE = 50;
+
+	@MockBean
+	private PersonService personService;
+
+	@MockBean
+	private ProductCatalogService productCatalogService;
+
+	@Autowired
+	private PurchaseService purchaseService;
+
+	@Autowired
+	private WastageService wastageService;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	private final List<Product> products = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		Person person = new Person();
+		person.setNickName("貨主");
+		person.setName("貨主");
+		person.setLevel(LevelEnum.CONSIGNOR);
+		person.setPassword("");
+		person.setPhoneNumber("0900");
+		person.setCompany("祥安");
+		entityManager.persist(person);
+		for (int i = 0; i < PRODUCTS; i++) {
+			Product product = new Product("產品" + i, ProductTypeEnum.FRUIT, UnitTypeEnum.JIN, person);
+			product.setInventory(1_000);
+			entityManager.persist(product);
+			products.add(product);
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		Jdbc.EXECUTIONS.clear();
+	}
+
+	/**
+	 * @param prefix SQL 開頭
+	 * @return 符合的執行次數
+	 */
+	private static long executions(final String prefix) {
+		synchronized (Jdbc.EXECUTIONS) {
+			return Jdbc.EXECUTIONS.stream().filter(sql -> sql.toLowerCase().startsWith(prefix)).count();
+		}
+	}
+
+	/**
+	 * 批次建立後的 SQL：一次產品查詢、每個產品一次條件式 UPDATE，其餘為明細的 INSERT 批次
+	 *
+	 * @param table 明細資料表
+	 */
+	private void assertBatched(final String table) {
+		entityManager.flush();
+
+		assertEquals(1, executions("select"), Jdbc.EXECUTIONS::toString);
+		assertEquals(PRODUCTS, executions("update product"), Jdbc.EXECUTIONS::toString);
+		assertEquals(0, executions("insert"), Jdbc.EXECUTIONS::toString);
+		final long batches = executions("batch: insert into " + table);
+		assertTrue(batches > 0 && batches <= (LINES + BATCH_SIZE - 1) / BATCH_SIZE, Jdbc.EXECUTIONS::toString);
+		assertEquals(1 + PRODUCTS + batches, Jdbc.EXECUTIONS.size(), Jdbc.EXECUTIONS::toString);
+	}
+
+	@Test
+	void purchaseLinesAreBatched() {
+		List<PurchaseLine> lines = new ArrayList<>();
+		for (int i = 0; i < LINES; i++) {
+			PurchaseLine line = new PurchaseLine();
+			line.setProductId(products.get(i % PRODUCTS).getId());
+			line.setQuantity(1.0);
+			line.setReceivingDate(LocalDateTime.of(2025, 4, 1, 6, 30));
+			lines.add(line);
+		}
+
+		BulkResult result = purchaseService.create(lines);
+
+		assertEquals(LINES, result.getAccepted());
+		assertBatched("purchase");
+	}
+
+	@Test
+	void wastageLinesAreBatched() {
+		List<WastageLine> lines = new ArrayList<>();
+		for (int i = 0; i < LINES; i++) {
+			WastageLine line = new WastageLine();
+			line.setProductId(products.get(i % PRODUCTS).getId());
+			line.setQuantity(1.0);
+			line.setDate(new Date());
+			lines.add(line);
+		}
+
+		List<LineResult> results = wastageService.create(lines, 0);
+
+		assertTrue(results.stream().allMatch(LineResult::isSuccess));
+		assertBatched("wastage");
+	}
+}
@@ -0,0 +1,102 @@
+package org.xiangan.fruitshopweb;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.xiangan.fruitshopweb.exception.TooManyRequestsException;
+import org.xiangan.fruitshopweb.repository.PersonRepository;
+import org.xiangan.fruitshopweb.service.CredentialService;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+/**
+ * 密碼比對執行緒池滿載時快速拒絕，登入時升級舊強度的雜湊
+ */
+class CredentialServiceTest {
+
+	private static final String EMAIL = "kyle@example.com";
+
+	private static final String PASSWORD = "secret";
+
+	private final PersonRepository personRepository = mock(PersonRepository.class);
+
+	private final CredentialService credentialService = new CredentialService(
+		personRepository, new BCryptPasswordEncoder(5), 1, 1, Duration.ofSeconds(5)
+	);
+
+	@AfterEach
+	void tearDown() {
+		credentialService.shutdown();
+	}
+
+	@Test
+	void rejectsWhenPoolAndQueueAreFull() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		// 佔住唯一的執行緒與唯一的排隊位置
+		CompletableFuture<Boolean> running = CompletableFuture.supplyAsync(() -> credentialService.check(() -> {
+			started.countDown();
+			return release.await(5, TimeUnit.SECONDS);
+		}));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		CompletableFuture<Boolean> queued = CompletableFuture.supplyAsync(() -> credentialService.check(() -> true));
+		Thread.sleep(100);
+
+		TooManyRequestsException exception =
+			assertThrows(TooManyRequestsException.class, () -> credentialService.check(() -> true));
+		assertEquals(Duration.ofSeconds(5), exception.getRetryAfter());
+
+		release.countDown();
+		assertTrue(running.get(5, TimeUnit.SECONDS));
+		assertTrue(queued.get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void propagatesAuthenticationFailure() {
+		assertThrows(BadCredentialsException.class, () -> credentialService.check(() -> {
+			throw new BadCredentialsException("帳號或密碼錯誤");
+		}));
+	}
+
+	@Test
+	void upgradesWeakerHashOnLogin() {
+		DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+		provider.setUserDetailsService(email -> User.withUsername(EMAIL)
+			.password(new BCryptPasswordEncoder(4).encode(PASSWORD))
+			.authorities("BOSS")
+			.build());
+		provider.setPasswordEncoder(new BCryptPasswordEncoder(5));
+		provider.setUserDetailsPasswordService(credentialService);
+
+		credentialService.check(() -> provider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, PASSWORD)));
+
+		verify(personRepository).updatePassword(eq(EMAIL), startsWith("$2a$05$"));
+	}
+
+	@Test
+	void keepsHashWithConfiguredStrength() {
+		DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+		provider.setUserDetailsService(email -> User.withUsername(EMAIL)
+			.password(credentialService.encode(PASSWORD))
+			.authorities("BOSS")
+			.build());
+		provider.setPasswordEncoder(new BCryptPasswordEncoder(5));
+		provider.setUserDetailsPasswordService(credentialService);
+
+		credentialService.check(() -> provider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, PASSWORD)));
+
+		verify(personRepository, never()).updatePassword(any(), any());
+	}
+}
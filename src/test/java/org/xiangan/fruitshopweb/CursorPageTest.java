@@ -0,0 +1,54 @@
+package org.xiangan.fruitshopweb;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.xiangan.fruitshopweb.model.CursorPage;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CursorPageTest {
+
+	@Test
+	void nextCursorRoundTripsKeys() {
+		Map<String, Object> keys = new LinkedHashMap<>();
+		keys.put("receivingDate", LocalDateTime.of(2025, 4, 1, 15, 30));
+		keys.put("unitPrice", new BigDecimal("12.50"));
+		keys.put("date", new Date(1_735_660_800_000L));
+		keys.put("id", "aB3dE5gH7j");
+		Window<String> window = Window.from(List.of("a", "b"), index -> ScrollPosition.forward(keys), true);
+
+		CursorPage<String> page = CursorPage.of(window);
+		KeysetScrollPosition position = (KeysetScrollPosition) CursorPage.position(page.getNext());
+
+		assertEquals(List.of("a", "b"), page.getContent());
+		assertEquals(keys, position.getKeys());
+		assertTrue(position.scrollsForward());
+	}
+
+	@Test
+	void lastPageHasNoCursor() {
+		Window<String> window = Window.from(List.of("a"), index -> ScrollPosition.forward(Map.of("id", "a")), false);
+
+		assertNull(CursorPage.of(window).getNext());
+	}
+
+	@Test
+	void blankCursorStartsFromFirstPage() {
+		assertTrue(CursorPage.position("").isInitial());
+		assertTrue(CursorPage.position(null).isInitial());
+	}
+
+	@Test
+	void rejectsMalformedCursor() {
+		assertThrows(IllegalArgumentException.class, () -> CursorPage.position("not-a-cursor"));
+	}
+}
@@ -0,0 +1,231 @@
+package org.xiangan.fruitshopweb;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.xiangan.fruitshopweb.entity.DailyRollup;
+import org.xiangan.fruitshopweb.entity.Miscellaneous;
+import org.xiangan.fruitshopweb.entity.Person;
+import org.xiangan.fruitshopweb.entity.Product;
+import org.xiangan.fruitshopweb.entity.Purchase;
+import org.xiangan.fruitshopweb.entity.Wastage;
+import org.xiangan.fruitshopweb.enumType.LevelEnum;
+import org.xiangan.fruitshopweb.enumType.ProductTypeEnum;
+import org.xiangan.fruitshopweb.enumType.UnitTypeEnum;
+import org.xiangan.fruitshopweb.listener.RollupEventListener;
+import org.xiangan.fruitshopweb.repository.DailyRollupRepository;
+import org.xiangan.fruitshopweb.repository.MiscellaneousHourlyRollupRepository;
+import org.xiangan.fruitshopweb.repository.MiscellaneousRepository;
+import org.xiangan.fruitshopweb.repository.PersonRepository;
+import org.xiangan.fruitshopweb.repository.ProductRepository;
+import org.xiangan.fruitshopweb.repository.PurchaseRepository;
+import org.xiangan.fruitshopweb.repository.WastageRepository;
+import org.xiangan.fruitshopweb.service.RollupService;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 未 flush 的寫入 (批次 {@code saveAll}、{@code delete}) 於提交時才觸發事件，其增減仍須寫入每日彙總
+ * <p>彙總於交易提交時寫入，測試資料須逐筆提交。</p>
+ */
+@DataJpaTest(properties = {
+	"spring.datasource.url=jdbc:h2:mem:rollup;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+	"spring.datasource.driver-class-name=org.h2.Driver",
+	"spring.datasource.username=sa",
+	"spring.datasource.password=",
+	"spring.jpa.hibernate.ddl-auto=none",
+	"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({RollupService.class, RollupEventListener.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DailyRollupTest {
+
+	private static final LocalDate MONDAY = LocalDate.of(2025, 3, 3);
+
+	private static final LocalDate TUESDAY = LocalDate.of(2025, 3, 4);
+
+	@Autowired
+	private PersonRepository personRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private PurchaseRepository purchaseRepository;
+
+	@Autowired
+	private WastageRepository wastageRepository;
+
+	@Autowired
+	private MiscellaneousRepository miscellaneousRepository;
+
+	@Autowired
+	private DailyRollupRepository dailyRollupRepository;
+
+	@Autowired
+	private MiscellaneousHourlyRollupRepository miscellaneousHourlyRollupRepository;
+
+	@Autowired
+	private RollupService rollupService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private TransactionTemplate transaction;
+
+	private Product product;
+
+	@BeforeEach
+	void setUp() {
+		transaction = new TransactionTemplate(transactionManager);
+
+		Person person = new Person();
+		person.setNickName("貨主");
+		person.setName("貨主");
+		person.setLevel(LevelEnum.CONSIGNOR);
+		person.setPassword("");
+		person.setPhoneNumber("0900");
+		person.setCompany("祥安");
+		personRepository.save(person);
+		Product apple = new Product("蘋果", ProductTypeEnum.FRUIT, UnitTypeEnum.JIN, person);
+		apple.setUnitPrice(new BigDecimal("10.00"));
+		product = productRepository.save(apple);
+	}
+
+	@AfterEach
+	void tearDown() {
+		purchaseRepository.deleteAllInBatch();
+		wastageRepository.deleteAllInBatch();
+		miscellaneousRepository.deleteAllInBatch();
+		productRepository.deleteAllInBatch();
+		personRepository.deleteAllInBatch();
+		dailyRollupRepository.deleteAllInBatch();
+		miscellaneousHourlyRollupRepository.deleteAllInBatch();
+	}
+
+	/**
+	 * @param quantity 數量
+	 * @param receivingDate 到貨日期
+	 * @return 進貨
+	 */
+	private Purchase purchase(final double quantity, final LocalDate receivingDate) {
+		Purchase purchase = new Purchase();
+		purchase.setProduct(product);
+		purchase.setQuantity(quantity);
+		purchase.setReceivingDate(receivingDate.atTime(9, 0));
+		return purchase;
+	}
+
+	/**
+	 * @param quantity 數量
+	 * @param date 日期
+	 * @return 損耗
+	 */
+	private Wastage wastage(final double quantity, final LocalDate date) {
+		Wastage wastage = new Wastage();
+		wastage.setProduct(product);
+		wastage.setQuantity(quantity);
+		wastage.setDate(Date.valueOf(date));
+		return wastage;
+	}
+
+	/**
+	 * @return 日期與每日彙總
+	 */
+	private Map<LocalDate, DailyRollup> rollups() {
+		return dailyRollupRepository.findAllByRecordDateBetweenOrderByRecordDate(MONDAY, TUESDAY)
+			.stream()
+			.collect(Collectors.toMap(DailyRollup::getRecordDate, rollup -> rollup));
+	}
+
+	@Test
+	void countsUnflushedSaveAllAndDelete() {
+		List<Purchase> purchases = transaction.execute(status -> purchaseRepository.saveAll(List.of(
+			purchase(2, MONDAY), purchase(3, MONDAY), purchase(5, TUESDAY)
+		)));
+		transaction.executeWithoutResult(status -> wastageRepository.saveAll(List.of(
+			wastage(1, MONDAY), wastage(0.5, TUESDAY)
+		)));
+
+		Map<LocalDate, DailyRollup> saved = rollups();
+		assertEquals(0, new BigDecimal("50.00").compareTo(saved.get(MONDAY).getPurchasesExpense()));
+		assertEquals(0, new BigDecimal("10.00").compareTo(saved.get(MONDAY).getWastage()));
+		assertEquals(0, new BigDecimal("50.00").compareTo(saved.get(TUESDAY).getPurchasesExpense()));
+		assertEquals(0, new BigDecimal("5.00").compareTo(saved.get(TUESDAY).getWastage()));
+
+		assertNotNull(purchases);
+		transaction.executeWithoutResult(status -> purchaseRepository.delete(purchases.get(0)));
+
+		Map<LocalDate, DailyRollup> deleted = rollups();
+		assertEquals(0, new BigDecimal("30.00").compareTo(deleted.get(MONDAY).getPurchasesExpense()));
+		assertEquals(0, new BigDecimal("50.00").compareTo(deleted.get(TUESDAY).getPurchasesExpense()));
+	}
+
+	@Test
+	void liveRollupMatchesRebuild() throws Exception {
+		// 數量欄位只存兩位小數：1.0049 存為 1.00、0.333 存為 0.33；1.005、2.675 的 double 略小於寫法，仍進位為 1.01、2.68
+		Product bag = new Product("提袋", ProductTypeEnum.DAILY_NECESSITIES, UnitTypeEnum.DOZEN, product.getPerson());
+		bag.setUnitPrice(new BigDecimal("1.00"));
+		productRepository.save(bag);
+		for (double quantity : new double[]{1.0049, 0.333}) {
+			transaction.executeWithoutResult(status -> purchaseRepository.save(purchase(quantity, MONDAY)));
+		}
+		for (double quantity : new double[]{1.005, 2.675}) {
+			Purchase purchase = purchase(quantity, MONDAY);
+			purchase.setProduct(bag);
+			transaction.executeWithoutResult(status -> purchaseRepository.save(purchase));
+		}
+		Wastage wastage = wastage(1.015, TUESDAY);
+		wastage.setProduct(bag);
+		transaction.executeWithoutResult(status -> wastageRepository.save(wastage));
+		transaction.executeWithoutResult(status -> purchaseRepository.save(purchase(0.1 + 0.2, TUESDAY)));
+
+		Map<LocalDate, DailyRollup> live = rollups();
+		assertEquals(0, new BigDecimal("16.99").compareTo(live.get(MONDAY).getPurchasesExpense()));
+		assertEquals(0, new BigDecimal("1.02").compareTo(live.get(TUESDAY).getWastage()));
+		assertEquals(0, new BigDecimal("3.00").compareTo(live.get(TUESDAY).getPurchasesExpense()));
+
+		rollupService.rebuild(MONDAY, TUESDAY).get();
+
+		Map<LocalDate, DailyRollup> rebuilt = rollups();
+		for (LocalDate date : List.of(MONDAY, TUESDAY)) {
+			assertEquals(0, live.get(date).getPurchasesExpense().compareTo(rebuilt.get(date).getPurchasesExpense()), date::toString);
+			assertEquals(0, live.get(date).getWastage().compareTo(rebuilt.get(date).getWastage()), date::toString);
+		}
+	}
+
+	@Test
+	void countsUnflushedMiscellaneousDelete() {
+		LocalDateTime morning = MONDAY.atTime(9, 30);
+		Miscellaneous bags = new Miscellaneous("塑膠袋", new BigDecimal("50.00"));
+		bags.setRecordDate(morning);
+		Miscellaneous gloves = new Miscellaneous("手套", new BigDecimal("20.00"));
+		gloves.setRecordDate(morning);
+		List<Miscellaneous> saved = transaction.execute(status -> miscellaneousRepository.saveAll(List.of(bags, gloves)));
+		assertNotNull(saved);
+
+		transaction.executeWithoutResult(status -> miscellaneousRepository.delete(saved.get(0)));
+
+		assertEquals(0, new BigDecimal("20.00").compareTo(rollups().get(MONDAY).getMiscellaneousExpense()));
+		assertEquals(0, new BigDecimal("20.00").compareTo(
+			miscellaneousHourlyRollupRepository.sumAmount(MONDAY.atStartOfDay(), TUESDAY.atStartOfDay())
+		));
+	}
+}
@@ -0,0 +1,49 @@
+package org.xiangan.fruitshopweb;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.xiangan.fruitshopweb.service.ChangeVersionService;
+import org.xiangan.fruitshopweb.service.ChangeVersionService.Table;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ETagTest {
+
+	private final ChangeVersionService versions = new ChangeVersionService();
+
+	@AfterEach
+	void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void etagDependsOnTableVersionAndVariant() {
+		String page = versions.etag(Table.PRODUCT, "paged", 0, 31, true);
+
+		assertEquals(page, versions.etag(Table.PRODUCT, "paged", 0, 31, true));
+		assertNotEquals(page, versions.etag(Table.PRODUCT, "paged", 1, 0, true));
+		assertNotEquals(page, versions.etag(Table.PERSON, "paged", 0, 31, true));
+		assertTrue(page.startsWith("\"product-") && page.endsWith("\""));
+
+		versions.bump(Table.PERSON);
+		assertEquals(page, versions.etag(Table.PRODUCT, "paged", 0, 31, true));
+
+		versions.bump(Table.PRODUCT);
+		assertNotEquals(page, versions.etag(Table.PRODUCT, "paged", 0, 31, true));
+	}
+
+	@Test
+	void bumpsAfterCommit() {
+		TransactionSynchronizationManager.initSynchronization();
+
+		versions.bump(Table.PRODUCT);
+		assertEquals(0, versions.version(Table.PRODUCT));
+
+		TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		assertEquals(1, versions.version(Table.PRODUCT));
+	}
+}
@@ -0,0 +1,216 @@
+package org.xiangan.fruitshopweb;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.xiangan.fruitshopweb.controller.MiscellaneousController;
+import org.xiangan.fruitshopweb.entity.Miscellaneous;
+import org.xiangan.fruitshopweb.entity.Person;
+import org.xiangan.fruitshopweb.entity.Product;
+import org.xiangan.fruitshopweb.entity.Wastage;
+import org.xiangan.fruitshopweb.enumType.LevelEnum;
+import org.xiangan.fruitshopweb.enumType.ProductTypeEnum;
+import org.xiangan.fruitshopweb.enumType.UnitTypeEnum;
+import org.xiangan.fruitshopweb.model.WastageView;
+import org.xiangan.fruitshopweb.repository.MiscellaneousRepository;
+import org.xiangan.fruitshopweb.repository.PersonRepository;
+import org.xiangan.fruitshopweb.repository.ProductRepository;
+import org.xiangan.fruitshopweb.repository.WastageRepository;
+import org.xiangan.fruitshopweb.service.MiscellaneousService;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 匯出以游標逐筆讀取，依日期區間輸出 CSV / NDJSON
+ * <p>回應內容在另一條執行緒上讀取，測試資料須先提交。</p>
+ */
+@DataJpaTest(properties = {
+	"spring.flyway.enabled=false",
+	"spring.jpa.hibernate.ddl-auto=create-drop",
+	"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Import(MiscellaneousService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ExportTest {
+
+	@Autowired
+	private MiscellaneousService miscellaneousService;
+
+	@Autowired
+	private MiscellaneousRepository miscellaneousRepository;
+
+	@Autowired
+	private PersonRepository personRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private WastageRepository wastageRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		miscellaneousRepository.saveAll(List.of(
+			miscellaneous("塑膠袋", "50", LocalDateTime.of(2025, 1, 31, 23, 59)),
+			miscellaneous("手套, \"大\"", "120.5", LocalDateTime.of(2025, 1, 1, 0, 0)),
+			miscellaneous("衛生紙", "80", LocalDateTime.of(2025, 2, 1, 0, 0)),
+			miscellaneous("膠帶", "30", LocalDateTime.of(2024, 12, 31, 23, 59))
+		));
+
+		mockMvc = MockMvcBuilders
+			.standaloneSetup(new MiscellaneousController(miscellaneousService, objectMapper))
+			.build();
+	}
+
+	@AfterEach
+	void tearDown() {
+		wastageRepository.deleteAll();
+		productRepository.deleteAll();
+		personRepository.deleteAll();
+		miscellaneousRepository.deleteAll();
+	}
+
+	@Test
+	void csvContainsRangeInDateOrder() throws Exception {
+		MvcResult result = export("begin=2025-01-01&end=2025-01-31");
+
+		assertEquals(
+			"attachment; filename=\"miscellaneous_2025-01-01_2025-01-31.csv\"",
+			result.getResponse().getHeader(HttpHeaders.CONTENT_DISPOSITION)
+		);
+		assertEquals("text/csv;charset=UTF-8", result.getResponse().getContentType());
+
+		String body = result.getResponse().getContentAsString(StandardCharsets.UTF_8);
+		assertTrue(body.startsWith("\uFEFF"));
+		String[] lines = body.substring(1).split("\r\n");
+		assertEquals(3, lines.length);
+		assertEquals("id,name,amount,recordDate", lines[0]);
+		assertTrue(lines[1].endsWith(",\"手套, \"\"大\"\"\",120.5,2025-01-01 00:00"), lines[1]);
+		assertTrue(lines[2].endsWith(",塑膠袋,50,2025-01-31 23:59"), lines[2]);
+	}
+
+	@Test
+	void csvDefusesFormulas() throws Exception {
+		miscellaneousRepository.saveAll(List.of(
+			miscellaneous("=HYPERLINK(\"http://evil\",\"點我\")", "1", LocalDateTime.of(2025, 3, 1, 9, 0)),
+			miscellaneous("+1+1", "2", LocalDateTime.of(2025, 3, 1, 9, 1)),
+			miscellaneous("-1-1", "3", LocalDateTime.of(2025, 3, 1, 9, 2)),
+			miscellaneous("@SUM(A1)", "4", LocalDateTime.of(2025, 3, 1, 9, 3)),
+			miscellaneous("\t=1", "5", LocalDateTime.of(2025, 3, 1, 9, 4)),
+			miscellaneous("a=1", "-6", LocalDateTime.of(2025, 3, 1, 9, 5))
+		));
+
+		String body = export("begin=2025-03-01&end=2025-03-01").getResponse().getContentAsString(StandardCharsets.UTF_8);
+		String[] lines = body.substring(1).split("\r\n");
+
+		assertEquals(7, lines.length);
+		assertTrue(lines[1].endsWith(",\"'=HYPERLINK(\"\"http://evil\"\",\"\"點我\"\")\",1,2025-03-01 09:00"), lines[1]);
+		assertTrue(lines[2].endsWith(",'+1+1,2,2025-03-01 09:01"), lines[2]);
+		assertTrue(lines[3].endsWith(",'-1-1,3,2025-03-01 09:02"), lines[3]);
+		assertTrue(lines[4].endsWith(",'@SUM(A1),4,2025-03-01 09:03"), lines[4]);
+		assertTrue(lines[5].endsWith(",'\t=1,5,2025-03-01 09:04"), lines[5]);
+		// 公式字元不在開頭、負數金額保持原樣
+		assertTrue(lines[6].endsWith(",a=1,-6,2025-03-01 09:05"), lines[6]);
+	}
+
+	@Test
+	void ndjsonMatchesBrowseJson() throws Exception {
+		MvcResult result = export("begin=2025-02-01&format=ndjson");
+
+		assertEquals("application/x-ndjson", result.getResponse().getContentType());
+		String[] lines = result.getResponse().getContentAsString(StandardCharsets.UTF_8).split("\n");
+		assertEquals(1, lines.length);
+		JsonNode line = objectMapper.readTree(lines[0]);
+		assertEquals("衛生紙", line.get("name").asText());
+		assertEquals("2025-02-01 00:00", line.get("recordDate").asText());
+	}
+
+	@Test
+	void withoutRangeExportsEverything() throws Exception {
+		String body = export("").getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+		assertEquals(5, body.split("\r\n").length);
+	}
+
+	@Test
+	void wastageRangeExcludesEnd() {
+		Person person = new Person();
+		person.setNickName("貨主");
+		person.setName("貨主");
+		person.setLevel(LevelEnum.CONSIGNOR);
+		person.setPassword("");
+		person.setPhoneNumber("0900");
+		person.setCompany("祥安");
+		personRepository.save(person);
+		Product product = productRepository.save(
+			new Product("蘋果", ProductTypeEnum.FRUIT, UnitTypeEnum.JIN, person)
+		);
+		for (int day = 1; day <= 5; day++) {
+			Wastage wastage = new Wastage();
+			wastage.setProduct(product);
+			wastage.setQuantity((double) day);
+			wastage.setDate(Date.valueOf(LocalDate.of(2025, 3, day)));
+			wastageRepository.save(wastage);
+		}
+
+		List<Double> quantities = new TransactionTemplate(transactionManager).execute(status -> {
+			try (Stream<WastageView> wastages = wastageRepository.streamViews(
+				Date.valueOf(LocalDate.of(2025, 3, 2)),
+				Date.valueOf(LocalDate.of(2025, 3, 5)))) {
+				return wastages.map(WastageView::getQuantity).toList();
+			}
+		});
+
+		assertEquals(List.of(2.0, 3.0, 4.0), quantities);
+	}
+
+	private MvcResult export(final String query) throws Exception {
+		MvcResult started = mockMvc
+			.perform(get("/amountSpend/export?" + query))
+			.andExpect(request().asyncStarted())
+			.andReturn();
+		return mockMvc
+			.perform(asyncDispatch(started))
+			.andExpect(status().isOk())
+			.andReturn();
+	}
+
+	private static Miscellaneous miscellaneous(final String name, final String amount, final LocalDateTime recordDate) {
+		Miscellaneous miscellaneous = new Miscellaneous(name, new BigDecimal(amount));
+		miscellaneous.setRecordDate(recordDate);
+		return miscellaneous;
+	}
+}
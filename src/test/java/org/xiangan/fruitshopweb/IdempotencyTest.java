@@ -0,0 +1,151 @@
+package org.xiangan.fruitshopweb;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.xiangan.fruitshopweb.filter.IdempotencyFilter;
+import org.xiangan.fruitshopweb.service.IdempotencyService;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 相同冪等鍵的重送回放第一次的回應，並行的重複請求等待第一次的結果
+ */
+class IdempotencyTest {
+
+	private final IdempotencyFilter filter = new IdempotencyFilter(
+		new IdempotencyService(Duration.ofMinutes(1), 100),
+		new ObjectMapper().findAndRegisterModules(),
+		new SimpleMeterRegistry(),
+		Set.of("/purchase"),
+		Duration.ofSeconds(5)
+	);
+
+	private final AtomicInteger executions = new AtomicInteger();
+
+	/**
+	 * @param key 冪等鍵
+	 * @param quantity 數量參數
+	 * @return 建立進貨的請求
+	 */
+	private static MockHttpServletRequest create(final String key, final String quantity) {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/purchase");
+		request.setServletPath("/purchase");
+		request.setRemoteUser("kyle@example.com");
+		request.addParameter("productId", "A1B2C3D4E5");
+		request.addParameter("quantity", quantity);
+		if (key != null) {
+			request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+		}
+		return request;
+	}
+
+	/**
+	 * @param status 狀態碼
+	 * @return 每次執行回應不同編號的處理程序
+	 */
+	private FilterChain handler(final int status) {
+		return (request, response) -> {
+			int execution = executions.incrementAndGet();
+			response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+			((HttpServletResponse) response).setStatus(status);
+			response.getWriter().write("{\"id\":\"" + execution + "\"}");
+		};
+	}
+
+	/**
+	 * @param request 請求
+	 * @param chain 處理程序
+	 * @return 回應
+	 */
+	private MockHttpServletResponse send(final MockHttpServletRequest request, final FilterChain chain) {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		try {
+			filter.doFilter(request, response, chain);
+		} catch (Exception exception) {
+			throw new IllegalStateException(exception);
+		}
+		return response;
+	}
+
+	@Test
+	void replaysFirstResponseWithoutRunningHandlerAgain() throws Exception {
+		MockHttpServletResponse first = send(create("key-1", "3"), handler(200));
+		MockHttpServletResponse retry = send(create("key-1", "3"), handler(200));
+
+		assertEquals(1, executions.get());
+		assertEquals(200, retry.getStatus());
+		assertEquals(first.getContentAsString(), retry.getContentAsString());
+		assertEquals(MediaType.APPLICATION_JSON_VALUE, retry.getContentType());
+		assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+		assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+
+		// 未帶冪等鍵或冪等鍵不同時照常執行
+		send(create(null, "3"), handler(200));
+		send(create("key-2", "3"), handler(200));
+		assertEquals(3, executions.get());
+	}
+
+	@Test
+	void concurrentDuplicatesWaitForFirstResult() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		FilterChain slow = (request, response) -> {
+			started.countDown();
+			try {
+				assertTrue(release.await(5, TimeUnit.SECONDS));
+			} catch (InterruptedException exception) {
+				Thread.currentThread().interrupt();
+			}
+			handler(200).doFilter(request, response);
+		};
+
+		CompletableFuture<MockHttpServletResponse> first =
+			CompletableFuture.supplyAsync(() -> send(create("key-1", "3"), slow));
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		CompletableFuture<MockHttpServletResponse> duplicate =
+			CompletableFuture.supplyAsync(() -> send(create("key-1", "3"), slow));
+		Thread.sleep(100);
+		assertFalse(duplicate.isDone());
+
+		release.countDown();
+		assertEquals(
+			first.get(5, TimeUnit.SECONDS).getContentAsString(),
+			duplicate.get(5, TimeUnit.SECONDS).getContentAsString()
+		);
+		assertEquals(1, executions.get());
+	}
+
+	@Test
+	void rejectsKeyReusedWithDifferentParameters() throws Exception {
+		send(create("key-1", "3"), handler(200));
+		MockHttpServletResponse reused = send(create("key-1", "4"), handler(200));
+
+		assertEquals(422, reused.getStatus());
+		assertTrue(reused.getContentAsString().contains("key-1"));
+		assertEquals(1, executions.get());
+	}
+
+	@Test
+	void retriesAfterFailedResponse() throws Exception {
+		MockHttpServletResponse failed = send(create("key-1", "3"), handler(400));
+		MockHttpServletResponse retry = send(create("key-1", "3"), handler(200));
+
+		assertEquals(400, failed.getStatus());
+		assertEquals(200, retry.getStatus());
+		assertNull(retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+		assertEquals(2, executions.get());
+	}
+}
@@ -0,0 +1,167 @@
+package org.xiangan.fruitshopweb;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.xiangan.fruitshopweb.entity.Person;
+import org.xiangan.fruitshopweb.entity.Product;
+import org.xiangan.fruitshopweb.entity.Product_;
+import org.xiangan.fruitshopweb.enumType.LevelEnum;
+import org.xiangan.fruitshopweb.enumType.ProductTypeEnum;
+import org.xiangan.fruitshopweb.enumType.UnitTypeEnum;
+import org.xiangan.fruitshopweb.exception.CustomException;
+import org.xiangan.fruitshopweb.repository.PersonRepository;
+import org.xiangan.fruitshopweb.repository.ProductRepository;
+import org.xiangan.fruitshopweb.service.InventoryService;
+import org.xiangan.fruitshopweb.service.ProductCatalogService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 條件式 UPDATE 異動庫存：不足時不更新、每次異動遞增版本，並行異動同一產品時不遺失更新
+ * <p>每次異動各自提交，測試本身不包在交易中。</p>
+ */
+@DataJpaTest(properties = {
+	"spring.flyway.enabled=false",
+	"spring.jpa.hibernate.ddl-auto=create-drop",
+	"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@Import(InventoryService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryConcurrencyTest {
+
+	private static final int THREADS = 8;
+
+	private static final int MOVEMENTS = 25;
+
+	@MockBean
+	private ProductCatalogService productCatalogService;
+
+	@Autowired
+	private InventoryService inventoryService;
+
+	@Autowired
+	private PersonRepository personRepository;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private TransactionTemplate transaction;
+
+	private Product product;
+
+	@BeforeEach
+	void setUp() {
+		transaction = new TransactionTemplate(transactionManager);
+
+		Person person = new Person();
+		person.setNickName("貨主");
+		person.setName("貨主");
+		person.setLevel(LevelEnum.CONSIGNOR);
+		person.setPassword("");
+		person.setPhoneNumber("0900");
+		person.setCompany("祥安");
+		personRepository.save(person);
+		Product apple = new Product("蘋果", ProductTypeEnum.FRUIT, UnitTypeEnum.JIN, person);
+		apple.setInventory(10);
+		product = productRepository.save(apple);
+	}
+
+	@AfterEach
+	void tearDown() {
+		productRepository.deleteAllInBatch();
+		personRepository.deleteAllInBatch();
+	}
+
+	/**
+	 * @return 重新讀取的產品
+	 */
+	private Product reload() {
+		return productRepository
+			.findOne((root, criteriaQuery, criteriaBuilder) -> criteriaBuilder.equal(root.get(Product_.id), product.getId()))
+			.orElseThrow();
+	}
+
+	/**
+	 * @param quantity 異動數量 (臺斤，負數為扣減)
+	 */
+	private void move(final double quantity) {
+		transaction.executeWithoutResult(
+			status -> inventoryService.add(product.getId(), UnitTypeEnum.JIN.toMicros(quantity)));
+	}
+
+	@Test
+	void rejectsNegativeStockAndBumpsVersion() {
+		final long version = reload().getVersion();
+
+		CustomException exception = assertThrows(CustomException.class, () -> move(-11));
+		assertTrue(exception.getMessage().startsWith("產品「蘋果」庫存不足"));
+		assertEquals(10.0, reload().getInventory());
+		assertEquals(version, reload().getVersion());
+
+		move(-4);
+		move(0.5);
+		assertEquals(6.5, reload().getInventory());
+		assertEquals(version + 2, reload().getVersion());
+	}
+
+	@Test
+	void concurrentMovementsLoseNoUpdates() throws Exception {
+		final long version = reload().getVersion();
+		final CountDownLatch start = new CountDownLatch(1);
+		final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			final List<Future<?>> futures = new ArrayList<>();
+			for (int thread = 0; thread < THREADS; thread++) {
+				// 半數執行緒進貨 1 臺斤，另一半扣減 0.25 臺斤
+				final double quantity = thread % 2 == 0 ? 1 : -0.25;
+				futures.add(executor.submit(() -> {
+					start.await();
+					for (int i = 0; i < MOVEMENTS; i++) {
+						move(quantity);
+					}
+					return null;
+				}));
+			}
+			start.countDown();
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		final Product reloaded = reload();
+		assertEquals(UnitTypeEnum.JIN.toMicros(10 + THREADS / 2 * MOVEMENTS * 0.75), reloaded.getStock());
+		assertEquals(version + (long) THREADS * MOVEMENTS, reloaded.getVersion());
+	}
+
+	@Test
+	void staleProductIsConcurrencyFailure() {
+		final Product stale = reload();
+		move(1);
+
+		stale.setProductName("青蘋果");
+		assertThrows(ConcurrencyFailureException.class, () -> productRepository.saveAndFlush(stale));
+		assertEquals("蘋果", reload().getProductName());
+	}
+}
@@ -0,0 +1,100 @@
+package org.xiangan.fruitshopweb;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.xiangan.fruitshopweb.entity.Person;
+import org.xiangan.fruitshopweb.entity.Product;
+import org.xiangan.fruitshopweb.enumType.LevelEnum;
+import org.xiangan.fruitshopweb.enumType.ProductTypeEnum;
+import org.xiangan.fruitshopweb.enumType.UnitTypeEnum;
+import org.xiangan.fruitshopweb.repository.ProductRepository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 庫存以基準單位的百萬分之一 (整數) 儲存，進出以產品單位換算
+ */
+@DataJpaTest(properties = {
+	"spring.flyway.enabled=false",
+	"spring.jpa.hibernate.ddl-auto=create-drop",
+	"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+class InventoryUnitTest {
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Test
+	void everyUnitConvertsWithinOneMicro() {
+		assertEquals(600_000L, UnitTypeEnum.JIN.getMicros());
+		assertEquals(37_500L, UnitTypeEnum.LIANG.getMicros());
+		assertEquals(453_592L, UnitTypeEnum.POUND.getMicros());
+		assertEquals(1_000_000_000L, UnitTypeEnum.KILOMETER.getMicros());
+
+		for (UnitTypeEnum unitType : UnitTypeEnum.values()) {
+			assertEquals(Math.round(unitType.getUnit() * UnitTypeEnum.MICROS_PER_BASE), unitType.getMicros());
+			// 換算誤差不超過半個基準單位的百萬分之一 (例如 0.5 毫克)
+			for (double quantity : new double[]{0.001, 0.1, 0.5, 1, 12.34, 99_999.99}) {
+				assertEquals(
+					quantity,
+					unitType.fromMicros(unitType.toMicros(quantity)),
+					0.5 / unitType.getMicros(),
+					unitType.name());
+			}
+		}
+		// 16 臺兩 = 1 臺斤
+		assertEquals(UnitTypeEnum.JIN.toMicros(1), UnitTypeEnum.LIANG.toMicros(16));
+	}
+
+	@Test
+	void repeatedSmallMovementsDoNotDrift() {
+		double inventory = 0;
+		long stock = 0;
+		for (int i = 0; i < 1_000; i++) {
+			inventory += 0.1;
+			stock += UnitTypeEnum.JIN.toMicros(0.1);
+		}
+
+		assertNotEquals(100.0, inventory);
+		assertEquals(UnitTypeEnum.JIN.toMicros(100), stock);
+		assertEquals(100.0, UnitTypeEnum.JIN.fromMicros(stock));
+	}
+
+	@Test
+	void conditionalUpdateWorksInBaseUnits() {
+		Person person = new Person();
+		person.setNickName("貨主");
+		person.setName("貨主");
+		person.setLevel(LevelEnum.CONSIGNOR);
+		person.setPassword("");
+		person.setPhoneNumber("0900");
+		person.setCompany("祥安");
+		entityManager.persist(person);
+
+		Product product = new Product("蘋果", ProductTypeEnum.FRUIT, UnitTypeEnum.JIN, person);
+		product.setInventory(10.5);
+		entityManager.persist(product);
+		entityManager.flush();
+		entityManager.clear();
+
+		// 進 3 臺兩、出 0.2 臺斤
+		assertEquals(1, productRepository.addInventory(product.getId(), UnitTypeEnum.LIANG.toMicros(3)));
+		assertEquals(1, productRepository.addInventory(product.getId(), -UnitTypeEnum.JIN.toMicros(0.2)));
+		assertEquals(0, productRepository.addInventory(product.getId(), -UnitTypeEnum.JIN.toMicros(11)));
+		entityManager.clear();
+
+		Product reloaded = entityManager.find(Product.class, product.getId());
+		assertEquals(6_292_500L, reloaded.getStock());
+		assertEquals(10.4875, reloaded.getInventory());
+	}
+
+	@Test
+	void inventoryRequiresUnit() {
+		assertThrows(IllegalStateException.class, () -> new Product().setInventory(1));
+	}
+}
@@ -0,0 +1,183 @@
+package org.xiangan.fruitshopweb;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.xiangan.fruitshopweb.entity.Person;
+import org.xiangan.fruitshopweb.entity.Product;
+import org.xiangan.fruitshopweb.entity.Product_;
+import org.xiangan.fruitshopweb.entity.Purchase;
+import org.xiangan.fruitshopweb.entity.Purchase_;
+import org.xiangan.fruitshopweb.entity.Wastage;
+import org.xiangan.fruitshopweb.enumType.LevelEnum;
+import org.xiangan.fruitshopweb.enumType.ProductTypeEnum;
+import org.xiangan.fruitshopweb.enumType.UnitTypeEnum;
+import org.xiangan.fruitshopweb.model.PurchaseView;
+import org.xiangan.fruitshopweb.model.WastageView;
+import org.xiangan.fruitshopweb.repository.ProductRepository;
+import org.xiangan.fruitshopweb.repository.PurchaseRepository;
+import org.xiangan.fruitshopweb.repository.WastageRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 進貨、損耗列表每頁的 SQL 數量，以及延遲載入的關聯在各讀取情境下的查詢方式
+ */
+@DataJpaTest(properties = {
+	"spring.flyway.enabled=false",
+	"spring.jpa.hibernate.ddl-auto=create-drop",
+	"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+	"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class ListingProjectionTest {
+
+	private static final int PRODUCTS = 10;
+
+	private static final int PAGE_SIZE = 50;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Autowired
+	private ProductRepository productRepository;
+
+	@Autowired
+	private PurchaseRepository purchaseRepository;
+
+	@Autowired
+	private WastageRepository wastageRepository;
+
+	private Statistics statistics;
+
+	private final List<Product> products = new ArrayList<>();
+
+	@BeforeEach
+	void setUp() {
+		for (int i = 0; i < PRODUCTS; i++) {
+			Person person = new Person();
+			person.setNickName("貨主" + i);
+			person.setName("貨主" + i);
+			person.setLevel(LevelEnum.CONSIGNOR);
+			person.setPassword("");
+			person.setPhoneNumber("09" + i);
+			person.setCompany("祥安");
+			entityManager.persist(person);
+
+			Product product = new Product("產品" + i, ProductTypeEnum.FRUIT, UnitTypeEnum.JIN, person);
+			product.setUnitPrice(BigDecimal.TEN);
+			entityManager.persist(product);
+			products.add(product);
+		}
+		for (int i = 0; i < PAGE_SIZE * 2; i++) {
+			Purchase purchase = new Purchase();
+			purchase.setProduct(products.get(i % PRODUCTS));
+			purchase.setQuantity(1.0 + i);
+			purchase.setReceivingDate(LocalDateTime.of(2025, 4, 1, 6, 0).minusDays(i));
+			entityManager.persist(purchase);
+
+			Wastage wastage = new Wastage();
+			wastage.setProduct(products.get(i % PRODUCTS));
+			wastage.setQuantity(1.0 + i);
+			wastage.setDate(new Date(wastage.getDate().getTime() - i * 86_400_000L));
+			entityManager.persist(wastage);
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void purchasePageIsOneSelectPlusCount() {
+		Page<PurchaseView> page = purchaseRepository.findAllViews(PageRequest.of(0, PAGE_SIZE));
+
+		assertEquals(2, statistics.getPrepareStatementCount());
+		assertEquals(0, statistics.getEntityLoadCount());
+		assertEquals(PAGE_SIZE, page.getNumberOfElements());
+		assertEquals(PAGE_SIZE * 2, page.getTotalElements());
+		assertEquals(products.get(0).getId(), page.getContent().get(0).getProduct());
+		assertEquals(LocalDateTime.of(2025, 4, 1, 6, 0), page.getContent().get(0).getReceivingDate());
+	}
+
+	@Test
+	void wastagePageIsOneSelectPlusCount() {
+		Page<WastageView> page = wastageRepository.findAllViews(PageRequest.of(1, PAGE_SIZE));
+
+		assertEquals(2, statistics.getPrepareStatementCount());
+		assertEquals(0, statistics.getEntityLoadCount());
+		assertEquals(PAGE_SIZE, page.getNumberOfElements());
+		assertEquals(1.0 + PAGE_SIZE, page.getContent().get(0).getQuantity());
+	}
+
+	@Test
+	void entityPageLeavesProductsLazy() throws Exception {
+		Page<Purchase> page = purchaseRepository.findAll(PageRequest.of(0, PAGE_SIZE));
+
+		assertEquals(2, statistics.getPrepareStatementCount());
+		assertEquals(PAGE_SIZE, statistics.getEntityLoadCount());
+		Purchase purchase = page.getContent().get(0);
+		assertFalse(Hibernate.isInitialized(purchase.getProduct()));
+
+		entityManager.clear();
+		JsonNode json = new ObjectMapper().findAndRegisterModules().valueToTree(purchase);
+		assertEquals(products.get(0).getId(), json.get("product").asText());
+		assertEquals(2, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void singleReadFetchesProductForWrites() {
+		String id = purchaseRepository.findAllViews(PageRequest.of(0, 1)).getContent().get(0).getId();
+		statistics.clear();
+
+		Purchase purchase = purchaseRepository
+			.findOne((root, criteriaQuery, criteriaBuilder) -> criteriaBuilder.equal(root.get(Purchase_.id), id))
+			.orElseThrow();
+
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertTrue(Hibernate.isInitialized(purchase.getProduct()));
+		assertEquals(0, BigDecimal.TEN.compareTo(purchase.getProduct().getUnitPrice()));
+		assertFalse(Hibernate.isInitialized(purchase.getProduct().getPerson()));
+	}
+
+	@Test
+	void productReadsFetchPersonInSameStatement() {
+		Page<Product> page = productRepository.findAll(
+			(root, criteriaQuery, criteriaBuilder) -> criteriaBuilder.conjunction(),
+			PageRequest.of(0, PRODUCTS / 2));
+		Window<Product> window = productRepository.findBy(
+			(root, criteriaQuery, criteriaBuilder) -> criteriaBuilder.conjunction(),
+			query -> query
+				.sortBy(Sort.by(Product_.ID))
+				.project(Product_.PERSON)
+				.limit(PRODUCTS / 2)
+				.scroll(ScrollPosition.keyset()));
+
+		assertEquals(3, statistics.getPrepareStatementCount());
+		page.forEach(product -> assertTrue(Hibernate.isInitialized(product.getPerson())));
+		window.forEach(product -> assertTrue(Hibernate.isInitialized(product.getPerson())));
+		assertEquals(PRODUCTS, window.size() + page.getNumberOfElements());
+	}
+}
@@ -0,0 +1,88 @@
+package org.xiangan.fruitshopweb;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 以舊的 sql_script.sql (V1) 建立並寫入資料的資料庫，套用之後的版本後可直接使用
+ * <p>H2 的 MySQL 模式；庫存換算為基準單位，每日與雜物每小時彙總由既有資料計算。</p>
+ */
+class MigrationTest {
+
+	private DriverManagerDataSource dataSource;
+
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void setUp() {
+		dataSource = new DriverManagerDataSource(
+			"jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+		jdbcTemplate = new JdbcTemplate(dataSource);
+	}
+
+	/**
+	 * @param target 目標版本，{@code null} 為最新版本
+	 */
+	private void migrate(final String target) {
+		var configuration = Flyway.configure()
+			.dataSource(dataSource)
+			.locations("classpath:db/migration", "classpath:db/vendor/h2");
+		if (target != null) {
+			configuration.target(target);
+		}
+		configuration.load().migrate();
+	}
+
+	@Test
+	void upgradesLegacySchemaAndData() {
+		migrate("1");
+		jdbcTemplate.update("INSERT INTO person (id, nick_name, level, number, company) " +
+			"VALUES ('person0001', '貨主', 'CONSIGNOR', '0900', '祥安')");
+		jdbcTemplate.update("INSERT INTO product (id, product_name, unit_price, type, unit_type, person, inventory) " +
+			"VALUES ('product001', '蘋果', 10.00, 'FRUIT', 'JIN', 'person0001', 2.5)");
+		jdbcTemplate.update("INSERT INTO product (id, product_name, unit_price, type, unit_type, person, inventory) " +
+			"VALUES ('product002', '提袋', 1.50, 'OTHER', 'DOZEN', 'person0001', 3)");
+		jdbcTemplate.update("INSERT INTO purchase (id, product, quantity, receiving_date) " +
+			"VALUES ('purchase01', 'product001', 2, '2025-03-03 09:00:00'), " +
+			"('purchase02', 'product002', 4, '2025-03-03 18:30:00')");
+		jdbcTemplate.update("INSERT INTO wastage (id, product, quantity, date) " +
+			"VALUES ('wastage001', 'product001', 0.5, '2025-03-04')");
+		jdbcTemplate.update("INSERT INTO miscellaneous (id, name, amount, date) " +
+			"VALUES ('misc000001', '塑膠袋', 50.00, '2025-03-03 09:15:00'), " +
+			"('misc000002', '手套', 20.00, '2025-03-03 09:45:00'), " +
+			"('misc000003', '膠帶', 30.00, '2025-03-04 17:00:00')");
+
+		migrate(null);
+
+		Map<String, Object> apple = jdbcTemplate.queryForMap("SELECT stock, version FROM product WHERE id = 'product001'");
+		assertEquals(1_500_000L, ((Number) apple.get("stock")).longValue());
+		assertEquals(0L, ((Number) apple.get("version")).longValue());
+		assertEquals(36_000_000L, jdbcTemplate.queryForObject(
+			"SELECT stock FROM product WHERE id = 'product002'", Long.class));
+		assertEquals(0, jdbcTemplate.queryForObject(
+			"SELECT COUNT(*) FROM information_schema.columns WHERE table_name = 'product' AND column_name = 'inventory'",
+			Integer.class));
+
+		Map<String, Object> monday = jdbcTemplate.queryForMap(
+			"SELECT * FROM daily_rollup WHERE record_date = '2025-03-03'");
+		assertEquals(0, new BigDecimal("26.00").compareTo((BigDecimal) monday.get("purchases_expense")));
+		assertEquals(0, new BigDecimal("70.00").compareTo((BigDecimal) monday.get("miscellaneous_expense")));
+		Map<String, Object> tuesday = jdbcTemplate.queryForMap(
+			"SELECT * FROM daily_rollup WHERE record_date = '2025-03-04'");
+		assertEquals(0, new BigDecimal("5.00").compareTo((BigDecimal) tuesday.get("wastage")));
+		assertEquals(0, new BigDecimal("30.00").compareTo((BigDecimal) tuesday.get("miscellaneous_expense")));
+
+		assertEquals(0, new BigDecimal("70.00").compareTo(jdbcTemplate.queryForObject(
+			"SELECT amount FROM miscellaneous_hourly_rollup WHERE record_hour = '2025-03-03 09:00:00'",
+			BigDecimal.class)));
+	}
+}
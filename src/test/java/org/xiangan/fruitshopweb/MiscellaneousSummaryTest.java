@@ -0,0 +1,161 @@
+package org.xiangan.fruitshopweb;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.xiangan.fruitshopweb.entity.Miscellaneous;
+import org.xiangan.fruitshopweb.listener.RollupEventListener;
+import org.xiangan.fruitshopweb.repository.DailyRollupRepository;
+import org.xiangan.fruitshopweb.repository.MiscellaneousHourlyRollupRepository;
+import org.xiangan.fruitshopweb.repository.MiscellaneousRepository;
+import org.xiangan.fruitshopweb.service.MiscellaneousService;
+import org.xiangan.fruitshopweb.service.RollupService;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 雜物區間加總由每日、每小時彙總與頭尾的原始資料組成，結果與直接加總原始資料相同
+ * <p>彙總於交易提交前寫入，測試資料須逐筆提交。</p>
+ */
+@DataJpaTest(properties = {
+	"spring.datasource.url=jdbc:h2:mem:summary;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+	"spring.datasource.driver-class-name=org.h2.Driver",
+	"spring.datasource.username=sa",
+	"spring.datasource.password=",
+	"spring.jpa.hibernate.ddl-auto=none",
+	"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({MiscellaneousService.class, RollupService.class, RollupEventListener.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class MiscellaneousSummaryTest {
+
+	private static final LocalDateTime ORIGIN = LocalDateTime.of(2025, 3, 1, 0, 0);
+
+	@Autowired
+	private MiscellaneousService miscellaneousService;
+
+	@Autowired
+	private MiscellaneousRepository miscellaneousRepository;
+
+	@Autowired
+	private DailyRollupRepository dailyRollupRepository;
+
+	@Autowired
+	private MiscellaneousHourlyRollupRepository miscellaneousHourlyRollupRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private DataSource dataSource;
+
+	@AfterEach
+	void tearDown() {
+		miscellaneousRepository.deleteAllInBatch();
+		dailyRollupRepository.deleteAllInBatch();
+		miscellaneousHourlyRollupRepository.deleteAllInBatch();
+	}
+
+	/**
+	 * @param random 亂數
+	 * @return 五天內的任一分鐘
+	 */
+	private static LocalDateTime anyMinute(final SplittableRandom random) {
+		return ORIGIN.plusMinutes(random.nextInt(5 * 24 * 60));
+	}
+
+	@Test
+	void matchesRawSumAfterInsertUpdateAndDelete() {
+		SplittableRandom random = new SplittableRandom(7);
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		List<Miscellaneous> saved = new ArrayList<>();
+		for (int i = 0; i < 200; i++) {
+			Miscellaneous miscellaneous = new Miscellaneous("雜物" + i, BigDecimal.valueOf(random.nextInt(1, 100_000), 2));
+			miscellaneous.setRecordDate(anyMinute(random));
+			saved.add(transaction.execute(status -> miscellaneousRepository.saveAndFlush(miscellaneous)));
+		}
+		// 編輯金額與時間、刪除
+		for (int i = 0; i < 20; i++) {
+			Miscellaneous miscellaneous = saved.get(i);
+			miscellaneous.setAmount(miscellaneous.getAmount().add(BigDecimal.TEN));
+			miscellaneous.setRecordDate(anyMinute(random));
+			transaction.executeWithoutResult(status -> miscellaneousRepository.saveAndFlush(miscellaneous));
+		}
+		for (int i = 20; i < 40; i++) {
+			Miscellaneous miscellaneous = saved.get(i);
+			transaction.executeWithoutResult(status -> miscellaneousRepository.delete(miscellaneous));
+		}
+
+		assertMatchesRawSum(random, saved.get(50).getRecordDate());
+	}
+
+	/**
+	 * 升級前已存在的雜物沒有經過事件累加，由 V4、V7 的回填計算彙總
+	 */
+	@Test
+	void matchesRawSumAfterMigrationBackfill() {
+		SplittableRandom random = new SplittableRandom(11);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		LocalDateTime recorded = null;
+		for (int i = 0; i < 200; i++) {
+			recorded = anyMinute(random);
+			jdbcTemplate.update(
+				"INSERT INTO miscellaneous (id, name, amount, date) VALUES (?, ?, ?, ?)",
+				String.format("legacy%04d", i), "雜物" + i, BigDecimal.valueOf(random.nextInt(1, 100_000), 2), recorded
+			);
+		}
+		assertEquals(0L, dailyRollupRepository.count());
+
+		new ResourceDatabasePopulator(
+			new ClassPathResource("db/migration/V4__daily_rollup.sql"),
+			new ClassPathResource("db/migration/V7__miscellaneous_hourly_rollup.sql")
+		).execute(dataSource);
+
+		assertMatchesRawSum(random, recorded);
+	}
+
+	/**
+	 * 整天、整點、同一小時內、起訖相同、起始晚於結束、涵蓋全部與隨機區間的加總皆與原始資料相同
+	 *
+	 * @param random 亂數
+	 * @param recorded 任一筆雜物的時間
+	 */
+	private void assertMatchesRawSum(final SplittableRandom random, final LocalDateTime recorded) {
+		List<LocalDateTime[]> ranges = new ArrayList<>();
+		ranges.add(new LocalDateTime[]{ORIGIN.plusDays(1), ORIGIN.plusDays(3)});
+		ranges.add(new LocalDateTime[]{ORIGIN.plusHours(5), ORIGIN.plusHours(30)});
+		ranges.add(new LocalDateTime[]{ORIGIN.plusMinutes(61), ORIGIN.plusMinutes(119)});
+		ranges.add(new LocalDateTime[]{recorded, recorded});
+		ranges.add(new LocalDateTime[]{ORIGIN.plusDays(2), ORIGIN.plusDays(1)});
+		ranges.add(new LocalDateTime[]{LocalDateTime.of(1970, 1, 1, 0, 0), ORIGIN.plusDays(10)});
+		for (int i = 0; i < 100; i++) {
+			LocalDateTime begin = anyMinute(random).plusSeconds(random.nextInt(60));
+			ranges.add(new LocalDateTime[]{begin, begin.plusMinutes(random.nextInt(3 * 24 * 60))});
+		}
+
+		for (LocalDateTime[] range : ranges) {
+			BigDecimal expected = miscellaneousRepository.sumAmountBetweenDates(range[0], range[1]);
+			BigDecimal actual = miscellaneousService.sumAmountBetweenRecordDate(range[0], range[1]).join();
+			assertEquals(0, expected.compareTo(actual), () -> String.format(
+				"%s ~ %s：預期 %s，實際 %s", range[0], range[1], expected, actual));
+		}
+	}
+}
@@ -0,0 +1,66 @@
+package org.xiangan.fruitshopweb;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.xiangan.fruitshopweb.entity.Person;
+import org.xiangan.fruitshopweb.enumType.LevelEnum;
+import org.xiangan.fruitshopweb.repository.PersonRepository;
+import org.xiangan.fruitshopweb.service.PrincipalCacheService;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PrincipalCacheTest {
+
+	private static final String EMAIL = "kyle@example.com";
+
+	private final PersonRepository personRepository = mock(PersonRepository.class);
+
+	private final PrincipalCacheService cache =
+		new PrincipalCacheService(personRepository, Duration.ofMinutes(5), 100);
+
+	private static Person person() {
+		Person person = new Person();
+		person.setEmail(EMAIL);
+		person.setPassword("secret");
+		person.setLevel(LevelEnum.values()[0]);
+		return person;
+	}
+
+	@Test
+	void loadsFromDatabaseOnce() {
+		when(personRepository.findByEmail(EMAIL)).thenReturn(Optional.of(person()));
+
+		UserDetails first = cache.load(EMAIL);
+		UserDetails second = cache.load(EMAIL);
+
+		assertSame(first, second);
+		assertEquals(EMAIL, first.getUsername());
+		assertEquals("", first.getPassword());
+		verify(personRepository, times(1)).findByEmail(EMAIL);
+	}
+
+	@Test
+	void reloadsAfterEvict() {
+		when(personRepository.findByEmail(EMAIL)).thenReturn(Optional.of(person()));
+
+		cache.load(EMAIL);
+		cache.evict(EMAIL);
+		cache.load(EMAIL);
+
+		verify(personRepository, times(2)).findByEmail(EMAIL);
+	}
+
+	@Test
+	void doesNotCacheMissingUser() {
+		when(personRepository.findByEmail(EMAIL)).thenReturn(Optional.empty());
+
+		assertThrows(UsernameNotFoundException.class, () -> cache.load(EMAIL));
+		assertThrows(UsernameNotFoundException.class, () -> cache.load(EMAIL));
+		verify(personRepository, times(2)).findByEmail(EMAIL);
+	}
+}
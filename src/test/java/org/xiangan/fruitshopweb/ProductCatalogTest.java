@@ -0,0 +1,90 @@
+package org.xiangan.fruitshopweb;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.xiangan.fruitshopweb.entity.Product;
+import org.xiangan.fruitshopweb.exception.CustomException;
+import org.xiangan.fruitshopweb.model.CacheStatistics;
+import org.xiangan.fruitshopweb.service.ChangeVersionService;
+import org.xiangan.fruitshopweb.service.ProductCatalogService;
+import org.xiangan.fruitshopweb.service.ProductService;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ProductCatalogTest {
+
+	private final ProductService productService = mock(ProductService.class);
+
+	private final ProductCatalogService catalog =
+		new ProductCatalogService(productService, new ChangeVersionService(), Duration.ofMinutes(1), 100);
+
+	private static Product product(String id) {
+		Product product = new Product();
+		product.setId(id);
+		return product;
+	}
+
+	private static List<Product> products(int size) {
+		return IntStream.range(0, size)
+			.mapToObj(i -> product(String.format("product%03d", i)))
+			.toList();
+	}
+
+	@Test
+	void servesListAndPagesFromOneQuery() {
+		when(productService.load(true)).thenReturn(CompletableFuture.completedFuture(products(25)));
+
+		List<Product> list = catalog.load(true).join();
+		Page<Product> third = catalog.load(2, 10, true).join();
+		Page<Product> beyond = catalog.load(5, 10, true).join();
+
+		assertEquals(25, list.size());
+		assertEquals(5, third.getNumberOfElements());
+		assertEquals(25, third.getTotalElements());
+		assertEquals("product020", third.getContent().get(0).getId());
+		assertTrue(beyond.isEmpty());
+		assertThrows(UnsupportedOperationException.class, () -> list.add(product("product999")));
+		verify(productService, times(1)).load(true);
+	}
+
+	@Test
+	void reloadsAfterEvict() {
+		when(productService.load(true)).thenReturn(CompletableFuture.completedFuture(products(3)));
+		when(productService.load("product000")).thenReturn(CompletableFuture.completedFuture(product("product000")));
+		when(productService.load("product001")).thenReturn(CompletableFuture.completedFuture(product("product001")));
+
+		catalog.load(true).join();
+		catalog.load("product000").join();
+		catalog.load("product001").join();
+		catalog.evict("product000");
+		catalog.load(true).join();
+		catalog.load("product000").join();
+		catalog.load("product001").join();
+
+		verify(productService, times(2)).load(true);
+		verify(productService, times(2)).load("product000");
+		verify(productService, times(1)).load("product001");
+
+		CacheStatistics products = catalog.statistics().get(1);
+		assertEquals(1, products.getHitCount());
+		assertEquals(3, products.getMissCount());
+	}
+
+	@Test
+	void doesNotCacheMissingProduct() {
+		when(productService.load("missing001"))
+			.thenReturn(CompletableFuture.failedFuture(new CustomException("無主鍵為「missing001」的產品❗️")));
+
+		assertThrows(CompletionException.class, () -> catalog.load("missing001").join());
+		assertThrows(CompletionException.class, () -> catalog.load("missing001").join());
+
+		verify(productService, times(2)).load("missing001");
+	}
+}
@@ -7,6 +7,7 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.xiangan.fruitshopweb.entity.Person;
 import org.xiangan.fruitshopweb.entity.Product;
 import org.xiangan.fruitshopweb.enumType.ProductTypeEnum;
+import org.xiangan.fruitshopweb.enumType.UnitTypeEnum;
 import org.xiangan.fruitshopweb.service.PersonService;
 import org.xiangan.fruitshopweb.service.ProductService;
 
@@ -27,6 +28,7 @@ public class ProductTest {
         Product product = new Product();
         product.setProductName("肯德基");
         product.setType(ProductTypeEnum.FRUIT);
+        product.setUnitType(UnitTypeEnum.JIN);
         product.setInventory(166);
         product.setUnitPrice(BigDecimal.valueOf(100));
 
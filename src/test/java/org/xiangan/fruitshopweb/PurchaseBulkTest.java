@@ -0,0 +1,83 @@
+package org.xiangan.fruitshopweb;
+
+import org.junit.jupiter.api.Test;
+import org.xiangan.fruitshopweb.entity.Product;
+import org.xiangan.fruitshopweb.entity.Purchase;
+import org.xiangan.fruitshopweb.enumType.UnitTypeEnum;
+import org.xiangan.fruitshopweb.model.BulkResult;
+import org.xiangan.fruitshopweb.model.PurchaseLine;
+import org.xiangan.fruitshopweb.repository.PurchaseRepository;
+import org.xiangan.fruitshopweb.service.InventoryService;
+import org.xiangan.fruitshopweb.service.ProductService;
+import org.xiangan.fruitshopweb.service.PurchaseService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PurchaseBulkTest {
+
+	private final PurchaseRepository purchaseRepository = mock(PurchaseRepository.class);
+
+	private final ProductService productService = mock(ProductService.class);
+
+	private final InventoryService inventoryService = mock(InventoryService.class);
+
+	private final PurchaseService purchaseService =
+		new PurchaseService(purchaseRepository, productService, inventoryService);
+
+	private static Product product(String id, UnitTypeEnum unitType) {
+		Product product = new Product();
+		product.setId(id);
+		product.setUnitType(unitType);
+		return product;
+	}
+
+	private static PurchaseLine line(String productId, Double quantity) {
+		PurchaseLine line = new PurchaseLine();
+		line.setProductId(productId);
+		line.setQuantity(quantity);
+		line.setReceivingDate(LocalDateTime.of(2025, 4, 1, 6, 30));
+		return line;
+	}
+
+	@Test
+	void aggregatesDeltaPerProductAndReportsLineErrors() {
+		when(productService.load(Set.of("apple00001", "pear000001", "missing001")))
+			.thenReturn(CompletableFuture.completedFuture(List.of(
+				product("apple00001", UnitTypeEnum.JIN),
+				product("pear000001", UnitTypeEnum.KILOGRAM))));
+
+		List<PurchaseLine> lines = new ArrayList<>(Arrays.asList(
+			line("apple00001", 10.0),
+			line("missing001", 5.0),
+			null,
+			line("apple00001", 20.0),
+			line("pear000001", -1.0),
+			line("pear000001", 3.0)
+		));
+
+		BulkResult result = purchaseService.create(lines);
+
+		assertEquals(3, result.getAccepted());
+		assertEquals(3, result.getRejected());
+		assertTrue(result.getLines().get(0).isSuccess());
+		assertNotNull(result.getLines().get(1).getError());
+		assertNotNull(result.getLines().get(2).getError());
+		assertNotNull(result.getLines().get(4).getError());
+		assertEquals(6, result.getLines().get(5).getLine());
+
+		// 庫存異動換算為基準單位 (公斤) 的百萬分之一：30 臺斤 = 18 公斤、3 公斤
+		verify(inventoryService).add(Map.of("apple00001", 18_000_000L, "pear000001", 3_000_000L));
+		verify(purchaseRepository).saveAll(argThat((Iterable<Purchase> purchases) ->
+			purchases.spliterator().getExactSizeIfKnown() == 3));
+		verify(purchaseRepository, never()).saveAndFlush(any());
+	}
+}
@@ -0,0 +1,188 @@
+package org.xiangan.fruitshopweb;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.xiangan.fruitshopweb.model.MiscellaneousView;
+import org.xiangan.fruitshopweb.model.PurchaseView;
+import org.xiangan.fruitshopweb.model.WastageView;
+import org.xiangan.fruitshopweb.repository.DailyRollupRepository;
+import org.xiangan.fruitshopweb.repository.MiscellaneousRepository;
+import org.xiangan.fruitshopweb.repository.PurchaseRepository;
+import org.xiangan.fruitshopweb.repository.RevenueRepository;
+import org.xiangan.fruitshopweb.repository.WastageRepository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 日期區間與金額彙總查詢使用 Flyway 建立的索引
+ * <p>
+ * 以 Flyway 建立結構 (H2 的 MySQL 模式)，取得 Hibernate 實際送出的 SQL，
+ * 代入參數後檢視執行計畫。參數以字面值代入，與 MySQL 驅動程式預設在用戶端組合語法的行為相同，
+ * {@code :begin IS NULL OR ...} 這類條件才能被最佳化掉。
+ * </p>
+ */
+@DataJpaTest(properties = {
+	"spring.datasource.url=jdbc:h2:mem:plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+	"spring.datasource.driver-class-name=org.h2.Driver",
+	"spring.datasource.username=sa",
+	"spring.datasource.password=",
+	"spring.jpa.hibernate.ddl-auto=none",
+	"spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+	"spring.jpa.properties.hibernate.session_factory.statement_inspector=org.xiangan.fruitshopweb.QueryPlanTest$SqlCapture"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class QueryPlanTest {
+
+	private static final LocalDateTime BEGIN = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+	private static final LocalDateTime END = LocalDateTime.of(2025, 4, 1, 0, 0);
+
+	private static final Pattern PARAMETER = Pattern.compile("\\?");
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private MiscellaneousRepository miscellaneousRepository;
+
+	@Autowired
+	private PurchaseRepository purchaseRepository;
+
+	@Autowired
+	private WastageRepository wastageRepository;
+
+	@Autowired
+	private RevenueRepository revenueRepository;
+
+	/**
+	 * 記錄 Hibernate 送出的 SQL
+	 */
+	public static class SqlCapture implements StatementInspector {
+
+		private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+		@Override
+		public String inspect(final String sql) {
+			STATEMENTS.add(sql);
+			return sql;
+		}
+	}
+
+	@BeforeEach
+	void setUp() {
+		SqlCapture.STATEMENTS.clear();
+	}
+
+	/**
+	 * @return 最後一個 SQL
+	 */
+	private static String lastStatement() {
+		assertFalse(SqlCapture.STATEMENTS.isEmpty());
+		return SqlCapture.STATEMENTS.get(SqlCapture.STATEMENTS.size() - 1);
+	}
+
+	/**
+	 * @param sql 含參數的 SQL
+	 * @param parameters 依序代入的參數
+	 * @return 執行計畫
+	 */
+	private String explain(final String sql, final Object... parameters) {
+		Matcher matcher = PARAMETER.matcher(sql);
+		StringBuilder literal = new StringBuilder();
+		int index = 0;
+		while (matcher.find()) {
+			Object parameter = parameters[index++];
+			String value = parameter instanceof LocalDate || parameter instanceof Date
+				? String.format("DATE '%s'", parameter)
+				: String.format("TIMESTAMP '%s'", Timestamp.valueOf((LocalDateTime) parameter));
+			matcher.appendReplacement(literal, value);
+		}
+		matcher.appendTail(literal);
+		assertEquals(parameters.length, index, sql);
+
+		String plan = jdbcTemplate.queryForObject("EXPLAIN " + literal, String.class);
+		assertNotNull(plan);
+		return plan.toLowerCase();
+	}
+
+	@Test
+	void miscellaneousSummaryUsesCoveringIndex() {
+		miscellaneousRepository.sumAmountBetweenDates(BEGIN, END);
+
+		String plan = explain(lastStatement(), BEGIN, END);
+		assertTrue(plan.contains("idx_miscellaneous_date_amount"), plan);
+	}
+
+	@Test
+	void exportsUseDateIndexes() {
+		try (Stream<MiscellaneousView> views = miscellaneousRepository.streamViews(BEGIN, END)) {
+			views.findFirst();
+		}
+		String miscellaneous = explain(lastStatement(), BEGIN, BEGIN, END, END);
+		assertTrue(miscellaneous.contains("idx_miscellaneous_date_amount"), miscellaneous);
+
+		try (Stream<PurchaseView> views = purchaseRepository.streamViews(BEGIN, END)) {
+			views.findFirst();
+		}
+		String purchase = explain(lastStatement(), BEGIN, BEGIN, END, END);
+		assertTrue(purchase.contains("idx_purchase_receiving_date"), purchase);
+
+		Date begin = Date.valueOf(BEGIN.toLocalDate());
+		Date end = Date.valueOf(END.toLocalDate());
+		try (Stream<WastageView> views = wastageRepository.streamViews(begin, end)) {
+			views.findFirst();
+		}
+		String wastage = explain(lastStatement(), begin, begin, end, end);
+		assertTrue(wastage.contains("idx_wastage_date"), wastage);
+	}
+
+	@Test
+	void revenueSummariesUseCoveringIndex() {
+		Date begin = Date.valueOf(BEGIN.toLocalDate());
+		Date end = Date.valueOf(END.toLocalDate());
+
+		revenueRepository.sumGrossIncomeBetweenDates(begin, end);
+		String grossIncome = explain(lastStatement(), begin, end);
+		assertTrue(grossIncome.contains("idx_revenue_record_date"), grossIncome);
+
+		revenueRepository.sumPersonnelExpensesBetweenDates(begin, end);
+		String personnelExpenses = explain(lastStatement(), begin, end);
+		assertTrue(personnelExpenses.contains("idx_revenue_record_date"), personnelExpenses);
+	}
+
+	/**
+	 * 重算每日彙總為 MySQL 原生語法，取 {@code @Query} 的內容並將 {@code INTERVAL 1 DAY} 改為 H2 的寫法
+	 */
+	@Test
+	void rollupRebuildUsesDateIndexes() throws NoSuchMethodException {
+		LocalDate begin = BEGIN.toLocalDate();
+		LocalDate end = END.toLocalDate();
+		String sql = DailyRollupRepository.class
+			.getMethod("insertBetween", LocalDate.class, LocalDate.class)
+			.getAnnotation(Query.class)
+			.value()
+			.replace("INTERVAL 1 DAY", "INTERVAL '1' DAY")
+			.replaceAll(":begin|:end", "?");
+
+		String plan = explain(sql, begin, end, begin, end, begin, end);
+		assertTrue(plan.contains("idx_purchase_receiving_date"), plan);
+		assertTrue(plan.contains("idx_miscellaneous_date_amount"), plan);
+		assertTrue(plan.contains("idx_wastage_date"), plan);
+	}
+}
@@ -0,0 +1,193 @@
+package org.xiangan.fruitshopweb;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.xiangan.fruitshopweb.configuration.AsyncContextTaskDecorator;
+import org.xiangan.fruitshopweb.configuration.DataSourceRoutingConfig;
+import org.xiangan.fruitshopweb.configuration.ReadWriteRoutingDataSource;
+import org.xiangan.fruitshopweb.configuration.ReadYourWrites;
+import org.xiangan.fruitshopweb.configuration.ReplicaLagMonitor;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 讀寫分離：以兩個內嵌資料庫分別作為主庫與副本
+ */
+class ReadWriteRoutingTest {
+
+	private EmbeddedDatabase primary;
+
+	private EmbeddedDatabase replica;
+
+	private ReplicaLagMonitor monitor;
+
+	private JdbcTemplate jdbcTemplate;
+
+	private TransactionTemplate readWrite;
+
+	private TransactionTemplate readOnly;
+
+	/**
+	 * @param name 資料庫名稱
+	 * @return 內含自身名稱與複寫延遲的內嵌資料庫
+	 */
+	private static EmbeddedDatabase database(final String name) {
+		EmbeddedDatabase database = new EmbeddedDatabaseBuilder()
+			.setType(EmbeddedDatabaseType.H2)
+			.setName(name)
+			.build();
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+		jdbcTemplate.execute("CREATE TABLE whoami (name VARCHAR(20))");
+		jdbcTemplate.update("INSERT INTO whoami VALUES (?)", name);
+		jdbcTemplate.execute("CREATE TABLE replica_status (seconds_behind_source BIGINT)");
+		jdbcTemplate.update("INSERT INTO replica_status VALUES (0)");
+		return database;
+	}
+
+	@BeforeEach
+	void setUp() {
+		primary = database("primary");
+		replica = database("replica");
+		monitor = new ReplicaLagMonitor(
+			replica,
+			"SELECT seconds_behind_source FROM replica_status",
+			"seconds_behind_source",
+			Duration.ofSeconds(5),
+			Duration.ofHours(1));
+
+		LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(
+			new ReadWriteRoutingDataSource(primary, replica, monitor));
+		DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+		jdbcTemplate = new JdbcTemplate(dataSource);
+		readWrite = new TransactionTemplate(transactionManager);
+		readOnly = new TransactionTemplate(transactionManager);
+		readOnly.setReadOnly(true);
+	}
+
+	@AfterEach
+	void tearDown() {
+		ReadYourWrites.close();
+		monitor.close();
+		primary.shutdown();
+		replica.shutdown();
+	}
+
+	private String whoami(final TransactionTemplate transactionTemplate) {
+		return transactionTemplate.execute(
+			status -> jdbcTemplate.queryForObject("SELECT name FROM whoami", String.class));
+	}
+
+	@Test
+	void routesByTransactionReadOnlyFlag() {
+		assertEquals("replica", whoami(readOnly));
+		assertEquals("primary", whoami(readWrite));
+		assertEquals("primary", jdbcTemplate.queryForObject("SELECT name FROM whoami", String.class));
+	}
+
+	@Test
+	void readOnlyCallInsideWriteTransactionStaysOnPrimary() {
+		assertEquals("primary", readWrite.execute(status -> whoami(readOnly)));
+	}
+
+	@Test
+	void readsFollowWritesWithinRequest() {
+		ReadYourWrites.open();
+		assertEquals("replica", whoami(readOnly));
+
+		whoami(readWrite);
+
+		assertEquals("primary", whoami(readOnly));
+		ReadYourWrites.close();
+		assertEquals("replica", whoami(readOnly));
+	}
+
+	@Test
+	void writeMarkIsSharedWithAsyncTasks() {
+		ReadYourWrites.open();
+		AtomicReference<String> target = new AtomicReference<>();
+		Runnable task = new AsyncContextTaskDecorator().decorate(() -> target.set(whoami(readOnly)));
+
+		whoami(readWrite);
+		CompletableFuture.runAsync(task).join();
+
+		assertEquals("primary", target.get());
+	}
+
+	@Test
+	void pinnedReadsUsePrimaryIncludingAsyncTasks() {
+		ReadYourWrites.open();
+		AtomicReference<String> target = new AtomicReference<>();
+
+		String pinned = ReadYourWrites.primary(() -> {
+			Runnable task = new AsyncContextTaskDecorator().decorate(() -> target.set(whoami(readOnly)));
+			CompletableFuture.runAsync(task).join();
+			return whoami(readOnly);
+		});
+
+		assertEquals("primary", pinned);
+		assertEquals("primary", target.get());
+		// 結束後還原請求原本的標記
+		assertEquals("replica", whoami(readOnly));
+		ReadYourWrites.close();
+		assertEquals("primary", ReadYourWrites.primary(() -> whoami(readOnly)));
+		assertEquals("replica", whoami(readOnly));
+	}
+
+	@Test
+	void fallsBackToPrimaryWhileReplicaLags() {
+		new JdbcTemplate(replica).update("UPDATE replica_status SET seconds_behind_source = 30");
+		monitor.check();
+		assertFalse(monitor.isAvailable());
+		assertEquals("primary", whoami(readOnly));
+
+		new JdbcTemplate(replica).update("UPDATE replica_status SET seconds_behind_source = NULL");
+		monitor.check();
+		assertEquals("primary", whoami(readOnly));
+
+		new JdbcTemplate(replica).update("UPDATE replica_status SET seconds_behind_source = 1");
+		monitor.check();
+		assertTrue(monitor.isAvailable());
+		assertEquals("replica", whoami(readOnly));
+	}
+
+	@Test
+	void replicaPoolCopiesPrimaryDriverProperties() {
+		new ApplicationContextRunner()
+			.withInitializer(context ->
+				context.getBeanFactory().setConversionService(ApplicationConversionService.getSharedInstance()))
+			.withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class))
+			.withUserConfiguration(DataSourceRoutingConfig.class)
+			.withPropertyValues(
+				"spring.datasource.url=jdbc:h2:mem:primary-pool",
+				"spring.datasource.hikari.data-source-properties.characterEncoding=UTF-8",
+				"spring.datasource.replica.url=jdbc:h2:mem:replica-pool",
+				"spring.datasource.replica.hikari.data-source-properties.defaultFetchSize=100",
+				"spring.datasource.replica.lag-query=")
+			.run(context -> {
+				HikariDataSource replicaPool = context.getBean("replicaDataSource", HikariDataSource.class);
+				assertEquals("UTF-8", replicaPool.getDataSourceProperties().getProperty("characterEncoding"));
+				assertEquals("100", replicaPool.getDataSourceProperties().getProperty("defaultFetchSize"));
+				assertEquals(
+					"UTF-8",
+					context.getBean("primaryDataSource", HikariDataSource.class)
+						.getDataSourceProperties().getProperty("characterEncoding"));
+			});
+	}
+}
@@ -0,0 +1,128 @@
+package org.xiangan.fruitshopweb;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.ActionQueue;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.xiangan.fruitshopweb.repository.DailyRollupRepository;
+import org.xiangan.fruitshopweb.repository.MiscellaneousHourlyRollupRepository;
+import org.xiangan.fruitshopweb.service.RollupService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class RollupServiceTest {
+
+	private final DailyRollupRepository dailyRollupRepository = mock(DailyRollupRepository.class);
+
+	private final MiscellaneousHourlyRollupRepository miscellaneousHourlyRollupRepository =
+		mock(MiscellaneousHourlyRollupRepository.class);
+
+	private final EntityManager entityManager = mock(EntityManager.class);
+
+	private final SessionImplementor session = mock(SessionImplementor.class);
+
+	private final ActionQueue actionQueue = mock(ActionQueue.class);
+
+	private final RollupService self = mock(RollupService.class);
+
+	private final RollupService rollupService = newRollupService();
+
+	private RollupService newRollupService() {
+		RollupService service = new RollupService(dailyRollupRepository, miscellaneousHourlyRollupRepository, 2);
+		when(entityManager.unwrap(SessionImplementor.class)).thenReturn(session);
+		when(session.getActionQueue()).thenReturn(actionQueue);
+		ReflectionTestUtils.setField(service, "entityManager", entityManager);
+		ReflectionTestUtils.setField(service, "self", self);
+		return service;
+	}
+
+	/**
+	 * 模擬提交：執行登記於 Hibernate 的交易完成前處理，再結束 Spring 交易
+	 */
+	private void commit() {
+		ArgumentCaptor<BeforeTransactionCompletionProcess> process =
+			ArgumentCaptor.forClass(BeforeTransactionCompletionProcess.class);
+		verify(actionQueue).registerProcess(process.capture());
+		process.getValue().doBeforeTransactionCompletion(session);
+		TransactionSynchronizationManager.getSynchronizations()
+			.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void accumulatesPerDayAndWritesOnceBeforeCommit() {
+		LocalDate monday = LocalDate.of(2025, 3, 3);
+		LocalDate tuesday = LocalDate.of(2025, 3, 4);
+		LocalDate wednesday = LocalDate.of(2025, 3, 5);
+		TransactionSynchronizationManager.initSynchronization();
+
+		rollupService.record(monday, new BigDecimal("10.00"), BigDecimal.ZERO, BigDecimal.ZERO);
+		rollupService.record(monday, BigDecimal.ZERO, new BigDecimal("3.50"), BigDecimal.ZERO);
+		rollupService.record(monday, new BigDecimal("5.00"), BigDecimal.ZERO, BigDecimal.ZERO);
+		rollupService.record(tuesday, BigDecimal.ZERO, BigDecimal.ZERO, new BigDecimal("2.00"));
+		// 編輯後移至其他日期：同一天一加一減，不需寫入
+		rollupService.record(wednesday, new BigDecimal("7.00"), BigDecimal.ZERO, BigDecimal.ZERO);
+		rollupService.record(wednesday, new BigDecimal("-7.00"), BigDecimal.ZERO, BigDecimal.ZERO);
+
+		verifyNoInteractions(dailyRollupRepository);
+		assertEquals(1, TransactionSynchronizationManager.getSynchronizations().size());
+
+		commit();
+
+		verify(dailyRollupRepository).add(monday, new BigDecimal("15.00"), new BigDecimal("3.50"), BigDecimal.ZERO);
+		verify(dailyRollupRepository).add(tuesday, BigDecimal.ZERO, BigDecimal.ZERO, new BigDecimal("2.00"));
+		verify(dailyRollupRepository, never()).add(eq(wednesday), any(), any(), any());
+		assertFalse(TransactionSynchronizationManager.hasResource(rollupService));
+	}
+
+	@Test
+	void accumulatesMiscellaneousPerDayAndHour() {
+		LocalDateTime morning = LocalDateTime.of(2025, 3, 3, 9, 15);
+		TransactionSynchronizationManager.initSynchronization();
+
+		rollupService.recordMiscellaneous(morning, new BigDecimal("10.00"));
+		rollupService.recordMiscellaneous(morning.plusMinutes(30), new BigDecimal("2.50"));
+		rollupService.recordMiscellaneous(morning.plusHours(1), new BigDecimal("4.00"));
+		// 編輯後移至其他整點：原整點一加一減，不需寫入
+		rollupService.recordMiscellaneous(morning.plusHours(2), new BigDecimal("1.00"));
+		rollupService.recordMiscellaneous(morning.plusHours(2), new BigDecimal("-1.00"));
+
+		commit();
+
+		verify(dailyRollupRepository)
+			.add(morning.toLocalDate(), BigDecimal.ZERO, new BigDecimal("16.50"), BigDecimal.ZERO);
+		verify(miscellaneousHourlyRollupRepository).add(LocalDateTime.of(2025, 3, 3, 9, 0), new BigDecimal("12.50"));
+		verify(miscellaneousHourlyRollupRepository).add(LocalDateTime.of(2025, 3, 3, 10, 0), new BigDecimal("4.00"));
+		verify(miscellaneousHourlyRollupRepository, never()).add(eq(LocalDateTime.of(2025, 3, 3, 11, 0)), any());
+	}
+
+	@Test
+	void rebuildsByMonthPartition() {
+		when(self.rebuildPartition(any(), any())).thenReturn(CompletableFuture.completedFuture(10));
+
+		int days = rollupService.rebuild(LocalDate.of(2024, 1, 15), LocalDate.of(2024, 3, 10)).join();
+
+		assertEquals(30, days);
+		verify(self).rebuildPartition(LocalDate.of(2024, 1, 15), LocalDate.of(2024, 1, 31));
+		verify(self).rebuildPartition(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29));
+		verify(self).rebuildPartition(LocalDate.of(2024, 3, 1), LocalDate.of(2024, 3, 10));
+	}
+}
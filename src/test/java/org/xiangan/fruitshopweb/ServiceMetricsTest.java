@@ -0,0 +1,133 @@
+package org.xiangan.fruitshopweb;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.stereotype.Service;
+import org.xiangan.fruitshopweb.configuration.MetricsConfig;
+import org.xiangan.fruitshopweb.configuration.ServiceMetricsInterceptor;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 服務層計時位於 {@code @Async} 之外，記錄執行時間與呼叫端等待 Future 的時間
+ */
+class ServiceMetricsTest {
+
+	private final AnnotationConfigApplicationContext context =
+		new AnnotationConfigApplicationContext(TestConfig.class);
+
+	private final MeterRegistry registry = context.getBean(MeterRegistry.class);
+
+	private final SlowService service = context.getBean(SlowService.class);
+
+	@AfterEach
+	void tearDown() {
+		context.close();
+	}
+
+	@Test
+	void timesSynchronousCalls() {
+		assertEquals("ok", service.echo("ok"));
+		assertThrows(IllegalArgumentException.class, () -> service.echo(null));
+
+		assertEquals(1, timer(ServiceMetricsInterceptor.METHOD_TIMER, "echo", "none").count());
+		assertEquals(1, timer(ServiceMetricsInterceptor.METHOD_TIMER, "echo", "IllegalArgumentException").count());
+	}
+
+	@Test
+	void timesAsyncCallsUntilCompletionAndCallerWait() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<String> future = service.slow(release);
+		assertFalse(future.isDone());
+
+		Thread.ofVirtual().start(() -> {
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException ignored) {
+				Thread.currentThread().interrupt();
+			}
+			release.countDown();
+		});
+		assertEquals("done", future.get(5, TimeUnit.SECONDS));
+
+		Timer method = timer(ServiceMetricsInterceptor.METHOD_TIMER, "slow", "none");
+		Timer wait = timer(ServiceMetricsInterceptor.WAIT_TIMER, "slow", "none");
+		assertEquals(1, method.count());
+		assertEquals(1, wait.count());
+		assertTrue(method.totalTime(TimeUnit.MILLISECONDS) >= 40);
+		assertTrue(wait.totalTime(TimeUnit.MILLISECONDS) >= 40);
+
+		// 已完成的 Future 不再記錄等待
+		future.join();
+		assertEquals(1, wait.count());
+	}
+
+	@Test
+	void tagsAsyncFailureWithCause() {
+		CompletableFuture<String> future = service.fail();
+
+		ExecutionException exception = assertThrows(ExecutionException.class, future::get);
+		assertInstanceOf(IllegalStateException.class, exception.getCause());
+		assertEquals(1, timer(ServiceMetricsInterceptor.METHOD_TIMER, "fail", "IllegalStateException").count());
+	}
+
+	private Timer timer(final String name, final String method, final String exception) {
+		return registry.get(name)
+			.tag("class", "SlowService")
+			.tag("method", method)
+			.tag("exception", exception)
+			.timer();
+	}
+
+	@Configuration
+	@EnableAsync
+	@Import(MetricsConfig.class)
+	static class TestConfig {
+
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+
+		@Bean
+		SlowService slowService() {
+			return new SlowService();
+		}
+	}
+
+	@Service
+	static class SlowService {
+
+		public String echo(final String value) {
+			if (value == null) {
+				throw new IllegalArgumentException("value");
+			}
+			return value;
+		}
+
+		@Async
+		public CompletableFuture<String> slow(final CountDownLatch release) throws InterruptedException {
+			release.await();
+			return CompletableFuture.completedFuture("done");
+		}
+
+		@Async
+		public CompletableFuture<String> fail() {
+			throw new IllegalStateException("fail");
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package org.xiangan.fruitshopweb;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.xiangan.fruitshopweb.configuration.SecurityConfig;
+import org.xiangan.fruitshopweb.controller.LoggingController;
+import org.xiangan.fruitshopweb.entity.Person;
+import org.xiangan.fruitshopweb.enumType.LevelEnum;
+import org.xiangan.fruitshopweb.model.SqlTracingSettings;
+import org.xiangan.fruitshopweb.repository.PersonRepository;
+import org.xiangan.fruitshopweb.service.CredentialService;
+import org.xiangan.fruitshopweb.service.IdempotencyService;
+import org.xiangan.fruitshopweb.service.JwtService;
+import org.xiangan.fruitshopweb.service.PrincipalCacheService;
+import org.xiangan.fruitshopweb.service.SqlTracingService;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 切換 SQL 追蹤僅限老闆，其他已登入的身分仍可讀取設定
+ */
+@WebMvcTest(controllers = LoggingController.class)
+@Import({SecurityConfig.class, JwtService.class, SqlTracingSecurityTest.Metrics.class})
+class SqlTracingSecurityTest {
+
+	@TestConfiguration
+	static class Metrics {
+
+		@Bean
+		MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+	}
+
+	@MockBean
+	private SqlTracingService sqlTracingService;
+
+	@MockBean
+	private PrincipalCacheService principalCacheService;
+
+	@MockBean
+	private PersonRepository personRepository;
+
+	@MockBean
+	private CredentialService credentialService;
+
+	@MockBean
+	private IdempotencyService idempotencyService;
+
+	@Autowired
+	private JwtService jwtService;
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	/**
+	 * @param level 身分等級
+	 * @return 該身分的 Authorization 標頭值
+	 */
+	private String bearer(final LevelEnum level) {
+		Person person = new Person();
+		person.setEmail(level.name().toLowerCase() + "@xiangan.tw");
+		person.setLevel(level);
+		when(principalCacheService.load(person.getEmail())).thenReturn(person);
+		return "Bearer " + jwtService.generateToken(person);
+	}
+
+	@Test
+	void onlyBossSwitchesTracing() throws Exception {
+		when(sqlTracingService.load()).thenReturn(new SqlTracingSettings(SqlTracingService.Mode.OFF, 0, null));
+		when(sqlTracingService.update(any(), anyDouble(), any())).thenReturn(new SqlTracingSettings(SqlTracingService.Mode.OFF, 0, null));
+
+		mockMvc.perform(post("/logging/sql-tracing").param("mode", "ALL")
+				.header(HttpHeaders.AUTHORIZATION, bearer(LevelEnum.EMPLOYEE)))
+			.andExpect(status().isForbidden());
+		mockMvc.perform(get("/logging/sql-tracing")
+				.header(HttpHeaders.AUTHORIZATION, bearer(LevelEnum.EMPLOYEE)))
+			.andExpect(status().isOk());
+		verify(sqlTracingService, never()).update(any(), anyDouble(), any());
+
+		mockMvc.perform(post("/logging/sql-tracing").param("mode", "ALL")
+				.header(HttpHeaders.AUTHORIZATION, bearer(LevelEnum.BOSS)))
+			.andExpect(status().isOk());
+		verify(sqlTracingService).update(SqlTracingService.Mode.ALL, 0, null);
+	}
+}
@@ -0,0 +1,59 @@
+package org.xiangan.fruitshopweb;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.xiangan.fruitshopweb.exception.CustomException;
+import org.xiangan.fruitshopweb.filter.SqlTraceTurboFilter;
+import org.xiangan.fruitshopweb.service.SqlTracingService;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SqlTracingTest {
+
+	@AfterEach
+	void tearDown() {
+		MDC.clear();
+	}
+
+	@Test
+	void tracesByModeAndRequestId() {
+		SqlTracingService service = new SqlTracingService(SqlTracingService.Mode.OFF, 0, "trace-me");
+
+		assertFalse(service.shouldTrace("other"));
+		assertTrue(service.shouldTrace("trace-me"));
+
+		service.update(SqlTracingService.Mode.ALL, 0, null);
+		assertTrue(service.shouldTrace("other"));
+		assertNull(service.load().getRequestId());
+
+		service.update(SqlTracingService.Mode.SAMPLED, 0, "");
+		assertTrue(IntStream.range(0, 1000).noneMatch(i -> service.shouldTrace("other")));
+
+		service.update(SqlTracingService.Mode.SAMPLED, 100, null);
+		assertTrue(IntStream.range(0, 1000).allMatch(i -> service.shouldTrace("other")));
+
+		assertThrows(CustomException.class, () -> service.update(SqlTracingService.Mode.SAMPLED, 101, null));
+	}
+
+	@Test
+	void enablesSqlLoggerOnlyForTracedRequests() {
+		LoggerContext context = new LoggerContext();
+		context.addTurboFilter(new SqlTraceTurboFilter());
+		context.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.INFO);
+		Logger sql = context.getLogger("org.hibernate.SQL");
+		Logger other = context.getLogger("org.xiangan.fruitshopweb");
+
+		assertFalse(sql.isDebugEnabled());
+
+		MDC.put(SqlTraceTurboFilter.MDC_KEY, "true");
+		assertTrue(sql.isDebugEnabled());
+		assertFalse(sql.isTraceEnabled());
+		assertFalse(other.isDebugEnabled());
+	}
+}
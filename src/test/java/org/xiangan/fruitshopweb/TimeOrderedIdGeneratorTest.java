@@ -0,0 +1,61 @@
+package org.xiangan.fruitshopweb;
+
+import org.junit.jupiter.api.Test;
+import org.xiangan.fruitshopweb.generator.TimeOrderedIdGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedIdGeneratorTest {
+
+	private final AtomicLong clock = new AtomicLong(1_750_000_000_000L);
+
+	private final TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(3) {
+		@Override
+		protected long currentTimeMillis() {
+			return clock.get();
+		}
+	};
+
+	@Test
+	void matchesControllerPathPattern() {
+		assertTrue(generator.next().matches("^[A-Za-z0-9]{10}$"));
+	}
+
+	@Test
+	void strictlyIncreasingWithinSameMillisecondAndBeyondSequence() {
+		List<String> ids = new ArrayList<>();
+		for (int i = 0; i < 10_000; i++) {
+			ids.add(generator.next());
+		}
+
+		for (int i = 1; i < ids.size(); i++) {
+			assertTrue(ids.get(i - 1).compareTo(ids.get(i)) < 0, ids.get(i - 1) + " >= " + ids.get(i));
+		}
+	}
+
+	@Test
+	void staysIncreasingWhenClockMovesBackwards() {
+		String before = generator.next();
+		clock.addAndGet(-60_000);
+
+		assertTrue(before.compareTo(generator.next()) < 0);
+	}
+
+	@Test
+	void laterMillisecondSortsAfter() {
+		String before = generator.next();
+		clock.incrementAndGet();
+
+		assertTrue(before.compareTo(generator.next()) < 0);
+	}
+
+	@Test
+	void rejectsNodeOutOfRange() {
+		assertThrows(IllegalArgumentException.class, () -> new TimeOrderedIdGenerator(TimeOrderedIdGenerator.MAX_NODE + 1));
+		assertThrows(IllegalArgumentException.class, () -> new TimeOrderedIdGenerator(-1));
+	}
+}
@@ -0,0 +1,92 @@
+package org.xiangan.fruitshopweb;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.xiangan.fruitshopweb.entity.Person;
+import org.xiangan.fruitshopweb.entity.Product;
+import org.xiangan.fruitshopweb.exception.CustomException;
+import org.xiangan.fruitshopweb.repository.PersonRepository;
+import org.xiangan.fruitshopweb.repository.ProductRepository;
+import org.xiangan.fruitshopweb.service.*;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class UniqueConstraintTest {
+
+	private final ProductRepository productRepository = mock(ProductRepository.class);
+
+	private final PersonRepository personRepository = mock(PersonRepository.class);
+
+	private final ProductCatalogService productCatalogService = mock(ProductCatalogService.class);
+
+	private final ProductService productService =
+		new ProductService(productRepository, mock(PersonService.class), productCatalogService);
+
+	private final PersonService personService = new PersonService(
+		personRepository,
+		mock(PrincipalCacheService.class),
+		productCatalogService,
+		new ChangeVersionService(),
+		mock(CredentialService.class));
+
+	/**
+	 * @param constraint MySQL 回報的約束名稱
+	 * @return Spring 轉換後的寫入例外
+	 */
+	private static DataIntegrityViolationException violation(final String constraint) {
+		return new DataIntegrityViolationException(
+			"could not execute statement",
+			new ConstraintViolationException(
+				"could not execute statement",
+				new SQLException(String.format("Duplicate entry 'x' for key '%s'", constraint), "23000", 1062),
+				constraint));
+	}
+
+	@Test
+	void duplicateProductReliesOnUniqueIndex() {
+		Product product = new Product();
+		product.setProductName("蘋果");
+		product.setUnitPrice(BigDecimal.TEN);
+		when(productRepository.saveAndFlush(product)).thenThrow(violation("product.uq_product_name_unit_price"));
+
+		CustomException exception = assertThrows(CustomException.class, () -> productService.save(product));
+
+		assertEquals("已有重複的產品名稱：蘋果❗️", exception.getMessage());
+		verify(productRepository).saveAndFlush(product);
+		verifyNoMoreInteractions(productRepository);
+		verifyNoInteractions(productCatalogService);
+	}
+
+	@Test
+	void otherConstraintIsNotReportedAsDuplicate() {
+		Product product = new Product();
+		product.setProductName("蘋果");
+		when(productRepository.saveAndFlush(product)).thenThrow(violation("product.fk_product_person"));
+
+		CustomException exception = assertThrows(CustomException.class, () -> productService.save(product));
+
+		assertFalse(exception.getMessage().startsWith("已有重複的產品名稱"));
+		assertTrue(exception.getMessage().startsWith("持久化產品時違反資料完整性約束"), exception.getMessage());
+		assertTrue(exception.getMessage().contains("product.fk_product_person"), exception.getMessage());
+	}
+
+	@Test
+	void duplicatePersonReliesOnUniqueIndex() {
+		Person person = new Person();
+		person.setPhoneNumber("0912345678");
+		person.setCompany("祥安");
+		when(personRepository.saveAndFlush(person)).thenThrow(violation("person.uq_number_company"));
+
+		DuplicateKeyException exception = assertThrows(DuplicateKeyException.class, () -> personService.save(person));
+
+		assertEquals("已有重複的人員電話：0912345678❗️", exception.getMessage());
+		verify(personRepository).saveAndFlush(person);
+		verifyNoMoreInteractions(personRepository);
+	}
+}
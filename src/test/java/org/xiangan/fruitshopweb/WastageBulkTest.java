@@ -0,0 +1,106 @@
+package org.xiangan.fruitshopweb;
+
+import org.junit.jupiter.api.Test;
+import org.xiangan.fruitshopweb.entity.Product;
+import org.xiangan.fruitshopweb.entity.Wastage;
+import org.xiangan.fruitshopweb.enumType.UnitTypeEnum;
+import org.xiangan.fruitshopweb.model.LineResult;
+import org.xiangan.fruitshopweb.model.WastageLine;
+import org.xiangan.fruitshopweb.repository.WastageRepository;
+import org.xiangan.fruitshopweb.service.InventoryService;
+import org.xiangan.fruitshopweb.service.ProductService;
+import org.xiangan.fruitshopweb.service.WastageService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class WastageBulkTest {
+
+	private final WastageRepository wastageRepository = mock(WastageRepository.class);
+
+	private final ProductService productService = mock(ProductService.class);
+
+	private final InventoryService inventoryService = mock(InventoryService.class);
+
+	private final WastageService wastageService =
+		new WastageService(wastageRepository, productService, inventoryService);
+
+	private static Product product(String id, double inventory) {
+		Product product = new Product();
+		product.setId(id);
+		product.setProductName(id);
+		product.setUnitType(UnitTypeEnum.JIN);
+		product.setInventory(inventory);
+		return product;
+	}
+
+	private static WastageLine line(String productId, Double quantity) {
+		WastageLine line = new WastageLine();
+		line.setProductId(productId);
+		line.setQuantity(quantity);
+		line.setDate(new Date());
+		return line;
+	}
+
+	@Test
+	void rejectsEveryLineOfProductWhoseTotalExceedsInventory() {
+		when(productService.load(Set.of("apple00001", "pear000001")))
+			.thenReturn(CompletableFuture.completedFuture(
+				List.of(product("apple00001", 10), product("pear000001", 10))));
+
+		List<WastageLine> lines = new ArrayList<>(Arrays.asList(
+			line("apple00001", 4.0),
+			line("pear000001", 6.0),
+			null,
+			line("apple00001", 6.0),
+			line("pear000001", 6.0),
+			line("apple00001", 0.0)
+		));
+
+		List<LineResult> results = wastageService.create(lines, 500);
+
+		assertTrue(results.get(0).isSuccess());
+		assertTrue(results.get(3).isSuccess());
+		assertFalse(results.get(1).isSuccess());
+		assertFalse(results.get(2).isSuccess());
+		assertFalse(results.get(4).isSuccess());
+		assertFalse(results.get(5).isSuccess());
+		assertEquals(501, results.get(0).getLine());
+		assertEquals(results.get(1).getError(), results.get(4).getError());
+
+		verify(inventoryService).tryAdd(Map.of("apple00001", -6_000_000L));
+		verify(wastageRepository).saveAll(argThat((Iterable<Wastage> wastages) ->
+			wastages.spliterator().getExactSizeIfKnown() == 2));
+	}
+
+	@Test
+	void reportsLinesOfProductDeductedConcurrentlyAfterCheck() {
+		when(productService.load(Set.of("apple00001", "pear000001")))
+			.thenReturn(CompletableFuture.completedFuture(
+				List.of(product("apple00001", 10), product("pear000001", 10))));
+		// 檢查時庫存足夠，條件式 UPDATE 時已被其他交易扣減
+		when(inventoryService.tryAdd(anyMap())).thenReturn(Set.of("pear000001"));
+
+		List<LineResult> results = wastageService.create(List.of(
+			line("apple00001", 4.0),
+			line("pear000001", 3.0),
+			line("pear000001", 2.0)
+		), 0);
+
+		assertTrue(results.get(0).isSuccess());
+		assertFalse(results.get(1).isSuccess());
+		assertFalse(results.get(2).isSuccess());
+		assertTrue(results.get(1).getError().contains("pear000001"));
+		verify(inventoryService, never()).add(anyMap());
+		verify(wastageRepository).saveAll(argThat((Iterable<Wastage> wastages) ->
+			wastages.spliterator().getExactSizeIfKnown() == 1));
+	}
+}